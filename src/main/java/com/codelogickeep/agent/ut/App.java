@@ -2,6 +2,10 @@ package com.codelogickeep.agent.ut;
 
 import com.codelogickeep.agent.ut.config.AppConfig;
 import com.codelogickeep.agent.ut.framework.SimpleAgentOrchestrator;
+import com.codelogickeep.agent.ut.framework.executor.BudgetGovernor;
+import com.codelogickeep.agent.ut.framework.pipeline.ForkedTestRunner;
+import com.codelogickeep.agent.ut.framework.pipeline.IncrementalTestCompiler;
+import com.codelogickeep.agent.ut.tools.BuildSlots;
 import com.codelogickeep.agent.ut.tools.CodeAnalyzerTool;
 import com.codelogickeep.agent.ut.tools.FileSystemTool;
 import com.codelogickeep.agent.ut.tools.LspSyntaxCheckerTool;
@@ -17,11 +21,15 @@ import picocli.CommandLine.Option;
 import com.fasterxml.jackson.annotation.JsonInclude;
 
 import com.codelogickeep.agent.ut.engine.BatchAnalyzer;
+import com.codelogickeep.agent.ut.engine.BatchScheduler;
+import com.codelogickeep.agent.ut.engine.RunJournal;
+import com.codelogickeep.agent.ut.engine.WorkPrioritizer;
 import com.codelogickeep.agent.ut.model.TestTask;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.concurrent.Callable;
@@ -65,6 +73,10 @@ public class App implements Callable<Integer> {
             "--temperature" }, description = "Override LLM Temperature for this run. Does not save to config.")
     private Double temperature;
 
+    @Option(names = {
+            "--response-cache" }, description = "Override llm.response-cache for this run: off, on, or replay (serve only from cache, never call the API).")
+    private String responseCache;
+
     @Option(names = { "--max-retries" }, description = "Override Max Retries for this run. Does not save to config.")
     private Integer maxRetries;
 
@@ -87,6 +99,14 @@ public class App implements Callable<Integer> {
     @Option(names = { "--dry-run" }, description = "Batch mode: analyze only, print report without generating tests.")
     private boolean dryRun;
 
+    @Option(names = {
+            "--concurrency" }, description = "Batch mode: number of classes processed concurrently. Overrides batch.concurrency.")
+    private Integer concurrency;
+
+    @Option(names = {
+            "--resume" }, description = "Batch mode: resume the run with this id (see .utagent/runs), skipping completed classes and methods.")
+    private String resumeRunId;
+
     @Option(names = {
             "--threshold" }, description = "Coverage threshold (0-100). Methods below this threshold will be targeted. Default: 80.")
     private Integer coverageThreshold;
@@ -126,6 +146,9 @@ public class App implements Callable<Integer> {
         if (temperature != null) {
             config.getLlm().setTemperature(temperature);
         }
+        if (responseCache != null) {
+            config.getLlm().setResponseCache(responseCache);
+        }
 
         if (config.getWorkflow() == null) {
             config.setWorkflow(new AppConfig.WorkflowConfig());
@@ -198,32 +221,17 @@ public class App implements Callable<Integer> {
             }
 
             // 第一遍：设置基本属性和找到关键工具
+            configureTools(tools, config, projectRoot);
             SyntaxCheckerTool syntaxCheckerTool = null;
             LspSyntaxCheckerTool lspSyntaxCheckerTool = null;
 
             for (Object tool : tools) {
-                if (tool instanceof FileSystemTool) {
-                    ((FileSystemTool) tool).setProjectRoot(projectRoot);
-                    ((FileSystemTool) tool).setInteractive(config.getWorkflow().isInteractive());
-                }
-                if (tool instanceof MavenExecutorTool) {
-                    ((MavenExecutorTool) tool).setProjectRoot(projectRoot);
-                }
                 if (tool instanceof SyntaxCheckerTool && !(tool instanceof LspSyntaxCheckerTool)) {
                     syntaxCheckerTool = (SyntaxCheckerTool) tool;
-                    syntaxCheckerTool.setProjectRoot(projectRoot);
                 }
                 if (tool instanceof LspSyntaxCheckerTool) {
                     lspSyntaxCheckerTool = (LspSyntaxCheckerTool) tool;
                 }
-                // 设置 MethodIteratorTool 的项目根路径（迭代模式需要）
-                if (tool instanceof MethodIteratorTool) {
-                    ((MethodIteratorTool) tool).setProjectRoot(projectRoot);
-                }
-                // 设置 CodeAnalyzerTool 的项目根路径
-                if (tool instanceof CodeAnalyzerTool) {
-                    ((CodeAnalyzerTool) tool).setProjectRoot(projectRoot);
-                }
             }
 
             // 当 use-lsp: true 时，自动初始化 LSP 服务
@@ -289,6 +297,31 @@ public class App implements Callable<Integer> {
         }
     }
 
+    private void configureTools(List<Object> tools, AppConfig config, String projectRoot) {
+        for (Object tool : tools) {
+            if (tool instanceof FileSystemTool) {
+                ((FileSystemTool) tool).setProjectRoot(projectRoot);
+                ((FileSystemTool) tool).setInteractive(config.getWorkflow().isInteractive());
+            }
+            if (tool instanceof MavenExecutorTool) {
+                ((MavenExecutorTool) tool).setProjectRoot(projectRoot);
+                ((MavenExecutorTool) tool).setMavenDaemon(config.getWorkflow().getMavenDaemon());
+                ((MavenExecutorTool) tool).setOutputTailLines(config.getWorkflow().getBuildOutputTailLines());
+            }
+            if (tool instanceof SyntaxCheckerTool && !(tool instanceof LspSyntaxCheckerTool)) {
+                ((SyntaxCheckerTool) tool).setProjectRoot(projectRoot);
+            }
+            // 设置 MethodIteratorTool 的项目根路径（迭代模式需要）
+            if (tool instanceof MethodIteratorTool) {
+                ((MethodIteratorTool) tool).setProjectRoot(projectRoot);
+            }
+            // 设置 CodeAnalyzerTool 的项目根路径
+            if (tool instanceof CodeAnalyzerTool) {
+                ((CodeAnalyzerTool) tool).setProjectRoot(projectRoot);
+            }
+        }
+    }
+
     private String detectProjectRoot(String targetFilePath) {
         if (targetFilePath == null)
             return ".";
@@ -384,9 +417,30 @@ public class App implements Callable<Integer> {
 
         int threshold = coverageThreshold != null ? coverageThreshold : 80;
         BatchAnalyzer analyzer = new BatchAnalyzer(projectRoot, threshold);
+        AppConfig.BatchConfig batchConfig = config.getBatch() != null ? config.getBatch() : new AppConfig.BatchConfig();
+        int workers = resolveBatchConcurrency(concurrency != null ? concurrency : batchConfig.getConcurrency(),
+                config.getWorkflow());
+        BuildSlots.configure(batchConfig.getBuildSlots());
 
         try {
-            List<TestTask> tasks = analyzer.analyze(excludePatterns);
+            RunJournal journal = null;
+            List<TestTask> tasks = null;
+            if (resumeRunId != null) {
+                journal = RunJournal.open(projectRoot, resumeRunId);
+                tasks = journal.loadTasks();
+                if (tasks != null) {
+                    System.out.println(">>> Resuming run " + resumeRunId + " with its saved analysis ("
+                            + tasks.size() + " classes)");
+                }
+            }
+            WorkPrioritizer prioritizer = new WorkPrioritizer(projectRoot);
+            if (tasks == null) {
+                tasks = analyzer.analyze(excludePatterns, workers);
+                if ("gain".equalsIgnoreCase(WorkPrioritizer.workOrder(config))) {
+                    // Best expected coverage gain per token first; a resumed run keeps the saved order
+                    tasks = prioritizer.orderTasks(tasks);
+                }
+            }
 
             if (tasks.isEmpty()) {
                 System.out.println(">>> No classes need test generation.");
@@ -398,28 +452,85 @@ public class App implements Callable<Integer> {
                 return 0;
             }
 
-            System.out.println(">>> Found " + tasks.size() + " classes needing tests:");
-            for (TestTask t : tasks) {
+            if (journal == null) {
+                journal = RunJournal.create(projectRoot);
+            }
+            journal.saveTasks(tasks);
+            RunJournal runJournal = journal;
+            System.out.println(">>> Run id: " + journal.getId() + " (resume with --resume " + journal.getId() + ")");
+
+            List<TestTask> remaining = tasks.stream()
+                    .filter(t -> !runJournal.isClassCompleted(t.getSourceFilePath()))
+                    .toList();
+            if (remaining.size() < tasks.size()) {
+                System.out.println(">>> Skipping " + (tasks.size() - remaining.size())
+                        + " classes completed in the previous attempt");
+            }
+
+            System.out.println(">>> Found " + remaining.size() + " classes needing tests:");
+            for (TestTask t : remaining) {
                 System.out.println("    - " + t.getSourceFilePath() + " (" + t.getUncoveredMethods().size()
                         + " uncovered methods)");
             }
 
-            // Process each class
-            int processed = 0;
-            for (TestTask task : tasks) {
-                System.out.println(
-                        "\n>>> Processing [" + (++processed) + "/" + tasks.size() + "]: " + task.getSourceFilePath());
+            // Process classes concurrently; builds are serialized through BuildSlots.
+            // Tools such as MethodIteratorTool keep per-class state, so every extra worker gets its own set.
+            ThreadLocal<List<Object>> workerTools = ThreadLocal.withInitial(() -> {
+                List<Object> own = ToolFactory.loadAndWrapTools(config, knowledgeBasePath);
+                configureTools(own, config, projectRoot);
+                return own;
+            });
+            // One budget for the whole batch; classes that start after it is exhausted fail fast and stay resumable
+            BudgetGovernor budget = BudgetGovernor.fromConfig(config.getBudget());
+            int classWorkers = workers;
+            if (classWorkers > 1) {
+                prepareSharedBuild(tools);
+                String unavailable = isolatedVerificationUnavailable(projectRoot);
+                if (unavailable != null) {
+                    // Without Maven fallback every method would fail on an environment problem the LLM cannot repair
+                    System.out.println(">>> Warning: concurrency=" + classWorkers + " needs in-process compile and "
+                            + "the forked test runner, which are unavailable here (" + unavailable
+                            + "), running sequentially");
+                    classWorkers = 1;
+                }
+            }
+            BatchScheduler scheduler = new BatchScheduler(classWorkers);
+            boolean sharedBuild = scheduler.getConcurrency() > 1;
+            System.out.println(">>> Processing with " + scheduler.getConcurrency() + " concurrent worker(s), "
+                    + BuildSlots.permits() + " build slot(s)");
+            BatchScheduler.Summary summary = scheduler.run(remaining, TestTask::getSourceFilePath, task -> {
+                String sourceFile = task.getSourceFilePath();
+                if (!budget.allowNewWork()) {
+                    throw new IllegalStateException("Budget exhausted (" + budget.describe() + "), not started");
+                }
+                runJournal.classStarted(sourceFile);
                 try {
-                    SimpleAgentOrchestrator orchestrator = new SimpleAgentOrchestrator(config, tools);
+                    List<Object> taskTools = scheduler.getConcurrency() > 1 ? workerTools.get() : tools;
+                    SimpleAgentOrchestrator orchestrator = new SimpleAgentOrchestrator(config, taskTools);
+                    orchestrator.setCompletedMethods(runJournal.completedMethods(sourceFile));
+                    orchestrator.setMethodListener(stats -> runJournal.methodFinished(sourceFile, stats));
+                    orchestrator.setWorkPrioritizer(prioritizer);
+                    orchestrator.setBudgetGovernor(budget);
+                    orchestrator.setSharedBuild(sharedBuild);
                     // Pass task context to orchestrator
                     String taskPrompt = analyzer.buildTaskPrompt(task);
-                    orchestrator.run(task.getSourceFilePath(), taskPrompt);
+                    orchestrator.run(sourceFile, taskPrompt);
+                    String incomplete = orchestrator.getIncompleteReason();
+                    if (incomplete != null) {
+                        // Methods left for budget reasons: resume must process the class again
+                        runJournal.classIncomplete(sourceFile, incomplete);
+                    } else {
+                        runJournal.classFinished(sourceFile, true, null);
+                    }
                 } catch (Exception e) {
-                    System.err.println("    Error: " + e.getMessage());
+                    runJournal.classFinished(sourceFile, false, e.getMessage());
+                    throw e;
                 }
-            }
+            });
 
-            System.out.println("\n>>> Batch mode completed. Processed " + processed + " classes.");
+            System.out.println("\n>>> Batch mode completed. Processed " + (summary.completed() + summary.failed())
+                    + " classes (" + summary.failed() + " failed) in " + summary.elapsed().toMinutes() + " min.");
+            System.out.println(budget.report());
             return 0;
         } catch (Exception e) {
             System.err.println("Error during batch analysis: " + e.getMessage());
@@ -428,6 +539,52 @@ public class App implements Callable<Integer> {
         }
     }
 
+    /**
+     * Concurrent workers share one target/ directory, so every worker must compile and run only
+     * its own test file: Maven test-compile would also compile other workers' half-written tests.
+     * Without in-process compile and the forked test runner the batch runs sequentially.
+     */
+    private int resolveBatchConcurrency(int requested, AppConfig.WorkflowConfig workflow) {
+        if (requested > 1 && workflow != null && (!workflow.isInProcessCompile() || !workflow.isForkedTestRunner())) {
+            System.out.println(">>> Warning: concurrency=" + requested
+                    + " requires in-process-compile and forked-test-runner, running sequentially");
+            return 1;
+        }
+        return requested;
+    }
+
+    /**
+     * Run the whole-project clean test once before the workers start. A per-class pre-check would
+     * clean away the test classes and jacoco.exec of the classes other workers are processing.
+     */
+    private void prepareSharedBuild(List<Object> tools) throws IOException, InterruptedException {
+        for (Object tool : tools) {
+            if (tool instanceof MavenExecutorTool maven) {
+                System.out.println(">>> Running 'clean test' once for all workers...");
+                MavenExecutorTool.ExecutionResult result = maven.cleanAndTest();
+                if (result.exitCode() != 0) {
+                    System.out.println(">>> Warning: initial build exited with code " + result.exitCode()
+                            + ", continuing with the coverage data available");
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Probe the in-process compiler and the forked test runner once the shared build exists.
+     *
+     * @return null when both can be used, otherwise the reason
+     */
+    private String isolatedVerificationUnavailable(String projectRoot) {
+        Path root = Paths.get(projectRoot);
+        String reason = new IncrementalTestCompiler().unavailableReason(root);
+        if (reason == null) {
+            reason = ForkedTestRunner.shared().unavailableReason(root);
+        }
+        return reason;
+    }
+
     @Command(name = "config", mixinStandardHelpOptions = true, description = "Configure and persist agent settings to agent.yml.", header = "Agent Configuration Utility", optionListHeading = "%nOptions:%n")
     public static class ConfigCommand implements Callable<Integer> {
 
@@ -15,6 +15,26 @@ public class AppConfig {
     private Map<String, String> dependencies; // key is artifactId, value is min version
     private BatchConfig batch; // batch mode settings
     private IncrementalConfig incremental; // incremental mode settings
+    private BudgetConfig budget; // token / wall-clock budget
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class BudgetConfig {
+        @JsonProperty("max-tokens")
+        private long maxTokens = 0; // 整个运行（单文件或整个批处理）的 Token 上限，0 不限
+
+        @JsonProperty("max-minutes")
+        private long maxMinutes = 0; // 整个运行的耗时上限（分钟），0 不限
+
+        @JsonProperty("max-tokens-per-class")
+        private long maxTokensPerClass = 0; // 单个类的 Token 上限，0 不限
+
+        @JsonProperty("max-tokens-per-method")
+        private long maxTokensPerMethod = 0; // 单个方法的 Token 上限，0 不限
+
+        @JsonProperty("conserve-at")
+        private double conserveAt = 0.8; // 用量达到上限的该比例后重试次数减半、跳过 P2 方法
+    }
 
     @Data
     @JsonIgnoreProperties(ignoreUnknown = true)
@@ -24,6 +44,11 @@ public class AppConfig {
 
         @JsonProperty("dry-run")
         private boolean dryRun = false;
+
+        private int concurrency = 1; // 同时处理的类数量（虚拟线程），LLM 调用并行，构建通过 build-slots 串行
+
+        @JsonProperty("build-slots")
+        private int buildSlots = 1; // 同时运行的 Maven/编译/测试数量，共用 target/ 目录时应为 1
     }
 
     @Data
@@ -80,6 +105,51 @@ public class AppConfig {
 
         @JsonProperty("custom-headers")
         private Map<String, String> customHeaders;
+
+        @JsonProperty("http2")
+        private boolean http2 = true; // 优先 HTTP/2，并发请求复用同一连接，不支持时自动回退 HTTP/1.1
+
+        @JsonProperty("max-connections")
+        private int maxConnections = 16; // 同时进行的 LLM 请求上限（HTTP/1.1 时即连接数上限）
+
+        @JsonProperty("keep-alive-seconds")
+        private int keepAliveSeconds = 300; // 空闲连接保活时间（秒）
+
+        @JsonProperty("http-executor")
+        private String httpExecutor = "virtual"; // HTTP 客户端执行器: virtual(虚拟线程) | default(JDK 默认线程池)
+
+        @JsonProperty("gzip-requests")
+        private boolean gzipRequests = false; // 压缩 8KB 以上的请求体（服务端需支持 Content-Encoding: gzip）
+
+        @JsonProperty("response-cache")
+        private String responseCache = "off"; // 响应缓存: off | on(命中直接返回，未命中调用 API 并写入) | replay(只读缓存，未命中报错)
+
+        @JsonProperty("response-cache-dir")
+        private String responseCacheDir; // 缓存目录，默认 ~/.utagent/llm-cache
+
+        @JsonProperty("response-cache-max-mb")
+        private int responseCacheMaxMb = 256; // 缓存大小上限（MB），超出按 LRU 淘汰
+
+        @JsonProperty("response-cache-max-entries")
+        private int responseCacheMaxEntries = 20000; // 缓存条数上限，超出按 LRU 淘汰
+
+        @JsonProperty("prompt-caching")
+        private boolean promptCaching = true; // Anthropic 提示词缓存：在系统提示词、工具定义和对话前缀上设置 cache_control
+
+        @JsonProperty("requests-per-minute")
+        private int requestsPerMinute = 0; // 每分钟请求数上限（同一提供商 + 模型共享），0 表示从响应限额头学习
+
+        @JsonProperty("tokens-per-minute")
+        private int tokensPerMinute = 0; // 每分钟输入 Token 上限（按请求体大小估算），0 表示从响应限额头学习
+
+        @JsonProperty("rate-limit-retries")
+        private int rateLimitRetries = 5; // 429/503/529 时按 Retry-After 等待后的最大重试次数
+
+        @JsonProperty("max-context-tokens")
+        private int maxContextTokens = 0; // 每次请求的输入 Token 上限（按模型估算），超出时先截断旧工具输出再淘汰旧消息；0 表示按消息数裁剪
+
+        @JsonProperty("stream-usage")
+        private boolean streamUsage = true; // OpenAI 兼容流式请求附带 stream_options.include_usage 以获取真实 Token 用量（服务端不支持该参数时关闭）
     }
 
     @Data
@@ -103,6 +173,24 @@ public class AppConfig {
         private int maxStaleIterations = 3; // 最大无进展迭代次数
         @JsonProperty("min-coverage-gain")
         private int minCoverageGain = 1; // 每次迭代最小覆盖率提升 (%)
+        @JsonProperty("maven-daemon")
+        private String mavenDaemon = "auto"; // 构建 JVM 复用: auto(检测到 mvnd 时使用) | mvnd | off
+        @JsonProperty("in-process-compile")
+        private boolean inProcessCompile = true; // 验证时用 javax.tools 只编译修改的测试文件，失败回退 Maven
+        @JsonProperty("forked-test-runner")
+        private boolean forkedTestRunner = false; // 验证时在预热的子 JVM 中执行测试类（JUnit Platform + JaCoCo），失败回退 Maven；需显式开启
+        @JsonProperty("verification-memo")
+        private boolean verificationMemo = true; // 测试源码/被测类/classpath 指纹未变化时复用上次验证结果
+        @JsonProperty("speculative-verification")
+        private boolean speculativeVerification = false; // LLM 流式输出中写入测试文件时提前做语法检查并预热编译器，失败则提前结束本轮；需显式开启
+        @JsonProperty("build-output-tail-lines")
+        private int buildOutputTailLines = 200; // Maven 输出只保留最后 N 行（环形缓冲），另外提取 [ERROR]/编译诊断/测试汇总
+        @JsonProperty("parallel-methods")
+        private int parallelMethods = 1; // 迭代模式下并行生成的方法数，每个方法写入独立的临时测试类，最后合并；1 为串行
+        @JsonProperty("work-order")
+        private String workOrder = "gain"; // 方法/类的处理顺序: gain(每 token 预期覆盖收益从高到低) | coverage(覆盖率从低到高)
+        @JsonProperty("tool-output-spill-chars")
+        private int toolOutputSpillChars = 16000; // 超过该字符数的工具结果写入 .utagent/spill，上下文只保留开头/结尾和句柄（readToolOutput 分页读取）；0 表示关闭
     }
 
 }
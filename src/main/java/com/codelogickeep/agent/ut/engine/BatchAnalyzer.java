@@ -2,6 +2,7 @@ package com.codelogickeep.agent.ut.engine;
 
 import com.codelogickeep.agent.ut.model.TestTask;
 import com.codelogickeep.agent.ut.model.UncoveredMethod;
+import com.codelogickeep.agent.ut.tools.CoverageIndex;
 import com.codelogickeep.agent.ut.tools.CoverageTool;
 import com.codelogickeep.agent.ut.tools.ProjectScannerTool;
 import com.codelogickeep.agent.ut.tools.TestDiscoveryTool;
@@ -14,6 +15,10 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Batch analyzer for pre-processing project before LLM invocation.
@@ -41,22 +46,44 @@ public class BatchAnalyzer {
      * Each task contains only uncovered methods that need tests.
      */
     public List<TestTask> analyze(String excludePatterns) throws IOException {
+        return analyze(excludePatterns, 1);
+    }
+
+    /**
+     * Analyze project with up to {@code concurrency} classes analyzed at the same time.
+     * Tasks are returned in scan order regardless of completion order.
+     */
+    public List<TestTask> analyze(String excludePatterns, int concurrency) throws IOException {
         log.info("Starting batch analysis for project: {}", projectRoot);
-        List<TestTask> tasks = new ArrayList<>();
 
         // 1. Scan for core source classes
         List<String> sourceClasses = scannerTool.getSourceClassPaths(projectRoot, excludePatterns);
         log.info("Found {} core source classes", sourceClasses.size());
 
         // 2. For each source class, check coverage and find uncovered methods
-        for (String sourcePath : sourceClasses) {
+        List<Future<TestTask>> results = new ArrayList<>(sourceClasses.size());
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, concurrency),
+                Thread.ofVirtual().name("batch-analyzer-", 1).factory());
+        try {
+            for (String sourcePath : sourceClasses) {
+                results.add(pool.submit(() -> analyzeClass(sourcePath)));
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        List<TestTask> tasks = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
             try {
-                TestTask task = analyzeClass(sourcePath);
+                TestTask task = results.get(i).get();
                 if (task != null && !task.getUncoveredMethods().isEmpty()) {
                     tasks.add(task);
                 }
-            } catch (Exception e) {
-                log.warn("Failed to analyze class: {}", sourcePath, e);
+            } catch (ExecutionException e) {
+                log.warn("Failed to analyze class: {}", sourceClasses.get(i), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Batch analysis interrupted", e);
             }
         }
 
@@ -120,11 +147,28 @@ public class BatchAnalyzer {
                 .sourceFilePath(sourcePath)
                 .testFilePath(testPath)
                 .className(className)
-                .currentCoverage(100 - (uncoveredMethods.size() * 10.0)) // Rough estimate
+                .currentCoverage(classLineCoverage(className, uncoveredMethods.size()))
                 .uncoveredMethods(uncoveredMethods)
                 .build();
     }
 
+    /**
+     * Class line coverage from the shared coverage index (built once per report).
+     * Falls back to a rough estimate when the class is not in the report.
+     */
+    private double classLineCoverage(String className, int uncoveredCount) {
+        try {
+            CoverageIndex index = CoverageIndex.forModule(projectRoot);
+            int classId = index != null ? index.classId(className) : -1;
+            if (classId >= 0) {
+                return index.classCoverage(classId, CoverageIndex.CounterType.LINE);
+            }
+        } catch (IOException e) {
+            log.debug("Coverage index not available: {}", e.getMessage());
+        }
+        return 100 - (uncoveredCount * 10.0); // Rough estimate
+    }
+
     /**
      * Extract fully qualified class name from source path.
      */
@@ -0,0 +1,216 @@
+package com.codelogickeep.agent.ut.engine;
+
+import com.codelogickeep.agent.ut.tools.BuildSlots;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Concurrent scheduler for batch mode.
+ *
+ * Runs up to {@code concurrency} tasks at once on virtual-thread workers that drain a shared
+ * queue. Tasks spend most of their time waiting for the LLM, so they overlap well; the shared
+ * Maven/compile resources are serialized separately through {@link BuildSlots}. Each worker
+ * publishes what it is working on, and a progress line is printed periodically.
+ */
+public class BatchScheduler {
+    private static final Logger log = LoggerFactory.getLogger(BatchScheduler.class);
+
+    private static final long DEFAULT_PROGRESS_INTERVAL_MS = 30_000;
+
+    private final int concurrency;
+    private final PrintStream out;
+    private long progressIntervalMs = DEFAULT_PROGRESS_INTERVAL_MS;
+
+    private final AtomicInteger started = new AtomicInteger();
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private volatile int total;
+    private volatile AtomicReferenceArray<WorkerStatus> workers = new AtomicReferenceArray<>(0);
+
+    /**
+     * One batch task.
+     */
+    @FunctionalInterface
+    public interface TaskRunner<T> {
+        void run(T task) throws Exception;
+    }
+
+    /**
+     * What a worker is currently doing ({@code task} is null while idle).
+     */
+    public record WorkerStatus(int worker, String task, int index, long startedAt) {
+        public Duration elapsed() {
+            return task != null ? Duration.ofMillis(System.currentTimeMillis() - startedAt) : Duration.ZERO;
+        }
+    }
+
+    /**
+     * Snapshot of the run.
+     */
+    public record Progress(int total, int completed, int failed, List<WorkerStatus> workers) {
+    }
+
+    /**
+     * Final result of a run.
+     */
+    public record Summary(int total, int completed, int failed, Duration elapsed) {
+    }
+
+    public BatchScheduler(int concurrency) {
+        this(concurrency, System.out);
+    }
+
+    public BatchScheduler(int concurrency, PrintStream out) {
+        this.concurrency = Math.max(1, concurrency);
+        this.out = out;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Interval of the periodic progress line; 0 disables it.
+     */
+    public void setProgressIntervalMs(long progressIntervalMs) {
+        this.progressIntervalMs = progressIntervalMs;
+    }
+
+    /**
+     * Run all tasks and block until they are finished. A failing task is counted and logged;
+     * it does not stop the other tasks.
+     *
+     * @param label display name of a task in progress output
+     */
+    public <T> Summary run(List<T> tasks, Function<T, String> label, TaskRunner<T> runner) {
+        long start = System.currentTimeMillis();
+        total = tasks.size();
+        started.set(0);
+        completed.set(0);
+        failed.set(0);
+
+        Queue<T> queue = new ConcurrentLinkedQueue<>(tasks);
+        int workerCount = Math.min(concurrency, Math.max(1, tasks.size()));
+        workers = new AtomicReferenceArray<>(workerCount);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < workerCount; i++) {
+            int worker = i + 1;
+            workers.set(i, new WorkerStatus(worker, null, 0, 0));
+            threads.add(Thread.ofVirtual().name("batch-worker-" + worker)
+                    .start(() -> drain(worker, queue, label, runner)));
+        }
+
+        Thread reporter = workerCount > 1 && progressIntervalMs > 0
+                ? Thread.ofVirtual().name("batch-progress").start(this::reportPeriodically)
+                : null;
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            threads.forEach(Thread::interrupt);
+        } finally {
+            if (reporter != null) {
+                reporter.interrupt();
+            }
+        }
+
+        Summary summary = new Summary(total, completed.get(), failed.get(),
+                Duration.ofMillis(System.currentTimeMillis() - start));
+        log.info("Batch finished: {} completed, {} failed of {} in {}s", summary.completed(), summary.failed(),
+                summary.total(), summary.elapsed().toSeconds());
+        return summary;
+    }
+
+    private <T> void drain(int worker, Queue<T> queue, Function<T, String> label, TaskRunner<T> runner) {
+        T task;
+        while (!Thread.currentThread().isInterrupted() && (task = queue.poll()) != null) {
+            String name = label.apply(task);
+            int index = started.incrementAndGet();
+            WorkerStatus status = new WorkerStatus(worker, name, index, System.currentTimeMillis());
+            workers.set(worker - 1, status);
+            out.println("\n>>> [worker " + worker + "] Processing [" + index + "/" + total + "]: " + name);
+            try {
+                runner.run(task);
+                completed.incrementAndGet();
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                log.error("Batch task {} failed", name, e);
+                out.println("    [worker " + worker + "] Error: " + e.getMessage());
+            }
+            out.println("<<< [worker " + worker + "] Finished " + name + " in "
+                    + formatDuration(status.elapsed()));
+            workers.set(worker - 1, new WorkerStatus(worker, null, 0, 0));
+        }
+    }
+
+    private void reportPeriodically() {
+        try {
+            while (true) {
+                Thread.sleep(progressIntervalMs);
+                out.println(formatProgress(progress()));
+            }
+        } catch (InterruptedException e) {
+            // run finished
+        }
+    }
+
+    /**
+     * Current state of the run.
+     */
+    public Progress progress() {
+        AtomicReferenceArray<WorkerStatus> current = workers;
+        List<WorkerStatus> statuses = new ArrayList<>(current.length());
+        for (int i = 0; i < current.length(); i++) {
+            statuses.add(current.get(i));
+        }
+        return new Progress(total, completed.get(), failed.get(), statuses);
+    }
+
+    /**
+     * Single progress line, e.g.
+     * {@code [batch] 12/40 done (1 failed) | build slots 1/1, 2 waiting | w1: FooService 1m05s | w2: idle}.
+     */
+    public static String formatProgress(Progress progress) {
+        StringBuilder sb = new StringBuilder("[batch] ");
+        sb.append(progress.completed() + progress.failed()).append('/').append(progress.total()).append(" done");
+        if (progress.failed() > 0) {
+            sb.append(" (").append(progress.failed()).append(" failed)");
+        }
+        sb.append(" | build slots ").append(BuildSlots.inUse()).append('/').append(BuildSlots.permits());
+        if (BuildSlots.waiting() > 0) {
+            sb.append(", ").append(BuildSlots.waiting()).append(" waiting");
+        }
+        for (WorkerStatus status : progress.workers()) {
+            sb.append(" | w").append(status.worker()).append(": ");
+            if (status.task() == null) {
+                sb.append("idle");
+            } else {
+                sb.append(shortName(status.task())).append(' ').append(formatDuration(status.elapsed()));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String shortName(String path) {
+        String name = path.replace('\\', '/');
+        name = name.substring(name.lastIndexOf('/') + 1);
+        return name.endsWith(".java") ? name.substring(0, name.length() - ".java".length()) : name;
+    }
+
+    private static String formatDuration(Duration duration) {
+        long seconds = duration.toSeconds();
+        return seconds >= 60 ? String.format("%dm%02ds", seconds / 60, seconds % 60) : seconds + "s";
+    }
+}
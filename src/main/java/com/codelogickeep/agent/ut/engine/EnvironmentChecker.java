@@ -7,6 +7,7 @@ import com.codelogickeep.agent.ut.framework.model.AssistantMessage;
 import com.codelogickeep.agent.ut.framework.model.Message;
 import com.codelogickeep.agent.ut.framework.model.UserMessage;
 import com.codelogickeep.agent.ut.tools.JdtLsManager;
+import com.codelogickeep.agent.ut.tools.TestClasspath;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -62,6 +63,7 @@ public class EnvironmentChecker {
         boolean permOk = checkPermissions();
         boolean lspOk = checkLsp(config);
         boolean projectOk = projectRoot == null || auditProject(config, projectRoot);
+        boolean classpathOk = projectRoot == null || !mvnOk || checkTestClasspath(projectRoot);
 
         System.out.println("\n>>> Environment Check Summary:");
         System.out.println("Maven:       " + (mvnOk ? "OK" : "FAILED"));
@@ -70,6 +72,7 @@ public class EnvironmentChecker {
         System.out.println("LSP Server:  " + (lspOk ? "OK" : "OPTIONAL (Auto-download available)"));
         if (projectRoot != null) {
             System.out.println("Project Dep: " + (projectOk ? "OK" : "WARNING (Dependency issues found)"));
+            System.out.println("Classpath:   " + (classpathOk ? "OK" : "WARNING (Falling back to Maven builds)"));
         }
 
         // LLM 检查失败是致命错误，必须停止
@@ -136,6 +139,27 @@ public class EnvironmentChecker {
         }
     }
 
+    /**
+     * 解析并缓存测试 classpath（按 pom.xml 内容哈希存放在 .utagent 下），
+     * 之后的进程内编译和测试执行直接复用，直到 pom 变化
+     */
+    private static boolean checkTestClasspath(String projectRoot) {
+        System.out.print("Checking Test Classpath... ");
+        Path root = Paths.get(projectRoot);
+        if (!Files.exists(root.resolve("pom.xml"))) {
+            System.out.println("SKIPPED (pom.xml not found)");
+            return true;
+        }
+        boolean cached = TestClasspath.isCached(root);
+        List<Path> entries = TestClasspath.dependencies(root);
+        if (entries == null) {
+            System.out.println("WARNING (dependency:build-classpath failed)");
+            return false;
+        }
+        System.out.println("OK (" + entries.size() + " entries, " + (cached ? "cached" : "resolved") + ")");
+        return true;
+    }
+
     private static boolean auditProject(AppConfig config, String projectRoot) {
         System.out.print("Auditing Project Dependencies... ");
         Path pomPath = Paths.get(projectRoot, "pom.xml");
@@ -0,0 +1,261 @@
+package com.codelogickeep.agent.ut.engine;
+
+import com.codelogickeep.agent.ut.framework.model.IterationStats;
+import com.codelogickeep.agent.ut.model.TestTask;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Durable journal of a batch run, stored under {@code <project>/.utagent/runs/<id>/}.
+ *
+ * {@code tasks.json} holds the analysis result so a resumed run does not scan the project
+ * again; {@code journal.jsonl} is an append-only log of class and method outcomes. Every
+ * record is one line written with {@code DSYNC}, so a crash loses at most the record being
+ * written (a torn last line is ignored on load).
+ */
+public class RunJournal {
+    private static final Logger log = LoggerFactory.getLogger(RunJournal.class);
+
+    static final String RUNS_DIR = ".utagent/runs";
+    static final String TASKS_FILE = "tasks.json";
+    static final String JOURNAL_FILE = "journal.jsonl";
+
+    /** Method statuses that count as done when resuming. */
+    private static final Set<String> DONE_METHOD_STATUSES = Set.of("SUCCESS", "SKIPPED");
+    /** Method left unprocessed because the budget ran out; its class must run again on resume. */
+    private static final String BUDGET_SKIPPED = "BUDGET_SKIPPED";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final String id;
+    private final Path dir;
+    private final Set<String> completedClasses = new HashSet<>();
+    private final Map<String, Set<String>> completedMethods = new HashMap<>();
+    private final Set<String> budgetSkippedClasses = new HashSet<>();
+
+    private RunJournal(String id, Path dir) {
+        this.id = id;
+        this.dir = dir;
+    }
+
+    /**
+     * Start a new run with a timestamp id.
+     */
+    public static RunJournal create(String projectRoot) throws IOException {
+        String base = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path runs = Path.of(projectRoot).resolve(RUNS_DIR);
+        String id = base;
+        for (int i = 2; Files.exists(runs.resolve(id)); i++) {
+            id = base + "-" + i;
+        }
+        Path dir = runs.resolve(id);
+        Files.createDirectories(dir);
+        RunJournal journal = new RunJournal(id, dir);
+        ObjectNode record = journal.record("run");
+        record.put("project", Path.of(projectRoot).toAbsolutePath().normalize().toString());
+        journal.append(record);
+        return journal;
+    }
+
+    /**
+     * Reopen an existing run and replay its journal.
+     *
+     * @throws IOException if no run with this id exists
+     */
+    public static RunJournal open(String projectRoot, String id) throws IOException {
+        Path dir = Path.of(projectRoot).resolve(RUNS_DIR).resolve(id);
+        if (!Files.isDirectory(dir)) {
+            throw new IOException("No batch run '" + id + "' under " + dir.getParent());
+        }
+        RunJournal journal = new RunJournal(id, dir);
+        journal.replay();
+        journal.append(journal.record("resume"));
+        return journal;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Path getDirectory() {
+        return dir;
+    }
+
+    /**
+     * Persist the analysis result of this run.
+     */
+    public void saveTasks(List<TestTask> tasks) throws IOException {
+        Path tmp = dir.resolve(TASKS_FILE + ".tmp");
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(tmp.toFile(), tasks);
+        Files.move(tmp, dir.resolve(TASKS_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Analysis result saved by {@link #saveTasks(List)}, or null if the run crashed before it.
+     */
+    public List<TestTask> loadTasks() throws IOException {
+        Path file = dir.resolve(TASKS_FILE);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        return MAPPER.readValue(file.toFile(), new TypeReference<List<TestTask>>() {
+        });
+    }
+
+    public void classStarted(String sourceFile) {
+        synchronized (this) {
+            budgetSkippedClasses.remove(sourceFile);
+        }
+        ObjectNode record = record("class-start");
+        record.put("class", sourceFile);
+        append(record);
+    }
+
+    /**
+     * Record the end of a class. A successful class with a method skipped for budget in this
+     * attempt is recorded as incomplete instead, so a resumed run processes it again.
+     */
+    public void classFinished(String sourceFile, boolean success, String error) {
+        boolean budgetSkipped;
+        synchronized (this) {
+            budgetSkipped = budgetSkippedClasses.remove(sourceFile);
+        }
+        if (success && budgetSkipped) {
+            classIncomplete(sourceFile, "Methods skipped for budget");
+            return;
+        }
+        ObjectNode record = record("class-end");
+        record.put("class", sourceFile);
+        record.put("status", success ? "COMPLETED" : "FAILED");
+        if (error != null) {
+            record.put("error", error);
+        }
+        append(record);
+        if (success) {
+            synchronized (this) {
+                completedClasses.add(sourceFile);
+            }
+        }
+    }
+
+    /**
+     * Record a class that ended without error but with work left (e.g. the budget ran out).
+     * It is not marked completed; its finished methods are still skipped on resume.
+     */
+    public void classIncomplete(String sourceFile, String reason) {
+        synchronized (this) {
+            budgetSkippedClasses.remove(sourceFile);
+        }
+        ObjectNode record = record("class-end");
+        record.put("class", sourceFile);
+        record.put("status", "INCOMPLETE");
+        if (reason != null) {
+            record.put("error", reason);
+        }
+        append(record);
+    }
+
+    public void methodFinished(String sourceFile, IterationStats.MethodStats stats) {
+        ObjectNode record = record("method");
+        record.put("class", sourceFile);
+        record.put("method", stats.getMethodName());
+        record.put("status", stats.getStatus());
+        record.put("coverage", stats.getCoverage());
+        record.put("iterations", stats.getIterationCount());
+        record.put("promptTokens", stats.getPromptTokens());
+        record.put("responseTokens", stats.getResponseTokens());
+        append(record);
+        if (DONE_METHOD_STATUSES.contains(stats.getStatus())) {
+            synchronized (this) {
+                completedMethods.computeIfAbsent(sourceFile, k -> new HashSet<>()).add(stats.getMethodName());
+            }
+        } else if (BUDGET_SKIPPED.equals(stats.getStatus())) {
+            synchronized (this) {
+                budgetSkippedClasses.add(sourceFile);
+            }
+        }
+    }
+
+    public synchronized boolean isClassCompleted(String sourceFile) {
+        return completedClasses.contains(sourceFile);
+    }
+
+    /**
+     * Methods of a class that already reached a final state in an earlier attempt.
+     */
+    public synchronized Set<String> completedMethods(String sourceFile) {
+        Set<String> methods = completedMethods.get(sourceFile);
+        return methods != null ? Set.copyOf(methods) : Collections.emptySet();
+    }
+
+    private ObjectNode record(String type) {
+        ObjectNode record = MAPPER.createObjectNode();
+        record.put("type", type);
+        record.put("time", Instant.now().toString());
+        return record;
+    }
+
+    private synchronized void append(ObjectNode record) {
+        try {
+            Files.writeString(dir.resolve(JOURNAL_FILE), MAPPER.writeValueAsString(record) + "\n",
+                    StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND,
+                    StandardOpenOption.DSYNC);
+        } catch (IOException e) {
+            log.warn("Failed to append to run journal {}: {}", id, e.getMessage());
+        }
+    }
+
+    private void replay() throws IOException {
+        Path file = dir.resolve(JOURNAL_FILE);
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        int skipped = 0;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            JsonNode record;
+            try {
+                record = MAPPER.readTree(line);
+            } catch (IOException e) {
+                skipped++; // torn write from a crash
+                continue;
+            }
+            String type = record.path("type").asText();
+            String sourceFile = record.path("class").asText(null);
+            if ("class-end".equals(type) && "COMPLETED".equals(record.path("status").asText())) {
+                completedClasses.add(sourceFile);
+            } else if ("method".equals(type) && DONE_METHOD_STATUSES.contains(record.path("status").asText())) {
+                completedMethods.computeIfAbsent(sourceFile, k -> new HashSet<>())
+                        .add(record.path("method").asText());
+            }
+        }
+        log.info("Replayed run journal {}: {} classes and {} methods completed{}", id, completedClasses.size(),
+                completedMethods.values().stream().mapToInt(Set::size).sum(),
+                skipped > 0 ? ", " + skipped + " unreadable line(s) ignored" : "");
+    }
+}
@@ -0,0 +1,322 @@
+package com.codelogickeep.agent.ut.engine;
+
+import com.codelogickeep.agent.ut.config.AppConfig;
+import com.codelogickeep.agent.ut.framework.model.IterationStats;
+import com.codelogickeep.agent.ut.model.MethodCoverageInfo;
+import com.codelogickeep.agent.ut.model.TestTask;
+import com.codelogickeep.agent.ut.model.UncoveredMethod;
+import com.codelogickeep.agent.ut.tools.CodeAnalyzerTool;
+import com.codelogickeep.agent.ut.tools.CoverageIndex;
+import com.codelogickeep.agent.ut.tools.CoverageIndex.CounterType;
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.ConstructorDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Orders methods and classes best-first by expected coverage gain per predicted token.
+ *
+ * Expected gain is the number of missed lines (plus half the missed branches) from the
+ * JaCoCo report, discounted by cyclomatic complexity since complex methods more often end
+ * without reaching the threshold. Predicted cost is a linear model of the method's source
+ * size ({@code base + perSourceToken * sourceTokens}); it starts from defaults and is refit
+ * from the tokens actually spent on finished methods, so later classes of a batch are
+ * ranked with the project's real costs. Instances are thread-safe and meant to be shared
+ * across the classes of one run.
+ */
+public class WorkPrioritizer {
+    private static final Logger log = LoggerFactory.getLogger(WorkPrioritizer.class);
+
+    /** Tokens spent per method regardless of its size (prompt, file reads, verification round). */
+    static final double DEFAULT_BASE_TOKENS = 6000;
+    /** Additional tokens per token of method source. */
+    static final double DEFAULT_TOKENS_PER_SOURCE_TOKEN = 20;
+    /** Finished methods needed before the cost model is refit from history. */
+    static final int MIN_SAMPLES = 3;
+
+    private static final double CHARS_PER_TOKEN = 4.0;
+
+    /** Configured {@code workflow.work-order}; "gain" when the workflow section or the key is missing. */
+    public static String workOrder(AppConfig config) {
+        String order = config != null && config.getWorkflow() != null ? config.getWorkflow().getWorkOrder() : null;
+        return order != null ? order : "gain";
+    }
+
+    private final String projectRoot;
+    private final Map<String, Double> sourceTokensByMethod = new ConcurrentHashMap<>();
+
+    private int samples;
+    private double sumX;
+    private double sumY;
+    private double sumXY;
+    private double sumXX;
+
+    /**
+     * Score of one unit of work.
+     *
+     * @param expectedGain    expected newly covered lines
+     * @param predictedTokens predicted prompt + response tokens
+     */
+    public record Estimate(String name, double expectedGain, double predictedTokens) {
+        /** Expected covered lines per 1k tokens. */
+        public double score() {
+            return predictedTokens > 0 ? expectedGain * 1000 / predictedTokens : 0;
+        }
+    }
+
+    /** Size and complexity of a method declaration in the source file. */
+    record MethodSource(int params, int sourceTokens, int statementLines, int complexity) {
+    }
+
+    public WorkPrioritizer(String projectRoot) {
+        this.projectRoot = projectRoot;
+    }
+
+    /**
+     * Methods of one class, best expected gain per token first; ties fall back to ascending coverage.
+     */
+    public List<MethodCoverageInfo> orderMethods(String sourceFile, String className,
+                                                 List<MethodCoverageInfo> methods) {
+        if (methods == null || methods.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<String, List<MethodSource>> sources = parseSource(sourceFile);
+        CoverageIndex index = coverageIndex();
+        int classId = index != null ? index.classId(className) : -1;
+
+        Map<MethodCoverageInfo, Estimate> estimates = new HashMap<>();
+        for (MethodCoverageInfo m : methods) {
+            int methodId = classId >= 0 ? index.methodId(className, m.getMethodName()) : -1;
+            Estimate estimate = estimate(sourceFile, m.getMethodName(), sources,
+                    methodId >= 0 ? index : null, methodId, m.getLineCoverage(), m.getBranchCoverage());
+            estimates.put(m, estimate);
+        }
+
+        List<MethodCoverageInfo> ordered = new ArrayList<>(methods);
+        ordered.sort(Comparator.<MethodCoverageInfo>comparingDouble(m -> -estimates.get(m).score())
+                .thenComparingDouble(MethodCoverageInfo::getOverallCoverage));
+        for (MethodCoverageInfo m : ordered) {
+            Estimate e = estimates.get(m);
+            log.info("   {} gain={} lines, cost≈{} tokens, score={}/1k tokens", m.getMethodName(),
+                    String.format("%.1f", e.expectedGain()), String.format("%.0f", e.predictedTokens()),
+                    String.format("%.2f", e.score()));
+        }
+        return ordered;
+    }
+
+    /**
+     * Classes of a batch, best expected gain per token first.
+     */
+    public List<TestTask> orderTasks(List<TestTask> tasks) {
+        Map<TestTask, Estimate> estimates = new HashMap<>();
+        for (TestTask task : tasks) {
+            estimates.put(task, estimateTask(task));
+        }
+        List<TestTask> ordered = new ArrayList<>(tasks);
+        ordered.sort(Comparator.comparingDouble(t -> -estimates.get(t).score()));
+        return ordered;
+    }
+
+    /**
+     * Expected gain and cost of a whole class: the sum over its uncovered methods plus one
+     * method's worth of fixed cost for creating the test class.
+     */
+    public Estimate estimateTask(TestTask task) {
+        String sourceFile = task.getSourceFilePath();
+        Map<String, List<MethodSource>> sources = parseSource(sourceFile);
+        CoverageIndex index = coverageIndex();
+        int classId = index != null && task.getClassName() != null ? index.classId(task.getClassName()) : -1;
+
+        double gain = 0;
+        double tokens = baseTokens();
+        for (UncoveredMethod m : task.getUncoveredMethods()) {
+            if ("*".equals(m.getMethodName())) {
+                // New class without coverage data: every declared method is uncovered
+                for (String name : sources.keySet()) {
+                    Estimate e = estimate(sourceFile, name, sources, null, -1, 0, 0);
+                    gain += e.expectedGain();
+                    tokens += e.predictedTokens();
+                }
+                continue;
+            }
+            int methodId = classId >= 0 ? index.methodId(task.getClassName(), m.getSignature()) : -1;
+            Estimate e = estimate(sourceFile, m.getSignature(), sources, methodId >= 0 ? index : null, methodId,
+                    m.getLineCoverage(), m.getBranchCoverage());
+            gain += e.expectedGain();
+            tokens += e.predictedTokens();
+        }
+        return new Estimate(task.getClassName(), gain, tokens);
+    }
+
+    /**
+     * Feed the tokens actually spent on a finished method back into the cost model.
+     * Skipped methods and methods that were never estimated are ignored.
+     */
+    public void record(String sourceFile, IterationStats.MethodStats stats) {
+        int tokens = stats.getPromptTokens() + stats.getResponseTokens();
+        Double sourceTokens = sourceTokensByMethod.get(key(sourceFile, stats.getMethodName()));
+        if (stats.isSkipped() || tokens <= 0 || sourceTokens == null) {
+            return;
+        }
+        synchronized (this) {
+            samples++;
+            sumX += sourceTokens;
+            sumY += tokens;
+            sumXY += sourceTokens * tokens;
+            sumXX += sourceTokens * sourceTokens;
+        }
+    }
+
+    /**
+     * Predicted tokens for a method of the given source size under the current model.
+     */
+    public synchronized double predictTokens(double sourceTokens) {
+        if (samples < MIN_SAMPLES) {
+            return DEFAULT_BASE_TOKENS + DEFAULT_TOKENS_PER_SOURCE_TOKEN * sourceTokens;
+        }
+        double meanX = sumX / samples;
+        double meanY = sumY / samples;
+        double variance = sumXX / samples - meanX * meanX;
+        if (variance < 1) {
+            // All samples the same size: keep the default shape, scale it to the observed mean
+            double defaultMean = DEFAULT_BASE_TOKENS + DEFAULT_TOKENS_PER_SOURCE_TOKEN * meanX;
+            return (DEFAULT_BASE_TOKENS + DEFAULT_TOKENS_PER_SOURCE_TOKEN * sourceTokens) * meanY / defaultMean;
+        }
+        double slope = Math.max(0, (sumXY / samples - meanX * meanY) / variance);
+        double base = Math.max(meanY * 0.1, meanY - slope * meanX);
+        return base + slope * sourceTokens;
+    }
+
+    private double baseTokens() {
+        return predictTokens(0);
+    }
+
+    private Estimate estimate(String sourceFile, String methodName, Map<String, List<MethodSource>> sources,
+                              CoverageIndex index, int methodId, double lineCoverage, double branchCoverage) {
+        MethodSource source = findSource(sources, methodName);
+        int complexity = source != null ? source.complexity() : 1;
+
+        double missedLines;
+        double missedBranches;
+        if (index != null) {
+            missedLines = index.methodMissed(methodId, CounterType.LINE);
+            missedBranches = index.methodMissed(methodId, CounterType.BRANCH);
+        } else {
+            // No report: approximate from the declaration and the reported percentages
+            int lines = source != null ? source.statementLines() : 5;
+            missedLines = lines * (1 - lineCoverage / 100);
+            missedBranches = 2.0 * (complexity - 1) * (1 - branchCoverage / 100);
+        }
+        double successRate = 1.0 / (1 + 0.05 * (complexity - 1));
+        double gain = (missedLines + 0.5 * missedBranches) * successRate;
+
+        double sourceTokens = source != null ? source.sourceTokens() : 100;
+        sourceTokensByMethod.put(key(sourceFile, methodName), sourceTokens);
+        return new Estimate(methodName, gain, predictTokens(sourceTokens));
+    }
+
+    /**
+     * Match a coverage display name ("add", "add(2 params)", "add(int, int)", "constructor")
+     * to a parsed declaration, preferring the overload with the same parameter count.
+     */
+    static MethodSource findSource(Map<String, List<MethodSource>> sources, String displayName) {
+        if (displayName == null) {
+            return null;
+        }
+        int paren = displayName.indexOf('(');
+        String name = paren >= 0 ? displayName.substring(0, paren) : displayName;
+        if ("<init>".equals(name)) {
+            name = "constructor";
+        }
+        List<MethodSource> candidates = sources.get(name);
+        if (candidates == null || candidates.isEmpty()) {
+            return null;
+        }
+        int params = paren >= 0 ? parameterCount(displayName.substring(paren + 1, displayName.lastIndexOf(')'))) : -1;
+        for (MethodSource candidate : candidates) {
+            if (candidate.params() == params) {
+                return candidate;
+            }
+        }
+        return candidates.get(0);
+    }
+
+    private static int parameterCount(String params) {
+        String trimmed = params.trim();
+        if (trimmed.isEmpty()) {
+            return 0;
+        }
+        if (trimmed.endsWith("params")) {
+            try {
+                return Integer.parseInt(trimmed.substring(0, trimmed.indexOf(' ')).trim());
+            } catch (RuntimeException e) {
+                return -1;
+            }
+        }
+        return trimmed.split(",").length;
+    }
+
+    /**
+     * Declarations of the source file grouped by name ("constructor" for constructors).
+     */
+    Map<String, List<MethodSource>> parseSource(String sourceFile) {
+        Map<String, List<MethodSource>> result = new HashMap<>();
+        if (sourceFile == null) {
+            return result;
+        }
+        Path path = Path.of(sourceFile);
+        if (!path.isAbsolute() && projectRoot != null) {
+            path = Path.of(projectRoot).resolve(sourceFile);
+        }
+        try {
+            CompilationUnit cu = StaticJavaParser.parse(Files.readString(path));
+            for (CallableDeclaration<?> callable : cu.findAll(CallableDeclaration.class)) {
+                String name = callable instanceof ConstructorDeclaration ? "constructor" : callable.getNameAsString();
+                if (callable instanceof MethodDeclaration method && method.getBody().isEmpty()) {
+                    continue; // abstract or interface method
+                }
+                result.computeIfAbsent(name, k -> new ArrayList<>())
+                        .add(measure(callable));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("Cannot parse {} for prioritization: {}", sourceFile, e.getMessage());
+        }
+        return result;
+    }
+
+    private static MethodSource measure(CallableDeclaration<?> declaration) {
+        String text = declaration.toString();
+        int lines = (int) text.lines().filter(l -> !l.isBlank()).count();
+        return new MethodSource(declaration.getParameters().size(), (int) Math.ceil(text.length() / CHARS_PER_TOKEN),
+                Math.max(1, lines - 2), CodeAnalyzerTool.calculateComplexity(declaration));
+    }
+
+    private CoverageIndex coverageIndex() {
+        if (projectRoot == null || !CoverageIndex.hasCoverageData(projectRoot)) {
+            return null;
+        }
+        try {
+            return CoverageIndex.forModule(projectRoot);
+        } catch (IOException e) {
+            log.debug("Coverage index not available: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static String key(String sourceFile, String methodName) {
+        return sourceFile + '#' + methodName;
+    }
+}
@@ -164,7 +164,7 @@ public class AgentToolException extends RuntimeException {
         METHOD_NOT_FOUND("E303", "Method not found in class", "Use 'analyzeClass' to list available methods first."),
 
         // Coverage Errors (4xx)
-        COVERAGE_REPORT_NOT_FOUND("E401", "JaCoCo coverage report not found", "Run 'mvn test jacoco:report' to generate the report."),
+        COVERAGE_REPORT_NOT_FOUND("E401", "JaCoCo coverage data not found (target/jacoco.exec or jacoco.xml)", "Run 'mvn test' with the JaCoCo agent enabled (jacoco-maven-plugin prepare-agent)."),
         COVERAGE_PARSE_ERROR("E402", "Failed to parse coverage report", "Ensure the JaCoCo XML report is valid."),
         COVERAGE_CLASS_NOT_FOUND("E403", "Class not found in coverage report", "Check if the class was included in test execution."),
 
@@ -2,41 +2,62 @@ package com.codelogickeep.agent.ut.framework;
 
 import com.codelogickeep.agent.ut.config.AppConfig;
 import com.codelogickeep.agent.ut.engine.CoverageFeedbackEngine;
+import com.codelogickeep.agent.ut.engine.WorkPrioritizer;
 import com.codelogickeep.agent.ut.framework.adapter.LlmAdapter;
 import com.codelogickeep.agent.ut.framework.adapter.LlmAdapterFactory;
+import com.codelogickeep.agent.ut.framework.context.TokenEstimator;
 import com.codelogickeep.agent.ut.framework.executor.AgentExecutor;
 import com.codelogickeep.agent.ut.framework.executor.AgentResult;
+import com.codelogickeep.agent.ut.framework.executor.BudgetGovernor;
 import com.codelogickeep.agent.ut.framework.executor.ConsoleStreamingHandler;
 import com.codelogickeep.agent.ut.framework.model.IterationStats;
+import com.codelogickeep.agent.ut.framework.model.ToolCall;
 import com.codelogickeep.agent.ut.framework.phase.PhaseManager;
 import com.codelogickeep.agent.ut.framework.phase.WorkflowPhase;
 import com.codelogickeep.agent.ut.framework.precheck.PreCheckExecutor;
+import com.codelogickeep.agent.ut.framework.tool.ToolOutputSpill;
 import com.codelogickeep.agent.ut.framework.tool.ToolRegistry;
 import com.codelogickeep.agent.ut.framework.util.ClassNameExtractor;
 import com.codelogickeep.agent.ut.framework.util.PromptTemplateLoader;
+import com.codelogickeep.agent.ut.framework.pipeline.CoverageSnapshotStore;
 import com.codelogickeep.agent.ut.framework.pipeline.FixPromptBuilder;
+import com.codelogickeep.agent.ut.framework.pipeline.SpeculativeVerifier;
+import com.codelogickeep.agent.ut.framework.pipeline.TestClassMerger;
 import com.codelogickeep.agent.ut.framework.pipeline.VerificationPipeline;
 import com.codelogickeep.agent.ut.framework.pipeline.VerificationResult;
 import com.codelogickeep.agent.ut.framework.pipeline.VerificationStep;
 import com.codelogickeep.agent.ut.model.PreCheckResult;
 import com.codelogickeep.agent.ut.model.MethodCoverageInfo;
 import com.codelogickeep.agent.ut.tools.BoundaryAnalyzerTool;
+import com.codelogickeep.agent.ut.tools.CompileGuard;
+import com.codelogickeep.agent.ut.tools.CoverageIndex;
 import com.codelogickeep.agent.ut.tools.CoverageTool;
+import com.codelogickeep.agent.ut.tools.MavenExecutorTool;
 import com.codelogickeep.agent.ut.tools.MutationTestTool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -53,26 +74,60 @@ import java.util.regex.Pattern;
 public class SimpleAgentOrchestrator {
     private static final Logger log = LoggerFactory.getLogger(SimpleAgentOrchestrator.class);
 
+    /** 决定是否发起下一轮 LLM 请求前，等待推测式语法检查完成的最长时间 */
+    private static final long SPECULATIVE_CHECK_TIMEOUT_MS = 5_000;
+
     private final AppConfig config;
     private final LlmAdapter llmAdapter;
     private final ToolRegistry toolRegistry;
     private final int maxIterations;
+    // 上下文窗口：输入 Token 上限（0 表示按消息数裁剪）和按模型选择的估算器
+    private final int maxContextTokens;
+    private final TokenEstimator tokenEstimator;
+    // 大的工具结果落盘到 <project>/.utagent/spill（未启用时为 null）
+    private ToolOutputSpill toolOutputSpill;
     private final PhaseManager phaseManager;
     private final List<Object> allTools;
     private final PreCheckExecutor preCheckExecutor;
     private final VerificationPipeline verificationPipeline;
 
+    // 每轮验证后的方法行/分支覆盖快照
+    private final CoverageSnapshotStore coverageSnapshots = new CoverageSnapshotStore();
+
+    // 并行生成时串行化验证管道（Maven、编译器和覆盖率数据是共享的）
+    private final ReentrantLock verificationLock = new ReentrantLock();
+
     // 迭代统计
     private IterationStats iterationStats;
 
     // 覆盖率反馈引擎
     private CoverageFeedbackEngine feedbackEngine;
 
+    // 恢复批处理时上次已完成的方法（跳过），以及方法完成时的回调（写入运行日志）
+    private Set<String> completedMethods = Set.of();
+    private Consumer<IterationStats.MethodStats> methodListener;
+
+    // 按每 token 预期覆盖收益排序方法（work-order=gain），批处理时各类共享以复用 token 历史
+    private WorkPrioritizer workPrioritizer;
+    private String prioritizedFile;
+
+    // Token/耗时预算（批处理时由 App 注入共享实例），budgetClass 为当前类的计费归属
+    private BudgetGovernor budget;
+    private boolean ownsBudget = true;
+    private String budgetClass;
+    // 因预算未处理完的原因（null 表示所有方法都已得出结果），批处理据此决定恢复时是否重跑该类
+    private String incompleteReason;
+
+    // 并发批处理：工程构建由所有任务共享（见 setSharedBuild）
+    private boolean sharedBuild;
+
     public SimpleAgentOrchestrator(AppConfig config, List<Object> tools) {
         this.config = config;
         this.allTools = tools;
         this.llmAdapter = LlmAdapterFactory.create(config.getLlm());
         this.toolRegistry = new ToolRegistry();
+        this.maxContextTokens = config.getLlm().getMaxContextTokens();
+        this.tokenEstimator = TokenEstimator.forModel(config.getLlm().getModelName());
 
         // 初始化阶段管理器
         this.phaseManager = new PhaseManager(config, tools);
@@ -87,6 +142,7 @@ public class SimpleAgentOrchestrator {
         }
 
         this.maxIterations = config.getWorkflow() != null ? config.getWorkflow().getMaxRetries() * 10 : 50;
+        this.budget = BudgetGovernor.fromConfig(config.getBudget());
 
         // 初始化覆盖率反馈引擎
         initFeedbackEngine(tools);
@@ -101,6 +157,62 @@ public class SimpleAgentOrchestrator {
                 toolRegistry.size(), phaseManager.isIterativeMode());
     }
 
+    /**
+     * 迭代模式下跳过这些方法（恢复中断的批处理时使用）
+     */
+    public void setCompletedMethods(Set<String> completedMethods) {
+        this.completedMethods = completedMethods != null ? completedMethods : Set.of();
+    }
+
+    /**
+     * 迭代模式下每个方法得出最终状态后回调
+     */
+    public void setMethodListener(Consumer<IterationStats.MethodStats> methodListener) {
+        this.methodListener = methodListener;
+    }
+
+    /**
+     * 共享的方法优先级排序器（批处理时跨类复用 token 历史）
+     */
+    public void setWorkPrioritizer(WorkPrioritizer workPrioritizer) {
+        this.workPrioritizer = workPrioritizer;
+    }
+
+    /**
+     * 共享的预算控制器（批处理时所有类共用，用量报告由调用方输出）
+     */
+    public void setBudgetGovernor(BudgetGovernor budget) {
+        this.budget = budget;
+        this.ownsBudget = false;
+    }
+
+    /**
+     * 并发批处理时开启：调用方已在调度前统一执行 clean test。
+     * 预检查不再 clean/编译整个工程，编译守卫只检查本类测试文件，
+     * 验证管道不回退到会编译其他任务测试文件的 Maven 构建。
+     */
+    public void setSharedBuild(boolean sharedBuild) {
+        this.sharedBuild = sharedBuild;
+        preCheckExecutor.setProjectPrepared(sharedBuild);
+        verificationPipeline.setMavenFallback(!sharedBuild);
+    }
+
+    /**
+     * 本次运行因预算未完成时的原因：有方法被预算跳过，或类/运行预算在处理中途耗尽；完整运行时为 null
+     */
+    public String getIncompleteReason() {
+        return incompleteReason;
+    }
+
+    private void notifyMethodFinished(IterationStats.MethodStats stats) {
+        if (workPrioritizer != null && prioritizedFile != null) {
+            workPrioritizer.record(prioritizedFile, stats);
+        }
+        if (methodListener != null) {
+            methodListener.accept(stats);
+        }
+    }
+
     /**
      * 初始化覆盖率反馈引擎
      */
@@ -142,6 +254,17 @@ public class SimpleAgentOrchestrator {
      */
     public void run(String targetFile, String taskContext) {
         String projectRoot = extractProjectRoot(targetFile);
+        budgetClass = extractClassName(targetFile);
+        incompleteReason = null;
+        initToolOutputSpill(projectRoot);
+        if (sharedBuild) {
+            String testFilePath = calculateTestFilePath(targetFile);
+            for (Object tool : allTools) {
+                if (tool instanceof MavenExecutorTool maven) {
+                    maven.setGuardedTestFile(testFilePath);
+                }
+            }
+        }
 
         // ===== 预检查阶段：编译和覆盖率分析（所有模式共用）=====
         currentPreCheck = performPreCheck(projectRoot, targetFile);
@@ -159,6 +282,9 @@ public class SimpleAgentOrchestrator {
         } else {
             runTraditional(targetFile, taskContext);
         }
+        if (ownsBudget) {
+            System.out.println(budget.report());
+        }
     }
 
     /**
@@ -176,9 +302,12 @@ public class SimpleAgentOrchestrator {
                 .toolRegistry(toolRegistry)
                 .systemMessage(systemPrompt)
                 .maxMessages(20)
+                .maxContextTokens(maxContextTokens, tokenEstimator)
+                .toolOutputSpill(toolOutputSpill)
                 .maxIterations(maxIterations)
                 .timeoutMs(600_000) // 10 分钟
                 .build();
+        executor.setBudget(budget, new BudgetGovernor.Scope(budgetClass, null, "agent"));
 
         // 构建用户消息
         String userMessage = buildUserMessage(targetFile, taskContext);
@@ -196,6 +325,9 @@ public class SimpleAgentOrchestrator {
 
         if (handler.isSuccess()) {
             log.info("Agent completed successfully");
+        } else if (budgetExhausted()) {
+            log.warn("Agent stopped: budget exhausted ({})", budget.describe());
+            incompleteReason = "Budget exhausted (" + budget.describe() + ")";
         } else {
             log.error("Agent failed: {}", handler.getError() != null ? handler.getError().getMessage() : "Unknown");
         }
@@ -225,9 +357,9 @@ public class SimpleAgentOrchestrator {
         // 初始化统计
         iterationStats = new IterationStats(targetFile);
 
-        // ===== 获取方法覆盖率列表（按覆盖率排序，低的在前）=====
+        // ===== 获取方法覆盖率列表（默认按每 token 预期收益排序，高的在前）=====
         List<MethodCoverageInfo> methodsToProcess = currentPreCheck != null
-                ? currentPreCheck.getMethodsSortedByCoverage()
+                ? orderMethods(targetFile, targetClassName, projectRoot)
                 : new ArrayList<>();
 
         if (methodsToProcess.isEmpty()) {
@@ -236,7 +368,7 @@ public class SimpleAgentOrchestrator {
             return;
         }
 
-        log.info("📊 Found {} methods to process (sorted by coverage):", methodsToProcess.size());
+        log.info("📊 Found {} methods to process (order: {}):", methodsToProcess.size(), workOrder());
         for (MethodCoverageInfo m : methodsToProcess) {
             log.info("   - {} [{}] Line: {}%, Branch: {}%",
                     m.getMethodName(), m.getPriority(),
@@ -253,7 +385,7 @@ public class SimpleAgentOrchestrator {
             log.info("🔧 Switched to ANALYSIS phase ({} tools)", toolRegistry.size());
         }
 
-        AgentExecutor initExecutor = createExecutor(systemPrompt, 8);
+        AgentExecutor initExecutor = createExecutor(systemPrompt, 8, null, "init");
         initExecutor.setTokenStatsCallback((prompt, response) -> {
             iterationStats.recordPromptSize(prompt);
             iterationStats.recordResponseSize(response);
@@ -272,8 +404,12 @@ public class SimpleAgentOrchestrator {
         // 从配置读取重试次数，默认为 3
         final int configuredMaxRetries = config.getWorkflow() != null ? config.getWorkflow().getMaxRetries() : 3;
         final int maxMethodRetries = configuredMaxRetries > 0 ? configuredMaxRetries : 3;
-        final int maxVerificationRetries = maxMethodRetries;
-        log.info("📊 Max retries configured: {} (method), {} (verification)", maxMethodRetries, maxVerificationRetries);
+        log.info("📊 Max retries configured: {} (method), {} (verification)", maxMethodRetries, maxMethodRetries);
+
+        IterativeContext ctx = new IterativeContext(targetFile, projectRoot, systemPrompt, testFilePath,
+                testClassName, targetClassName, coverageThreshold, maxMethodRetries);
+        int parallelism = resolveMethodParallelism();
+        List<Map.Entry<MethodCoverageInfo, IterationStats.MethodStats>> pending = new ArrayList<>();
 
         for (int i = 0; i < methodsToProcess.size(); i++) {
             MethodCoverageInfo methodInfo = methodsToProcess.get(i);
@@ -285,6 +421,14 @@ public class SimpleAgentOrchestrator {
                     methodInfo.getPriority(),
                     methodInfo.getLineCoverage());
 
+            if (completedMethods.contains(methodInfo.getMethodName())) {
+                log.info("📊 Method {} was completed in the previous run - SKIPPING", methodInfo.getMethodName());
+                currentMethodStats.markSkipped("Completed in previous run");
+                currentMethodStats.complete("SKIPPED", methodInfo.getLineCoverage());
+                skippedCount++;
+                continue;
+            }
+
             // 检查是否已达到覆盖率要求
             if (methodInfo.getLineCoverage() >= coverageThreshold) {
                 log.info("📊 Method {} already has {}% coverage (threshold: {}%) - SKIPPING",
@@ -292,137 +436,574 @@ public class SimpleAgentOrchestrator {
                         coverageThreshold);
                 currentMethodStats.markSkipped("Coverage already met");
                 currentMethodStats.complete("SKIPPED", methodInfo.getLineCoverage());
+                notifyMethodFinished(currentMethodStats);
+                skippedCount++;
+                continue;
+            }
+
+            String budgetSkip = budgetSkipReason(methodInfo.getPriority());
+            if (budgetSkip != null) {
+                // 状态不记为 SKIPPED，恢复运行时仍会处理该方法
+                log.warn("💰 {} - SKIPPING method {} [{}]", budgetSkip, methodInfo.getMethodName(),
+                        methodInfo.getPriority());
+                currentMethodStats.markSkipped(budgetSkip);
+                currentMethodStats.complete("BUDGET_SKIPPED", methodInfo.getLineCoverage());
+                if (incompleteReason == null) {
+                    incompleteReason = budgetSkip;
+                }
+                notifyMethodFinished(currentMethodStats);
                 skippedCount++;
                 continue;
             }
 
             processedCount++;
-            boolean methodCompleted = false;
-            int coverageRetryCount = 0;
-            double currentCoverage = methodInfo.getLineCoverage();
-
-            // 外层循环：覆盖率不足时继续生成测试
-            while (!methodCompleted && coverageRetryCount < maxMethodRetries) {
-
-                // Step 1: 让 LLM 生成测试代码
-                // 切换到生成阶段工具集
-                if (phaseManager.isIterativeMode()) {
-                    phaseManager.switchToPhase(WorkflowPhase.GENERATION, toolRegistry);
-                    log.info("🔧 Switched to GENERATION phase ({} tools)", toolRegistry.size());
+            if (parallelism > 1) {
+                pending.add(Map.entry(methodInfo, currentMethodStats));
+            } else {
+                processMethod(ctx, methodInfo, currentMethodStats, null);
+                notifyMethodFinished(currentMethodStats);
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            if (pending.size() > 1) {
+                runMethodsInParallel(ctx, pending, parallelism);
+            } else {
+                processMethod(ctx, pending.get(0).getKey(), pending.get(0).getValue(), null);
+            }
+            // 并行模式下测试在合并后才写入最终测试类，因此合并完成后再上报
+            pending.forEach(entry -> notifyMethodFinished(entry.getValue()));
+        }
+        if (incompleteReason == null && budgetExhausted() && iterationStats.getMethodStatsList().stream()
+                .anyMatch(stats -> !"SUCCESS".equals(stats.getStatus()) && !"SKIPPED".equals(stats.getStatus()))) {
+            // 预算在方法处理中途耗尽，未达标的方法在恢复时可以继续
+            incompleteReason = "Class budget exhausted";
+        }
+
+        // ===== Phase 3: 汇总 =====
+        log.info(">>> Phase 3: Summary");
+        log.info("📊 Processed: {}, Skipped: {}, Total: {}",
+                processedCount, skippedCount, methodsToProcess.size());
+
+        // 生成报告
+        String agentDir = getAgentRunDirectory();
+        generateReport(agentDir);
+    }
+
+    /**
+     * 确定方法处理顺序：work-order=gain 时按每 token 预期覆盖收益从高到低，coverage 时按覆盖率从低到高
+     */
+    private List<MethodCoverageInfo> orderMethods(String targetFile, String targetClassName, String projectRoot) {
+        List<MethodCoverageInfo> byCoverage = currentPreCheck.getMethodsSortedByCoverage();
+        if (!"gain".equalsIgnoreCase(workOrder()) || byCoverage.isEmpty()) {
+            return byCoverage;
+        }
+        if (workPrioritizer == null) {
+            workPrioritizer = new WorkPrioritizer(projectRoot);
+        }
+        prioritizedFile = targetFile;
+        return workPrioritizer.orderMethods(targetFile, targetClassName, byCoverage);
+    }
+
+    private String workOrder() {
+        return WorkPrioritizer.workOrder(config);
+    }
+
+    /**
+     * 预算不足时跳过方法的原因：运行预算耗尽、节约模式下的 P2 方法、或当前类的预算已用完；否则为 null
+     */
+    private String budgetSkipReason(String priority) {
+        if (budget.shouldSkip(priority)) {
+            return "Budget " + budget.level() + " (" + budget.describe() + ")";
+        }
+        if (!budget.allowLlmCall(new BudgetGovernor.Scope(budgetClass, null, null))) {
+            return "Class budget exhausted";
+        }
+        return null;
+    }
+
+    private boolean budgetExhausted() {
+        return !budget.allowLlmCall(new BudgetGovernor.Scope(budgetClass, null, null));
+    }
+
+    /**
+     * 迭代模式下的共享参数
+     */
+    private record IterativeContext(String targetFile, String projectRoot, String systemPrompt,
+            String testFilePath, String testClassName, String targetClassName,
+            int coverageThreshold, int maxRetries) {
+    }
+
+    /**
+     * 并行生成时单个方法的临时测试类（如 FooTest_add），verifiedSource 为最近一次验证通过的内容
+     */
+    private static final class ScratchTest {
+        private final String methodName;
+        private final String filePath;
+        private final String className;
+        private final IterationStats.MethodStats stats;
+        private volatile String verifiedSource;
+
+        private ScratchTest(String methodName, String filePath, String className, IterationStats.MethodStats stats) {
+            this.methodName = methodName;
+            this.filePath = filePath;
+            this.className = className;
+            this.stats = stats;
+        }
+
+        private String simpleName() {
+            return className.substring(className.lastIndexOf('.') + 1);
+        }
+    }
+
+    /**
+     * 处理单个方法：生成 → 验证/修复 → 覆盖率不足时继续生成
+     *
+     * @param scratch 并行模式下该方法的临时测试类；为 null 时直接写入最终测试类并按阶段切换工具集
+     */
+    private void processMethod(IterativeContext ctx, MethodCoverageInfo methodInfo,
+            IterationStats.MethodStats currentMethodStats, ScratchTest scratch) {
+        boolean concurrent = scratch != null;
+        boolean switchPhases = !concurrent && phaseManager.isIterativeMode();
+        String testFilePath = concurrent ? scratch.filePath : ctx.testFilePath();
+        String testClassName = concurrent ? scratch.className : ctx.testClassName();
+        String methodName = methodInfo.getMethodName();
+        int maxVerificationRetries = ctx.maxRetries();
+
+        boolean methodCompleted = false;
+        int coverageRetryCount = 0;
+        double currentCoverage = methodInfo.getLineCoverage();
+        // 基线快照，后续每轮验证与之比较得出新覆盖/仍未覆盖的行
+        recordCoverageSnapshot(ctx, methodName, concurrent);
+
+        // 外层循环：覆盖率不足时继续生成测试
+        while (!methodCompleted && coverageRetryCount < budget.adjustRetries(ctx.maxRetries())) {
+
+            // Step 1: 让 LLM 生成测试代码
+            // 切换到生成阶段工具集
+            if (switchPhases) {
+                phaseManager.switchToPhase(WorkflowPhase.GENERATION, toolRegistry);
+                log.info("🔧 Switched to GENERATION phase ({} tools)", toolRegistry.size());
+            }
+
+            log.info("🤖 Step 1: Generating tests for method {}", methodName);
+            String generatePrompt;
+            if (coverageRetryCount > 0) {
+                generatePrompt = FixPromptBuilder.buildMoreTestsPrompt(ctx.targetFile(), methodName,
+                        testFilePath, currentCoverage, ctx.coverageThreshold(),
+                        coverageSnapshots.latestDelta(ctx.targetClassName(), methodName));
+            } else if (concurrent) {
+                generatePrompt = FixPromptBuilder.buildScratchTestPrompt(ctx.targetFile(), methodName,
+                        testFilePath, scratch.simpleName(), ctx.testFilePath(), currentCoverage);
+            } else {
+                generatePrompt = FixPromptBuilder.buildGenerateTestPrompt(ctx.targetFile(), methodName,
+                        testFilePath, currentCoverage);
+            }
+
+            boolean codeGenerated = runLlmAndWait(ctx.systemPrompt(), generatePrompt, currentMethodStats,
+                    testFilePath, ctx.projectRoot(), concurrent, "generation");
+            if (!codeGenerated) {
+                log.error("❌ Failed to generate test code for method {}", methodName);
+                currentMethodStats.complete("FAILED", currentCoverage);
+                methodCompleted = true;
+                continue;
+            }
+
+            // Step 2: 自动执行验证管道（带修复循环）
+            // 切换到验证阶段工具集
+            if (switchPhases) {
+                phaseManager.switchToPhase(WorkflowPhase.VERIFICATION, toolRegistry);
+                log.info("🔧 Switched to VERIFICATION phase ({} tools)", toolRegistry.size());
+            }
+
+            log.info("🔄 Step 2: Running verification pipeline");
+            int verificationRetryCount = 0;
+            VerificationResult verifyResult = null;
+
+            // 预算紧张时减少修复次数，但至少验证一次
+            while (verificationRetryCount < Math.max(1, budget.adjustRetries(maxVerificationRetries))) {
+                verifyResult = verify(testFilePath, testClassName, ctx.targetClassName(), methodName,
+                        ctx.projectRoot(), concurrent);
+
+                if (verifyResult.isSuccess()) {
+                    break;
                 }
 
-                log.info("🤖 Step 1: Generating tests for method {}", methodInfo.getMethodName());
-                String generatePrompt = coverageRetryCount == 0
-                        ? FixPromptBuilder.buildGenerateTestPrompt(targetFile, methodInfo.getMethodName(),
-                                testFilePath, currentCoverage)
-                        : FixPromptBuilder.buildMoreTestsPrompt(targetFile, methodInfo.getMethodName(),
-                                testFilePath, currentCoverage, coverageThreshold);
-
-                boolean codeGenerated = runLlmAndWait(systemPrompt, generatePrompt, currentMethodStats);
-                if (!codeGenerated) {
-                    log.error("❌ Failed to generate test code for method {}", methodInfo.getMethodName());
-                    currentMethodStats.complete("FAILED", currentCoverage);
-                    methodCompleted = true;
-                    continue;
+                // 验证失败，切换到修复阶段，调用 LLM 修复
+                if (switchPhases) {
+                    phaseManager.switchToPhase(WorkflowPhase.REPAIR, toolRegistry);
+                    log.info("🔧 Switched to REPAIR phase ({} tools)", toolRegistry.size());
                 }
 
-                // Step 2: 自动执行验证管道（带修复循环）
-                // 切换到验证阶段工具集
-                if (phaseManager.isIterativeMode()) {
-                    phaseManager.switchToPhase(WorkflowPhase.VERIFICATION, toolRegistry);
-                    log.info("🔧 Switched to VERIFICATION phase ({} tools)", toolRegistry.size());
+                log.warn("⚠️ Verification failed at step: {}", verifyResult.getFailedStep());
+                String fixPrompt = buildFixPromptForStep(verifyResult, testFilePath, testClassName);
+
+                boolean fixed = runLlmAndWait(ctx.systemPrompt(), fixPrompt, currentMethodStats,
+                        testFilePath, ctx.projectRoot(), concurrent, "repair");
+                if (!fixed) {
+                    log.error("❌ Failed to fix error");
+                    break;
                 }
 
-                log.info("🔄 Step 2: Running verification pipeline");
-                int verificationRetryCount = 0;
-                VerificationResult verifyResult = null;
+                verificationRetryCount++;
 
-                while (verificationRetryCount < maxVerificationRetries) {
-                    verifyResult = verificationPipeline.execute(
-                            testFilePath, testClassName, targetClassName,
-                            methodInfo.getMethodName(), projectRoot);
+                // 检查是否还有重试机会，如果有则切回验证阶段
+                if (verificationRetryCount < maxVerificationRetries) {
+                    log.info("🔄 Retrying verification (attempt {}/{})",
+                            verificationRetryCount + 1, maxVerificationRetries);
 
-                    if (verifyResult.isSuccess()) {
-                        break;
+                    // 切回验证阶段工具集（从 REPAIR 切回）
+                    if (switchPhases) {
+                        phaseManager.switchToPhase(WorkflowPhase.VERIFICATION, toolRegistry);
+                        log.info("🔧 Switched back to VERIFICATION phase ({} tools)", toolRegistry.size());
                     }
+                }
+            }
 
-                    // 验证失败，切换到修复阶段，调用 LLM 修复
-                    if (phaseManager.isIterativeMode()) {
-                        phaseManager.switchToPhase(WorkflowPhase.REPAIR, toolRegistry);
-                        log.info("🔧 Switched to REPAIR phase ({} tools)", toolRegistry.size());
-                    }
+            // 检查验证结果
+            if (verifyResult == null || !verifyResult.isSuccess()) {
+                log.error("❌ Verification failed after {} attempts", maxVerificationRetries);
+                currentMethodStats.complete("FAILED", currentCoverage);
+                methodCompleted = true;
+                continue;
+            }
 
-                    log.warn("⚠️ Verification failed at step: {}", verifyResult.getFailedStep());
-                    String fixPrompt = buildFixPromptForStep(verifyResult, testFilePath, testClassName);
+            // 验证成功，检查覆盖率
+            if (concurrent) {
+                scratch.verifiedSource = readFileOrNull(Path.of(testFilePath));
+            }
+            currentCoverage = verifyResult.getCoverage();
+            currentMethodStats.incrementIteration();
+            recordCoverageSnapshot(ctx, methodName, concurrent);
 
-                    boolean fixed = runLlmAndWait(systemPrompt, fixPrompt, currentMethodStats);
-                    if (!fixed) {
-                        log.error("❌ Failed to fix error");
-                        break;
-                    }
+            if (verifyResult.isCoverageThresholdMet()) {
+                log.info("✅ Method {} completed with coverage: {}%",
+                        methodName, String.format("%.1f", currentCoverage));
+                currentMethodStats.complete("SUCCESS", currentCoverage);
+                methodCompleted = true;
+            } else {
+                log.info("⚠️ Coverage {}% below threshold {}%, generating more tests",
+                        String.format("%.1f", currentCoverage), ctx.coverageThreshold());
+                coverageRetryCount++;
+            }
+        }
+
+        if (!methodCompleted) {
+            log.warn("⚠️ Method {} completed with coverage below threshold: {}%",
+                    methodName, String.format("%.1f", currentCoverage));
+            currentMethodStats.complete("PARTIAL", currentCoverage);
+        }
+    }
+
+    /**
+     * 并行度：parallel-methods 配置；单文件编译或子 JVM 测试被关闭时回退为串行，
+     * 因为 Maven 编译会连带编译其他任务尚未完成的临时测试类
+     */
+    private int resolveMethodParallelism() {
+        AppConfig.WorkflowConfig workflow = config.getWorkflow();
+        int parallelism = workflow != null ? workflow.getParallelMethods() : 1;
+        if (parallelism > 1 && (!workflow.isInProcessCompile() || !workflow.isForkedTestRunner())) {
+            log.warn("parallel-methods={} requires in-process-compile and forked-test-runner, running sequentially",
+                    parallelism);
+            return 1;
+        }
+        return Math.max(1, parallelism);
+    }
 
-                    verificationRetryCount++;
+    /**
+     * 并行生成：每个方法写入独立的临时测试类，验证通过的临时类最后合并进最终测试类
+     *
+     * LLM 调用并行执行；验证管道共用 Maven/编译器/覆盖率数据，按方法串行执行。
+     * 工具集在开始前一次性切换到 FULL，并行期间不再切换阶段。
+     */
+    private void runMethodsInParallel(IterativeContext ctx,
+            List<Map.Entry<MethodCoverageInfo, IterationStats.MethodStats>> pending, int parallelism) {
+        log.info("🚀 Generating tests for {} methods with parallelism {}", pending.size(), parallelism);
+        if (phaseManager.isIterativeMode()) {
+            phaseManager.switchToPhase(WorkflowPhase.FULL, toolRegistry);
+            log.info("🔧 Switched to FULL phase ({} tools)", toolRegistry.size());
+        }
 
-                    // 检查是否还有重试机会，如果有则切回验证阶段
-                    if (verificationRetryCount < maxVerificationRetries) {
-                        log.info("🔄 Retrying verification (attempt {}/{})",
-                                verificationRetryCount + 1, maxVerificationRetries);
+        Path testFile = Path.of(ctx.testFilePath());
+        String testPackage = ctx.testClassName().contains(".")
+                ? ctx.testClassName().substring(0, ctx.testClassName().lastIndexOf('.') + 1) : "";
+        String testSimpleName = ctx.testClassName().substring(testPackage.length());
+        Set<String> usedNames = new HashSet<>();
+        List<ScratchTest> scratches = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
 
-                        // 切回验证阶段工具集（从 REPAIR 切回）
-                        if (phaseManager.isIterativeMode()) {
-                            phaseManager.switchToPhase(WorkflowPhase.VERIFICATION, toolRegistry);
-                            log.info("🔧 Switched back to VERIFICATION phase ({} tools)", toolRegistry.size());
-                        }
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism,
+                Thread.ofVirtual().name("method-worker-", 1).factory());
+        try {
+            for (Map.Entry<MethodCoverageInfo, IterationStats.MethodStats> entry : pending) {
+                MethodCoverageInfo methodInfo = entry.getKey();
+                String base = testSimpleName + "_" + TestClassMerger.sanitize(methodInfo.getMethodName());
+                String simpleName = base;
+                for (int n = 2; !usedNames.add(simpleName); n++) {
+                    simpleName = base + "_" + n; // 重载方法
+                }
+                ScratchTest scratch = new ScratchTest(methodInfo.getMethodName(),
+                        testFile.resolveSibling(simpleName + ".java").toString(), testPackage + simpleName,
+                        entry.getValue());
+                scratches.add(scratch);
+                futures.add(workers.submit(() -> {
+                    try {
+                        processMethod(ctx, methodInfo, entry.getValue(), scratch);
+                    } catch (RuntimeException e) {
+                        log.error("❌ Method {} failed: {}", methodInfo.getMethodName(), e.getMessage(), e);
+                        entry.getValue().complete("FAILED", methodInfo.getLineCoverage());
                     }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    log.error("Method worker failed", e.getCause());
                 }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.shutdownNow();
+            discardUnmergedStats(scratches);
+            return;
+        } finally {
+            workers.shutdown();
+        }
 
-                // 检查验证结果
-                if (verifyResult == null || !verifyResult.isSuccess()) {
-                    log.error("❌ Verification failed after {} attempts", maxVerificationRetries);
-                    currentMethodStats.complete("FAILED", currentCoverage);
-                    methodCompleted = true;
-                    continue;
-                }
+        if (mergeScratchTests(ctx, scratches, testSimpleName)) {
+            refreshMergedCoverage(ctx, scratches);
+        } else {
+            discardUnmergedStats(scratches);
+        }
+    }
 
-                // 验证成功，检查覆盖率
-                currentCoverage = verifyResult.getCoverage();
-                currentMethodStats.incrementIteration();
+    /**
+     * 测试未进入最终测试类的方法不能算完成，否则恢复运行时会被跳过
+     */
+    private void discardUnmergedStats(List<ScratchTest> scratches) {
+        for (ScratchTest scratch : scratches) {
+            if (scratch.verifiedSource != null) {
+                log.warn("⚠️ Tests for method {} were not merged into the test class", scratch.methodName);
+                scratch.stats.complete("FAILED", scratch.stats.getInitialCoverage());
+            }
+        }
+    }
 
-                if (verifyResult.isCoverageThresholdMet()) {
-                    log.info("✅ Method {} completed with coverage: {}%",
-                            methodInfo.getMethodName(), String.format("%.1f", currentCoverage));
-                    currentMethodStats.complete("SUCCESS", currentCoverage);
-                    methodCompleted = true;
-                } else {
-                    log.info("⚠️ Coverage {:.1f}% below threshold {}%, generating more tests",
-                            currentCoverage, coverageThreshold);
-                    coverageRetryCount++;
+    /**
+     * 合并后的最终验证只报告一个方法的覆盖率，这里从覆盖率索引刷新每个已合并方法的统计
+     */
+    private void refreshMergedCoverage(IterativeContext ctx, List<ScratchTest> scratches) {
+        CoverageIndex index;
+        try {
+            index = CoverageIndex.forModule(ctx.projectRoot());
+        } catch (IOException e) {
+            log.warn("Failed to read coverage after merging: {}", e.getMessage());
+            return;
+        }
+        if (index == null) {
+            return;
+        }
+        for (ScratchTest scratch : scratches) {
+            int methodId = index.methodId(ctx.targetClassName(), scratch.methodName);
+            if (scratch.verifiedSource == null || methodId < 0) {
+                continue;
+            }
+            double coverage = index.methodCoverage(methodId, CoverageIndex.CounterType.LINE);
+            scratch.stats.complete(coverage >= ctx.coverageThreshold() ? "SUCCESS" : "PARTIAL", coverage);
+            log.info("📊 Merged coverage for {}: {}%", scratch.methodName, String.format("%.1f", coverage));
+        }
+    }
+
+    /**
+     * 合并验证通过的临时测试类并对最终测试类做一次完整验证
+     *
+     * 最终验证失败（修复后仍失败）时恢复原测试类，保留各临时测试类供人工处理。
+     *
+     * @return 验证通过的临时测试类已全部合并进最终测试类（没有需要合并的也返回 true）
+     */
+    private boolean mergeScratchTests(IterativeContext ctx, List<ScratchTest> scratches, String testSimpleName) {
+        List<TestClassMerger.Scratch> verified = new ArrayList<>();
+        for (ScratchTest scratch : scratches) {
+            if (scratch.verifiedSource != null) {
+                verified.add(new TestClassMerger.Scratch(scratch.simpleName(), scratch.methodName,
+                        scratch.verifiedSource));
+            }
+            deleteScratch(ctx, scratch);
+        }
+        if (verified.isEmpty()) {
+            log.warn("No verified scratch test classes to merge");
+            return true;
+        }
+
+        log.info(">>> Merging {} scratch test classes into {}", verified.size(), ctx.testClassName());
+        Path testFile = Path.of(ctx.testFilePath());
+        String original = readFileOrNull(testFile);
+        TestClassMerger.MergeResult merged = new TestClassMerger().merge(original, testSimpleName, verified);
+        try {
+            Files.createDirectories(testFile.getParent());
+            Files.writeString(testFile, merged.source(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.error("Failed to write merged test class {}: {}", testFile, e.getMessage());
+            restoreScratches(ctx, scratches);
+            return false;
+        }
+
+        // 最终验证的覆盖率只针对第一个方法，合并成功后由 refreshMergedCoverage 刷新所有方法
+        String methodName = verified.get(0).methodName();
+        VerificationResult result = null;
+        for (int attempt = 0; attempt < ctx.maxRetries(); attempt++) {
+            long verifyStart = System.currentTimeMillis();
+            result = verificationPipeline.execute(ctx.testFilePath(), ctx.testClassName(),
+                    ctx.targetClassName(), methodName, ctx.projectRoot());
+            budget.recordTime("verification", System.currentTimeMillis() - verifyStart);
+            if (result.isSuccess()) {
+                break;
+            }
+            log.warn("⚠️ Merged test class failed verification at step: {}", result.getFailedStep());
+            String fixPrompt = buildFixPromptForStep(result, ctx.testFilePath(), ctx.testClassName());
+            if (!runLlmAndWait(ctx.systemPrompt(), fixPrompt, null, ctx.testFilePath(), ctx.projectRoot(), false,
+                    "repair")) {
+                break;
+            }
+        }
+
+        if (result != null && result.isSuccess()) {
+            log.info("✅ Merged {} scratch test classes into {} (folded: {}, nested: {})",
+                    verified.size(), ctx.testClassName(), merged.folded().size(), merged.nested().size());
+            return true;
+        }
+
+        log.error("❌ Merged test class failed verification, restoring {} and keeping scratch test classes",
+                ctx.testClassName());
+        try {
+            if (original != null) {
+                Files.writeString(testFile, original, StandardCharsets.UTF_8);
+            } else {
+                Files.deleteIfExists(testFile);
+            }
+        } catch (IOException e) {
+            log.error("Failed to restore {}: {}", testFile, e.getMessage());
+        }
+        restoreScratches(ctx, scratches);
+        return false;
+    }
+
+    private void restoreScratches(IterativeContext ctx, List<ScratchTest> scratches) {
+        for (ScratchTest scratch : scratches) {
+            if (scratch.verifiedSource == null) {
+                continue;
+            }
+            try {
+                Files.writeString(Path.of(scratch.filePath), scratch.verifiedSource, StandardCharsets.UTF_8);
+                System.out.println("📄 Kept verified scratch test: " + scratch.filePath);
+            } catch (IOException e) {
+                log.error("Failed to restore scratch test {}: {}", scratch.filePath, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 删除临时测试类的源码和编译产物（包括内部类）
+     */
+    private void deleteScratch(IterativeContext ctx, ScratchTest scratch) {
+        try {
+            Files.deleteIfExists(Path.of(scratch.filePath));
+            CompileGuard.getInstance().clearStatus(scratch.filePath);
+            Path classDir = Path.of(ctx.projectRoot(), "target", "test-classes")
+                    .resolve(scratch.className.replace('.', '/')).getParent();
+            if (classDir != null && Files.isDirectory(classDir)) {
+                String prefix = scratch.simpleName();
+                try (var classes = Files.list(classDir)) {
+                    for (Path p : classes.filter(p -> {
+                        String name = p.getFileName().toString();
+                        return name.equals(prefix + ".class") || name.startsWith(prefix + "$");
+                    }).toList()) {
+                        Files.deleteIfExists(p);
+                    }
                 }
             }
+        } catch (IOException e) {
+            log.warn("Failed to delete scratch test {}: {}", scratch.filePath, e.getMessage());
+        }
+    }
 
-            if (!methodCompleted) {
-                log.warn("⚠️ Method {} completed with coverage below threshold: {}%",
-                        methodInfo.getMethodName(), String.format("%.1f", currentCoverage));
-                currentMethodStats.complete("PARTIAL", currentCoverage);
+    /**
+     * 执行验证管道；并行模式下各方法的验证互斥执行
+     */
+    private VerificationResult verify(String testFilePath, String testClassName, String targetClassName,
+            String methodName, String projectRoot, boolean concurrent) {
+        if (!concurrent) {
+            long start = System.currentTimeMillis();
+            try {
+                return verificationPipeline.execute(testFilePath, testClassName, targetClassName, methodName,
+                        projectRoot);
+            } finally {
+                budget.recordTime("verification", System.currentTimeMillis() - start);
             }
         }
+        verificationLock.lock();
+        long lockedAt = System.currentTimeMillis();
+        try {
+            return verificationPipeline.execute(testFilePath, testClassName, targetClassName, methodName, projectRoot);
+        } finally {
+            verificationLock.unlock();
+            budget.recordTime("verification", System.currentTimeMillis() - lockedAt);
+        }
+    }
 
-        // ===== Phase 3: 汇总 =====
-        log.info(">>> Phase 3: Summary");
-        log.info("📊 Processed: {}, Skipped: {}, Total: {}",
-                processedCount, skippedCount, methodsToProcess.size());
+    private void recordCoverageSnapshot(IterativeContext ctx, String methodName, boolean concurrent) {
+        if (!concurrent) {
+            coverageSnapshots.record(ctx.projectRoot(), ctx.targetClassName(), methodName);
+            return;
+        }
+        verificationLock.lock();
+        try {
+            coverageSnapshots.record(ctx.projectRoot(), ctx.targetClassName(), methodName);
+        } finally {
+            verificationLock.unlock();
+        }
+    }
 
-        // 生成报告
-        String agentDir = getAgentRunDirectory();
-        generateReport(agentDir);
+    private static String readFileOrNull(Path file) {
+        try {
+            return Files.isRegularFile(file) ? Files.readString(file, StandardCharsets.UTF_8) : null;
+        } catch (IOException e) {
+            return null;
+        }
     }
 
     /**
      * 运行 LLM 并等待完成
+     *
+     * 启用推测式验证时，流式输出中一旦出现对测试文件的写入就在后台做语法检查并预热编译器；
+     * 检查失败则提前结束本轮 LLM，直接进入验证/修复流程。
+     *
+     * @param concurrent 并行生成模式：不输出流式内容，也不做推测式检查（预热与串行的验证管道冲突）
+     * @param phase      预算计费阶段（generation / repair）
      */
     private boolean runLlmAndWait(String systemPrompt, String userPrompt,
-            IterationStats.MethodStats methodStats) {
-        AgentExecutor executor = createExecutor(systemPrompt, 10);
+            IterationStats.MethodStats methodStats, String testFilePath, String modulePath, boolean concurrent,
+            String phase) {
+        AgentExecutor executor = createExecutor(systemPrompt, 10,
+                methodStats != null ? methodStats.getMethodName() : null, phase);
+        SpeculativeVerifier speculative = !concurrent && testFilePath != null && config.getWorkflow() != null
+                && config.getWorkflow().isSpeculativeVerification()
+                ? new SpeculativeVerifier(testFilePath, () -> verificationPipeline.prewarm(modulePath))
+                : null;
+        if (speculative != null) {
+            executor.setCancellation(new AgentExecutor.Cancellation() {
+                @Override
+                public boolean isCancelled() {
+                    return speculative.shouldCancel();
+                }
+
+                @Override
+                public boolean awaitCancelled() {
+                    return awaitSpeculativeCheck(speculative);
+                }
+            });
+        }
 
         if (methodStats != null) {
             executor.setTokenStatsCallback((prompt, response) -> {
@@ -436,7 +1017,16 @@ public class SimpleAgentOrchestrator {
             });
         }
 
-        ConsoleStreamingHandler handler = new ConsoleStreamingHandler();
+        PrintStream out = concurrent ? new PrintStream(OutputStream.nullOutputStream()) : System.out;
+        ConsoleStreamingHandler handler = new ConsoleStreamingHandler(out) {
+            @Override
+            public void onToolCall(ToolCall toolCall) {
+                super.onToolCall(toolCall);
+                if (speculative != null) {
+                    speculative.onToolCall(toolCall);
+                }
+            }
+        };
         executor.runStream(userPrompt, handler);
 
         try {
@@ -451,10 +1041,28 @@ public class SimpleAgentOrchestrator {
             return false;
         }
 
+        if (speculative != null && awaitSpeculativeCheck(speculative)) {
+            // 测试文件已写入但语法错误，交给验证管道生成修复提示
+            System.out.println("\n⚡ 推测式语法检查失败，已提前结束本轮 LLM 输出");
+            return true;
+        }
+
         String content = handler.getContent();
         return content != null && !content.trim().isEmpty();
     }
 
+    /**
+     * 等待最新一次推测式语法检查完成，返回是否失败
+     */
+    private static boolean awaitSpeculativeCheck(SpeculativeVerifier speculative) {
+        try {
+            return speculative.awaitShouldCancel(SPECULATIVE_CHECK_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return speculative.shouldCancel();
+        }
+    }
+
     /**
      * 根据验证失败的步骤构建修复提示词
      */
@@ -465,7 +1073,9 @@ public class SimpleAgentOrchestrator {
         return switch (failedStep) {
             case SYNTAX_CHECK -> FixPromptBuilder.buildSyntaxFixPrompt(testFilePath, errorDetails);
             case LSP_CHECK -> FixPromptBuilder.buildLspFixPrompt(testFilePath, errorDetails);
-            case COMPILE -> FixPromptBuilder.buildCompileFixPrompt(testFilePath, errorDetails);
+            case COMPILE -> result.getCompileDiagnostics() != null && !result.getCompileDiagnostics().isEmpty()
+                    ? FixPromptBuilder.buildCompileFixPrompt(testFilePath, result.getCompileDiagnostics())
+                    : FixPromptBuilder.buildCompileFixPrompt(testFilePath, errorDetails);
             case TEST -> FixPromptBuilder.buildTestFixPrompt(testFilePath, testClassName, errorDetails);
             case COVERAGE -> ""; // 覆盖率不足在外层处理
         };
@@ -584,7 +1194,12 @@ public class SimpleAgentOrchestrator {
         for (int i = 1; i <= maxMethodIterations; i++) {
             log.info(">>> Phase 2: Method Iteration #{}", i);
 
-            AgentExecutor methodExecutor = createExecutor(systemPrompt, 10);
+            if (!budget.allowNewWork()) {
+                log.warn("💰 Budget exhausted ({}), stopping iteration", budget.describe());
+                incompleteReason = "Budget exhausted (" + budget.describe() + ")";
+                break;
+            }
+            AgentExecutor methodExecutor = createExecutor(systemPrompt, 10, null, "generation");
 
             IterationStats.MethodStats currentMethodStats = iterationStats.startMethod("method_" + i, "P1");
 
@@ -881,17 +1496,37 @@ public class SimpleAgentOrchestrator {
     }
 
     /**
-     * 创建执行器
+     * 启用工具输出落盘，并把 readToolOutput 注册为内置工具（切换阶段后仍可用）
      */
-    private AgentExecutor createExecutor(String systemPrompt, int maxMessages) {
-        return AgentExecutor.builder()
+    private void initToolOutputSpill(String projectRoot) {
+        int threshold = config.getWorkflow() != null ? config.getWorkflow().getToolOutputSpillChars() : 0;
+        if (threshold <= 0 || projectRoot == null) {
+            return;
+        }
+        toolOutputSpill = ToolOutputSpill.forProject(Path.of(projectRoot), threshold);
+        toolRegistry.registerBuiltIn(toolOutputSpill);
+    }
+
+    /**
+     * 创建执行器，LLM 调用按类/方法/阶段计入预算
+     */
+    private AgentExecutor createExecutor(String systemPrompt, int maxMessages, String methodName, String phase) {
+        AgentExecutor executor = AgentExecutor.builder()
                 .llmAdapter(llmAdapter)
                 .toolRegistry(toolRegistry)
                 .systemMessage(systemPrompt)
                 .maxMessages(maxMessages)
+                .maxContextTokens(maxContextTokens, tokenEstimator)
+                .toolOutputSpill(toolOutputSpill)
                 .maxIterations(maxIterations)
                 .timeoutMs(300_000)
                 .build();
+        executor.setBudget(budget, new BudgetGovernor.Scope(budgetClass, methodName, phase));
+        IterationStats stats = iterationStats;
+        if (stats != null) {
+            executor.setUsageCallback(stats::recordUsage);
+        }
+        return executor;
     }
 
     /**
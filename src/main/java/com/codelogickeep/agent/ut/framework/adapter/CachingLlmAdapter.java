@@ -0,0 +1,154 @@
+package com.codelogickeep.agent.ut.framework.adapter;
+
+import com.codelogickeep.agent.ut.framework.executor.StreamingHandler;
+import com.codelogickeep.agent.ut.framework.model.AssistantMessage;
+import com.codelogickeep.agent.ut.framework.model.Message;
+import com.codelogickeep.agent.ut.framework.model.TokenUsage;
+import com.codelogickeep.agent.ut.framework.model.ToolCall;
+import com.codelogickeep.agent.ut.framework.model.ToolDefinition;
+import com.codelogickeep.agent.ut.framework.util.JsonUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 带响应缓存的适配器 - 包装任意 LlmAdapter
+ *
+ * 相同的模型、温度和请求（消息 + 工具）直接返回缓存的响应，流式调用按原有
+ * StreamingHandler 回调顺序回放（onToken → onToolCall → onComplete）。
+ * replay 模式只读缓存，未命中时报错而不调用 API，用于可复现的基准测试。
+ */
+public class CachingLlmAdapter implements LlmAdapter {
+    private static final Logger log = LoggerFactory.getLogger(CachingLlmAdapter.class);
+
+    private final LlmAdapter delegate;
+    private final ResponseCache cache;
+    private final String model;
+    private final Double temperature;
+    private final boolean replayOnly;
+
+    public CachingLlmAdapter(LlmAdapter delegate, ResponseCache cache, String model, Double temperature,
+            boolean replayOnly) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.model = model;
+        this.temperature = temperature;
+        this.replayOnly = replayOnly;
+    }
+
+    @Override
+    public AssistantMessage chat(List<Message> messages, List<ToolDefinition> tools) {
+        return chat(messages, tools, null);
+    }
+
+    /**
+     * 命中缓存时不消耗 Token，报告 {@link TokenUsage#RESPONSE_CACHE_HIT}，调用方不再按估算值计费
+     */
+    @Override
+    public AssistantMessage chat(List<Message> messages, List<ToolDefinition> tools,
+            Consumer<TokenUsage> usageSink) {
+        String key = keyOf(messages, tools);
+        AssistantMessage cached = cache.get(key);
+        if (cached != null) {
+            log.debug("Response cache hit {}", key);
+            if (usageSink != null) {
+                usageSink.accept(TokenUsage.RESPONSE_CACHE_HIT);
+            }
+            return cached;
+        }
+        if (replayOnly) {
+            throw new IllegalStateException(missMessage(key));
+        }
+        AssistantMessage response = delegate.chat(messages, tools, usageSink);
+        cache.put(key, response);
+        return response;
+    }
+
+    @Override
+    public void chatStream(List<Message> messages, List<ToolDefinition> tools, StreamingHandler handler) {
+        String key = keyOf(messages, tools);
+        AssistantMessage cached = cache.get(key);
+        if (cached != null) {
+            log.debug("Response cache hit {}", key);
+            replay(cached, handler);
+            return;
+        }
+        if (replayOnly) {
+            handler.onError(new IllegalStateException(missMessage(key)));
+            return;
+        }
+        delegate.chatStream(messages, tools, new StreamingHandler() {
+            @Override
+            public void onToken(String token) {
+                handler.onToken(token);
+            }
+
+            @Override
+            public void onToolCall(ToolCall toolCall) {
+                handler.onToolCall(toolCall);
+            }
+
+            @Override
+            public void onComplete(String fullContent, List<ToolCall> toolCalls) {
+                // 只缓存正常完成的响应，调用方已放弃的响应不缓存
+                if (!handler.isCancelled()) {
+                    cache.put(key, new AssistantMessage(fullContent, toolCalls));
+                }
+                handler.onComplete(fullContent, toolCalls);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                handler.onError(error);
+            }
+
+            @Override
+            public void onUsage(TokenUsage usage) {
+                handler.onUsage(usage);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return handler.isCancelled();
+            }
+        });
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName() + (replayOnly ? " (replay)" : " (cached)");
+    }
+
+    @Override
+    public boolean testConnection() {
+        return replayOnly || delegate.testConnection();
+    }
+
+    public ResponseCache getCache() {
+        return cache;
+    }
+
+    private static void replay(AssistantMessage message, StreamingHandler handler) {
+        if (!message.content().isEmpty()) {
+            handler.onToken(message.content());
+        }
+        if (message.hasToolCalls()) {
+            message.toolCalls().forEach(handler::onToolCall);
+        }
+        handler.onUsage(TokenUsage.RESPONSE_CACHE_HIT);
+        // 与各适配器一致：没有工具调用时传 null
+        handler.onComplete(message.content(), message.hasToolCalls() ? message.toolCalls() : null);
+    }
+
+    private String keyOf(List<Message> messages, List<ToolDefinition> tools) {
+        // 流式和非流式共用同一条缓存
+        return ResponseCache.key(model, temperature,
+                JsonUtil.buildChatRequestBytes(model, messages, tools, temperature, false));
+    }
+
+    private String missMessage(String key) {
+        return "Response cache miss in replay mode (" + key.substring(0, 12) + ", " + cache.describe() + ")";
+    }
+}
@@ -1,5 +1,6 @@
 package com.codelogickeep.agent.ut.framework.adapter;
 
+import com.codelogickeep.agent.ut.framework.context.EncodedHistory;
 import com.codelogickeep.agent.ut.framework.executor.StreamingHandler;
 import com.codelogickeep.agent.ut.framework.model.*;
 import com.codelogickeep.agent.ut.framework.model.ToolDefinition.PropertySchema;
@@ -7,17 +8,17 @@ import com.codelogickeep.agent.ut.framework.util.JsonUtil;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
-import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Claude (Anthropic) 适配器
@@ -35,9 +36,14 @@ public class ClaudeAdapter implements LlmAdapter {
     private final String model;
     private final Double temperature;
     private final Duration timeout;
-    private final HttpClient httpClient;
+    private final LlmHttpClient httpClient;
+    private final RateGovernor.Lane rateLane;
     private final boolean logRequests;
     private final int maxTokens;
+    private final boolean promptCaching;
+    
+    // 对话中最多标记的缓存断点数（加上 system 和 tools，不超过 API 限制的 4 个）
+    private static final int MESSAGE_CACHE_BREAKPOINTS = 2;
     
     private ClaudeAdapter(Builder builder) {
         this.baseUrl = builder.baseUrl != null ? builder.baseUrl : "https://api.anthropic.com";
@@ -47,10 +53,14 @@ public class ClaudeAdapter implements LlmAdapter {
         this.timeout = builder.timeout;
         this.logRequests = builder.logRequests;
         this.maxTokens = builder.maxTokens;
-        
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(30))
-                .build();
+        this.promptCaching = builder.promptCaching;
+
+        this.httpClient = builder.httpClient != null
+                ? builder.httpClient
+                : LlmHttpClient.shared(LlmHttpClient.Settings.defaults());
+        this.rateLane = builder.rateLane != null
+                ? builder.rateLane
+                : RateGovernor.lane("anthropic", model, RateGovernor.Limits.defaults());
     }
     
     @Override
@@ -60,6 +70,12 @@ public class ClaudeAdapter implements LlmAdapter {
     
     @Override
     public AssistantMessage chat(List<Message> messages, List<ToolDefinition> tools) {
+        return chat(messages, tools, null);
+    }
+    
+    @Override
+    public AssistantMessage chat(List<Message> messages, List<ToolDefinition> tools,
+            Consumer<TokenUsage> usageSink) {
         String endpoint = baseUrl + "/v1/messages";
         String requestBody = buildClaudeRequest(messages, tools, false);
         
@@ -68,16 +84,13 @@ public class ClaudeAdapter implements LlmAdapter {
         }
         
         try {
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(endpoint))
-                    .header("Content-Type", "application/json")
+            HttpRequest request = httpClient.newPost(endpoint, requestBody)
                     .header("x-api-key", apiKey)
                     .header("anthropic-version", "2023-06-01")
-                    .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                     .timeout(timeout)
                     .build();
             
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = httpClient.send(request, rateLane);
             
             if (logRequests) {
                 log.info("Response: {}", response.body());
@@ -88,7 +101,7 @@ public class ClaudeAdapter implements LlmAdapter {
                 throw new RuntimeException("API error: " + response.statusCode() + " - " + response.body());
             }
             
-            return parseClaudeResponse(response.body());
+            return parseClaudeResponse(response.body(), usageSink);
             
         } catch (Exception e) {
             log.error("Chat request failed", e);
@@ -106,17 +119,13 @@ public class ClaudeAdapter implements LlmAdapter {
         }
         
         try {
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(endpoint))
-                    .header("Content-Type", "application/json")
+            HttpRequest request = httpClient.newPost(endpoint, requestBody)
                     .header("x-api-key", apiKey)
                     .header("anthropic-version", "2023-06-01")
-                    .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                     .timeout(timeout)
                     .build();
             
-            HttpResponse<java.io.InputStream> response = httpClient.send(request, 
-                    HttpResponse.BodyHandlers.ofInputStream());
+            HttpResponse<java.io.InputStream> response = httpClient.stream(request, rateLane);
             
             if (response.statusCode() != 200) {
                 String errorBody = new String(response.body().readAllBytes());
@@ -128,6 +137,10 @@ public class ClaudeAdapter implements LlmAdapter {
             parseClaudeSSEStream(response.body(), handler);
             
         } catch (Exception e) {
+            if (handler.isCancelled()) {
+                log.debug("Streaming request abandoned by the caller: {}", e.getMessage());
+                return;
+            }
             log.error("Streaming request failed", e);
             handler.onError(e);
         }
@@ -135,8 +148,12 @@ public class ClaudeAdapter implements LlmAdapter {
     
     /**
      * 构建 Claude API 请求体
+     *
+     * 启用提示词缓存时在 tools、system 和最后两条 user 消息上设置 cache_control 断点：
+     * 每个方法重复发送的系统提示词和工具定义只在第一次写入缓存，同一轮对话的历史前缀也可复用。
+     * 其余消息复用 ContextManager 中已编码的片段，只有带断点的消息每轮重新编码。
      */
-    private String buildClaudeRequest(List<Message> messages, List<ToolDefinition> tools, boolean stream) {
+    String buildClaudeRequest(List<Message> messages, List<ToolDefinition> tools, boolean stream) {
         ObjectNode request = JsonUtil.getMapper().createObjectNode();
         request.put("model", model);
         request.put("max_tokens", maxTokens);
@@ -152,17 +169,32 @@ public class ClaudeAdapter implements LlmAdapter {
         // Claude 的 system 消息是单独字段
         String systemContent = null;
         ArrayNode messagesArray = JsonUtil.getMapper().createArrayNode();
+        Set<Integer> breakpoints = promptCaching ? conversationBreakpoints(messages) : Set.of();
         
-        for (Message msg : messages) {
+        for (int i = 0; i < messages.size(); i++) {
+            Message msg = messages.get(i);
             if (msg instanceof SystemMessage sys) {
                 systemContent = sys.content();
+            } else if (breakpoints.contains(i)) {
+                ObjectNode node = messageToClaudeFormat(msg);
+                markLastContentBlock(node);
+                messagesArray.add(node);
             } else {
-                messagesArray.add(messageToClaudeFormat(msg));
+                messagesArray.addRawValue(new RawValue(EncodedHistory.fragment(messages, i,
+                        EncodedHistory.Format.CLAUDE, m -> messageToClaudeFormat(m).toString())));
             }
         }
         
         if (systemContent != null) {
-            request.put("system", systemContent);
+            if (promptCaching) {
+                ArrayNode systemBlocks = request.putArray("system");
+                ObjectNode textBlock = systemBlocks.addObject();
+                textBlock.put("type", "text");
+                textBlock.put("text", systemContent);
+                markCacheBreakpoint(textBlock);
+            } else {
+                request.put("system", systemContent);
+            }
         }
         
         request.set("messages", messagesArray);
@@ -173,6 +205,10 @@ public class ClaudeAdapter implements LlmAdapter {
             for (ToolDefinition tool : tools) {
                 toolsArray.add(toolToClaudeFormat(tool));
             }
+            if (promptCaching) {
+                // 断点在最后一个工具上即缓存全部工具定义
+                markCacheBreakpoint((ObjectNode) toolsArray.get(toolsArray.size() - 1));
+            }
             request.set("tools", toolsArray);
         }
         
@@ -183,6 +219,54 @@ public class ClaudeAdapter implements LlmAdapter {
         }
     }
     
+    /**
+     * 设置缓存断点的消息下标：最后几条 user 消息（含工具结果）
+     */
+    private static Set<Integer> conversationBreakpoints(List<Message> messages) {
+        Set<Integer> indexes = new HashSet<>();
+        for (int i = messages.size() - 1; i >= 0 && indexes.size() < MESSAGE_CACHE_BREAKPOINTS; i--) {
+            Message msg = messages.get(i);
+            if (msg instanceof ToolMessage || (msg instanceof UserMessage user && user.content() != null)) {
+                indexes.add(i);
+            }
+        }
+        return indexes;
+    }
+    
+    /**
+     * 在消息的最后一个内容块上设置缓存断点
+     */
+    private static void markLastContentBlock(ObjectNode message) {
+        JsonNode content = message.get("content");
+        if (content != null && content.isTextual()) {
+            // 纯文本内容需改为内容块数组才能设置 cache_control
+            ArrayNode blocks = JsonUtil.getMapper().createArrayNode();
+            ObjectNode textBlock = blocks.addObject();
+            textBlock.put("type", "text");
+            textBlock.put("text", content.asText());
+            message.set("content", blocks);
+            content = blocks;
+        }
+        if (content != null && content.isArray() && !content.isEmpty()) {
+            markCacheBreakpoint((ObjectNode) content.get(content.size() - 1));
+        }
+    }
+    
+    private static void markCacheBreakpoint(ObjectNode block) {
+        block.putObject("cache_control").put("type", "ephemeral");
+    }
+    
+    /**
+     * 解析 usage 字段（input_tokens 不含缓存读写部分）
+     */
+    static TokenUsage parseUsage(JsonNode usage) {
+        if (usage == null || usage.isMissingNode() || usage.isNull()) {
+            return TokenUsage.EMPTY;
+        }
+        return new TokenUsage(usage.path("input_tokens").asInt(0), usage.path("output_tokens").asInt(0),
+                usage.path("cache_read_input_tokens").asInt(0), usage.path("cache_creation_input_tokens").asInt(0));
+    }
+    
     /**
      * 转换消息为 Claude 格式
      */
@@ -272,8 +356,14 @@ public class ClaudeAdapter implements LlmAdapter {
     /**
      * 解析 Claude API 响应
      */
-    private AssistantMessage parseClaudeResponse(String responseBody) throws Exception {
+    private AssistantMessage parseClaudeResponse(String responseBody,
+            Consumer<TokenUsage> usageSink) throws Exception {
         JsonNode json = JsonUtil.parse(responseBody);
+        TokenUsage usage = parseUsage(json.get("usage"));
+        log.debug("Claude usage: {}", usage);
+        if (usageSink != null && json.has("usage")) {
+            usageSink.accept(usage);
+        }
         
         StringBuilder content = new StringBuilder();
         List<ToolCall> toolCalls = new ArrayList<>();
@@ -310,11 +400,15 @@ public class ClaudeAdapter implements LlmAdapter {
     private void parseClaudeSSEStream(java.io.InputStream inputStream, StreamingHandler handler) {
         StringBuilder contentBuilder = new StringBuilder();
         List<ToolCall> toolCalls = new ArrayList<>();
-        Map<Integer, ToolCallBuilder> toolBuilders = new HashMap<>();
+        Map<Integer, ToolCallBuilder> toolBuilders = new TreeMap<>();
+        TokenUsage usage = null;
         
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
             String line;
             while ((line = reader.readLine()) != null) {
+                if (handler.isCancelled()) {
+                    return;
+                }
                 if (!line.startsWith("data: ")) {
                     continue;
                 }
@@ -355,6 +449,25 @@ public class ClaudeAdapter implements LlmAdapter {
                                 builder.name = contentBlock.get("name").asText();
                             }
                         }
+                        case "content_block_stop" -> {
+                            // tool_use 块结束时参数已完整，立即交给调用方
+                            ToolCallBuilder builder = toolBuilders.get(event.path("index").asInt(-1));
+                            if (builder != null) {
+                                emitToolCall(builder, toolCalls, handler);
+                            }
+                        }
+                        case "message_start" -> {
+                            // 输入 Token（含缓存读写）在 message_start 中返回
+                            usage = parseUsage(event.path("message").path("usage"));
+                        }
+                        case "message_delta" -> {
+                            JsonNode deltaUsage = event.get("usage");
+                            if (deltaUsage != null && usage != null) {
+                                usage = new TokenUsage(usage.inputTokens(),
+                                        deltaUsage.path("output_tokens").asInt(usage.outputTokens()),
+                                        usage.cacheReadTokens(), usage.cacheWriteTokens());
+                            }
+                        }
                         case "message_stop" -> {
                             // 消息结束
                         }
@@ -364,23 +477,41 @@ public class ClaudeAdapter implements LlmAdapter {
                 }
             }
             
-            // 构建工具调用
+            if (handler.isCancelled()) {
+                return;
+            }
+            // 没有收到 content_block_stop 的工具调用
             for (ToolCallBuilder builder : toolBuilders.values()) {
-                ToolCall tc = builder.build();
-                if (tc != null) {
-                    toolCalls.add(tc);
-                    handler.onToolCall(tc);
-                }
+                emitToolCall(builder, toolCalls, handler);
             }
             
+            if (usage != null) {
+                handler.onUsage(usage);
+            }
             handler.onComplete(contentBuilder.toString(), toolCalls.isEmpty() ? null : toolCalls);
             
         } catch (Exception e) {
+            if (handler.isCancelled()) {
+                log.debug("Claude SSE stream abandoned by the caller: {}", e.getMessage());
+                return;
+            }
             log.error("Failed to parse Claude SSE stream", e);
             handler.onError(e);
         }
     }
     
+    private static void emitToolCall(ToolCallBuilder builder, List<ToolCall> toolCalls, StreamingHandler handler) {
+        if (builder.emitted) {
+            return;
+        }
+        builder.emitted = true;
+        ToolCall tc = builder.build();
+        if (tc != null) {
+            toolCalls.add(tc);
+            handler.onToolCall(tc);
+        }
+    }
+    
     private Object nodeToValue(JsonNode node) {
         if (node.isTextual()) return node.asText();
         if (node.isInt()) return node.asInt();
@@ -398,6 +529,7 @@ public class ClaudeAdapter implements LlmAdapter {
         String id;
         String name;
         StringBuilder arguments = new StringBuilder();
+        boolean emitted;
         
         ToolCall build() {
             if (name == null) return null;
@@ -434,7 +566,10 @@ public class ClaudeAdapter implements LlmAdapter {
         private Double temperature;
         private Duration timeout = Duration.ofSeconds(120);
         private boolean logRequests = false;
+        private LlmHttpClient httpClient;
+        private RateGovernor.Lane rateLane;
         private int maxTokens = 8192;
+        private boolean promptCaching = true;
         
         public Builder baseUrl(String baseUrl) {
             this.baseUrl = baseUrl;
@@ -465,12 +600,36 @@ public class ClaudeAdapter implements LlmAdapter {
             this.logRequests = log;
             return this;
         }
+
+        /**
+         * 共享 HTTP 客户端，不设置时使用默认配置的共享实例
+         */
+        public Builder httpClient(LlmHttpClient httpClient) {
+            this.httpClient = httpClient;
+            return this;
+        }
+
+        /**
+         * 限流通道，不设置时按提供商 + 模型使用默认配置的共享通道
+         */
+        public Builder rateLane(RateGovernor.Lane rateLane) {
+            this.rateLane = rateLane;
+            return this;
+        }
         
         public Builder maxTokens(int maxTokens) {
             this.maxTokens = maxTokens;
             return this;
         }
         
+        /**
+         * 是否在请求中设置提示词缓存断点（默认开启）
+         */
+        public Builder promptCaching(boolean promptCaching) {
+            this.promptCaching = promptCaching;
+            return this;
+        }
+        
         public ClaudeAdapter build() {
             if (apiKey == null || apiKey.isEmpty()) {
                 throw new IllegalArgumentException("API key is required");
@@ -1,5 +1,6 @@
 package com.codelogickeep.agent.ut.framework.adapter;
 
+import com.codelogickeep.agent.ut.framework.context.EncodedHistory;
 import com.codelogickeep.agent.ut.framework.executor.StreamingHandler;
 import com.codelogickeep.agent.ut.framework.model.*;
 import com.codelogickeep.agent.ut.framework.model.ToolDefinition.PropertySchema;
@@ -7,17 +8,17 @@ import com.codelogickeep.agent.ut.framework.util.JsonUtil;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
-import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * Google Gemini 适配器
@@ -36,7 +37,8 @@ public class GeminiAdapter implements LlmAdapter {
     private final String model;
     private final Double temperature;
     private final Duration timeout;
-    private final HttpClient httpClient;
+    private final LlmHttpClient httpClient;
+    private final RateGovernor.Lane rateLane;
     private final boolean logRequests;
     
     private GeminiAdapter(Builder builder) {
@@ -51,10 +53,13 @@ public class GeminiAdapter implements LlmAdapter {
         this.temperature = builder.temperature;
         this.timeout = builder.timeout;
         this.logRequests = builder.logRequests;
-        
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(30))
-                .build();
+
+        this.httpClient = builder.httpClient != null
+                ? builder.httpClient
+                : LlmHttpClient.shared(LlmHttpClient.Settings.defaults());
+        this.rateLane = builder.rateLane != null
+                ? builder.rateLane
+                : RateGovernor.lane("gemini", model, RateGovernor.Limits.defaults());
     }
     
     @Override
@@ -64,6 +69,12 @@ public class GeminiAdapter implements LlmAdapter {
     
     @Override
     public AssistantMessage chat(List<Message> messages, List<ToolDefinition> tools) {
+        return chat(messages, tools, null);
+    }
+    
+    @Override
+    public AssistantMessage chat(List<Message> messages, List<ToolDefinition> tools,
+            Consumer<TokenUsage> usageSink) {
         String endpoint = String.format("%s/models/%s:generateContent?key=%s", baseUrl, model, apiKey);
         String requestBody = buildGeminiRequest(messages, tools);
         
@@ -72,14 +83,11 @@ public class GeminiAdapter implements LlmAdapter {
         }
         
         try {
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(endpoint))
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(requestBody))
+            HttpRequest request = httpClient.newPost(endpoint, requestBody)
                     .timeout(timeout)
                     .build();
             
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = httpClient.send(request, rateLane);
             
             if (logRequests) {
                 log.info("Response: {}", response.body());
@@ -90,7 +98,7 @@ public class GeminiAdapter implements LlmAdapter {
                 throw new RuntimeException("API error: " + response.statusCode() + " - " + response.body());
             }
             
-            return parseGeminiResponse(response.body());
+            return parseGeminiResponse(response.body(), usageSink);
             
         } catch (Exception e) {
             log.error("Chat request failed", e);
@@ -109,15 +117,11 @@ public class GeminiAdapter implements LlmAdapter {
         }
         
         try {
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(endpoint))
-                    .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(requestBody))
+            HttpRequest request = httpClient.newPost(endpoint, requestBody)
                     .timeout(timeout)
                     .build();
             
-            HttpResponse<java.io.InputStream> response = httpClient.send(request, 
-                    HttpResponse.BodyHandlers.ofInputStream());
+            HttpResponse<java.io.InputStream> response = httpClient.stream(request, rateLane);
             
             if (response.statusCode() != 200) {
                 String errorBody = new String(response.body().readAllBytes());
@@ -129,13 +133,17 @@ public class GeminiAdapter implements LlmAdapter {
             parseGeminiSSEStream(response.body(), handler);
             
         } catch (Exception e) {
+            if (handler.isCancelled()) {
+                log.debug("Streaming request abandoned by the caller: {}", e.getMessage());
+                return;
+            }
             log.error("Streaming request failed", e);
             handler.onError(e);
         }
     }
     
     /**
-     * 构建 Gemini API 请求
+     * 构建 Gemini API 请求（消息复用 ContextManager 中已编码的片段）
      */
     private String buildGeminiRequest(List<Message> messages, List<ToolDefinition> tools) {
         ObjectNode request = JsonUtil.getMapper().createObjectNode();
@@ -144,11 +152,12 @@ public class GeminiAdapter implements LlmAdapter {
         ArrayNode contents = JsonUtil.getMapper().createArrayNode();
         String systemInstruction = null;
         
-        for (Message msg : messages) {
-            if (msg instanceof SystemMessage sys) {
+        for (int i = 0; i < messages.size(); i++) {
+            if (messages.get(i) instanceof SystemMessage sys) {
                 systemInstruction = sys.content();
             } else {
-                contents.add(messageToGeminiFormat(msg));
+                contents.addRawValue(new RawValue(EncodedHistory.fragment(messages, i,
+                        EncodedHistory.Format.GEMINI, m -> messageToGeminiFormat(m).toString())));
             }
         }
         
@@ -282,8 +291,12 @@ public class GeminiAdapter implements LlmAdapter {
     /**
      * 解析 Gemini API 响应
      */
-    private AssistantMessage parseGeminiResponse(String responseBody) throws Exception {
+    private AssistantMessage parseGeminiResponse(String responseBody, Consumer<TokenUsage> usageSink)
+            throws Exception {
         JsonNode json = JsonUtil.parse(responseBody);
+        if (usageSink != null && json.has("usageMetadata")) {
+            usageSink.accept(parseUsage(json.get("usageMetadata")));
+        }
         
         JsonNode candidates = json.get("candidates");
         if (candidates == null || !candidates.isArray() || candidates.isEmpty()) {
@@ -298,6 +311,19 @@ public class GeminiAdapter implements LlmAdapter {
         return parseGeminiContent(content);
     }
     
+    /**
+     * 解析 usageMetadata（promptTokenCount 含缓存命中部分，思考 Token 计入输出）
+     */
+    static TokenUsage parseUsage(JsonNode usage) {
+        if (usage == null || usage.isMissingNode() || usage.isNull()) {
+            return TokenUsage.EMPTY;
+        }
+        int cached = usage.path("cachedContentTokenCount").asInt(0);
+        return new TokenUsage(Math.max(0, usage.path("promptTokenCount").asInt(0) - cached),
+                usage.path("candidatesTokenCount").asInt(0) + usage.path("thoughtsTokenCount").asInt(0),
+                cached, 0);
+    }
+    
     /**
      * 解析 Gemini content 对象
      */
@@ -335,10 +361,14 @@ public class GeminiAdapter implements LlmAdapter {
     private void parseGeminiSSEStream(java.io.InputStream inputStream, StreamingHandler handler) {
         StringBuilder contentBuilder = new StringBuilder();
         List<ToolCall> toolCalls = new ArrayList<>();
+        TokenUsage usage = null;
         
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
             String line;
             while ((line = reader.readLine()) != null) {
+                if (handler.isCancelled()) {
+                    return;
+                }
                 if (!line.startsWith("data: ")) {
                     continue;
                 }
@@ -350,6 +380,10 @@ public class GeminiAdapter implements LlmAdapter {
                 
                 try {
                     JsonNode json = JsonUtil.parse(data);
+                    if (json.has("usageMetadata")) {
+                        // 每个分块都带累计用量，以最后一个为准
+                        usage = parseUsage(json.get("usageMetadata"));
+                    }
                     JsonNode candidates = json.get("candidates");
                     
                     if (candidates == null || !candidates.isArray() || candidates.isEmpty()) {
@@ -390,9 +424,19 @@ public class GeminiAdapter implements LlmAdapter {
                 }
             }
             
+            if (handler.isCancelled()) {
+                return;
+            }
+            if (usage != null) {
+                handler.onUsage(usage);
+            }
             handler.onComplete(contentBuilder.toString(), toolCalls.isEmpty() ? null : toolCalls);
             
         } catch (Exception e) {
+            if (handler.isCancelled()) {
+                log.debug("Gemini SSE stream abandoned by the caller: {}", e.getMessage());
+                return;
+            }
             log.error("Failed to parse Gemini SSE stream", e);
             handler.onError(e);
         }
@@ -421,6 +465,8 @@ public class GeminiAdapter implements LlmAdapter {
         private Double temperature;
         private Duration timeout = Duration.ofSeconds(120);
         private boolean logRequests = false;
+        private LlmHttpClient httpClient;
+        private RateGovernor.Lane rateLane;
         
         public Builder baseUrl(String baseUrl) {
             this.baseUrl = baseUrl;
@@ -451,6 +497,22 @@ public class GeminiAdapter implements LlmAdapter {
             this.logRequests = log;
             return this;
         }
+
+        /**
+         * 共享 HTTP 客户端，不设置时使用默认配置的共享实例
+         */
+        public Builder httpClient(LlmHttpClient httpClient) {
+            this.httpClient = httpClient;
+            return this;
+        }
+
+        /**
+         * 限流通道，不设置时按提供商 + 模型使用默认配置的共享通道
+         */
+        public Builder rateLane(RateGovernor.Lane rateLane) {
+            this.rateLane = rateLane;
+            return this;
+        }
         
         public GeminiAdapter build() {
             if (apiKey == null || apiKey.isEmpty()) {
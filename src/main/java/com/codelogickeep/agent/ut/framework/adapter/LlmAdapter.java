@@ -3,9 +3,11 @@ package com.codelogickeep.agent.ut.framework.adapter;
 import com.codelogickeep.agent.ut.framework.executor.StreamingHandler;
 import com.codelogickeep.agent.ut.framework.model.AssistantMessage;
 import com.codelogickeep.agent.ut.framework.model.Message;
+import com.codelogickeep.agent.ut.framework.model.TokenUsage;
 import com.codelogickeep.agent.ut.framework.model.ToolDefinition;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * LLM 适配器接口 - 抽象不同 LLM 提供商的调用
@@ -21,6 +23,18 @@ public interface LlmAdapter {
      */
     AssistantMessage chat(List<Message> messages, List<ToolDefinition> tools);
     
+    /**
+     * 发送聊天请求（同步），服务端返回 Token 用量时回调 usageSink
+     * 
+     * 默认实现不报告用量；流式调用的用量通过 {@link StreamingHandler#onUsage} 报告
+     * 
+     * @param usageSink 用量回调，可为 null
+     */
+    default AssistantMessage chat(List<Message> messages, List<ToolDefinition> tools,
+            Consumer<TokenUsage> usageSink) {
+        return chat(messages, tools);
+    }
+    
     /**
      * 发送聊天请求（流式）
      * 
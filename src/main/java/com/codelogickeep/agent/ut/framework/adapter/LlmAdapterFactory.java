@@ -4,6 +4,7 @@ import com.codelogickeep.agent.ut.config.AppConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
 import java.time.Duration;
 
 /**
@@ -31,10 +32,15 @@ public class LlmAdapterFactory {
         
         // 检查是否启用请求日志
         boolean logRequests = Boolean.parseBoolean(System.getProperty("llm.log.requests", "false"));
+
+        // 所有适配器共享同一个 HTTP 客户端（连接池、HTTP/2 多路复用）
+        LlmHttpClient httpClient = LlmHttpClient.shared(LlmHttpClient.Settings.from(config));
+        // 同一提供商 + 模型的限流通道在所有工作线程间共享
+        RateGovernor.Limits limits = RateGovernor.Limits.from(config);
         
         log.info("Creating LLM adapter: protocol={}, model={}, baseUrl={}", protocol, model, baseUrl);
         
-        return switch (protocol) {
+        LlmAdapter adapter = switch (protocol) {
             // OpenAI 及兼容服务（包括智谱 AI）
             case "openai", "openai-zhipu", "zhipu" -> OpenAiAdapter.builder()
                     .baseUrl(baseUrl)
@@ -43,6 +49,9 @@ public class LlmAdapterFactory {
                     .temperature(temperature)
                     .timeout(timeout)
                     .logRequests(logRequests)
+                    .httpClient(httpClient)
+                    .rateLane(RateGovernor.lane("openai", model, limits))
+                    .streamUsage(config.isStreamUsage())
                     .build();
                     
             case "anthropic", "claude" -> ClaudeAdapter.builder()
@@ -52,6 +61,9 @@ public class LlmAdapterFactory {
                     .temperature(temperature)
                     .timeout(timeout)
                     .logRequests(logRequests)
+                    .httpClient(httpClient)
+                    .rateLane(RateGovernor.lane("anthropic", model, limits))
+                    .promptCaching(config.isPromptCaching())
                     .build();
                     
             case "gemini", "google" -> GeminiAdapter.builder()
@@ -61,12 +73,34 @@ public class LlmAdapterFactory {
                     .temperature(temperature)
                     .timeout(timeout)
                     .logRequests(logRequests)
+                    .httpClient(httpClient)
+                    .rateLane(RateGovernor.lane("gemini", model, limits))
                     .build();
                     
             default -> throw new IllegalArgumentException(
                     "Unsupported protocol: " + protocol + 
                     ". Supported: openai, openai-zhipu, anthropic, gemini");
         };
+
+        return withResponseCache(adapter, config);
+    }
+
+    /**
+     * 按 response-cache 配置包装响应缓存
+     */
+    static LlmAdapter withResponseCache(LlmAdapter adapter, AppConfig.LlmConfig config) {
+        String mode = config.getResponseCache() != null ? config.getResponseCache().toLowerCase() : "off";
+        if (!mode.equals("on") && !mode.equals("replay")) {
+            return adapter;
+        }
+        Path dir = config.getResponseCacheDir() != null && !config.getResponseCacheDir().isBlank()
+                ? Path.of(config.getResponseCacheDir())
+                : Path.of(System.getProperty("user.home"), ".utagent", "llm-cache");
+        ResponseCache cache = ResponseCache.open(dir, config.getResponseCacheMaxMb() * 1024L * 1024L,
+                config.getResponseCacheMaxEntries());
+        log.info("LLM response cache: mode={}, dir={}", mode, dir);
+        return new CachingLlmAdapter(adapter, cache, config.getModelName(), config.getTemperature(),
+                mode.equals("replay"));
     }
     
     /**
@@ -0,0 +1,319 @@
+package com.codelogickeep.agent.ut.framework.adapter;
+
+import com.codelogickeep.agent.ut.config.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 共享的 LLM HTTP 客户端 - 所有适配器共用，相同配置只创建一个实例
+ *
+ * - 优先 HTTP/2：并发的生成任务在同一个 TLS 连接上多路复用，服务端不支持时 JDK 自动回退 HTTP/1.1
+ * - 同时进行的请求数受 max-connections 限制（HTTP/1.1 下即连接数上限），空闲连接按 keep-alive-seconds 保活
+ * - 可选虚拟线程执行器和请求体 gzip 压缩
+ * - 经过 {@link RateGovernor} 通道限流，429/503/529 按 Retry-After 等待后自动重试
+ *
+ * 连接池大小和保活时间是 JDK 进程级系统属性，以第一个创建的客户端为准（已显式设置的属性不会被覆盖）。
+ */
+public final class LlmHttpClient {
+    private static final Logger log = LoggerFactory.getLogger(LlmHttpClient.class);
+
+    /** 小于该大小的请求体不压缩 */
+    static final int GZIP_MIN_BYTES = 8 * 1024;
+
+    private static final Map<Settings, LlmHttpClient> SHARED = new ConcurrentHashMap<>();
+
+    private final Settings settings;
+    private final HttpClient client;
+    private final Semaphore permits;
+
+    /**
+     * 客户端配置
+     *
+     * @param http2            优先使用 HTTP/2
+     * @param maxConnections   同时进行的请求数上限
+     * @param keepAliveSeconds 空闲连接保活时间
+     * @param virtualThreads   使用虚拟线程执行器
+     * @param gzipRequests     压缩较大的请求体
+     */
+    public record Settings(boolean http2, int maxConnections, int keepAliveSeconds, boolean virtualThreads,
+            boolean gzipRequests) {
+
+        public static Settings defaults() {
+            return from(new AppConfig.LlmConfig());
+        }
+
+        public static Settings from(AppConfig.LlmConfig config) {
+            return new Settings(config.isHttp2(), Math.max(1, config.getMaxConnections()),
+                    Math.max(0, config.getKeepAliveSeconds()), !"default".equalsIgnoreCase(config.getHttpExecutor()),
+                    config.isGzipRequests());
+        }
+    }
+
+    private LlmHttpClient(Settings settings) {
+        this.settings = settings;
+        this.permits = new Semaphore(settings.maxConnections(), true);
+        setPropertyIfAbsent("jdk.httpclient.connectionPoolSize", String.valueOf(settings.maxConnections()));
+        setPropertyIfAbsent("jdk.httpclient.keepalive.timeout", String.valueOf(settings.keepAliveSeconds()));
+        setPropertyIfAbsent("jdk.httpclient.keepalive.timeout.h2", String.valueOf(settings.keepAliveSeconds()));
+
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(30))
+                .version(settings.http2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1);
+        if (settings.virtualThreads()) {
+            builder.executor(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("llm-http-", 1).factory()));
+        }
+        this.client = builder.build();
+        log.info("LLM HTTP client created: {}", settings);
+    }
+
+    /**
+     * 获取该配置对应的共享客户端
+     */
+    public static LlmHttpClient shared(Settings settings) {
+        return SHARED.computeIfAbsent(settings, LlmHttpClient::new);
+    }
+
+    public Settings getSettings() {
+        return settings;
+    }
+
+    /**
+     * 当前空闲的请求名额
+     */
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * 创建 JSON POST 请求（启用 gzip 且请求体较大时压缩并设置 Content-Encoding）
+     */
+    public HttpRequest.Builder newPost(String endpoint, String jsonBody) {
+        return newPost(endpoint, jsonBody.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 创建 JSON POST 请求，请求体为已编码的 UTF-8 字节（直接作为请求体发送，不再复制）
+     */
+    public HttpRequest.Builder newPost(String endpoint, byte[] jsonBody) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(endpoint))
+                .header("Content-Type", "application/json");
+        byte[] body = jsonBody;
+        if (settings.gzipRequests() && body.length >= GZIP_MIN_BYTES) {
+            builder.header("Content-Encoding", "gzip");
+            body = gzip(body);
+        }
+        return builder.POST(HttpRequest.BodyPublishers.ofByteArray(body));
+    }
+
+    /**
+     * 发送请求并读取完整响应（非流式调用，响应本身就是一个完整的 JSON 文档）
+     *
+     * @param lane 限流通道，null 表示不限流
+     */
+    public HttpResponse<String> send(HttpRequest request, RateGovernor.Lane lane)
+            throws IOException, InterruptedException {
+        for (int attempt = 0;; attempt++) {
+            acquire(request, lane);
+            HttpResponse<String> response;
+            try {
+                response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            } finally {
+                release(lane);
+            }
+            if (!retryThrottled(response, lane, attempt)) {
+                return response;
+            }
+        }
+    }
+
+    /**
+     * 发送流式请求；请求名额在响应流读到末尾或关闭时释放
+     *
+     * @param lane 限流通道，null 表示不限流
+     */
+    public HttpResponse<InputStream> stream(HttpRequest request, RateGovernor.Lane lane)
+            throws IOException, InterruptedException {
+        for (int attempt = 0;; attempt++) {
+            acquire(request, lane);
+            HttpResponse<InputStream> response;
+            try {
+                response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            } catch (IOException | InterruptedException | RuntimeException e) {
+                release(lane);
+                throw e;
+            }
+            InputStream body = new ReleasingStream(response.body(), () -> release(lane));
+            if (!retryThrottled(response, lane, attempt)) {
+                return new StreamResponse(response, body);
+            }
+            body.close();
+        }
+    }
+
+    private void acquire(HttpRequest request, RateGovernor.Lane lane) throws InterruptedException {
+        if (lane != null) {
+            // 按请求体大小粗略估算输入 Token（约 4 字节 1 个 Token）
+            long bytes = request.bodyPublisher().map(HttpRequest.BodyPublisher::contentLength).orElse(0L);
+            lane.acquire((int) Math.max(1, bytes / 4));
+        }
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            if (lane != null) {
+                lane.release();
+            }
+            throw e;
+        }
+    }
+
+    private void release(RateGovernor.Lane lane) {
+        permits.release();
+        if (lane != null) {
+            lane.release();
+        }
+    }
+
+    /**
+     * 更新通道状态，被限流且还能重试时返回 true（通道已暂停到 Retry-After）
+     */
+    private static boolean retryThrottled(HttpResponse<?> response, RateGovernor.Lane lane, int attempt) {
+        if (lane == null) {
+            return false;
+        }
+        if (!RateGovernor.isThrottled(response.statusCode())) {
+            if (response.statusCode() < 400) {
+                lane.onSuccess(response.headers());
+            }
+            return false;
+        }
+        long wait = lane.onThrottled(response.headers(), attempt);
+        if (attempt >= lane.getLimits().maxRetries()) {
+            return false;
+        }
+        log.warn("LLM request throttled (HTTP {}), retrying in {}ms ({}/{}) - {}", response.statusCode(), wait,
+                attempt + 1, lane.getLimits().maxRetries(), lane.describe());
+        return true;
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static void setPropertyIfAbsent(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    /**
+     * 读到末尾或关闭时释放一次请求名额
+     */
+    static final class ReleasingStream extends FilterInputStream {
+        private final Runnable onRelease;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        ReleasingStream(InputStream in, Runnable onRelease) {
+            super(in);
+            this.onRelease = onRelease;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b < 0) {
+                release();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            int n = super.read(buf, off, len);
+            if (n < 0) {
+                release();
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                release();
+            }
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                onRelease.run();
+            }
+        }
+    }
+
+    /**
+     * 替换了响应体的流式响应
+     */
+    private record StreamResponse(HttpResponse<InputStream> delegate, InputStream body)
+            implements HttpResponse<InputStream> {
+        @Override
+        public int statusCode() {
+            return delegate.statusCode();
+        }
+
+        @Override
+        public HttpRequest request() {
+            return delegate.request();
+        }
+
+        @Override
+        public java.util.Optional<HttpResponse<InputStream>> previousResponse() {
+            return delegate.previousResponse();
+        }
+
+        @Override
+        public java.net.http.HttpHeaders headers() {
+            return delegate.headers();
+        }
+
+        @Override
+        public java.util.Optional<javax.net.ssl.SSLSession> sslSession() {
+            return delegate.sslSession();
+        }
+
+        @Override
+        public URI uri() {
+            return delegate.uri();
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return delegate.version();
+        }
+    }
+}
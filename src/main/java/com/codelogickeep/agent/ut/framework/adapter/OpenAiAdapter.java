@@ -9,15 +9,16 @@ import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
-import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
 /**
  * OpenAI 兼容适配器 - 支持 OpenAI API 及兼容服务（智谱 AI 等）
@@ -35,8 +36,10 @@ public class OpenAiAdapter implements LlmAdapter {
     private final String model;
     private final Double temperature;
     private final Duration timeout;
-    private final HttpClient httpClient;
+    private final LlmHttpClient httpClient;
+    private final RateGovernor.Lane rateLane;
     private final boolean logRequests;
+    private final boolean streamUsage;
 
     private OpenAiAdapter(Builder builder) {
         this.baseUrl = normalizeBaseUrl(builder.baseUrl);
@@ -45,10 +48,14 @@ public class OpenAiAdapter implements LlmAdapter {
         this.temperature = builder.temperature;
         this.timeout = builder.timeout;
         this.logRequests = builder.logRequests;
-
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(30))
-                .build();
+        this.streamUsage = builder.streamUsage;
+
+        this.httpClient = builder.httpClient != null
+                ? builder.httpClient
+                : LlmHttpClient.shared(LlmHttpClient.Settings.defaults());
+        this.rateLane = builder.rateLane != null
+                ? builder.rateLane
+                : RateGovernor.lane("openai", model, RateGovernor.Limits.defaults());
     }
 
     /**
@@ -74,8 +81,14 @@ public class OpenAiAdapter implements LlmAdapter {
 
     @Override
     public AssistantMessage chat(List<Message> messages, List<ToolDefinition> tools) {
+        return chat(messages, tools, null);
+    }
+
+    @Override
+    public AssistantMessage chat(List<Message> messages, List<ToolDefinition> tools,
+            Consumer<TokenUsage> usageSink) {
         String endpoint = baseUrl + "/chat/completions";
-        String requestBody = JsonUtil.buildChatRequest(model, messages, tools, temperature, false);
+        byte[] requestBody = JsonUtil.buildChatRequestBytes(model, messages, tools, temperature, false);
 
         if (logRequests) {
             log.info("Request to {}", endpoint);
@@ -95,23 +108,23 @@ public class OpenAiAdapter implements LlmAdapter {
             }
         }
 
-        // 始终打印完整请求体用于调试 1214 错误
-        if (requestBody.length() < 10000) {
-            log.debug("Full request body: {}", requestBody);
-        } else {
-            log.debug("Full request body (truncated): {}...", requestBody.substring(0, 5000));
+        // 打印完整请求体用于调试 1214 错误（仅在 debug 时解码为字符串）
+        if (log.isDebugEnabled()) {
+            String body = new String(requestBody, StandardCharsets.UTF_8);
+            if (body.length() < 10000) {
+                log.debug("Full request body: {}", body);
+            } else {
+                log.debug("Full request body (truncated): {}...", body.substring(0, 5000));
+            }
         }
 
         try {
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(endpoint))
-                    .header("Content-Type", "application/json")
+            HttpRequest request = httpClient.newPost(endpoint, requestBody)
                     .header("Authorization", "Bearer " + apiKey)
-                    .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                     .timeout(timeout)
                     .build();
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = httpClient.send(request, rateLane);
 
             if (logRequests) {
                 log.info("Response: {}", response.body());
@@ -123,6 +136,9 @@ public class OpenAiAdapter implements LlmAdapter {
             }
 
             JsonNode jsonResponse = JsonUtil.parse(response.body());
+            if (usageSink != null && jsonResponse.hasNonNull("usage")) {
+                usageSink.accept(parseUsage(jsonResponse.get("usage")));
+            }
             JsonNode choices = jsonResponse.get("choices");
 
             if (choices == null || !choices.isArray() || choices.isEmpty()) {
@@ -140,24 +156,20 @@ public class OpenAiAdapter implements LlmAdapter {
     @Override
     public void chatStream(List<Message> messages, List<ToolDefinition> tools, StreamingHandler handler) {
         String endpoint = baseUrl + "/chat/completions";
-        String requestBody = JsonUtil.buildChatRequest(model, messages, tools, temperature, true);
+        byte[] requestBody = JsonUtil.buildChatRequestBytes(model, messages, tools, temperature, true, streamUsage);
 
         if (logRequests) {
-            log.info("Streaming request to {}: {}", endpoint, requestBody);
+            log.info("Streaming request to {}: {}", endpoint, new String(requestBody, StandardCharsets.UTF_8));
         }
 
         try {
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(endpoint))
-                    .header("Content-Type", "application/json")
+            HttpRequest request = httpClient.newPost(endpoint, requestBody)
                     .header("Authorization", "Bearer " + apiKey)
                     .header("Accept", "text/event-stream")
-                    .POST(HttpRequest.BodyPublishers.ofString(requestBody))
                     .timeout(timeout)
                     .build();
 
-            HttpResponse<java.io.InputStream> response = httpClient.send(request,
-                    HttpResponse.BodyHandlers.ofInputStream());
+            HttpResponse<java.io.InputStream> response = httpClient.stream(request, rateLane);
 
             if (response.statusCode() != 200) {
                 String errorBody = new String(response.body().readAllBytes());
@@ -170,22 +182,45 @@ public class OpenAiAdapter implements LlmAdapter {
             parseSSEStream(response.body(), handler);
 
         } catch (Exception e) {
+            if (handler.isCancelled()) {
+                log.debug("Streaming request abandoned by the caller: {}", e.getMessage());
+                return;
+            }
             log.error("Streaming request failed", e);
             handler.onError(e);
         }
     }
 
+    /**
+     * 解析 usage 字段（prompt_tokens 含缓存命中部分：OpenAI 为 prompt_tokens_details.cached_tokens，
+     * DeepSeek 为 prompt_cache_hit_tokens）
+     */
+    static TokenUsage parseUsage(JsonNode usage) {
+        if (usage == null || usage.isMissingNode() || usage.isNull()) {
+            return TokenUsage.EMPTY;
+        }
+        int cached = usage.path("prompt_tokens_details").path("cached_tokens")
+                .asInt(usage.path("prompt_cache_hit_tokens").asInt(0));
+        return new TokenUsage(Math.max(0, usage.path("prompt_tokens").asInt(0) - cached),
+                usage.path("completion_tokens").asInt(0), cached, 0);
+    }
+
     /**
      * 解析 SSE 流
      */
-    private void parseSSEStream(java.io.InputStream inputStream, StreamingHandler handler) {
+    void parseSSEStream(java.io.InputStream inputStream, StreamingHandler handler) {
         StringBuilder contentBuilder = new StringBuilder();
         List<ToolCall> toolCalls = new ArrayList<>();
-        Map<Integer, ToolCallBuilder> toolCallBuilders = new HashMap<>();
+        Map<Integer, ToolCallBuilder> toolCallBuilders = new TreeMap<>();
+        TokenUsage usage = null;
+        boolean finished = false;
 
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
             String line;
             while ((line = reader.readLine()) != null) {
+                if (handler.isCancelled()) {
+                    return;
+                }
                 if (line.isEmpty()) {
                     continue;
                 }
@@ -202,6 +237,14 @@ public class OpenAiAdapter implements LlmAdapter {
 
                 try {
                     JsonNode jsonData = JsonUtil.parse(data);
+                    if (jsonData.hasNonNull("usage")) {
+                        // include_usage 时用量在 finish_reason 之后单独的分块中（choices 为空），
+                        // 部分兼容服务直接放在最后一个分块里
+                        usage = parseUsage(jsonData.get("usage"));
+                        if (finished) {
+                            break;
+                        }
+                    }
                     JsonNode choices = jsonData.get("choices");
 
                     if (choices == null || !choices.isArray() || choices.isEmpty()) {
@@ -227,6 +270,8 @@ public class OpenAiAdapter implements LlmAdapter {
                         JsonNode tcArray = delta.get("tool_calls");
                         for (JsonNode tcDelta : tcArray) {
                             int index = tcDelta.has("index") ? tcDelta.get("index").asInt() : 0;
+                            // 工具调用按 index 依次输出，出现新的 index 说明之前的调用参数已完整
+                            emitToolCalls(toolCallBuilders, index, toolCalls, handler);
 
                             ToolCallBuilder builder = toolCallBuilders.computeIfAbsent(index,
                                     k -> new ToolCallBuilder());
@@ -251,7 +296,11 @@ public class OpenAiAdapter implements LlmAdapter {
                     if (choice.has("finish_reason") && !choice.get("finish_reason").isNull()) {
                         String finishReason = choice.get("finish_reason").asText();
                         if ("tool_calls".equals(finishReason) || "stop".equals(finishReason)) {
-                            break;
+                            emitToolCalls(toolCallBuilders, Integer.MAX_VALUE, toolCalls, handler);
+                            finished = true;
+                            if (!streamUsage || usage != null) {
+                                break;
+                            }
                         }
                     }
 
@@ -260,24 +309,50 @@ public class OpenAiAdapter implements LlmAdapter {
                 }
             }
 
-            // 构建最终的工具调用列表
-            for (Map.Entry<Integer, ToolCallBuilder> entry : toolCallBuilders.entrySet()) {
-                ToolCall tc = entry.getValue().build();
-                if (tc != null) {
-                    toolCalls.add(tc);
-                    handler.onToolCall(tc);
-                }
+            if (handler.isCancelled()) {
+                return;
             }
+            // 没有 finish_reason 就结束的流
+            emitToolCalls(toolCallBuilders, Integer.MAX_VALUE, toolCalls, handler);
 
             // 完成
+            if (usage != null) {
+                handler.onUsage(usage);
+            }
             handler.onComplete(contentBuilder.toString(), toolCalls.isEmpty() ? null : toolCalls);
 
         } catch (Exception e) {
+            if (handler.isCancelled()) {
+                log.debug("SSE stream abandoned by the caller: {}", e.getMessage());
+                return;
+            }
             log.error("Failed to parse SSE stream", e);
             handler.onError(e);
         }
     }
 
+    /**
+     * 输出 index 小于 before 且尚未输出的工具调用，参数完整的调用可以立即交给调用方处理
+     */
+    private static void emitToolCalls(Map<Integer, ToolCallBuilder> builders, int before,
+            List<ToolCall> toolCalls, StreamingHandler handler) {
+        for (Map.Entry<Integer, ToolCallBuilder> entry : builders.entrySet()) {
+            if (entry.getKey() >= before) {
+                break;
+            }
+            ToolCallBuilder builder = entry.getValue();
+            if (builder.emitted) {
+                continue;
+            }
+            builder.emitted = true;
+            ToolCall tc = builder.build();
+            if (tc != null) {
+                toolCalls.add(tc);
+                handler.onToolCall(tc);
+            }
+        }
+    }
+
     /**
      * 工具调用构建器（用于流式增量构建）
      */
@@ -285,6 +360,7 @@ public class OpenAiAdapter implements LlmAdapter {
         String id;
         String name;
         StringBuilder arguments = new StringBuilder();
+        boolean emitted;
 
         ToolCall build() {
             if (name == null || name.isEmpty()) {
@@ -336,6 +412,9 @@ public class OpenAiAdapter implements LlmAdapter {
         private Double temperature;
         private Duration timeout = Duration.ofSeconds(120);
         private boolean logRequests = false;
+        private LlmHttpClient httpClient;
+        private RateGovernor.Lane rateLane;
+        private boolean streamUsage = true;
 
         public Builder baseUrl(String baseUrl) {
             this.baseUrl = baseUrl;
@@ -367,6 +446,30 @@ public class OpenAiAdapter implements LlmAdapter {
             return this;
         }
 
+        /**
+         * 共享 HTTP 客户端，不设置时使用默认配置的共享实例
+         */
+        public Builder httpClient(LlmHttpClient httpClient) {
+            this.httpClient = httpClient;
+            return this;
+        }
+
+        /**
+         * 限流通道，不设置时按提供商 + 模型使用默认配置的共享通道
+         */
+        public Builder rateLane(RateGovernor.Lane rateLane) {
+            this.rateLane = rateLane;
+            return this;
+        }
+
+        /**
+         * 流式请求附带 stream_options.include_usage，让服务端在流末尾返回 Token 用量
+         */
+        public Builder streamUsage(boolean streamUsage) {
+            this.streamUsage = streamUsage;
+            return this;
+        }
+
         public OpenAiAdapter build() {
             if (apiKey == null || apiKey.isEmpty()) {
                 throw new IllegalArgumentException("API key is required");
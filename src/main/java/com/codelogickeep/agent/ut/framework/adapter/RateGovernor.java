@@ -0,0 +1,368 @@
+package com.codelogickeep.agent.ut.framework.adapter;
+
+import com.codelogickeep.agent.ut.config.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 客户端限流 - 每个提供商 + 模型一条通道（Lane），进程内所有适配器和批处理工作线程共享
+ *
+ * - 请求数/分钟、Token 数/分钟两个令牌桶；未配置时从响应的限额头（x-ratelimit-*、anthropic-ratelimit-*）学习
+ * - 剩余额度为 0 时等到重置时间，429/503/529 时按 Retry-After 暂停整条通道
+ * - 并发上限 AIMD：成功时缓慢加 1，被限流时减半，吞吐稳定在配额以下而不是反复撞上限
+ */
+public final class RateGovernor {
+    private static final Logger log = LoggerFactory.getLogger(RateGovernor.class);
+
+    private static final Map<String, Lane> LANES = new ConcurrentHashMap<>();
+
+    private static final long MAX_BACKOFF_MS = 60_000;
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+
+    private RateGovernor() {
+    }
+
+    /**
+     * 通道配置
+     *
+     * @param requestsPerMinute 每分钟请求数上限，0 表示从响应头学习
+     * @param tokensPerMinute   每分钟 Token 上限，0 表示从响应头学习
+     * @param maxConcurrency    并发上限（AIMD 的上界）
+     * @param maxRetries        被限流时的最大重试次数
+     */
+    public record Limits(int requestsPerMinute, int tokensPerMinute, int maxConcurrency, int maxRetries) {
+
+        public static Limits defaults() {
+            return from(new AppConfig.LlmConfig());
+        }
+
+        public static Limits from(AppConfig.LlmConfig config) {
+            return new Limits(Math.max(0, config.getRequestsPerMinute()), Math.max(0, config.getTokensPerMinute()),
+                    Math.max(1, config.getMaxConnections()), Math.max(0, config.getRateLimitRetries()));
+        }
+    }
+
+    /**
+     * 获取提供商 + 模型对应的共享通道（第一次创建时的配置生效）
+     */
+    public static Lane lane(String provider, String model, Limits limits) {
+        return LANES.computeIfAbsent(provider + "/" + model, name -> new Lane(name, limits));
+    }
+
+    /**
+     * 是否是限流/过载响应
+     */
+    public static boolean isThrottled(int statusCode) {
+        return statusCode == 429 || statusCode == 503 || statusCode == 529;
+    }
+
+    /**
+     * 单条限流通道，线程安全
+     */
+    public static final class Lane {
+        private final String name;
+        private final Limits limits;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+
+        private Bucket requests;
+        private Bucket tokens;
+        private double concurrencyLimit;
+        private int inFlight;
+        private long blockedUntil;
+        private int throttledCount;
+
+        Lane(String name, Limits limits) {
+            this.name = name;
+            this.limits = limits;
+            this.requests = limits.requestsPerMinute() > 0 ? new Bucket(limits.requestsPerMinute()) : null;
+            this.tokens = limits.tokensPerMinute() > 0 ? new Bucket(limits.tokensPerMinute()) : null;
+            this.concurrencyLimit = limits.maxConcurrency();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Limits getLimits() {
+            return limits;
+        }
+
+        /**
+         * 等待发送许可：通道未暂停、并发未满、两个令牌桶都有余量
+         */
+        public void acquire(int estimatedTokens) throws InterruptedException {
+            lock.lock();
+            try {
+                while (true) {
+                    long now = System.currentTimeMillis();
+                    long wait;
+                    if (blockedUntil > now) {
+                        wait = blockedUntil - now;
+                    } else if (inFlight >= (int) concurrencyLimit) {
+                        wait = 0; // 等待 release 唤醒
+                    } else {
+                        wait = Math.max(waitFor(requests, 1, now), waitFor(tokens, estimatedTokens, now));
+                        if (wait == 0) {
+                            take(requests, 1, now);
+                            take(tokens, estimatedTokens, now);
+                            inFlight++;
+                            return;
+                        }
+                    }
+                    changed.await(wait > 0 ? wait : 1000, TimeUnit.MILLISECONDS);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 释放并发名额（请求结束或流式响应读完）
+         */
+        public void release() {
+            lock.lock();
+            try {
+                inFlight = Math.max(0, inFlight - 1);
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 请求成功：并发上限加性增长，并按限额头校准令牌桶
+         */
+        public void onSuccess(HttpHeaders headers) {
+            lock.lock();
+            try {
+                concurrencyLimit = Math.min(limits.maxConcurrency(), concurrencyLimit + 1.0 / concurrencyLimit);
+                applyRateLimitHeaders(headers, System.currentTimeMillis());
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 被限流：并发上限减半，整条通道暂停到 Retry-After（没有时指数退避）
+         *
+         * @return 暂停时长（毫秒）
+         */
+        public long onThrottled(HttpHeaders headers, int attempt) {
+            lock.lock();
+            try {
+                long now = System.currentTimeMillis();
+                concurrencyLimit = Math.max(1, concurrencyLimit / 2);
+                throttledCount++;
+                long wait = retryAfterMillis(headers, now)
+                        .orElseGet(() -> Math.min(MAX_BACKOFF_MS, 1000L << Math.min(attempt, 6))
+                                + ThreadLocalRandom.current().nextLong(250));
+                blockedUntil = Math.max(blockedUntil, now + wait);
+                applyRateLimitHeaders(headers, now);
+                changed.signalAll();
+                return wait;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public int getConcurrencyLimit() {
+            lock.lock();
+            try {
+                return (int) concurrencyLimit;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public int getThrottledCount() {
+            lock.lock();
+            try {
+                return throttledCount;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 一行状态，例如 "openai/gpt-4o: concurrency 4, throttled 2x, paused 20s"
+         */
+        public String describe() {
+            lock.lock();
+            try {
+                long paused = blockedUntil - System.currentTimeMillis();
+                return name + ": concurrency " + (int) concurrencyLimit + ", throttled " + throttledCount + "x"
+                        + (paused > 0 ? ", paused " + Duration.ofMillis(paused).toSeconds() + "s" : "");
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 读取 OpenAI（x-ratelimit-*）和 Anthropic（anthropic-ratelimit-*）的限额头
+         */
+        private void applyRateLimitHeaders(HttpHeaders headers, long now) {
+            if (headers == null) {
+                return;
+            }
+            // 未配置上限时采用服务端公布的每分钟限额
+            if (limits.requestsPerMinute() <= 0) {
+                requests = learn(requests, firstLong(headers, "x-ratelimit-limit-requests",
+                        "anthropic-ratelimit-requests-limit"));
+            }
+            if (limits.tokensPerMinute() <= 0) {
+                tokens = learn(tokens, firstLong(headers, "x-ratelimit-limit-tokens",
+                        "anthropic-ratelimit-tokens-limit"));
+            }
+            blockIfExhausted(headers, now, "x-ratelimit-remaining-requests", "x-ratelimit-reset-requests");
+            blockIfExhausted(headers, now, "x-ratelimit-remaining-tokens", "x-ratelimit-reset-tokens");
+            blockIfExhausted(headers, now, "anthropic-ratelimit-requests-remaining",
+                    "anthropic-ratelimit-requests-reset");
+            blockIfExhausted(headers, now, "anthropic-ratelimit-tokens-remaining", "anthropic-ratelimit-tokens-reset");
+        }
+
+        private void blockIfExhausted(HttpHeaders headers, long now, String remainingHeader, String resetHeader) {
+            Optional<Long> remaining = firstLong(headers, remainingHeader);
+            if (remaining.isEmpty() || remaining.get() > 0) {
+                return;
+            }
+            headers.firstValue(resetHeader).flatMap(reset -> parseReset(reset, now))
+                    .ifPresent(wait -> blockedUntil = Math.max(blockedUntil, now + wait));
+        }
+
+        private Bucket learn(Bucket current, Optional<Long> limit) {
+            if (limit.isEmpty() || limit.get() <= 0 || (current != null && current.capacity == limit.get())) {
+                return current;
+            }
+            log.info("Rate limit for {} learned from response headers: {}/min", name, limit.get());
+            Bucket learned = new Bucket(limit.get());
+            if (current != null) {
+                learned.level = Math.min(learned.capacity, current.level);
+            }
+            return learned;
+        }
+    }
+
+    /**
+     * 每分钟补满的令牌桶
+     */
+    static final class Bucket {
+        final long capacity;
+        double level;
+        long refilledAt = System.currentTimeMillis();
+
+        Bucket(long capacity) {
+            this.capacity = capacity;
+            this.level = capacity;
+        }
+
+        void refill(long now) {
+            level = Math.min(capacity, level + (now - refilledAt) * capacity / 60_000.0);
+            refilledAt = now;
+        }
+    }
+
+    private static long waitFor(Bucket bucket, long amount, long now) {
+        if (bucket == null) {
+            return 0;
+        }
+        bucket.refill(now);
+        // 超过桶容量的请求按满桶放行，避免永远等待
+        double needed = Math.min(amount, bucket.capacity) - bucket.level;
+        return needed <= 0 ? 0 : (long) Math.ceil(needed * 60_000.0 / bucket.capacity);
+    }
+
+    private static void take(Bucket bucket, long amount, long now) {
+        if (bucket != null) {
+            bucket.refill(now);
+            bucket.level -= Math.min(amount, bucket.capacity);
+        }
+    }
+
+    private static Optional<Long> firstLong(HttpHeaders headers, String... names) {
+        for (String name : names) {
+            Optional<String> value = headers.firstValue(name);
+            if (value.isPresent()) {
+                try {
+                    return Optional.of(Long.parseLong(value.get().trim()));
+                } catch (NumberFormatException e) {
+                    // 忽略格式不对的头
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Retry-After（秒或 HTTP 日期），或 OpenAI 的 retry-after-ms
+     */
+    static Optional<Long> retryAfterMillis(HttpHeaders headers, long now) {
+        if (headers == null) {
+            return Optional.empty();
+        }
+        Optional<String> millis = headers.firstValue("retry-after-ms");
+        if (millis.isPresent()) {
+            try {
+                return Optional.of((long) Double.parseDouble(millis.get().trim()));
+            } catch (NumberFormatException e) {
+                // 回退到 Retry-After
+            }
+        }
+        return headers.firstValue("retry-after").flatMap(value -> {
+            try {
+                return Optional.of((long) (Double.parseDouble(value.trim()) * 1000));
+            } catch (NumberFormatException e) {
+                try {
+                    long at = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME)
+                            .toInstant().toEpochMilli();
+                    return Optional.of(Math.max(0, at - now));
+                } catch (DateTimeParseException ignored) {
+                    return Optional.empty();
+                }
+            }
+        });
+    }
+
+    /**
+     * 重置时间：OpenAI 的时长（"1s"、"6m0s"、"20ms"）或 Anthropic 的 RFC 3339 时间
+     */
+    static Optional<Long> parseReset(String value, long now) {
+        String text = value.trim();
+        try {
+            return Optional.of(Math.max(0, Instant.parse(text).toEpochMilli() - now));
+        } catch (DateTimeParseException e) {
+            // 不是时间点，按时长解析
+        }
+        Matcher matcher = DURATION_PART.matcher(text);
+        double total = 0;
+        int end = 0;
+        while (matcher.find() && matcher.start() == end) {
+            double amount = Double.parseDouble(matcher.group(1));
+            total += switch (matcher.group(2)) {
+                case "ms" -> amount;
+                case "s" -> amount * 1000;
+                case "m" -> amount * 60_000;
+                default -> amount * 3_600_000;
+            };
+            end = matcher.end();
+        }
+        return end > 0 && end == text.length() ? Optional.of((long) total) : Optional.empty();
+    }
+}
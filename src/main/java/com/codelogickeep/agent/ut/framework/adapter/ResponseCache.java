@@ -0,0 +1,257 @@
+package com.codelogickeep.agent.ut.framework.adapter;
+
+import com.codelogickeep.agent.ut.framework.model.AssistantMessage;
+import com.codelogickeep.agent.ut.framework.model.ToolCall;
+import com.codelogickeep.agent.ut.framework.util.JsonUtil;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * LLM 响应缓存 - 以请求内容的哈希为键，持久化在追加写的 JSONL 文件中
+ *
+ * 每条记录一行（k=键，c=文本，t=工具调用），加载时后写覆盖先写，残缺的最后一行忽略。
+ * 内存中按访问顺序做 LRU，超过条数或大小上限时淘汰最久未用的条目；
+ * 文件中的失效记录超过有效记录时整体重写（按 LRU 顺序，下次加载保持淘汰顺序）。
+ * 同一目录只打开一个实例，方法线程安全。
+ */
+public final class ResponseCache {
+    private static final Logger log = LoggerFactory.getLogger(ResponseCache.class);
+
+    static final String CACHE_FILE = "responses.jsonl";
+
+    private static final Map<Path, ResponseCache> OPEN = new ConcurrentHashMap<>();
+
+    private final Path file;
+    private final long maxBytes;
+    private final int maxEntries;
+
+    // 键 -> 序列化后的记录行，访问顺序
+    private final LinkedHashMap<String, String> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long liveBytes;
+    private long fileBytes;
+    private int hits;
+    private int misses;
+
+    private ResponseCache(Path dir, long maxBytes, int maxEntries) {
+        this.file = dir.resolve(CACHE_FILE);
+        this.maxBytes = Math.max(1, maxBytes);
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /**
+     * 打开（或复用已打开的）缓存目录
+     */
+    public static ResponseCache open(Path dir, long maxBytes, int maxEntries) {
+        Path key = dir.toAbsolutePath().normalize();
+        return OPEN.computeIfAbsent(key, k -> {
+            ResponseCache cache = new ResponseCache(k, maxBytes, maxEntries);
+            cache.load();
+            return cache;
+        });
+    }
+
+    /**
+     * 计算缓存键：模型、温度和序列化请求的 SHA-256
+     */
+    public static String key(String model, Double temperature, byte[] request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(String.valueOf(model).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(String.valueOf(temperature).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(request);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 查找缓存的响应，未命中返回 null
+     */
+    public synchronized AssistantMessage get(String key) {
+        String line = entries.get(key);
+        if (line == null) {
+            misses++;
+            return null;
+        }
+        try {
+            hits++;
+            return decode(JsonUtil.parse(line));
+        } catch (IOException e) {
+            log.warn("Dropping unreadable cache entry {}: {}", key, e.getMessage());
+            remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * 写入响应（追加一行），超出上限时淘汰最久未用的条目
+     */
+    public synchronized void put(String key, AssistantMessage message) {
+        String line = encode(key, message);
+        String previous = entries.put(key, line);
+        if (previous != null) {
+            liveBytes -= previous.length() + 1;
+        }
+        liveBytes += line.length() + 1;
+        try {
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, line + "\n", StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+            fileBytes += line.length() + 1;
+        } catch (IOException e) {
+            log.warn("Failed to append to response cache {}: {}", file, e.getMessage());
+        }
+        evict();
+        compactIfNeeded();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    /**
+     * 命中统计，例如 "12 hits, 3 misses, 340 entries"
+     */
+    public synchronized String describe() {
+        return hits + " hits, " + misses + " misses, " + entries.size() + " entries";
+    }
+
+    private void remove(String key) {
+        String line = entries.remove(key);
+        if (line != null) {
+            liveBytes -= line.length() + 1;
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, String>> it = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || liveBytes > maxBytes) && it.hasNext()) {
+            liveBytes -= it.next().getValue().length() + 1;
+            it.remove();
+        }
+    }
+
+    /**
+     * 失效记录超过有效记录时重写文件
+     */
+    private void compactIfNeeded() {
+        if (fileBytes <= 2 * liveBytes + 64 * 1024) {
+            return;
+        }
+        Path tmp = file.resolveSibling(CACHE_FILE + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (String line : entries.values()) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            log.warn("Failed to compact response cache {}: {}", file, e.getMessage());
+            return;
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            fileBytes = liveBytes;
+        } catch (IOException e) {
+            log.warn("Failed to compact response cache {}: {}", file, e.getMessage());
+        }
+    }
+
+    private void load() {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        int skipped = 0;
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                fileBytes += line.length() + 1;
+                String key;
+                try {
+                    key = JsonUtil.parse(line).path("k").asText(null);
+                } catch (IOException e) {
+                    skipped++; // 崩溃时写了一半的行
+                    continue;
+                }
+                if (key == null) {
+                    skipped++;
+                    continue;
+                }
+                remove(key);
+                entries.put(key, line);
+                liveBytes += line.length() + 1;
+            }
+        } catch (IOException e) {
+            log.warn("Failed to read response cache {}: {}", file, e.getMessage());
+            return;
+        }
+        evict();
+        compactIfNeeded();
+        log.info("Loaded response cache {}: {} entries{}", file, entries.size(),
+                skipped > 0 ? ", " + skipped + " unreadable line(s) ignored" : "");
+    }
+
+    static String encode(String key, AssistantMessage message) {
+        ObjectNode node = JsonUtil.getMapper().createObjectNode();
+        node.put("k", key);
+        node.put("c", message.content());
+        if (message.hasToolCalls()) {
+            ArrayNode calls = node.putArray("t");
+            for (ToolCall call : message.toolCalls()) {
+                ObjectNode callNode = calls.addObject();
+                callNode.put("i", call.id());
+                callNode.put("n", call.name());
+                callNode.set("a", JsonUtil.getMapper().valueToTree(
+                        call.arguments() != null ? call.arguments() : Map.of()));
+            }
+        }
+        return node.toString();
+    }
+
+    static AssistantMessage decode(JsonNode node) {
+        List<ToolCall> toolCalls = new ArrayList<>();
+        for (JsonNode callNode : node.path("t")) {
+            Map<String, Object> arguments = JsonUtil.getMapper().convertValue(callNode.path("a"),
+                    new TypeReference<Map<String, Object>>() {
+                    });
+            toolCalls.add(ToolCall.withId(callNode.path("i").asText(null), callNode.path("n").asText(),
+                    arguments));
+        }
+        String content = node.path("c").asText("");
+        return toolCalls.isEmpty() ? AssistantMessage.text(content)
+                : AssistantMessage.withToolCalls(content, toolCalls);
+    }
+}
@@ -5,7 +5,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 /**
@@ -13,16 +12,34 @@ import java.util.List;
  * 
  * 特性：
  * - 支持最大消息数限制（滑动窗口）
+ * - 支持输入 Token 上限：超出时先截断最旧的工具输出，再按轮次淘汰最旧的消息
  * - System 消息始终保留
  * - 支持清除上下文（保留 System）
- * - 简单的 Token 估算
+ * - 按模型估算 Token（见 {@link TokenEstimator}）
+ * - 按请求格式缓存每条消息的编码片段（见 {@link EncodedHistory}）
  */
 public class ContextManager {
     private static final Logger log = LoggerFactory.getLogger(ContextManager.class);
     
     private final List<Message> messages = new ArrayList<>();
+    // 与 messages 一一对应的编码片段槽，增删消息时同步维护
+    private final List<String[]> fragments = new ArrayList<>();
+    private final EncodedHistory history = new EncodedHistory(messages, fragments);
     private final int maxMessages;
+    private final int maxTokens;
+    private final TokenEstimator estimator;
     private int estimatedTokens = 0;
+    // 真实输入 Token 数与估算值之比（平滑），用于按提供商的真实用量修正裁剪判断
+    private double calibration = 1.0;
+    
+    /** 校准系数的范围和平滑权重，避免单次异常用量（如缓存命中统计口径不同）造成大幅波动 */
+    static final double MIN_CALIBRATION = 0.5;
+    static final double MAX_CALIBRATION = 2.0;
+    static final double CALIBRATION_WEIGHT = 0.3;
+    
+    /** 截断后保留的工具输出开头和结尾字符数 */
+    static final int TRUNCATED_HEAD_CHARS = 1200;
+    static final int TRUNCATED_TAIL_CHARS = 400;
     
     /**
      * 创建上下文管理器
@@ -30,7 +47,20 @@ public class ContextManager {
      * @param maxMessages 最大消息数（包括 system 消息）
      */
     public ContextManager(int maxMessages) {
+        this(maxMessages, 0, TokenEstimator.forModel(null));
+    }
+    
+    /**
+     * 创建上下文管理器
+     * 
+     * @param maxMessages 最大消息数（包括 system 消息），设置了 Token 上限时不生效
+     * @param maxTokens   输入 Token 上限，0 表示按消息数裁剪
+     * @param estimator   Token 估算器
+     */
+    public ContextManager(int maxMessages, int maxTokens, TokenEstimator estimator) {
         this.maxMessages = maxMessages;
+        this.maxTokens = Math.max(0, maxTokens);
+        this.estimator = estimator != null ? estimator : TokenEstimator.forModel(null);
     }
     
     /**
@@ -47,12 +77,10 @@ public class ContextManager {
         SystemMessage systemMsg = new SystemMessage(content);
         
         if (!messages.isEmpty() && messages.get(0) instanceof SystemMessage) {
-            messages.set(0, systemMsg);
+            replace(0, systemMsg);
         } else {
-            messages.add(0, systemMsg);
+            insert(0, systemMsg);
         }
-        
-        recalculateTokens();
     }
     
     /**
@@ -97,8 +125,7 @@ public class ContextManager {
      * 添加消息
      */
     public void addMessage(Message message) {
-        messages.add(message);
-        estimatedTokens += estimateTokens(message.content());
+        insert(messages.size(), message);
         
         trimIfNeeded();
     }
@@ -107,17 +134,19 @@ public class ContextManager {
      * 清除上下文（保留 System 消息）
      */
     public void clear() {
-        Message systemMsg = null;
-        if (!messages.isEmpty() && messages.get(0) instanceof SystemMessage) {
-            systemMsg = messages.get(0);
-        }
+        boolean keepSystem = !messages.isEmpty() && messages.get(0) instanceof SystemMessage;
+        Message systemMsg = keepSystem ? messages.get(0) : null;
+        String[] systemSlot = keepSystem ? fragments.get(0) : null;
         
         messages.clear();
+        fragments.clear();
         estimatedTokens = 0;
         
         if (systemMsg != null) {
+            // System 消息的编码片段继续复用
             messages.add(systemMsg);
-            estimatedTokens = estimateTokens(systemMsg.content());
+            fragments.add(systemSlot);
+            estimatedTokens = estimator.estimate(systemMsg);
         }
         
         log.debug("Context cleared, keeping system message");
@@ -128,15 +157,23 @@ public class ContextManager {
      */
     public void clearAll() {
         messages.clear();
+        fragments.clear();
         estimatedTokens = 0;
         log.debug("Context completely cleared");
     }
     
     /**
-     * 获取所有消息
+     * 获取所有消息（只读视图，适配器通过它复用已编码的消息片段）
      */
     public List<Message> getMessages() {
-        return Collections.unmodifiableList(messages);
+        return history;
+    }
+    
+    /**
+     * 累计的消息编码次数（每条消息每种请求格式最多一次，裁剪或替换后重新计）
+     */
+    public int getEncodeCount() {
+        return history.getEncodeCount();
     }
     
     /**
@@ -153,6 +190,44 @@ public class ContextManager {
         return estimatedTokens;
     }
     
+    /**
+     * 获取按真实用量校准后的 Token 数
+     */
+    public int getCalibratedTokens() {
+        return (int) Math.ceil(estimatedTokens * calibration);
+    }
+    
+    public double getCalibration() {
+        return calibration;
+    }
+    
+    /**
+     * 用提供商返回的真实输入 Token 数校准估算
+     * 
+     * @param estimated 请求前估算的输入 Token 数（未校准）
+     * @param actual    响应中的真实输入 Token 数（含缓存读写）
+     */
+    public void calibrate(int estimated, int actual) {
+        if (estimated <= 0 || actual <= 0) {
+            return;
+        }
+        double ratio = Math.max(MIN_CALIBRATION, Math.min(MAX_CALIBRATION, (double) actual / estimated));
+        calibration = calibration * (1 - CALIBRATION_WEIGHT) + ratio * CALIBRATION_WEIGHT;
+        log.debug("Token estimate calibrated: estimated={}, actual={}, factor={}",
+                estimated, actual, String.format("%.2f", calibration));
+    }
+    
+    /**
+     * 输入 Token 上限，0 表示按消息数裁剪
+     */
+    public int getMaxTokens() {
+        return maxTokens;
+    }
+    
+    public TokenEstimator getEstimator() {
+        return estimator;
+    }
+    
     /**
      * 检查是否为空
      */
@@ -171,9 +246,13 @@ public class ContextManager {
      * 创建当前上下文的快照副本
      */
     public ContextManager snapshot() {
-        ContextManager copy = new ContextManager(this.maxMessages);
+        ContextManager copy = new ContextManager(this.maxMessages, this.maxTokens, this.estimator);
         copy.messages.addAll(this.messages);
+        for (String[] slot : this.fragments) {
+            copy.fragments.add(slot.clone());
+        }
         copy.estimatedTokens = this.estimatedTokens;
+        copy.calibration = this.calibration;
         return copy;
     }
     
@@ -186,6 +265,11 @@ public class ContextManager {
      * 3. 删除最旧的非关键消息
      */
     private void trimIfNeeded() {
+        if (maxTokens > 0) {
+            trimToTokenBudget();
+            ensureValidMessageSequence();
+            return;
+        }
         while (messages.size() > maxMessages) {
             // 找到可以删除的消息索引
             int indexToRemove = findRemovableMessageIndex();
@@ -194,8 +278,7 @@ public class ContextManager {
                 break;  // 没有可删除的消息
             }
             
-            Message removed = messages.remove(indexToRemove);
-            estimatedTokens -= estimateTokens(removed.content());
+            Message removed = remove(indexToRemove);
             log.debug("Trimmed message at index {} (role={})", indexToRemove, removed.role());
         }
         
@@ -203,6 +286,76 @@ public class ContextManager {
         ensureValidMessageSequence();
     }
     
+    /**
+     * 按 Token 上限裁剪
+     * 
+     * 1. 截断最旧的工具输出（保留开头和结尾），当前轮（最后一条助手消息之后）的工具结果不动
+     * 2. 仍超出时按轮次淘汰最旧的消息：助手消息连同其工具结果一起删除，避免留下孤立的工具结果
+     * 3. 仍超出时截断当前轮的工具输出
+     */
+    private void trimToTokenBudget() {
+        if (!overBudget()) {
+            return;
+        }
+        int currentRound = lastAssistantIndex();
+        truncateToolOutputs(0, currentRound);
+        
+        while (overBudget()) {
+            int index = findRemovableMessageIndex();
+            if (index < 0 || index >= lastAssistantIndex()) {
+                break;  // 只剩当前轮
+            }
+            Message removed = remove(index);
+            if (removed instanceof AssistantMessage assistant && assistant.hasToolCalls()) {
+                while (index < messages.size() && messages.get(index) instanceof ToolMessage) {
+                    remove(index);
+                }
+            }
+            log.debug("Evicted message at index {} (role={}) to fit token budget", index, removed.role());
+        }
+        
+        truncateToolOutputs(0, messages.size());
+        if (overBudget()) {
+            log.warn("Context still exceeds token budget after trimming: {} > {}", getCalibratedTokens(), maxTokens);
+        }
+    }
+    
+    private boolean overBudget() {
+        return getCalibratedTokens() > maxTokens;
+    }
+    
+    /**
+     * 从旧到新截断 [from, to) 范围内的大工具输出，直到不超出 Token 上限
+     */
+    private void truncateToolOutputs(int from, int to) {
+        for (int i = from; i < to && overBudget(); i++) {
+            if (messages.get(i) instanceof ToolMessage tool && tool.content() != null
+                    && tool.content().length() > TRUNCATED_HEAD_CHARS + TRUNCATED_TAIL_CHARS + 200) {
+                replace(i, new ToolMessage(tool.toolCallId(), tool.name(), truncate(tool.content())));
+                log.debug("Truncated {} output at index {} to fit token budget", tool.name(), i);
+            }
+        }
+    }
+    
+    /**
+     * 保留开头和结尾，中间替换为省略说明
+     */
+    static String truncate(String content) {
+        int omitted = content.length() - TRUNCATED_HEAD_CHARS - TRUNCATED_TAIL_CHARS;
+        return content.substring(0, TRUNCATED_HEAD_CHARS)
+                + "\n... [" + omitted + " characters omitted to fit the context budget] ...\n"
+                + content.substring(content.length() - TRUNCATED_TAIL_CHARS);
+    }
+    
+    private int lastAssistantIndex() {
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (messages.get(i) instanceof AssistantMessage) {
+                return i;
+            }
+        }
+        return messages.size();
+    }
+    
     /**
      * 找到可以删除的消息索引
      */
@@ -252,32 +405,44 @@ public class ContextManager {
         if (checkIndex < messages.size() && !(messages.get(checkIndex) instanceof UserMessage)) {
             // 序列非法，插入一个补救的 user 消息
             log.warn("Invalid message sequence detected: first non-system message is not user. Inserting placeholder.");
-            messages.add(checkIndex, new UserMessage("[Context truncated due to length limit. Please continue.]"));
+            insert(checkIndex, new UserMessage("[Context truncated due to length limit. Please continue.]"));
         }
     }
     
     /**
-     * 简单的 Token 估算（约 4 字符 = 1 token）
+     * 插入消息及其空的编码片段槽
      */
-    private int estimateTokens(String content) {
-        if (content == null || content.isEmpty()) {
-            return 0;
-        }
-        return content.length() / 4 + 1;
+    private void insert(int index, Message message) {
+        messages.add(index, message);
+        fragments.add(index, EncodedHistory.emptySlot());
+        estimatedTokens += estimator.estimate(message);
     }
     
     /**
-     * 重新计算 Token 数
+     * 删除消息及其编码片段槽
      */
-    private void recalculateTokens() {
-        estimatedTokens = 0;
-        for (Message msg : messages) {
-            estimatedTokens += estimateTokens(msg.content());
-        }
+    private Message remove(int index) {
+        Message removed = messages.remove(index);
+        fragments.remove(index);
+        estimatedTokens -= estimator.estimate(removed);
+        return removed;
+    }
+    
+    /**
+     * 替换消息，原有编码片段失效
+     */
+    private void replace(int index, Message message) {
+        Message previous = messages.set(index, message);
+        fragments.set(index, EncodedHistory.emptySlot());
+        estimatedTokens += estimator.estimate(message) - estimator.estimate(previous);
     }
     
     @Override
     public String toString() {
+        if (maxTokens > 0) {
+            return String.format("ContextManager[messages=%d, tokens≈%d/%d, %s]",
+                    messages.size(), estimatedTokens, maxTokens, estimator.getFamily());
+        }
         return String.format("ContextManager[messages=%d, tokens≈%d, max=%d]", 
                 messages.size(), estimatedTokens, maxMessages);
     }
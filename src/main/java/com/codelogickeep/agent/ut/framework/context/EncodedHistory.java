@@ -0,0 +1,86 @@
+package com.codelogickeep.agent.ut.framework.context;
+
+import com.codelogickeep.agent.ut.framework.model.Message;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Function;
+
+/**
+ * 已编码的对话历史 - ContextManager 对外暴露的只读消息视图
+ *
+ * 每条消息按提供方格式缓存编码后的 JSON 片段，构建请求时直接拼接，
+ * ReAct 循环每一轮只需编码新追加的消息；裁剪或替换消息时对应片段随之删除或重置。
+ * 消息是不可变的 record，片段一经编码始终有效。
+ */
+public final class EncodedHistory extends AbstractList<Message> implements RandomAccess {
+
+    /**
+     * 请求格式
+     */
+    public enum Format {
+        OPENAI, CLAUDE, GEMINI
+    }
+
+    private final List<Message> messages;
+    private final List<String[]> fragments;
+    private int encodeCount;
+
+    /**
+     * @param messages  消息列表（由 ContextManager 维护）
+     * @param fragments 与消息一一对应的片段槽，每个槽按 {@link Format} 序号存放
+     */
+    EncodedHistory(List<Message> messages, List<String[]> fragments) {
+        this.messages = messages;
+        this.fragments = fragments;
+    }
+
+    static String[] emptySlot() {
+        return new String[Format.values().length];
+    }
+
+    /**
+     * 获取消息的编码片段；传入的不是 EncodedHistory 时（例如直接构造的列表）每次重新编码
+     *
+     * @param encoder 消息到 JSON 片段的编码函数，同一格式必须保持不变
+     */
+    public static String fragment(List<Message> messages, int index, Format format,
+            Function<Message, String> encoder) {
+        if (messages instanceof EncodedHistory history) {
+            return history.fragment(index, format, encoder);
+        }
+        return encoder.apply(messages.get(index));
+    }
+
+    /**
+     * 获取第 index 条消息的编码片段，未缓存时编码并缓存
+     */
+    public String fragment(int index, Format format, Function<Message, String> encoder) {
+        String[] slot = fragments.get(index);
+        String cached = slot[format.ordinal()];
+        if (cached == null) {
+            cached = encoder.apply(messages.get(index));
+            slot[format.ordinal()] = cached;
+            encodeCount++;
+        }
+        return cached;
+    }
+
+    /**
+     * 累计编码次数（缓存未命中数）
+     */
+    public int getEncodeCount() {
+        return encodeCount;
+    }
+
+    @Override
+    public Message get(int index) {
+        return messages.get(index);
+    }
+
+    @Override
+    public int size() {
+        return messages.size();
+    }
+}
@@ -0,0 +1,190 @@
+package com.codelogickeep.agent.ut.framework.context;
+
+import com.codelogickeep.agent.ut.framework.model.AssistantMessage;
+import com.codelogickeep.agent.ut.framework.model.Message;
+import com.codelogickeep.agent.ut.framework.model.ToolCall;
+import com.codelogickeep.agent.ut.framework.model.ToolDefinition;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Token 估算器 - 按模型家族估算文本的 Token 数
+ *
+ * 不携带词表，按 BPE 分词器的预切分规则（cl100k/o200k 一类）离线估算：
+ * <ul>
+ *   <li>字母段按驼峰/下划线切成子词，常见长度的子词（不超过 {@link #WHOLE_WORD_CHARS}）计 1 个 Token，
+ *       更长的按该家族每个 Token 的平均字符数折算</li>
+ *   <li>数字按 {@code digitsPerToken} 位一组（cl100k 为 3 位，Gemini 逐位切分）</li>
+ *   <li>中日韩字符按每字 Token 数折算</li>
+ *   <li>连续的标点和运算符约两个字符一个 Token，换行单独计数，其余空白并入相邻的词</li>
+ * </ul>
+ * 用于请求前的预算和上下文裁剪；请求后以提供商返回的真实用量为准，
+ * 两者的偏差由 {@link ContextManager#calibrate(int, int)} 校准。
+ */
+public final class TokenEstimator {
+
+    /** 每条消息的格式开销（角色、分隔符等） */
+    static final int MESSAGE_OVERHEAD = 4;
+
+    /** 不超过该长度的子词通常在词表中，按 1 个 Token 计 */
+    static final int WHOLE_WORD_CHARS = 8;
+
+    private final String family;
+    private final double charsPerToken;
+    private final double cjkTokensPerChar;
+    private final int digitsPerToken;
+
+    private TokenEstimator(String family, double charsPerToken, double cjkTokensPerChar, int digitsPerToken) {
+        this.family = family;
+        this.charsPerToken = charsPerToken;
+        this.cjkTokensPerChar = cjkTokensPerChar;
+        this.digitsPerToken = digitsPerToken;
+    }
+
+    /**
+     * 按模型名选择估算参数，未知模型按 cl100k 类词表估算
+     */
+    public static TokenEstimator forModel(String model) {
+        String name = model != null ? model.toLowerCase(Locale.ROOT) : "";
+        if (name.contains("claude")) {
+            return new TokenEstimator("claude", 3.5, 1.3, 3);
+        }
+        if (name.contains("gemini")) {
+            return new TokenEstimator("gemini", 4.0, 0.8, 1);
+        }
+        if (name.contains("qwen") || name.contains("deepseek") || name.contains("glm")) {
+            // 词表中包含大量中文词组
+            return new TokenEstimator("cjk", 3.8, 0.7, 3);
+        }
+        if (name.startsWith("gpt-4o") || name.startsWith("gpt-4.1") || name.startsWith("gpt-5")
+                || name.matches("o\\d.*")) {
+            return new TokenEstimator("o200k", 4.2, 0.8, 3);
+        }
+        return new TokenEstimator("cl100k", 4.0, 1.0, 3);
+    }
+
+    public String getFamily() {
+        return family;
+    }
+
+    /**
+     * 估算文本的 Token 数
+     */
+    public int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        double tokens = 0;
+        int letterRun = 0;
+        int digitRun = 0;
+        int symbolRun = 0;
+        int prev = 0;
+        for (int i = 0; i < text.length();) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+            boolean cjk = isCjk(cp);
+            if (!cjk && Character.isLetter(cp)) {
+                tokens += symbolTokens(symbolRun) + digitTokens(digitRun);
+                symbolRun = 0;
+                digitRun = 0;
+                // 驼峰边界（小写后接大写）开始新的子词
+                if (letterRun > 0 && Character.isUpperCase(cp) && Character.isLowerCase(prev)) {
+                    tokens += wordTokens(letterRun);
+                    letterRun = 0;
+                }
+                letterRun++;
+                prev = cp;
+                continue;
+            }
+            tokens += wordTokens(letterRun);
+            letterRun = 0;
+            prev = cp;
+            if (!cjk && Character.isDigit(cp)) {
+                tokens += symbolTokens(symbolRun);
+                symbolRun = 0;
+                digitRun++;
+                continue;
+            }
+            tokens += digitTokens(digitRun);
+            digitRun = 0;
+            if (cjk) {
+                tokens += symbolTokens(symbolRun);
+                symbolRun = 0;
+                tokens += cjkTokensPerChar;
+            } else if (Character.isWhitespace(cp)) {
+                tokens += symbolTokens(symbolRun);
+                symbolRun = 0;
+                if (cp == '\n') {
+                    tokens += 1;
+                }
+            } else {
+                symbolRun++;
+            }
+        }
+        tokens += wordTokens(letterRun) + digitTokens(digitRun) + symbolTokens(symbolRun);
+        return (int) Math.ceil(tokens);
+    }
+
+    /**
+     * 估算单条消息的 Token 数（含格式开销和工具调用）
+     */
+    public int estimate(Message message) {
+        int tokens = MESSAGE_OVERHEAD + estimate(message.content());
+        if (message instanceof AssistantMessage assistant && assistant.hasToolCalls()) {
+            for (ToolCall call : assistant.toolCalls()) {
+                tokens += MESSAGE_OVERHEAD + estimate(call.name())
+                        + (call.arguments() != null ? estimate(call.arguments().toString()) : 0);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 估算随请求发送的工具定义的 Token 数（名称、描述和参数 Schema）
+     */
+    public int estimate(List<ToolDefinition> tools) {
+        if (tools == null) {
+            return 0;
+        }
+        int tokens = 0;
+        for (ToolDefinition tool : tools) {
+            tokens += MESSAGE_OVERHEAD + estimate(tool.name()) + estimate(tool.description());
+            if (tool.parameters() != null && tool.parameters().properties() != null) {
+                for (Map.Entry<String, ToolDefinition.PropertySchema> param
+                        : tool.parameters().properties().entrySet()) {
+                    tokens += MESSAGE_OVERHEAD + estimate(param.getKey())
+                            + estimate(param.getValue().type()) + estimate(param.getValue().description());
+                }
+            }
+        }
+        return tokens;
+    }
+
+    private double wordTokens(int run) {
+        if (run == 0) {
+            return 0;
+        }
+        return run <= WHOLE_WORD_CHARS ? 1 : Math.ceil(run / charsPerToken);
+    }
+
+    private double digitTokens(int run) {
+        return run == 0 ? 0 : Math.ceil((double) run / digitsPerToken);
+    }
+
+    private static double symbolTokens(int run) {
+        return (run + 1) / 2;
+    }
+
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA || script == Character.UnicodeScript.HANGUL;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenEstimator[" + family + "]";
+    }
+}
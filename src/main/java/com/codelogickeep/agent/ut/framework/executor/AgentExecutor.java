@@ -2,7 +2,9 @@ package com.codelogickeep.agent.ut.framework.executor;
 
 import com.codelogickeep.agent.ut.framework.adapter.LlmAdapter;
 import com.codelogickeep.agent.ut.framework.context.ContextManager;
+import com.codelogickeep.agent.ut.framework.context.TokenEstimator;
 import com.codelogickeep.agent.ut.framework.model.*;
+import com.codelogickeep.agent.ut.framework.tool.ToolOutputSpill;
 import com.codelogickeep.agent.ut.framework.tool.ToolRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,6 +15,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Agent 执行器 - 核心 ReAct 循环
@@ -29,16 +32,29 @@ public class AgentExecutor {
     private final LlmAdapter llmAdapter;
     private final ToolRegistry toolRegistry;
     private final ContextManager contextManager;
+    private final ToolOutputSpill toolOutputSpill;
     private final int maxIterations;
     private final long timeoutMs;
+    private static final long CANCELLATION_POLL_MS = 100;
     
     // Token 统计回调: (promptTokens, responseTokens)
     private BiConsumer<Integer, Integer> tokenStatsCallback;
     
+    // 服务端返回的 Token 用量回调（含提示词缓存读写）
+    private Consumer<TokenUsage> usageCallback;
+    
+    // 提前结束流式执行的条件（例如推测式语法检查已失败）
+    private volatile Cancellation cancellation;
+    
+    // 预算控制：每轮 LLM 调用前检查、调用后计费
+    private BudgetGovernor budget;
+    private BudgetGovernor.Scope budgetScope;
+    
     private AgentExecutor(Builder builder) {
         this.llmAdapter = builder.llmAdapter;
         this.toolRegistry = builder.toolRegistry;
         this.contextManager = builder.contextManager;
+        this.toolOutputSpill = builder.toolOutputSpill;
         this.maxIterations = builder.maxIterations;
         this.timeoutMs = builder.timeoutMs;
     }
@@ -50,6 +66,112 @@ public class AgentExecutor {
         this.tokenStatsCallback = callback;
     }
     
+    /**
+     * 设置服务端 Token 用量回调（流式执行时，提供商返回用量后调用）
+     */
+    public void setUsageCallback(Consumer<TokenUsage> callback) {
+        this.usageCallback = callback;
+    }
+    
+    /**
+     * 流式执行的取消条件
+     */
+    public interface Cancellation {
+        /**
+         * 流式响应进行中轮询调用，不能阻塞
+         */
+        boolean isCancelled();
+        
+        /**
+         * 当前轮的工具调用执行完、决定是否发起下一轮前调用，可等待尚未完成的后台检查
+         */
+        default boolean awaitCancelled() {
+            return isCancelled();
+        }
+    }
+    
+    /**
+     * 设置取消条件：流式响应进行中条件成立时，放弃剩余输出并关闭连接，只执行已完整收到的工具调用；
+     * 一轮正常结束后条件成立时，执行完工具调用后不再发起下一轮 LLM 请求
+     */
+    public void setCancellation(Cancellation cancellation) {
+        this.cancellation = cancellation;
+    }
+    
+    /**
+     * 设置预算控制器和计费归属；预算耗尽时不再发起下一轮 LLM 调用
+     */
+    public void setBudget(BudgetGovernor budget, BudgetGovernor.Scope scope) {
+        this.budget = budget;
+        this.budgetScope = scope;
+    }
+    
+    private boolean isBudgetExhausted() {
+        return budget != null && !budget.allowLlmCall(budgetScope, estimatePromptTokens());
+    }
+    
+    private String budgetExhaustedMessage() {
+        return "Budget exhausted: " + budget.describe();
+    }
+    
+    /**
+     * 估算下一次请求的输入 Token：上下文加工具定义，按此前的真实用量校准
+     */
+    private int estimatePromptTokens() {
+        return contextManager.getCalibratedTokens()
+                + contextManager.getEstimator().estimate(toolRegistry.getDefinitions());
+    }
+    
+    /**
+     * 记录一轮 LLM 调用的 Token：有服务端用量时以其为准并校准估算器，否则使用估算值；
+     * 响应来自本地响应缓存时不消耗 Token，只记录耗时
+     * 
+     * @param estimatedContext 请求前上下文的估算 Token（未校准）
+     * @param estimatedTools   请求前工具定义的估算 Token
+     */
+    private void recordTokens(int estimatedContext, int estimatedTools, String responseContent,
+            TokenUsage usage, long roundStart) {
+        int promptTokens;
+        int responseTokens;
+        if (usage != null && usage.responseCacheHit()) {
+            promptTokens = 0;
+            responseTokens = 0;
+        } else if (usage != null && usage.totalInputTokens() > 0) {
+            promptTokens = usage.totalInputTokens();
+            responseTokens = usage.outputTokens();
+            contextManager.calibrate(estimatedContext + estimatedTools, promptTokens);
+            if (usageCallback != null) {
+                usageCallback.accept(usage);
+            }
+        } else {
+            promptTokens = estimatedContext + estimatedTools;
+            responseTokens = contextManager.getEstimator().estimate(responseContent);
+        }
+        if (tokenStatsCallback != null) {
+            tokenStatsCallback.accept(promptTokens, responseTokens);
+        }
+        if (budget != null) {
+            budget.charge(budgetScope, promptTokens, responseTokens, System.currentTimeMillis() - roundStart);
+        }
+    }
+    
+    /**
+     * 大的工具结果落盘，上下文中只保留摘要和句柄
+     */
+    private String spillIfLarge(ToolCall toolCall, String result) {
+        return toolOutputSpill != null ? toolOutputSpill.spillIfLarge(toolCall.name(), result) : result;
+    }
+    
+    private boolean isCancelled() {
+        Cancellation check = cancellation;
+        return check != null && check.isCancelled();
+    }
+    
+    private boolean isCancelledAfterTools() {
+        Cancellation check = cancellation;
+        return check != null && check.awaitCancelled();
+    }
+    
     /**
      * 执行 Agent 任务（同步）
      */
@@ -74,24 +196,24 @@ public class AgentExecutor {
                     return AgentResult.error("Execution timeout");
                 }
                 
-                log.debug("Iteration #{}", iteration);
+                if (isBudgetExhausted()) {
+                    log.warn("{} - stopping before iteration #{}", budgetExhaustedMessage(), iteration);
+                    return AgentResult.error(budgetExhaustedMessage());
+                }
+                long roundStart = System.currentTimeMillis();
                 
-                // 1. 调用 LLM
-                // 估算提示词 Token（简单按字符数 / 4 估算）
-                int estimatedPromptTokens = estimateTokens(contextManager.getMessages());
+                log.debug("Iteration #{}", iteration);
                 
-                AssistantMessage response = llmAdapter.chat(
-                        contextManager.getMessages(),
-                        toolRegistry.getDefinitions()
-                );
+                // 1. 调用 LLM（记录请求前的估算，用于与服务端用量对比校准）
+                List<ToolDefinition> tools = toolRegistry.getDefinitions();
+                int estimatedContext = contextManager.getEstimatedTokens();
+                int estimatedTools = contextManager.getEstimator().estimate(tools);
+                AtomicReference<TokenUsage> usageRef = new AtomicReference<>();
                 
-                // 估算响应 Token
-                int estimatedResponseTokens = response.content() != null ? response.content().length() / 4 : 0;
+                AssistantMessage response = llmAdapter.chat(contextManager.getMessages(), tools, usageRef::set);
                 
-                // 回调统计
-                if (tokenStatsCallback != null) {
-                    tokenStatsCallback.accept(estimatedPromptTokens, estimatedResponseTokens);
-                }
+                // 统计 Token：优先使用服务端返回的用量
+                recordTokens(estimatedContext, estimatedTools, response.content(), usageRef.get(), roundStart);
                 
                 // 2. 记录响应
                 contextManager.addMessage(response);
@@ -112,7 +234,7 @@ public class AgentExecutor {
                     log.info("Executing tool: {}", toolCall.name());
                     
                     String result = toolRegistry.invoke(toolCall);
-                    contextManager.addToolMessage(toolCall.id(), toolCall.name(), result);
+                    contextManager.addToolMessage(toolCall.id(), toolCall.name(), spillIfLarge(toolCall, result));
                 }
             }
             
@@ -128,6 +250,9 @@ public class AgentExecutor {
     
     /**
      * 执行 Agent 任务（流式）
+     * 
+     * 每轮的流式请求在独立的虚拟线程中进行，调用线程轮询取消条件：取消时放弃尚未收到的输出并中断读取，
+     * 已完整收到的工具调用（包括触发取消的那次写入）照常执行后结束。
      */
     public void runStream(String userMessage, StreamingHandler handler) {
         log.info("Starting streaming agent execution");
@@ -142,59 +267,66 @@ public class AgentExecutor {
                 
                 log.debug("Streaming iteration #{}", iteration);
                 
-                // 使用 CountDownLatch 等待流式完成
-                CountDownLatch latch = new CountDownLatch(1);
-                AtomicReference<String> fullContent = new AtomicReference<>("");
-                AtomicReference<List<ToolCall>> toolCallsRef = new AtomicReference<>(new ArrayList<>());
-                AtomicReference<Throwable> errorRef = new AtomicReference<>();
+                if (isBudgetExhausted()) {
+                    log.warn("{} - stopping before iteration #{}", budgetExhaustedMessage(), iteration);
+                    handler.onError(new RuntimeException(budgetExhaustedMessage()));
+                    return;
+                }
+                long roundStart = System.currentTimeMillis();
+                
+                List<ToolDefinition> tools = toolRegistry.getDefinitions();
+                int estimatedContext = contextManager.getEstimatedTokens();
+                int estimatedTools = contextManager.getEstimator().estimate(tools);
                 
-                llmAdapter.chatStream(
-                        contextManager.getMessages(),
-                        toolRegistry.getDefinitions(),
-                        new StreamingHandler() {
-                            private final StringBuilder content = new StringBuilder();
-                            
-                            @Override
-                            public void onToken(String token) {
-                                content.append(token);
-                                handler.onToken(token);
-                            }
-                            
-                            @Override
-                            public void onToolCall(ToolCall toolCall) {
-                                toolCallsRef.get().add(toolCall);
-                                handler.onToolCall(toolCall);
-                            }
-                            
-                            @Override
-                            public void onComplete(String fc, List<ToolCall> tc) {
-                                fullContent.set(content.toString());
-                                if (tc != null) {
-                                    toolCallsRef.set(tc);
-                                }
-                                latch.countDown();
-                            }
-                            
-                            @Override
-                            public void onError(Throwable error) {
-                                errorRef.set(error);
-                                handler.onError(error);
-                                latch.countDown();
-                            }
-                        }
-                );
+                StreamRound round = new StreamRound(handler);
+                Thread streamThread = Thread.ofVirtual().name("llm-stream-" + iteration).start(() -> {
+                    try {
+                        llmAdapter.chatStream(contextManager.getMessages(), tools, round);
+                    } catch (RuntimeException e) {
+                        round.onError(e);
+                    } finally {
+                        round.latch.countDown();
+                    }
+                });
                 
-                // 等待流式完成
-                if (!latch.await(timeoutMs, TimeUnit.MILLISECONDS)) {
-                    String timeoutMsg = String.format("Streaming timeout after %dms in iteration #%d", timeoutMs, iteration);
-                    log.error(timeoutMsg);
-                    handler.onError(new RuntimeException(timeoutMsg));
+                // 等待流式完成（同时检查取消条件）
+                long deadline = System.currentTimeMillis() + timeoutMs;
+                boolean cancelled = false;
+                while (!round.latch.await(CANCELLATION_POLL_MS, TimeUnit.MILLISECONDS)) {
+                    if (isCancelled()) {
+                        cancelled = true;
+                        break;
+                    }
+                    if (System.currentTimeMillis() >= deadline) {
+                        round.abandon();
+                        streamThread.interrupt();
+                        String timeoutMsg = String.format("Streaming timeout after %dms in iteration #%d", timeoutMs, iteration);
+                        log.error(timeoutMsg);
+                        handler.onError(new RuntimeException(timeoutMsg));
+                        return;
+                    }
+                }
+                
+                if (cancelled) {
+                    // 放弃剩余输出；中断读取线程以关闭连接
+                    round.abandon();
+                    streamThread.interrupt();
+                    String partialContent = round.content();
+                    List<ToolCall> receivedCalls = round.toolCalls();
+                    log.info("Streaming cancelled in iteration #{}, abandoned the rest of the response after {} tool call(s)",
+                            iteration, receivedCalls.size());
+                    if (!receivedCalls.isEmpty() || !partialContent.isBlank()) {
+                        contextManager.addAssistantMessage(partialContent, receivedCalls.isEmpty() ? null : receivedCalls);
+                    }
+                    recordTokens(estimatedContext, estimatedTools, partialContent, null, roundStart);
+                    executeToolCalls(receivedCalls);
+                    handler.onComplete(partialContent, null);
                     return;
                 }
                 
                 // 检查错误
-                if (errorRef.get() != null) {
-                    Throwable error = errorRef.get();
+                if (round.error != null) {
+                    Throwable error = round.error;
                     log.error("LLM streaming error in iteration #{}: {}", iteration, error.getMessage());
                     if (error.getCause() != null) {
                         log.error("Caused by: {}", error.getCause().getMessage());
@@ -203,8 +335,8 @@ public class AgentExecutor {
                 }
                 
                 // 检查是否有有效响应
-                String responseContent = fullContent.get();
-                List<ToolCall> toolCalls = toolCallsRef.get();
+                String responseContent = round.content();
+                List<ToolCall> toolCalls = round.toolCalls();
                 if ((responseContent == null || responseContent.trim().isEmpty()) && toolCalls.isEmpty()) {
                     String emptyMsg = "LLM returned empty response in iteration #" + iteration;
                     log.warn(emptyMsg);
@@ -214,12 +346,8 @@ public class AgentExecutor {
                 // 记录响应
                 contextManager.addAssistantMessage(responseContent, toolCalls.isEmpty() ? null : toolCalls);
                 
-                // 统计 Token（估算）
-                if (tokenStatsCallback != null) {
-                    int estimatedPromptTokens = estimateTokens(contextManager.getMessages());
-                    int estimatedResponseTokens = responseContent != null ? responseContent.length() / 4 : 0;
-                    tokenStatsCallback.accept(estimatedPromptTokens, estimatedResponseTokens);
-                }
+                // 统计 Token：优先使用服务端返回的用量（onUsage 在 onComplete 之前回调）
+                recordTokens(estimatedContext, estimatedTools, responseContent, round.usage, roundStart);
                 
                 // 检查是否需要工具调用
                 if (toolCalls.isEmpty()) {
@@ -228,9 +356,13 @@ public class AgentExecutor {
                 }
                 
                 // 执行工具调用
-                for (ToolCall toolCall : toolCalls) {
-                    String result = toolRegistry.invoke(toolCall);
-                    contextManager.addToolMessage(toolCall.id(), toolCall.name(), result);
+                executeToolCalls(toolCalls);
+                
+                // 等待针对本轮写入的后台检查完成后再决定是否继续
+                if (isCancelledAfterTools()) {
+                    log.info("Streaming cancelled after iteration #{}, skipping the next LLM round", iteration);
+                    handler.onComplete(responseContent, null);
+                    return;
                 }
             }
             
@@ -242,6 +374,101 @@ public class AgentExecutor {
         }
     }
     
+    private void executeToolCalls(List<ToolCall> toolCalls) {
+        for (ToolCall toolCall : toolCalls) {
+            String result = toolRegistry.invoke(toolCall);
+            contextManager.addToolMessage(toolCall.id(), toolCall.name(), spillIfLarge(toolCall, result));
+        }
+    }
+    
+    /**
+     * 单轮流式响应的收集器：在读取线程中回调，放弃后丢弃后续回调并通知适配器停止读取
+     */
+    private static final class StreamRound implements StreamingHandler {
+        private final StreamingHandler downstream;
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private final StringBuilder content = new StringBuilder();
+        private final List<ToolCall> toolCalls = new ArrayList<>();
+        private boolean abandoned;
+        private volatile Throwable error;
+        private volatile TokenUsage usage;
+        
+        StreamRound(StreamingHandler downstream) {
+            this.downstream = downstream;
+        }
+        
+        @Override
+        public void onToken(String token) {
+            synchronized (this) {
+                if (abandoned) {
+                    return;
+                }
+                content.append(token);
+            }
+            downstream.onToken(token);
+        }
+        
+        @Override
+        public void onToolCall(ToolCall toolCall) {
+            synchronized (this) {
+                if (abandoned) {
+                    return;
+                }
+                toolCalls.add(toolCall);
+            }
+            downstream.onToolCall(toolCall);
+        }
+        
+        @Override
+        public void onComplete(String fullContent, List<ToolCall> completeToolCalls) {
+            synchronized (this) {
+                if (abandoned) {
+                    return;
+                }
+                if (completeToolCalls != null) {
+                    toolCalls.clear();
+                    toolCalls.addAll(completeToolCalls);
+                }
+            }
+            latch.countDown();
+        }
+        
+        @Override
+        public void onError(Throwable e) {
+            synchronized (this) {
+                if (abandoned) {
+                    return;
+                }
+            }
+            error = e;
+            downstream.onError(e);
+            latch.countDown();
+        }
+        
+        @Override
+        public void onUsage(TokenUsage tokenUsage) {
+            usage = tokenUsage;
+            downstream.onUsage(tokenUsage);
+        }
+        
+        @Override
+        public synchronized boolean isCancelled() {
+            return abandoned;
+        }
+        
+        synchronized void abandon() {
+            abandoned = true;
+        }
+        
+        synchronized String content() {
+            return content.toString();
+        }
+        
+        synchronized List<ToolCall> toolCalls() {
+            return new ArrayList<>(toolCalls);
+        }
+    }
+    
     /**
      * 清除上下文（保留 System 消息）
      */
@@ -263,19 +490,6 @@ public class AgentExecutor {
         return toolRegistry;
     }
     
-    /**
-     * 估算消息列表的 Token 数（简单估算：字符数 / 4）
-     */
-    private int estimateTokens(List<Message> messages) {
-        int totalChars = 0;
-        for (Message msg : messages) {
-            if (msg.content() != null) {
-                totalChars += msg.content().length();
-            }
-        }
-        return totalChars / 4;
-    }
-    
     // ==================== Builder ====================
     
     public static Builder builder() {
@@ -286,6 +500,11 @@ public class AgentExecutor {
         private LlmAdapter llmAdapter;
         private ToolRegistry toolRegistry;
         private ContextManager contextManager;
+        private String systemMessage;
+        private int maxMessages = 20;
+        private int maxContextTokens;
+        private TokenEstimator tokenEstimator;
+        private ToolOutputSpill toolOutputSpill;
         private int maxIterations = 50;
         private long timeoutMs = 300_000;  // 5 分钟
         
@@ -321,10 +540,7 @@ public class AgentExecutor {
         }
         
         public Builder systemMessage(String systemMessage) {
-            if (this.contextManager == null) {
-                this.contextManager = new ContextManager();
-            }
-            this.contextManager.setSystemMessage(systemMessage);
+            this.systemMessage = systemMessage;
             return this;
         }
         
@@ -334,7 +550,24 @@ public class AgentExecutor {
         }
         
         public Builder maxMessages(int max) {
-            this.contextManager = new ContextManager(max);
+            this.maxMessages = max;
+            return this;
+        }
+        
+        /**
+         * 按输入 Token 上限管理上下文（0 表示按消息数裁剪）
+         */
+        public Builder maxContextTokens(int maxTokens, TokenEstimator estimator) {
+            this.maxContextTokens = maxTokens;
+            this.tokenEstimator = estimator;
+            return this;
+        }
+        
+        /**
+         * 大的工具结果落盘（需同时在 ToolRegistry 中注册为内置工具，LLM 才能分页读取）
+         */
+        public Builder toolOutputSpill(ToolOutputSpill spill) {
+            this.toolOutputSpill = spill;
             return this;
         }
         
@@ -351,7 +584,10 @@ public class AgentExecutor {
                 toolRegistry = new ToolRegistry();
             }
             if (contextManager == null) {
-                contextManager = new ContextManager();
+                contextManager = new ContextManager(maxMessages, maxContextTokens, tokenEstimator);
+            }
+            if (systemMessage != null) {
+                contextManager.setSystemMessage(systemMessage);
             }
             return new AgentExecutor(this);
         }
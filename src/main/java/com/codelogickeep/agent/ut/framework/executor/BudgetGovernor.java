@@ -0,0 +1,262 @@
+package com.codelogickeep.agent.ut.framework.executor;
+
+import com.codelogickeep.agent.ut.config.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 预算控制器 - 实时跟踪整个运行、每个类、每个方法的 Token 和耗时
+ *
+ * 用量接近上限（conserve-at）时进入节约模式：重试次数减半、跳过 P2 方法；
+ * 达到上限后拒绝新的 LLM 调用。批处理时所有类共享同一实例，方法线程安全。
+ */
+public class BudgetGovernor {
+    private static final Logger log = LoggerFactory.getLogger(BudgetGovernor.class);
+
+    /**
+     * 预算状态
+     */
+    public enum Level {
+        NORMAL, CONSERVE, EXHAUSTED
+    }
+
+    /**
+     * 计费归属：类、方法（可为 null）和阶段
+     */
+    public record Scope(String className, String methodName, String phase) {
+        public Scope withPhase(String newPhase) {
+            return new Scope(className, methodName, newPhase);
+        }
+    }
+
+    private final long maxTokens;
+    private final long maxMillis;
+    private final long maxTokensPerClass;
+    private final long maxTokensPerMethod;
+    private final double conserveAt;
+    private final long startMillis = System.currentTimeMillis();
+
+    private long totalTokens;
+    private final Map<String, PhaseUsage> phases = new LinkedHashMap<>();
+    private final Map<String, Long> classTokens = new HashMap<>();
+    private final Map<String, Long> methodTokens = new HashMap<>();
+    private Level lastLevel = Level.NORMAL;
+
+    private static final class PhaseUsage {
+        private long tokens;
+        private int calls;
+        private long millis;
+    }
+
+    /**
+     * @param maxTokens          整个运行的 Token 上限，0 表示不限
+     * @param maxMillis          整个运行的耗时上限，0 表示不限
+     * @param maxTokensPerClass  单个类的 Token 上限，0 表示不限
+     * @param maxTokensPerMethod 单个方法的 Token 上限，0 表示不限
+     * @param conserveAt         用量达到上限的该比例时进入节约模式
+     */
+    public BudgetGovernor(long maxTokens, long maxMillis, long maxTokensPerClass, long maxTokensPerMethod,
+            double conserveAt) {
+        this.maxTokens = Math.max(0, maxTokens);
+        this.maxMillis = Math.max(0, maxMillis);
+        this.maxTokensPerClass = Math.max(0, maxTokensPerClass);
+        this.maxTokensPerMethod = Math.max(0, maxTokensPerMethod);
+        this.conserveAt = conserveAt > 0 && conserveAt <= 1 ? conserveAt : 0.8;
+    }
+
+    /**
+     * 不设上限，只做统计
+     */
+    public static BudgetGovernor unlimited() {
+        return new BudgetGovernor(0, 0, 0, 0, 0.8);
+    }
+
+    public static BudgetGovernor fromConfig(AppConfig.BudgetConfig budget) {
+        if (budget == null) {
+            return unlimited();
+        }
+        return new BudgetGovernor(budget.getMaxTokens(), Duration.ofMinutes(budget.getMaxMinutes()).toMillis(),
+                budget.getMaxTokensPerClass(), budget.getMaxTokensPerMethod(), budget.getConserveAt());
+    }
+
+    public boolean isLimited() {
+        return maxTokens > 0 || maxMillis > 0 || maxTokensPerClass > 0 || maxTokensPerMethod > 0;
+    }
+
+    /**
+     * 记录一次 LLM 调用的 Token 和耗时
+     */
+    public synchronized void charge(Scope scope, int promptTokens, int responseTokens, long millis) {
+        long tokens = (long) promptTokens + responseTokens;
+        totalTokens += tokens;
+        PhaseUsage usage = phases.computeIfAbsent(phaseOf(scope), k -> new PhaseUsage());
+        usage.tokens += tokens;
+        usage.calls++;
+        usage.millis += millis;
+        if (scope != null && scope.className() != null) {
+            classTokens.merge(scope.className(), tokens, Long::sum);
+            if (scope.methodName() != null) {
+                methodTokens.merge(methodKey(scope), tokens, Long::sum);
+            }
+        }
+        Level level = level();
+        if (level != lastLevel) {
+            lastLevel = level;
+            log.warn("Budget level changed to {} ({})", level, describe());
+        }
+    }
+
+    /**
+     * 记录不消耗 Token 的阶段耗时（例如验证管道）
+     */
+    public synchronized void recordTime(String phase, long millis) {
+        phases.computeIfAbsent(phase, k -> new PhaseUsage()).millis += millis;
+    }
+
+    /**
+     * 整个运行的预算状态（取 Token 和耗时中用量比例较高者）
+     */
+    public synchronized Level level() {
+        double used = usedFraction();
+        if (used >= 1) {
+            return Level.EXHAUSTED;
+        }
+        return used >= conserveAt ? Level.CONSERVE : Level.NORMAL;
+    }
+
+    /**
+     * 已用比例，未设上限时为 0
+     */
+    public synchronized double usedFraction() {
+        double tokenFraction = maxTokens > 0 ? (double) totalTokens / maxTokens : 0;
+        double timeFraction = maxMillis > 0 ? (double) elapsedMillis() / maxMillis : 0;
+        return Math.max(tokenFraction, timeFraction);
+    }
+
+    /**
+     * 是否允许发起下一次 LLM 调用（运行、类、方法任一上限耗尽时拒绝）
+     */
+    public synchronized boolean allowLlmCall(Scope scope) {
+        return allowLlmCall(scope, 0);
+    }
+
+    /**
+     * 是否允许发起预计消耗 expectedTokens 输入 Token 的 LLM 调用：
+     * 请求本身就会超出运行、类或方法上限时提前拒绝，避免发出注定超预算的请求
+     */
+    public synchronized boolean allowLlmCall(Scope scope, int expectedTokens) {
+        if (level() == Level.EXHAUSTED) {
+            return false;
+        }
+        long expected = Math.max(0, expectedTokens);
+        if (exceeds(totalTokens, expected, maxTokens)) {
+            return false;
+        }
+        if (scope == null || scope.className() == null) {
+            return true;
+        }
+        if (exceeds(classTokens.getOrDefault(scope.className(), 0L), expected, maxTokensPerClass)) {
+            return false;
+        }
+        return scope.methodName() == null
+                || !exceeds(methodTokens.getOrDefault(methodKey(scope), 0L), expected, maxTokensPerMethod);
+    }
+
+    private static boolean exceeds(long used, long expected, long limit) {
+        return limit > 0 && (used >= limit || used + expected > limit);
+    }
+
+    /**
+     * 是否还能开始新的类
+     */
+    public boolean allowNewWork() {
+        return level() != Level.EXHAUSTED;
+    }
+
+    /**
+     * 按预算状态调整重试次数：节约模式减半（至少 1 次），耗尽时为 0
+     */
+    public int adjustRetries(int configured) {
+        return switch (level()) {
+            case NORMAL -> configured;
+            case CONSERVE -> Math.max(1, configured / 2);
+            case EXHAUSTED -> 0;
+        };
+    }
+
+    /**
+     * 是否应跳过该优先级的方法：节约模式跳过 P2，耗尽时全部跳过
+     */
+    public boolean shouldSkip(String priority) {
+        return switch (level()) {
+            case NORMAL -> false;
+            case CONSERVE -> "P2".equals(priority);
+            case EXHAUSTED -> true;
+        };
+    }
+
+    public synchronized long getTotalTokens() {
+        return totalTokens;
+    }
+
+    public synchronized long getClassTokens(String className) {
+        return classTokens.getOrDefault(className, 0L);
+    }
+
+    public synchronized long getMethodTokens(String className, String methodName) {
+        return methodTokens.getOrDefault(className + '#' + methodName, 0L);
+    }
+
+    public long elapsedMillis() {
+        return System.currentTimeMillis() - startMillis;
+    }
+
+    /**
+     * 一行用量摘要，例如 "tokens 1,200,000/2,000,000 (60%), time 45m/180m (25%)"
+     */
+    public synchronized String describe() {
+        StringBuilder sb = new StringBuilder("tokens ").append(String.format("%,d", totalTokens));
+        if (maxTokens > 0) {
+            sb.append(String.format("/%,d (%.0f%%)", maxTokens, totalTokens * 100.0 / maxTokens));
+        }
+        long minutes = Duration.ofMillis(elapsedMillis()).toMinutes();
+        sb.append(", time ").append(minutes).append('m');
+        if (maxMillis > 0) {
+            sb.append(String.format("/%dm (%.0f%%)", Duration.ofMillis(maxMillis).toMinutes(),
+                    elapsedMillis() * 100.0 / maxMillis));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 各阶段用量报告
+     */
+    public synchronized String report() {
+        StringBuilder sb = new StringBuilder("💰 Budget: ").append(describe()).append('\n');
+        for (Map.Entry<String, PhaseUsage> entry : phases.entrySet()) {
+            PhaseUsage usage = entry.getValue();
+            sb.append(String.format("   %-12s %,10d tokens %5.1f%%  %4d calls  %s%n", entry.getKey(), usage.tokens,
+                    totalTokens > 0 ? usage.tokens * 100.0 / totalTokens : 0, usage.calls,
+                    formatMillis(usage.millis)));
+        }
+        return sb.toString();
+    }
+
+    private static String phaseOf(Scope scope) {
+        return scope != null && scope.phase() != null ? scope.phase() : "other";
+    }
+
+    private static String methodKey(Scope scope) {
+        return scope.className() + '#' + scope.methodName();
+    }
+
+    private static String formatMillis(long millis) {
+        long seconds = millis / 1000;
+        return seconds >= 60 ? String.format("%dm %ds", seconds / 60, seconds % 60) : seconds + "s";
+    }
+}
@@ -1,5 +1,6 @@
 package com.codelogickeep.agent.ut.framework.executor;
 
+import com.codelogickeep.agent.ut.framework.model.TokenUsage;
 import com.codelogickeep.agent.ut.framework.model.ToolCall;
 
 import java.util.List;
@@ -32,6 +33,19 @@ public interface StreamingHandler {
      */
     void onError(Throwable error);
     
+    /**
+     * 服务端返回的 Token 用量（在 onComplete 之前调用，仅部分提供商支持）
+     */
+    default void onUsage(TokenUsage usage) {
+    }
+    
+    /**
+     * 调用方是否已放弃本次响应；为 true 时适配器停止读取并关闭连接，不再回调 onComplete
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+    
     /**
      * 默认实现 - 打印到控制台
      */
@@ -9,7 +9,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * 迭代统计 - 跟踪每个方法的测试生成情况
+ * 迭代统计 - 跟踪每个方法的测试生成情况（并行生成时各工作线程共享同一实例，汇总方法均已同步）
  */
 public class IterationStats {
 
@@ -18,6 +18,7 @@ public class IterationStats {
     private final List<MethodStats> methodStatsList = new ArrayList<>();
     private int totalPromptTokens = 0;
     private int totalResponseTokens = 0;
+    private TokenUsage serverUsage = TokenUsage.EMPTY; // 服务端返回的用量（含提示词缓存读写）
     private String feedbackSummary; // 覆盖率反馈历史
 
     public IterationStats(String targetFile) {
@@ -42,7 +43,7 @@ public class IterationStats {
     /**
      * 开始一个新方法的统计
      */
-    public MethodStats startMethod(String methodName, String priority) {
+    public synchronized MethodStats startMethod(String methodName, String priority) {
         MethodStats stats = new MethodStats(methodName, priority);
         methodStatsList.add(stats);
         return stats;
@@ -51,7 +52,7 @@ public class IterationStats {
     /**
      * 开始一个新方法的统计（包含初始覆盖率）
      */
-    public MethodStats startMethod(String methodName, String priority, double initialCoverage) {
+    public synchronized MethodStats startMethod(String methodName, String priority, double initialCoverage) {
         MethodStats stats = new MethodStats(methodName, priority, initialCoverage);
         methodStatsList.add(stats);
         return stats;
@@ -60,7 +61,7 @@ public class IterationStats {
     /**
      * 获取当前方法统计
      */
-    public MethodStats getCurrentMethod() {
+    public synchronized MethodStats getCurrentMethod() {
         if (methodStatsList.isEmpty()) {
             return null;
         }
@@ -70,7 +71,7 @@ public class IterationStats {
     /**
      * 记录提示词大小（同时累加到当前方法和总计）
      */
-    public void recordPromptSize(int tokens) {
+    public synchronized void recordPromptSize(int tokens) {
         totalPromptTokens += tokens;
         MethodStats current = getCurrentMethod();
         if (current != null) {
@@ -81,7 +82,7 @@ public class IterationStats {
     /**
      * 记录响应大小（同时累加到当前方法和总计）
      */
-    public void recordResponseSize(int tokens) {
+    public synchronized void recordResponseSize(int tokens) {
         totalResponseTokens += tokens;
         MethodStats current = getCurrentMethod();
         if (current != null) {
@@ -92,21 +93,43 @@ public class IterationStats {
     /**
      * 仅累加到总计（当方法已单独累加时使用）
      */
-    public void addToTotalPromptTokens(int tokens) {
+    public synchronized void addToTotalPromptTokens(int tokens) {
         totalPromptTokens += tokens;
     }
     
     /**
      * 仅累加到总计（当方法已单独累加时使用）
      */
-    public void addToTotalResponseTokens(int tokens) {
+    public synchronized void addToTotalResponseTokens(int tokens) {
         totalResponseTokens += tokens;
     }
 
+    /**
+     * 记录服务端返回的 Token 用量
+     */
+    public synchronized void recordUsage(TokenUsage usage) {
+        serverUsage = serverUsage.plus(usage);
+    }
+
+    /**
+     * 服务端返回的累计用量
+     */
+    public synchronized TokenUsage getServerUsage() {
+        return serverUsage;
+    }
+
+    /**
+     * 提示词缓存命中率：缓存读取占全部输入 Token 的比例
+     */
+    public synchronized double getCacheHitRate() {
+        int input = serverUsage.totalInputTokens();
+        return input > 0 ? serverUsage.cacheReadTokens() * 100.0 / input : 0;
+    }
+
     /**
      * 生成 Markdown 报告
      */
-    public String generateMarkdownReport() {
+    public synchronized String generateMarkdownReport() {
         LocalDateTime endTime = LocalDateTime.now();
         Duration duration = Duration.between(startTime, endTime);
 
@@ -139,6 +162,13 @@ public class IterationStats {
             int avgTokens = (totalPromptTokens + totalResponseTokens) / methodCount;
             sb.append("| **平均每方法 Tokens** | ").append(String.format("%,d", avgTokens)).append(" |\n");
         }
+        if (serverUsage.cacheReadTokens() > 0 || serverUsage.cacheWriteTokens() > 0) {
+            sb.append("| **缓存读取 Tokens** | ").append(String.format("%,d", serverUsage.cacheReadTokens()))
+                    .append(" |\n");
+            sb.append("| **缓存写入 Tokens** | ").append(String.format("%,d", serverUsage.cacheWriteTokens()))
+                    .append(" |\n");
+            sb.append("| **缓存命中率** | ").append(String.format("%.1f%%", getCacheHitRate())).append(" |\n");
+        }
         sb.append("\n");
 
         // 方法详情
@@ -314,11 +344,11 @@ public class IterationStats {
         return methodStatsList;
     }
 
-    public int getTotalPromptTokens() {
+    public synchronized int getTotalPromptTokens() {
         return totalPromptTokens;
     }
 
-    public int getTotalResponseTokens() {
+    public synchronized int getTotalResponseTokens() {
         return totalResponseTokens;
     }
 
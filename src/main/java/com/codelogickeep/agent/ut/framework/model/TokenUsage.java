@@ -0,0 +1,33 @@
+package com.codelogickeep.agent.ut.framework.model;
+
+/**
+ * 服务端返回的 Token 用量
+ *
+ * @param inputTokens      未命中缓存的输入 Token
+ * @param outputTokens     输出 Token
+ * @param cacheReadTokens  从提示词缓存读取的输入 Token
+ * @param cacheWriteTokens 写入提示词缓存的输入 Token
+ * @param responseCacheHit 响应来自本地响应缓存，未调用 API（不计入预算和统计）
+ */
+public record TokenUsage(int inputTokens, int outputTokens, int cacheReadTokens, int cacheWriteTokens,
+        boolean responseCacheHit) {
+
+    public static final TokenUsage EMPTY = new TokenUsage(0, 0, 0, 0);
+    public static final TokenUsage RESPONSE_CACHE_HIT = new TokenUsage(0, 0, 0, 0, true);
+
+    public TokenUsage(int inputTokens, int outputTokens, int cacheReadTokens, int cacheWriteTokens) {
+        this(inputTokens, outputTokens, cacheReadTokens, cacheWriteTokens, false);
+    }
+
+    /**
+     * 输入 Token 总数（含缓存读写）
+     */
+    public int totalInputTokens() {
+        return inputTokens + cacheReadTokens + cacheWriteTokens;
+    }
+
+    public TokenUsage plus(TokenUsage other) {
+        return new TokenUsage(inputTokens + other.inputTokens, outputTokens + other.outputTokens,
+                cacheReadTokens + other.cacheReadTokens, cacheWriteTokens + other.cacheWriteTokens);
+    }
+}
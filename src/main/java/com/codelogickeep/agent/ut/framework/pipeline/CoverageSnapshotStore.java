@@ -0,0 +1,150 @@
+package com.codelogickeep.agent.ut.framework.pipeline;
+
+import com.codelogickeep.agent.ut.tools.CoverageIndex;
+import com.codelogickeep.agent.ut.tools.CoverageIndex.CounterType;
+import com.codelogickeep.agent.ut.tools.CoverageIndex.MethodLines;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 覆盖率快照存储 - 记录每轮验证后各方法的行/分支命中位图
+ *
+ * 每次验证通过后记录一次快照，相邻两次快照之间的差异（新覆盖的行、仍未覆盖的行、
+ * 未完全覆盖的分支行）提供给 {@link FixPromptBuilder#buildMoreTestsPrompt}，
+ * 让 LLM 针对具体行补充测试，而不是笼统地"再加一些测试"。
+ */
+public class CoverageSnapshotStore {
+    private static final Logger log = LoggerFactory.getLogger(CoverageSnapshotStore.class);
+
+    /**
+     * 单次验证后的方法覆盖率快照
+     *
+     * @param pass  快照序号（0 为基线）
+     * @param lines 行级命中位图，XML 报告来源时为 null
+     */
+    public record MethodSnapshot(int pass, double lineCoverage, double branchCoverage, MethodLines lines) {
+    }
+
+    /**
+     * 最近两次快照之间的覆盖率变化
+     */
+    public record CoverageDelta(MethodSnapshot previous, MethodSnapshot current,
+                                BitSet newlyCoveredLines, BitSet stillMissedLines, BitSet missedBranchLines) {
+
+        public boolean hasLineData() {
+            return current.lines() != null;
+        }
+
+        /**
+         * 将行号集合格式化为紧凑区间，例如 "12-15, 20"
+         */
+        public static String formatLines(BitSet lines) {
+            if (lines == null || lines.isEmpty()) {
+                return "无";
+            }
+            StringBuilder sb = new StringBuilder();
+            int start = lines.nextSetBit(0);
+            while (start >= 0) {
+                int end = lines.nextClearBit(start) - 1;
+                if (sb.length() > 0) {
+                    sb.append(", ");
+                }
+                sb.append(start);
+                if (end > start) {
+                    sb.append('-').append(end);
+                }
+                start = lines.nextSetBit(end + 1);
+            }
+            return sb.toString();
+        }
+    }
+
+    private final Map<String, List<MethodSnapshot>> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * 从模块当前的覆盖率数据记录一次快照
+     *
+     * @return 新快照；没有覆盖率数据或找不到方法时返回 null
+     */
+    public MethodSnapshot record(String modulePath, String className, String methodName) {
+        try {
+            CoverageIndex index = CoverageIndex.forModule(modulePath);
+            return index != null ? record(index, className, methodName) : null;
+        } catch (IOException e) {
+            log.warn("Failed to read coverage data for snapshot of {}.{}: {}", className, methodName, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 从给定索引记录一次快照
+     */
+    public MethodSnapshot record(CoverageIndex index, String className, String methodName) {
+        int methodId = index.methodId(className, methodName);
+        if (methodId < 0) {
+            return null;
+        }
+        List<MethodSnapshot> history = snapshots.computeIfAbsent(key(className, methodName),
+                k -> Collections.synchronizedList(new ArrayList<>()));
+        MethodSnapshot snapshot = new MethodSnapshot(history.size(),
+                index.methodCoverage(methodId, CounterType.LINE),
+                index.methodCoverage(methodId, CounterType.BRANCH),
+                index.methodLines(methodId));
+        history.add(snapshot);
+        log.debug("Coverage snapshot #{} for {}.{}: line={}%, branch={}%", snapshot.pass(), className, methodName,
+                String.format("%.1f", snapshot.lineCoverage()), String.format("%.1f", snapshot.branchCoverage()));
+        return snapshot;
+    }
+
+    public List<MethodSnapshot> history(String className, String methodName) {
+        List<MethodSnapshot> history = snapshots.get(key(className, methodName));
+        if (history == null) {
+            return List.of();
+        }
+        synchronized (history) {
+            return List.copyOf(history);
+        }
+    }
+
+    /**
+     * 最近一次快照相对上一次的变化；没有快照时返回 null
+     */
+    public CoverageDelta latestDelta(String className, String methodName) {
+        List<MethodSnapshot> history = history(className, methodName);
+        if (history.isEmpty()) {
+            return null;
+        }
+        MethodSnapshot current = history.get(history.size() - 1);
+        MethodSnapshot previous = history.size() > 1 ? history.get(history.size() - 2) : null;
+
+        BitSet newlyCovered = new BitSet();
+        BitSet stillMissed = new BitSet();
+        BitSet missedBranches = new BitSet();
+        MethodLines lines = current.lines();
+        if (lines != null) {
+            if (previous != null && previous.lines() != null) {
+                newlyCovered.or(lines.coveredLines());
+                newlyCovered.andNot(previous.lines().coveredLines());
+            }
+            stillMissed.or(lines.missedLines());
+            missedBranches.or(lines.missedBranchLines());
+        }
+        return new CoverageDelta(previous, current, newlyCovered, stillMissed, missedBranches);
+    }
+
+    public void clear() {
+        snapshots.clear();
+    }
+
+    private static String key(String className, String methodName) {
+        return className + '#' + methodName;
+    }
+}
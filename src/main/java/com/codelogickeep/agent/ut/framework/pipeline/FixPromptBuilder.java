@@ -1,5 +1,7 @@
 package com.codelogickeep.agent.ut.framework.pipeline;
 
+import java.util.List;
+
 /**
  * 修复提示词构建器 - 为不同类型的错误生成修复提示词
  */
@@ -36,7 +38,42 @@ public class FixPromptBuilder {
                 targetFile, methodName, testFilePath, currentCoverage,
                 methodName, testFilePath);
     }
-    
+
+    /**
+     * 构建并行模式下生成临时测试类的提示词
+     *
+     * 每个方法写入独立的临时测试类，验证通过后再由 {@link TestClassMerger} 合并进最终测试类
+     */
+    public static String buildScratchTestPrompt(String targetFile, String methodName,
+            String scratchFilePath, String scratchClassName, String testFilePath, double currentCoverage) {
+        return String.format("""
+                ## 生成测试代码（独立测试类）
+
+                **目标文件**: %s
+                **目标方法**: `%s`
+                **测试文件**: %s
+                **测试类名**: `%s`
+                **当前覆盖率**: %.1f%%
+
+                请为方法 `%s` 生成单元测试：
+
+                1. 如果 `%s` 已存在，可以用 `readFile` 参考其中的 import、Mock 和初始化写法，但**不要修改它**
+                2. 分析方法的代码逻辑，识别需要测试的路径
+                3. 生成测试代码，覆盖：
+                   - 正常路径
+                   - 边界条件
+                   - 异常处理
+                4. 使用 `writeFile("%s", ...)` 创建完整的测试类 `%s`（包含 package、import 和所需的初始化代码）
+
+                ⚠️ **重要**：只测试方法 `%s`，只写入上面的测试文件！其他方法正由其他任务并行处理
+                ⚠️ **不要**调用 checkSyntax、compileProject、executeTest 等工具！验证流程会自动执行
+
+                完成写代码后，回复 "代码已写入" 即可。
+                """,
+                targetFile, methodName, scratchFilePath, scratchClassName, currentCoverage,
+                methodName, testFilePath, scratchFilePath, scratchClassName, methodName);
+    }
+
     /**
      * 构建修复语法错误的提示词
      */
@@ -127,6 +164,21 @@ public class FixPromptBuilder {
                 testFilePath, truncateError(errorMessage), testFilePath);
     }
     
+    /**
+     * 构建修复编译错误的提示词（进程内编译的结构化诊断）
+     */
+    public static String buildCompileFixPrompt(String testFilePath,
+            List<IncrementalTestCompiler.CompileDiagnostic> diagnostics) {
+        StringBuilder errors = new StringBuilder();
+        for (IncrementalTestCompiler.CompileDiagnostic d : diagnostics) {
+            if (!"ERROR".equals(d.kind())) {
+                continue;
+            }
+            errors.append(String.format("第 %d 行, 第 %d 列: %s%n", d.line(), d.column(), d.message()));
+        }
+        return buildCompileFixPrompt(testFilePath, errors.toString().trim());
+    }
+    
     /**
      * 构建修复测试失败的提示词
      */
@@ -164,18 +216,44 @@ public class FixPromptBuilder {
      */
     public static String buildMoreTestsPrompt(String targetFile, String methodName, 
             String testFilePath, double currentCoverage, int threshold) {
+        return buildMoreTestsPrompt(targetFile, methodName, testFilePath, currentCoverage, threshold, null);
+    }
+    
+    /**
+     * 构建继续生成测试的提示词（覆盖率不足时），附带上一轮以来的行级覆盖率变化
+     *
+     * @param delta 覆盖率快照差异，为 null 或没有行级数据时退化为笼统提示
+     */
+    public static String buildMoreTestsPrompt(String targetFile, String methodName, 
+            String testFilePath, double currentCoverage, int threshold,
+            CoverageSnapshotStore.CoverageDelta delta) {
+        boolean hasLines = delta != null && delta.hasLineData();
+        String lineSection = hasLines
+                ? String.format("""
+                        
+                        **本轮新覆盖的行**: %s
+                        **仍未覆盖的行**: %s
+                        **存在未覆盖分支的行**: %s
+                        """,
+                        CoverageSnapshotStore.CoverageDelta.formatLines(delta.newlyCoveredLines()),
+                        CoverageSnapshotStore.CoverageDelta.formatLines(delta.stillMissedLines()),
+                        CoverageSnapshotStore.CoverageDelta.formatLines(delta.missedBranchLines()))
+                : "";
+        String focus = hasLines
+                ? "3. 只针对上面列出的未覆盖行和未覆盖分支生成测试（不要重复已覆盖的路径）："
+                : "3. 生成针对未覆盖路径的测试，重点关注：";
         return String.format("""
                 ## 覆盖率不足，需要更多测试
                 
                 **目标方法**: `%s`
                 **当前覆盖率**: %.1f%% (目标: %d%%)
                 **差距**: %.1f%%
-                
+                %s
                 请生成更多测试用例：
                 
                 1. 使用 `readFile("%s")` 读取当前测试文件，了解已有测试
                 2. 使用 `readFile("%s")` 读取源代码，分析未覆盖的路径
-                3. 生成针对未覆盖路径的测试，重点关注：
+                %s
                    - 边界条件（空值、最大/最小值）
                    - 异常处理路径
                    - 分支条件（if/else、switch）
@@ -186,7 +264,7 @@ public class FixPromptBuilder {
                 完成后，回复 "代码已写入" 即可。
                 """, 
                 methodName, currentCoverage, threshold, threshold - currentCoverage,
-                testFilePath, targetFile);
+                lineSection, testFilePath, targetFile, focus);
     }
     
     /**
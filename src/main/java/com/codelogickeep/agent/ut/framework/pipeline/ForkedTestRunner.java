@@ -0,0 +1,635 @@
+package com.codelogickeep.agent.ut.framework.pipeline;
+
+import com.codelogickeep.agent.ut.tools.CoverageIndex;
+import com.codelogickeep.agent.ut.tools.TestClasspath;
+import org.jacoco.core.JaCoCo;
+import org.jacoco.core.tools.ExecFileLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 常驻子 JVM 测试执行器 - 在预热的子 JVM 中用 JUnit Platform 执行单个测试类
+ *
+ * 子 JVM 挂载 JaCoCo agent（output=none），每次运行后取回该次的执行数据并合并到
+ * {@code target/jacoco.exec}，覆盖率由 {@link CoverageIndex} 直接读取。相比
+ * {@code mvn test -Dtest=X}，省去了 Surefire fork、构建模型解析和 JVM 冷启动。
+ *
+ * 子 JVM 按项目池化复用，每次运行使用独立的类加载器加载项目类；以下情况返回
+ * {@link TestRunOutcome#unavailable}，由调用方回退到 Maven：classpath 无法解析、
+ * 找不到 junit-platform-launcher 或 JaCoCo agent、没有发现任何测试（例如只有 JUnit 4）。
+ */
+public class ForkedTestRunner {
+    private static final Logger log = LoggerFactory.getLogger(ForkedTestRunner.class);
+
+    private static final int MAX_RUNS_PER_WORKER = 50;
+    private static final long STARTUP_TIMEOUT_SECONDS = 60;
+    private static final long RUN_TIMEOUT_SECONDS = 300;
+    private static final int STDERR_TAIL_CHARS = 4000;
+    private static final String EOF = "\u0000EOF";
+    private static final String JACOCO_EXCLUDES = "org.junit.*:junit.*:org.opentest4j.*:org.apiguardian.*"
+            + ":org.mockito.*:net.bytebuddy.*:org.objenesis.*:org.assertj.*:org.hamcrest.*";
+
+    private static volatile ForkedTestRunner shared;
+    private static volatile Path runnerDir;
+    // 合并 jacoco.exec 时按工程加锁，避免并发合并互相覆盖
+    private static final Map<Path, Object> EXEC_LOCKS = new ConcurrentHashMap<>();
+
+    private final Function<Path, List<Path>> classpathResolver;
+    private final Supplier<Path> jacocoAgentLocator;
+    private final Map<Path, Deque<Worker>> idleWorkers = new ConcurrentHashMap<>();
+    private final Set<Path> warming = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 单次运行结果
+     *
+     * @param available 是否在子 JVM 中完成了运行；false 时应回退到 Maven
+     * @param failures  失败的测试及错误信息
+     */
+    public record TestRunOutcome(boolean available, boolean success, long testsFound, long testsSucceeded,
+                                 long testsFailed, long testsAborted, long testsSkipped,
+                                 List<String> failures, String reason, long durationMillis) {
+
+        public static TestRunOutcome unavailable(String reason) {
+            return new TestRunOutcome(false, false, 0, 0, 0, 0, 0, List.of(), reason, 0);
+        }
+
+        static TestRunOutcome failed(String reason, long durationMillis) {
+            return new TestRunOutcome(true, false, 0, 0, 0, 0, 0, List.of(reason), reason, durationMillis);
+        }
+
+        /**
+         * Surefire 风格的结果文本，便于沿用已有的解析和修复提示词
+         */
+        public String format() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("Tests run: %d, Failures: %d, Errors: %d, Skipped: %d, Time elapsed: %.3f s%n",
+                    testsFound, testsFailed, testsAborted, testsSkipped, durationMillis / 1000.0));
+            for (String failure : failures) {
+                sb.append("FAILURE! ").append(failure).append('\n');
+            }
+            return sb.toString();
+        }
+    }
+
+    private record Layout(Path javaExecutable, Path jacocoAgent, List<Path> systemClasspath, List<Path> projectClasspath) {
+    }
+
+    private ForkedTestRunner() {
+        this(TestClasspath::dependencies, ForkedTestRunner::locateJacocoAgent);
+    }
+
+    ForkedTestRunner(Function<Path, List<Path>> classpathResolver, Supplier<Path> jacocoAgentLocator) {
+        this.classpathResolver = classpathResolver;
+        this.jacocoAgentLocator = jacocoAgentLocator;
+    }
+
+    /**
+     * 进程级共享实例（子 JVM 在 agent 退出时销毁）
+     */
+    public static ForkedTestRunner shared() {
+        if (shared == null) {
+            synchronized (ForkedTestRunner.class) {
+                if (shared == null) {
+                    ForkedTestRunner runner = new ForkedTestRunner();
+                    Runtime.getRuntime().addShutdownHook(new Thread(runner::shutdown, "forked-test-runner-shutdown"));
+                    shared = runner;
+                }
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * 后台预先启动一个子 JVM，使后续的第一次运行不必等待 JVM 启动
+     */
+    public void prewarm(Path projectRoot) {
+        Path root = projectRoot.toAbsolutePath().normalize();
+        Deque<Worker> idle = idleWorkers.get(root);
+        if ((idle != null && !idle.isEmpty()) || !warming.add(root)) {
+            return;
+        }
+        CompletableFuture.runAsync(() -> {
+            try {
+                Layout layout = layout(root);
+                idleWorkers.computeIfAbsent(root, k -> new ConcurrentLinkedDeque<>())
+                        .add(Worker.start(root, layout));
+            } catch (Exception e) {
+                log.debug("Prewarming test JVM failed: {}", e.getMessage());
+            } finally {
+                warming.remove(root);
+            }
+        });
+    }
+
+    /**
+     * 执行单个测试类，并把执行数据合并到 target/jacoco.exec
+     */
+    public TestRunOutcome run(Path projectRoot, String testClassName) {
+        Path root = projectRoot.toAbsolutePath().normalize();
+        long start = System.currentTimeMillis();
+        Layout layout;
+        try {
+            layout = layout(root);
+        } catch (IOException e) {
+            return TestRunOutcome.unavailable(e.getMessage());
+        }
+
+        Worker worker = null;
+        Path execFile = null;
+        try {
+            worker = acquire(root, layout);
+            execFile = Files.createTempFile("ut-agent-run", ".exec");
+            worker.send("RUN " + testClassName + "\t" + execFile.toAbsolutePath());
+
+            List<String> failures = new ArrayList<>();
+            long[] summary = null;
+            String error = null;
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(RUN_TIMEOUT_SECONDS);
+            while (true) {
+                String line = worker.poll(deadline);
+                if (line == null) {
+                    worker.destroy();
+                    worker = null;
+                    return TestRunOutcome.failed("Test run timed out after " + RUN_TIMEOUT_SECONDS + "s",
+                            System.currentTimeMillis() - start);
+                }
+                if (EOF.equals(line)) {
+                    String stderr = worker.stderrTail();
+                    worker.destroy();
+                    worker = null;
+                    return TestRunOutcome.failed("Test JVM exited unexpectedly\n" + stderr,
+                            System.currentTimeMillis() - start);
+                }
+                if ("DONE".equals(line)) {
+                    break;
+                }
+                if (line.startsWith("FAILED ")) {
+                    String[] parts = line.substring(7).split("\t", 2);
+                    failures.add(unescape(parts[0]) + (parts.length > 1 ? "\n" + unescape(parts[1]) : ""));
+                } else if (line.startsWith("SUMMARY ")) {
+                    String[] parts = line.substring(8).trim().split(" ");
+                    summary = new long[parts.length];
+                    for (int i = 0; i < parts.length; i++) {
+                        summary[i] = Long.parseLong(parts[i]);
+                    }
+                } else if (line.startsWith("ERROR ")) {
+                    error = unescape(line.substring(6));
+                }
+            }
+            release(root, worker);
+            worker = null;
+
+            long duration = System.currentTimeMillis() - start;
+            if (error != null) {
+                return TestRunOutcome.failed(error, duration);
+            }
+            if (summary == null || (summary[0] == 0 && failures.isEmpty())) {
+                return TestRunOutcome.unavailable("No tests discovered by the JUnit Platform for " + testClassName);
+            }
+            mergeExecutionData(root, execFile);
+            boolean success = failures.isEmpty() && summary[2] == 0 && summary[3] == 0;
+            log.info("Forked test run of {} finished in {}ms: found={}, failed={}, aborted={}",
+                    testClassName, duration, summary[0], summary[2], summary[3]);
+            return new TestRunOutcome(true, success, summary[0], summary[1], summary[2], summary[3], summary[4],
+                    failures, null, duration);
+        } catch (IOException e) {
+            return TestRunOutcome.unavailable("Test JVM communication failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return TestRunOutcome.unavailable("Interrupted");
+        } finally {
+            if (worker != null) {
+                worker.destroy();
+            }
+            if (execFile != null) {
+                try {
+                    Files.deleteIfExists(execFile);
+                } catch (IOException ignored) {
+                    // 临时文件
+                }
+            }
+        }
+    }
+
+    /**
+     * 销毁所有子 JVM
+     */
+    public void shutdown() {
+        for (Deque<Worker> workers : idleWorkers.values()) {
+            Worker worker;
+            while ((worker = workers.poll()) != null) {
+                worker.destroy();
+            }
+        }
+    }
+
+    private Worker acquire(Path root, Layout layout) throws IOException, InterruptedException {
+        Deque<Worker> idle = idleWorkers.computeIfAbsent(root, k -> new ConcurrentLinkedDeque<>());
+        Worker worker;
+        while ((worker = idle.poll()) != null) {
+            if (worker.isReusableFor(layout)) {
+                return worker;
+            }
+            worker.destroy();
+        }
+        return Worker.start(root, layout);
+    }
+
+    private void release(Path root, Worker worker) {
+        if (worker.runs() >= MAX_RUNS_PER_WORKER || !worker.isAlive()) {
+            worker.destroy();
+            return;
+        }
+        idleWorkers.computeIfAbsent(root, k -> new ConcurrentLinkedDeque<>()).add(worker);
+    }
+
+    /**
+     * 检查本机环境能否在子 JVM 中执行该工程的测试（java、测试 classpath、JUnit Platform launcher、
+     * JaCoCo agent）。不要求 target/test-classes 已存在：尚无测试的工程在第一次编译后才会生成。
+     *
+     * @return 可用时为 null，否则为原因
+     */
+    public String unavailableReason(Path projectRoot) {
+        Path root = projectRoot.toAbsolutePath().normalize();
+        try {
+            javaExecutable();
+            List<Path> dependencies = dependencies(root);
+            launcher(dependencies);
+            jacocoAgent();
+            return null;
+        } catch (IOException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * 计算子 JVM 的 classpath；不可用时抛出带原因的 IOException
+     */
+    private Layout layout(Path root) throws IOException {
+        Path java = javaExecutable();
+        Path mainClasses = root.resolve("target").resolve("classes");
+        Path testClasses = root.resolve("target").resolve("test-classes");
+        if (!Files.isDirectory(testClasses)) {
+            throw new IOException("target/test-classes not found");
+        }
+        List<Path> dependencies = dependencies(root);
+        Path launcher = launcher(dependencies);
+        Path agent = jacocoAgent();
+
+        List<Path> systemClasspath = new ArrayList<>();
+        systemClasspath.add(runnerDirectory());
+        if (!dependencies.contains(launcher)) {
+            systemClasspath.add(launcher);
+        }
+        for (Path dependency : dependencies) {
+            String name = dependency.getFileName().toString();
+            if (name.startsWith("junit-platform-") || name.startsWith("opentest4j-")
+                    || name.startsWith("apiguardian-api-")) {
+                systemClasspath.add(dependency);
+            }
+        }
+
+        List<Path> projectClasspath = new ArrayList<>();
+        projectClasspath.add(testClasses);
+        projectClasspath.add(mainClasses);
+        projectClasspath.addAll(dependencies);
+        return new Layout(java, agent, systemClasspath, projectClasspath);
+    }
+
+    private static Path javaExecutable() throws IOException {
+        Path java = Paths.get(System.getProperty("java.home"), "bin",
+                System.getProperty("os.name").toLowerCase().contains("win") ? "java.exe" : "java");
+        if (!Files.isRegularFile(java)) {
+            throw new IOException("No java executable under java.home");
+        }
+        return java;
+    }
+
+    private List<Path> dependencies(Path root) throws IOException {
+        List<Path> dependencies = classpathResolver.apply(root);
+        if (dependencies == null) {
+            throw new IOException("Test classpath could not be resolved");
+        }
+        return dependencies;
+    }
+
+    private static Path launcher(List<Path> dependencies) throws IOException {
+        Path launcher = findLauncher(dependencies);
+        if (launcher == null) {
+            throw new IOException("junit-platform-launcher not found (project does not use the JUnit Platform?)");
+        }
+        return launcher;
+    }
+
+    private Path jacocoAgent() throws IOException {
+        Path agent = jacocoAgentLocator.get();
+        if (agent == null) {
+            throw new IOException("JaCoCo agent runtime jar not found in the local Maven repository");
+        }
+        return agent;
+    }
+
+    /**
+     * junit-platform-launcher 通常不在项目依赖中（由 Surefire 提供），按 junit-platform-engine
+     * 的版本在本地仓库中查找同版本的 launcher
+     */
+    static Path findLauncher(List<Path> dependencies) {
+        for (Path dependency : dependencies) {
+            if (dependency.getFileName().toString().startsWith("junit-platform-launcher-")) {
+                return dependency;
+            }
+        }
+        for (Path dependency : dependencies) {
+            String name = dependency.getFileName().toString();
+            if (name.startsWith("junit-platform-engine-") && name.endsWith(".jar")) {
+                String version = name.substring("junit-platform-engine-".length(), name.length() - ".jar".length());
+                Path versionDir = dependency.getParent();
+                if (versionDir == null || versionDir.getParent() == null || versionDir.getParent().getParent() == null) {
+                    return null;
+                }
+                Path launcher = versionDir.getParent().getParent()
+                        .resolve("junit-platform-launcher").resolve(version)
+                        .resolve("junit-platform-launcher-" + version + ".jar");
+                return Files.isRegularFile(launcher) ? launcher : null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 在本地 Maven 仓库中查找 JaCoCo agent（jacoco-maven-plugin prepare-agent 会下载它），
+     * 优先与 org.jacoco.core 同版本
+     */
+    static Path locateJacocoAgent() {
+        String repo = System.getProperty("maven.repo.local");
+        Path repository = repo != null ? Paths.get(repo) : Paths.get(System.getProperty("user.home"), ".m2", "repository");
+        Path agentDir = repository.resolve("org").resolve("jacoco").resolve("org.jacoco.agent");
+        Path preferred = agentDir.resolve(JaCoCo.VERSION).resolve("org.jacoco.agent-" + JaCoCo.VERSION + "-runtime.jar");
+        if (Files.isRegularFile(preferred)) {
+            return preferred;
+        }
+        if (!Files.isDirectory(agentDir)) {
+            return null;
+        }
+        try (Stream<Path> versions = Files.list(agentDir)) {
+            return versions
+                    .sorted(Comparator.comparing((Path p) -> p.getFileName().toString()).reversed())
+                    .map(dir -> dir.resolve("org.jacoco.agent-" + dir.getFileName() + "-runtime.jar"))
+                    .filter(Files::isRegularFile)
+                    .findFirst()
+                    .orElse(null);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 把 {@link ForkedTestRunnerMain} 的 class 文件单独复制出来，子 JVM 不加载 agent 的其他类
+     */
+    private static Path runnerDirectory() throws IOException {
+        if (runnerDir == null) {
+            synchronized (ForkedTestRunner.class) {
+                if (runnerDir == null) {
+                    Path dir = Files.createTempDirectory("ut-agent-runner");
+                    String resource = ForkedTestRunnerMain.class.getName().replace('.', '/') + ".class";
+                    Path target = dir.resolve(resource);
+                    Files.createDirectories(target.getParent());
+                    try (InputStream in = ForkedTestRunner.class.getClassLoader().getResourceAsStream(resource)) {
+                        if (in == null) {
+                            throw new IOException("Runner class not found: " + resource);
+                        }
+                        Files.copy(in, target);
+                    }
+                    dir.toFile().deleteOnExit();
+                    runnerDir = dir;
+                }
+            }
+        }
+        return runnerDir;
+    }
+
+    /**
+     * 把本次运行的执行数据合并到 target/jacoco.exec。
+     * 同一工程的合并串行执行（build-slots > 1 时可能有多个测试同时结束），结果先写临时文件再原子替换，
+     * 其他读取方不会读到写了一半的文件。
+     */
+    static void mergeExecutionData(Path root, Path execFile) throws IOException {
+        if (Files.size(execFile) == 0) {
+            return;
+        }
+        Path target = CoverageIndex.execPath(root.toString()).toAbsolutePath().normalize();
+        synchronized (EXEC_LOCKS.computeIfAbsent(target, k -> new Object())) {
+            ExecFileLoader loader = new ExecFileLoader();
+            if (Files.isRegularFile(target)) {
+                loader.load(target.toFile());
+            }
+            loader.load(execFile.toFile());
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), "jacoco", ".exec.tmp");
+            try {
+                loader.save(temp.toFile(), false);
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    static String unescape(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                char next = text.charAt(++i);
+                sb.append(next == 'n' ? '\n' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 一个常驻子 JVM
+     */
+    private static final class Worker {
+        private final Process process;
+        private final BufferedWriter stdin;
+        private final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        private final StringBuilder stderrTail = new StringBuilder();
+        private final Layout layout;
+        private final Path classpathFile;
+        private int runs;
+
+        private Worker(Process process, Layout layout, Path classpathFile) {
+            this.process = process;
+            this.layout = layout;
+            this.classpathFile = classpathFile;
+            this.stdin = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        }
+
+        static Worker start(Path root, Layout layout) throws IOException, InterruptedException {
+            long start = System.currentTimeMillis();
+            Path classpathFile = Files.createTempFile("ut-agent-classpath", ".txt");
+            List<String> entries = new ArrayList<>();
+            for (Path entry : layout.projectClasspath()) {
+                entries.add(entry.toAbsolutePath().toString());
+            }
+            Files.write(classpathFile, entries, StandardCharsets.UTF_8);
+
+            List<String> command = new ArrayList<>();
+            command.add(layout.javaExecutable().toString());
+            command.add("-Xshare:auto");
+            command.add("-XX:TieredStopAtLevel=1");
+            command.add("-Dfile.encoding=UTF-8");
+            command.add("-javaagent:" + layout.jacocoAgent().toAbsolutePath()
+                    + "=output=none,excludes=" + JACOCO_EXCLUDES);
+            command.add("-cp");
+            command.add(String.join(File.pathSeparator,
+                    layout.systemClasspath().stream().map(p -> p.toAbsolutePath().toString()).toList()));
+            command.add(ForkedTestRunnerMain.class.getName());
+            command.add(classpathFile.toAbsolutePath().toString());
+
+            ProcessBuilder pb = new ProcessBuilder(command);
+            pb.directory(root.toFile());
+            Worker worker = new Worker(pb.start(), layout, classpathFile);
+            worker.startReaders();
+
+            String ready = worker.poll(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(STARTUP_TIMEOUT_SECONDS));
+            if (!"READY".equals(ready)) {
+                String stderr = worker.stderrTail();
+                worker.destroy();
+                throw new IOException("Test JVM failed to start: " + stderr);
+            }
+            log.info("Test JVM started for {} in {}ms", root, System.currentTimeMillis() - start);
+            return worker;
+        }
+
+        private void startReaders() {
+            Thread out = new Thread(() -> {
+                try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        lines.add(line);
+                    }
+                } catch (IOException e) {
+                    // 进程结束
+                } finally {
+                    lines.add(EOF);
+                }
+            }, "forked-test-runner-out");
+            Thread err = new Thread(() -> {
+                try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        synchronized (stderrTail) {
+                            stderrTail.append(line).append('\n');
+                            if (stderrTail.length() > STDERR_TAIL_CHARS * 2) {
+                                stderrTail.delete(0, stderrTail.length() - STDERR_TAIL_CHARS);
+                            }
+                        }
+                    }
+                } catch (IOException e) {
+                    // 进程结束
+                }
+            }, "forked-test-runner-err");
+            out.setDaemon(true);
+            err.setDaemon(true);
+            out.start();
+            err.start();
+        }
+
+        void send(String command) throws IOException {
+            runs++;
+            lines.clear();
+            stdin.write(command);
+            stdin.newLine();
+            stdin.flush();
+        }
+
+        /**
+         * @return 下一行输出；超时返回 null
+         */
+        String poll(long deadline) throws InterruptedException {
+            long remaining = deadline - System.currentTimeMillis();
+            return remaining > 0 ? lines.poll(remaining, TimeUnit.MILLISECONDS) : null;
+        }
+
+        String stderrTail() {
+            synchronized (stderrTail) {
+                return stderrTail.length() > STDERR_TAIL_CHARS
+                        ? stderrTail.substring(stderrTail.length() - STDERR_TAIL_CHARS)
+                        : stderrTail.toString();
+            }
+        }
+
+        int runs() {
+            return runs;
+        }
+
+        boolean isAlive() {
+            return process.isAlive();
+        }
+
+        boolean isReusableFor(Layout current) {
+            return isAlive() && layout.equals(current);
+        }
+
+        void destroy() {
+            try {
+                stdin.write("EXIT");
+                stdin.newLine();
+                stdin.flush();
+            } catch (IOException ignored) {
+                // 进程可能已经退出
+            }
+            if (!waitFor(2)) {
+                process.destroyForcibly();
+            }
+            try {
+                Files.deleteIfExists(classpathFile);
+            } catch (IOException ignored) {
+                // 临时文件
+            }
+        }
+
+        private boolean waitFor(long seconds) {
+            try {
+                return process.waitFor(seconds, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
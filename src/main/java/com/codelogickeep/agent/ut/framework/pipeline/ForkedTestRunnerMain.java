@@ -0,0 +1,137 @@
+package com.codelogickeep.agent.ut.framework.pipeline;
+
+import org.junit.platform.launcher.Launcher;
+import org.junit.platform.launcher.LauncherDiscoveryRequest;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+import org.junit.platform.launcher.listeners.SummaryGeneratingListener;
+import org.junit.platform.launcher.listeners.TestExecutionSummary;
+
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+
+/**
+ * 子 JVM 入口 - 由 {@link ForkedTestRunner} 启动，常驻并按命令执行单个测试类
+ *
+ * 只依赖 JDK 和 JUnit Platform Launcher API（来自目标项目的 classpath），
+ * 不能引用 agent 的其他类。协议（stdout，每行一条）：
+ * <pre>
+ * READY
+ * FAILED &lt;displayName&gt;\t&lt;error&gt;
+ * SUMMARY &lt;found&gt; &lt;succeeded&gt; &lt;failed&gt; &lt;aborted&gt; &lt;skipped&gt; &lt;containersFailed&gt;
+ * ERROR &lt;error&gt;
+ * DONE
+ * </pre>
+ * 命令（stdin）：{@code RUN <testClass>\t<execFile>} 和 {@code EXIT}。
+ * 每次运行使用新的 URLClassLoader 加载项目类，保证重新编译的测试类生效。
+ */
+public final class ForkedTestRunnerMain {
+
+    private ForkedTestRunnerMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        PrintStream protocol = new PrintStream(new FileOutputStream(FileDescriptor.out), true, StandardCharsets.UTF_8);
+        // 测试自身的输出不能混入协议
+        System.setOut(System.err);
+
+        URL[] urls = readClasspath(Path.of(args[0]));
+        LauncherFactory.create(); // 预热 Launcher 和引擎发现
+        protocol.println("READY");
+
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = in.readLine()) != null) {
+            if ("EXIT".equals(line)) {
+                break;
+            }
+            if (line.startsWith("RUN ")) {
+                String[] parts = line.substring(4).split("\t", 2);
+                run(parts[0], parts.length > 1 ? parts[1] : null, urls, protocol);
+            }
+        }
+    }
+
+    private static URL[] readClasspath(Path file) throws Exception {
+        List<URL> urls = new ArrayList<>();
+        for (String entry : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (!entry.isBlank()) {
+                urls.add(Path.of(entry.trim()).toUri().toURL());
+            }
+        }
+        return urls.toArray(new URL[0]);
+    }
+
+    private static void run(String className, String execFile, URL[] urls, PrintStream protocol) {
+        dumpCoverage(null); // 丢弃上一次运行之后累积的数据
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        try (URLClassLoader loader = new URLClassLoader(urls, ForkedTestRunnerMain.class.getClassLoader())) {
+            thread.setContextClassLoader(loader);
+            Launcher launcher = LauncherFactory.create();
+            LauncherDiscoveryRequest request = LauncherDiscoveryRequestBuilder.request()
+                    .selectors(selectClass(loader.loadClass(className)))
+                    .build();
+            SummaryGeneratingListener listener = new SummaryGeneratingListener();
+            launcher.execute(request, listener);
+
+            TestExecutionSummary summary = listener.getSummary();
+            for (TestExecutionSummary.Failure failure : summary.getFailures()) {
+                protocol.println("FAILED " + escape(failure.getTestIdentifier().getDisplayName())
+                        + "\t" + escape(describe(failure.getException())));
+            }
+            protocol.println("SUMMARY " + summary.getTestsFoundCount() + " " + summary.getTestsSucceededCount()
+                    + " " + summary.getTestsFailedCount() + " " + summary.getTestsAbortedCount()
+                    + " " + summary.getTestsSkippedCount() + " " + summary.getContainersFailedCount());
+        } catch (Throwable e) {
+            protocol.println("ERROR " + escape(describe(e)));
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+        dumpCoverage(execFile);
+        protocol.println("DONE");
+    }
+
+    /**
+     * 通过 JaCoCo agent 的公开 API 取出并重置执行数据；execFile 为 null 时只重置
+     */
+    private static void dumpCoverage(String execFile) {
+        try {
+            Object agent = Class.forName("org.jacoco.agent.rt.RT").getMethod("getAgent").invoke(null);
+            Method getExecutionData = Class.forName("org.jacoco.agent.rt.IAgent")
+                    .getMethod("getExecutionData", boolean.class);
+            byte[] data = (byte[]) getExecutionData.invoke(agent, true);
+            if (execFile != null) {
+                Files.write(Path.of(execFile), data);
+            }
+        } catch (Throwable e) {
+            // 未挂载 JaCoCo agent 时没有覆盖率数据
+        }
+    }
+
+    private static String describe(Throwable e) {
+        StringWriter sw = new StringWriter();
+        e.printStackTrace(new PrintWriter(sw));
+        String trace = sw.toString();
+        return trace.length() > 4000 ? trace.substring(0, 4000) + "..." : trace;
+    }
+
+    private static String escape(String text) {
+        return text == null ? "" : text.replace("\\", "\\\\").replace("\t", " ").replace("\r", "").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,286 @@
+package com.codelogickeep.agent.ut.framework.pipeline;
+
+import com.codelogickeep.agent.ut.tools.TestClasspath;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 进程内增量测试编译 - 只编译被修改的测试源文件
+ *
+ * 使用 {@link javax.tools.JavaCompiler} 针对缓存的测试 classpath 把单个测试类编译到
+ * {@code target/test-classes}，并返回结构化诊断信息，避免每次修改后都执行完整的
+ * {@code mvn test-compile}。无法进程内编译时（无 JDK 编译器、缺少 target/classes、
+ * classpath 解析失败）返回 {@link CompileOutcome#unavailable}，由调用方回退到 Maven。
+ *
+ * 按工程的目标版本传 {@code --release}（见 {@link #targetRelease}），否则测试会按 agent 所在 JDK 的版本编译：
+ * 低版本工程的 Surefire JVM 无法加载，使用了新 API 的代码也会在进程内编译通过、在 Maven 中失败。
+ */
+public class IncrementalTestCompiler {
+    private static final Logger log = LoggerFactory.getLogger(IncrementalTestCompiler.class);
+
+    // class 文件主版本号减去该值即为 Java 版本（52 = Java 8）
+    private static final int CLASS_MAJOR_OFFSET = 44;
+    private static final List<String> POM_RELEASE_TAGS = List.of(
+            "maven.compiler.release", "release", "maven.compiler.target", "target",
+            "maven.compiler.source", "source");
+
+    private final Function<Path, List<Path>> classpathResolver;
+
+    public IncrementalTestCompiler() {
+        this(TestClasspath::dependencies);
+    }
+
+    IncrementalTestCompiler(Function<Path, List<Path>> classpathResolver) {
+        this.classpathResolver = classpathResolver;
+    }
+
+    /**
+     * 单条编译诊断
+     */
+    public record CompileDiagnostic(String kind, String file, long line, long column, String message) {
+        @Override
+        public String toString() {
+            String location = file != null ? file + ":" + line + ":" + column : "<unknown>";
+            return "[" + kind + "] " + location + " " + message;
+        }
+    }
+
+    /**
+     * 编译结果
+     *
+     * @param available      是否完成了进程内编译；false 时应回退到 Maven
+     * @param reason         不可用时的原因
+     */
+    public record CompileOutcome(boolean available, boolean success, List<CompileDiagnostic> diagnostics,
+                                 String reason) {
+
+        public static CompileOutcome unavailable(String reason) {
+            return new CompileOutcome(false, false, List.of(), reason);
+        }
+
+        public List<CompileDiagnostic> errors() {
+            return diagnostics.stream().filter(d -> "ERROR".equals(d.kind())).toList();
+        }
+
+        /**
+         * 诊断信息文本，直接用于修复提示词
+         */
+        public String format() {
+            StringBuilder sb = new StringBuilder();
+            List<CompileDiagnostic> errors = errors();
+            sb.append("COMPILATION ERROR: ").append(errors.size()).append(" error(s)\n");
+            for (CompileDiagnostic d : errors) {
+                sb.append(d).append('\n');
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * 预热：加载系统编译器并解析（缓存）测试 classpath，让第一次编译不再等待 Maven
+     */
+    public void prewarm(Path projectRoot) {
+        if (ToolProvider.getSystemJavaCompiler() != null) {
+            classpathResolver.apply(projectRoot.toAbsolutePath().normalize());
+        }
+    }
+
+    /**
+     * 检查能否在进程内编译该工程的测试（系统编译器、target/classes、测试 classpath）
+     *
+     * @return 可用时为 null，否则为原因
+     */
+    public String unavailableReason(Path projectRoot) {
+        if (ToolProvider.getSystemJavaCompiler() == null) {
+            return "No system Java compiler (running on a JRE?)";
+        }
+        Path root = projectRoot.toAbsolutePath().normalize();
+        if (!Files.isDirectory(root.resolve("target").resolve("classes"))) {
+            return "target/classes not found - main sources not compiled yet";
+        }
+        if (classpathResolver.apply(root) == null) {
+            return "Test classpath could not be resolved";
+        }
+        return null;
+    }
+
+    /**
+     * 编译单个测试源文件
+     *
+     * @param projectRoot 模块根目录（包含 pom.xml 和 target/）
+     * @param testSource  测试源文件（绝对路径或相对于 projectRoot）
+     */
+    public CompileOutcome compile(Path projectRoot, Path testSource) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            return CompileOutcome.unavailable("No system Java compiler (running on a JRE?)");
+        }
+
+        Path root = projectRoot.toAbsolutePath().normalize();
+        Path source = testSource.isAbsolute() ? testSource : root.resolve(testSource);
+        if (!Files.isRegularFile(source)) {
+            return CompileOutcome.unavailable("Test source not found: " + source);
+        }
+        Path mainClasses = root.resolve("target").resolve("classes");
+        if (!Files.isDirectory(mainClasses)) {
+            return CompileOutcome.unavailable("target/classes not found - main sources not compiled yet");
+        }
+        List<Path> dependencies = classpathResolver.apply(root);
+        if (dependencies == null) {
+            return CompileOutcome.unavailable("Test classpath could not be resolved");
+        }
+
+        Path testClasses = root.resolve("target").resolve("test-classes");
+        List<String> classpath = new ArrayList<>();
+        classpath.add(testClasses.toString());
+        classpath.add(mainClasses.toString());
+        for (Path dependency : dependencies) {
+            classpath.add(dependency.toString());
+        }
+
+        List<String> options = new ArrayList<>();
+        options.add("-d");
+        options.add(testClasses.toString());
+        options.add("-classpath");
+        options.add(String.join(File.pathSeparator, classpath));
+        options.add("-encoding");
+        options.add("UTF-8");
+        options.add("-g");
+        Integer release = targetRelease(root);
+        if (release != null && release < Runtime.version().feature()) {
+            options.add("--release");
+            options.add(String.valueOf(release));
+            // 低版本 --release 的"已过时"提示不是测试代码的问题
+            options.add("-Xlint:-options");
+        }
+        Path testSourceRoot = root.resolve("src").resolve("test").resolve("java");
+        if (Files.isDirectory(testSourceRoot)) {
+            // 被引用的其他测试辅助类按需从源码编译
+            options.add("-sourcepath");
+            options.add(testSourceRoot.toString());
+        }
+
+        long start = System.currentTimeMillis();
+        DiagnosticCollector<JavaFileObject> collector = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager =
+                     compiler.getStandardFileManager(collector, Locale.ROOT, StandardCharsets.UTF_8)) {
+            Files.createDirectories(testClasses);
+            Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjects(source.toFile());
+            StringWriter out = new StringWriter();
+            boolean success = compiler.getTask(out, fileManager, collector, options, null, units).call();
+
+            List<CompileDiagnostic> diagnostics = new ArrayList<>();
+            for (Diagnostic<? extends JavaFileObject> d : collector.getDiagnostics()) {
+                if (d.getKind() == Diagnostic.Kind.NOTE) {
+                    continue;
+                }
+                diagnostics.add(new CompileDiagnostic(
+                        d.getKind() == Diagnostic.Kind.ERROR ? "ERROR" : "WARNING",
+                        d.getSource() != null ? d.getSource().getName() : null,
+                        d.getLineNumber(), d.getColumnNumber(), d.getMessage(Locale.ROOT)));
+            }
+            log.info("In-process test compile of {} {} in {}ms ({} diagnostics)", source.getFileName(),
+                    success ? "succeeded" : "failed", System.currentTimeMillis() - start, diagnostics.size());
+            return new CompileOutcome(true, success, diagnostics, null);
+        } catch (IOException | RuntimeException e) {
+            log.warn("In-process test compile failed unexpectedly: {}", e.getMessage());
+            return CompileOutcome.unavailable("Compiler error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 工程的目标 Java 版本：优先取 target/classes 中 class 文件的主版本号（Maven 实际编译的结果，
+     * 包含父 POM 和 profile 的配置），其次取 pom.xml 中的 release/target/source 配置；无法确定时为 null
+     */
+    static Integer targetRelease(Path projectRoot) {
+        Integer release = classFileRelease(projectRoot.resolve("target").resolve("classes"));
+        return release != null ? release : pomRelease(projectRoot.resolve("pom.xml"));
+    }
+
+    private static Integer classFileRelease(Path classesDir) {
+        if (!Files.isDirectory(classesDir)) {
+            return null;
+        }
+        try (Stream<Path> files = Files.walk(classesDir)) {
+            Path classFile = files.filter(f -> f.getFileName().toString().endsWith(".class")
+                    && !f.getFileName().toString().equals("module-info.class"))
+                    .findFirst().orElse(null);
+            if (classFile == null) {
+                return null;
+            }
+            byte[] header = new byte[8];
+            try (var in = Files.newInputStream(classFile)) {
+                if (in.readNBytes(header, 0, 8) < 8) {
+                    return null;
+                }
+            }
+            int major = ((header[6] & 0xff) << 8) | (header[7] & 0xff);
+            return major >= 52 ? major - CLASS_MAJOR_OFFSET : null;
+        } catch (IOException e) {
+            log.debug("Could not read class file version under {}: {}", classesDir, e.getMessage());
+            return null;
+        }
+    }
+
+    private static Integer pomRelease(Path pom) {
+        if (!Files.isRegularFile(pom)) {
+            return null;
+        }
+        String content;
+        try {
+            content = Files.readString(pom, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return null;
+        }
+        for (String tag : POM_RELEASE_TAGS) {
+            String value = pomValue(content, tag);
+            if (value != null && value.startsWith("${") && value.endsWith("}")) {
+                value = pomValue(content, value.substring(2, value.length() - 1));
+            }
+            Integer release = parseRelease(value);
+            if (release != null) {
+                return release;
+            }
+        }
+        return null;
+    }
+
+    private static String pomValue(String content, String tag) {
+        Matcher matcher = Pattern.compile("<" + Pattern.quote(tag) + ">\\s*([^<]+?)\\s*</" + Pattern.quote(tag) + ">")
+                .matcher(content);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static Integer parseRelease(String value) {
+        if (value == null) {
+            return null;
+        }
+        String version = value.startsWith("1.") ? value.substring(2) : value;
+        try {
+            int release = Integer.parseInt(version);
+            return release >= 8 ? release : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.codelogickeep.agent.ut.framework.pipeline;
+
+import com.codelogickeep.agent.ut.framework.model.ToolCall;
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.Problem;
+import com.github.javaparser.ast.CompilationUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.stream.Collectors;
+
+/**
+ * 推测式验证 - LLM 仍在流式输出时提前检查测试文件
+ *
+ * 流式响应中出现针对测试文件的 writeFile / searchReplace 调用（参数已完整）时，
+ * 立即推算写入后的文件内容并在后台执行 JavaParser 语法检查，同时预热编译器和测试 JVM。
+ * 语法检查失败时 {@link #shouldCancel()} 返回 true，调用方据此放弃仍在流式输出的响应，
+ * 直接进入验证/修复流程，让 LLM 延迟与验证延迟重叠。
+ * 决定是否发起下一轮 LLM 请求前应调用 {@link #awaitShouldCancel(long)}，等待最新写入的检查完成。
+ *
+ * 同一轮中可能有多次写入，只有最新一次推算内容的检查结果才有效。
+ */
+public class SpeculativeVerifier {
+    private static final Logger log = LoggerFactory.getLogger(SpeculativeVerifier.class);
+
+    private final Path testFile;
+    private final Runnable warmup;
+    private final JavaParser parser = new JavaParser();
+
+    private String projected;
+    private int latestSeq;
+    private int checkedSeq;
+    private int failedSeq = -1;
+    private String failureDetails;
+    private boolean warmed;
+
+    /**
+     * @param testFilePath 测试文件路径（绝对路径或相对于当前工作目录）
+     * @param warmup       首次看到测试文件写入时在后台执行的预热动作，可为 null
+     */
+    public SpeculativeVerifier(String testFilePath, Runnable warmup) {
+        this.testFile = Path.of(testFilePath).toAbsolutePath().normalize();
+        this.warmup = warmup;
+    }
+
+    /**
+     * 流式响应中收到完整的工具调用
+     */
+    public void onToolCall(ToolCall toolCall) {
+        if (toolCall == null || toolCall.name() == null) {
+            return;
+        }
+        String path = toolCall.getString("path");
+        if (path == null || !targetsTestFile(path)) {
+            return;
+        }
+
+        String content;
+        int seq;
+        synchronized (this) {
+            content = project(toolCall);
+            if (content == null) {
+                return;
+            }
+            projected = content;
+            seq = ++latestSeq;
+            if (!warmed && warmup != null) {
+                warmed = true;
+                Thread.ofVirtual().name("speculative-warmup").start(warmup);
+            }
+        }
+        Thread.ofVirtual().name("speculative-syntax").start(() -> check(seq, content));
+    }
+
+    /**
+     * 推算工具执行后的文件内容；无法推算（不是写入工具、oldString 不存在）时返回 null
+     */
+    private String project(ToolCall toolCall) {
+        return switch (toolCall.name()) {
+            case "writeFile" -> toolCall.getString("content");
+            case "searchReplace" -> {
+                String oldString = toolCall.getString("oldString");
+                String newString = toolCall.getString("newString");
+                String current = projected != null ? projected : readTestFile();
+                if (current == null || oldString == null || newString == null || !current.contains(oldString)) {
+                    yield null;
+                }
+                int index = current.indexOf(oldString);
+                yield current.substring(0, index) + newString + current.substring(index + oldString.length());
+            }
+            default -> null;
+        };
+    }
+
+    private String readTestFile() {
+        try {
+            return Files.isRegularFile(testFile) ? Files.readString(testFile, StandardCharsets.UTF_8) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void check(int seq, String content) {
+        ParseResult<CompilationUnit> result;
+        synchronized (parser) {
+            result = parser.parse(content);
+        }
+        String details = result.isSuccessful() ? null : result.getProblems().stream()
+                .map(Problem::getVerboseMessage)
+                .collect(Collectors.joining("\n"));
+        synchronized (this) {
+            checkedSeq = Math.max(checkedSeq, seq);
+            notifyAll();
+            if (seq != latestSeq) {
+                return; // 已有更新的写入
+            }
+            if (details != null) {
+                failedSeq = seq;
+                failureDetails = details;
+                log.info("Speculative syntax check failed for {}, cancelling the pending LLM round", testFile);
+            } else {
+                failedSeq = -1;
+                failureDetails = null;
+            }
+        }
+    }
+
+    /**
+     * 最新一次写入的推测检查已失败，当前 LLM 轮次可以提前结束
+     */
+    public synchronized boolean shouldCancel() {
+        return failedSeq >= 0 && failedSeq == latestSeq;
+    }
+
+    /**
+     * 等待最新写入的检查完成（最多 timeoutMs 毫秒）后返回 {@link #shouldCancel()}
+     */
+    public synchronized boolean awaitShouldCancel(long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (checkedSeq < latestSeq) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                log.debug("Speculative syntax check still running after {}ms", timeoutMs);
+                break;
+            }
+            wait(remaining);
+        }
+        return shouldCancel();
+    }
+
+    /**
+     * 最新写入的语法错误信息（无失败时为 null）
+     */
+    public synchronized String failureDetails() {
+        return shouldCancel() ? failureDetails : null;
+    }
+
+    /**
+     * 文件工具的相对路径基于工具自己的项目根目录，这里按路径后缀匹配
+     */
+    private boolean targetsTestFile(String path) {
+        try {
+            Path p = Path.of(path).normalize();
+            return p.isAbsolute() ? p.equals(testFile) : testFile.endsWith(p);
+        } catch (InvalidPathException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.codelogickeep.agent.ut.framework.pipeline;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.Modifier;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.ConstructorDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.AnnotationExpr;
+import com.github.javaparser.ast.expr.MarkerAnnotationExpr;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 测试类合并 - 把并行生成的临时测试类（如 {@code FooTest_add}）合并进最终的 {@code FooTest}
+ *
+ * 每个临时类按以下规则合并：
+ * <ul>
+ *   <li>import 去重后追加</li>
+ *   <li>临时类的字段、辅助方法、@BeforeEach 等非测试成员在 FooTest 中不存在或完全相同时，
+ *       直接把成员（测试方法重名时加后缀）合并进 FooTest</li>
+ *   <li>否则（例如两边的 setUp 不同）整体作为 {@code @Nested} 内部类加入，保持各自的初始化逻辑</li>
+ * </ul>
+ */
+public class TestClassMerger {
+    private static final Logger log = LoggerFactory.getLogger(TestClassMerger.class);
+
+    private static final Set<String> TEST_ANNOTATIONS = Set.of(
+            "Test", "ParameterizedTest", "RepeatedTest", "TestFactory", "TestTemplate");
+    private static final String NESTED_IMPORT = "org.junit.jupiter.api.Nested";
+
+    private final JavaParser parser = new JavaParser();
+
+    /**
+     * 一个已验证的临时测试类
+     *
+     * @param className  临时类的简单类名（如 FooTest_add）
+     * @param methodName 对应的被测方法名，用于命名冲突时的后缀和嵌套类名
+     * @param source     源码
+     */
+    public record Scratch(String className, String methodName, String source) {
+    }
+
+    /**
+     * 合并结果
+     *
+     * @param source  合并后的 FooTest 源码
+     * @param folded  直接合并的临时类
+     * @param nested  作为 @Nested 内部类合并的临时类
+     * @param skipped 无法解析而跳过的临时类
+     */
+    public record MergeResult(String source, List<String> folded, List<String> nested, List<String> skipped) {
+    }
+
+    /**
+     * @param baseSource    现有 FooTest 源码；为 null 时以第一个临时类为基础创建
+     * @param baseClassName FooTest 的简单类名
+     */
+    public MergeResult merge(String baseSource, String baseClassName, List<Scratch> scratches) {
+        List<String> folded = new ArrayList<>();
+        List<String> nested = new ArrayList<>();
+        List<String> skipped = new ArrayList<>();
+
+        CompilationUnit base = baseSource != null ? parse(baseSource) : null;
+        ClassOrInterfaceDeclaration baseClass = base != null ? findClass(base, baseClassName).orElse(null) : null;
+        if (baseClass == null) {
+            // 没有可用的 FooTest：用第一个能解析的临时类改名作为基础
+            base = null;
+        }
+
+        for (Scratch scratch : scratches) {
+            // 临时类名的所有引用（构造器、静态调用）统一改为目标类名
+            CompilationUnit unit = parse(scratch.source().replaceAll(
+                    "\\b" + Pattern.quote(scratch.className()) + "\\b", Matcher.quoteReplacement(baseClassName)));
+            ClassOrInterfaceDeclaration scratchClass = unit != null ? findClass(unit, baseClassName).orElse(null) : null;
+            if (scratchClass == null) {
+                log.warn("Skipping scratch test class {}: cannot be parsed", scratch.className());
+                skipped.add(scratch.className());
+                continue;
+            }
+            if (baseClass == null) {
+                base = unit;
+                baseClass = scratchClass;
+                folded.add(scratch.className());
+                continue;
+            }
+
+            mergeImports(base, unit);
+            if (canFold(baseClass, scratchClass)) {
+                fold(baseClass, scratchClass, scratch.methodName());
+                folded.add(scratch.className());
+            } else {
+                nest(base, baseClass, scratchClass, nestedName(scratch.methodName()));
+                nested.add(scratch.className());
+            }
+        }
+
+        String source = base != null ? base.toString() : baseSource;
+        log.info("Merged scratch test classes into {}: folded={}, nested={}, skipped={}",
+                baseClassName, folded, nested, skipped);
+        return new MergeResult(source, folded, nested, skipped);
+    }
+
+    private CompilationUnit parse(String source) {
+        ParseResult<CompilationUnit> result = parser.parse(source);
+        return result.isSuccessful() ? result.getResult().orElse(null) : null;
+    }
+
+    private static Optional<ClassOrInterfaceDeclaration> findClass(CompilationUnit unit, String name) {
+        return unit.getTypes().stream()
+                .filter(t -> t instanceof ClassOrInterfaceDeclaration && t.getNameAsString().equals(name))
+                .map(t -> (ClassOrInterfaceDeclaration) t)
+                .findFirst();
+    }
+
+    private static void mergeImports(CompilationUnit base, CompilationUnit scratch) {
+        Set<String> existing = new HashSet<>();
+        for (ImportDeclaration imp : base.getImports()) {
+            existing.add(imp.toString().trim());
+        }
+        for (ImportDeclaration imp : scratch.getImports()) {
+            if (existing.add(imp.toString().trim())) {
+                base.addImport(imp.clone());
+            }
+        }
+    }
+
+    /**
+     * 非测试成员都能与 FooTest 共存，且类级注解（如 @ExtendWith）FooTest 都已具备
+     */
+    private static boolean canFold(ClassOrInterfaceDeclaration base, ClassOrInterfaceDeclaration scratch) {
+        Set<String> baseAnnotations = new HashSet<>();
+        base.getAnnotations().forEach(a -> baseAnnotations.add(a.toString()));
+        for (AnnotationExpr annotation : scratch.getAnnotations()) {
+            if (!baseAnnotations.contains(annotation.toString())) {
+                return false;
+            }
+        }
+        if (!scratch.getExtendedTypes().equals(base.getExtendedTypes())) {
+            return false;
+        }
+        for (BodyDeclaration<?> member : scratch.getMembers()) {
+            if (isTestMethod(member) || member instanceof ConstructorDeclaration c && c.getParameters().isEmpty()
+                    && c.getBody().isEmpty()) {
+                continue;
+            }
+            Optional<BodyDeclaration<?>> counterpart = counterpart(base, member);
+            if (counterpart.isPresent() && !sameMember(counterpart.get(), member)) {
+                return false;
+            }
+            if (counterpart.isEmpty() && isLifecycleMethod(member)) {
+                // 新的 @BeforeEach 会影响 FooTest 已有的测试
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void fold(ClassOrInterfaceDeclaration base, ClassOrInterfaceDeclaration scratch, String methodName) {
+        Set<String> names = new HashSet<>();
+        base.getMethods().forEach(m -> names.add(m.getNameAsString()));
+        for (BodyDeclaration<?> member : scratch.getMembers()) {
+            if (member instanceof ConstructorDeclaration) {
+                continue;
+            }
+            if (isTestMethod(member)) {
+                MethodDeclaration method = ((MethodDeclaration) member).clone();
+                String name = method.getNameAsString();
+                if (names.contains(name)) {
+                    String candidate = name + "_" + sanitize(methodName);
+                    for (int i = 2; names.contains(candidate); i++) {
+                        candidate = name + "_" + sanitize(methodName) + i;
+                    }
+                    method.setName(candidate);
+                }
+                names.add(method.getNameAsString());
+                base.addMember(method);
+            } else if (counterpart(base, member).isEmpty()) {
+                base.addMember(member.clone());
+            }
+        }
+    }
+
+    private static void nest(CompilationUnit unit, ClassOrInterfaceDeclaration base,
+                             ClassOrInterfaceDeclaration scratch, String name) {
+        ClassOrInterfaceDeclaration inner = scratch.clone();
+        inner.getModifiers().removeIf(m -> m.getKeyword() == Modifier.Keyword.PUBLIC
+                || m.getKeyword() == Modifier.Keyword.STATIC);
+        if (inner.getAnnotationByName("Nested").isEmpty()) {
+            inner.addAnnotation(new MarkerAnnotationExpr("Nested"));
+        }
+        String unique = name;
+        for (int i = 2; hasMemberType(base, unique); i++) {
+            unique = name + i;
+        }
+        String innerName = unique;
+        inner.setName(innerName);
+        inner.getConstructors().forEach(c -> c.setName(innerName));
+        base.addMember(inner);
+        if (unit.getImports().stream().noneMatch(i -> i.getNameAsString().equals(NESTED_IMPORT)
+                || i.isAsterisk() && i.getNameAsString().equals("org.junit.jupiter.api"))) {
+            unit.addImport(NESTED_IMPORT);
+        }
+    }
+
+    private static boolean hasMemberType(ClassOrInterfaceDeclaration base, String name) {
+        return base.getMembers().stream()
+                .anyMatch(m -> m instanceof TypeDeclaration<?> t && t.getNameAsString().equals(name));
+    }
+
+    private static Optional<BodyDeclaration<?>> counterpart(ClassOrInterfaceDeclaration base, BodyDeclaration<?> member) {
+        for (BodyDeclaration<?> candidate : base.getMembers()) {
+            if (member instanceof FieldDeclaration field && candidate instanceof FieldDeclaration other) {
+                Set<String> names = new HashSet<>();
+                field.getVariables().forEach(v -> names.add(v.getNameAsString()));
+                if (other.getVariables().stream().map(VariableDeclarator::getNameAsString).anyMatch(names::contains)) {
+                    return Optional.of(candidate);
+                }
+            } else if (member instanceof CallableDeclaration<?> callable && candidate instanceof CallableDeclaration<?> other
+                    && member.getClass() == candidate.getClass()
+                    && callable.getSignature().equals(other.getSignature())) {
+                return Optional.of(candidate);
+            } else if (member instanceof TypeDeclaration<?> type && candidate instanceof TypeDeclaration<?> other
+                    && type.getNameAsString().equals(other.getNameAsString())) {
+                return Optional.of(candidate);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static boolean sameMember(BodyDeclaration<?> a, BodyDeclaration<?> b) {
+        return a.clone().removeComment().toString().equals(b.clone().removeComment().toString());
+    }
+
+    private static boolean isTestMethod(BodyDeclaration<?> member) {
+        return member instanceof MethodDeclaration method
+                && method.getAnnotations().stream().anyMatch(a -> TEST_ANNOTATIONS.contains(a.getNameAsString()));
+    }
+
+    private static boolean isLifecycleMethod(BodyDeclaration<?> member) {
+        return member instanceof MethodDeclaration method && method.getAnnotations().stream()
+                .anyMatch(a -> a.getNameAsString().startsWith("Before") || a.getNameAsString().startsWith("After"));
+    }
+
+    /**
+     * 嵌套类名：方法名首字母大写 + Tests（如 add → AddTests）
+     */
+    static String nestedName(String methodName) {
+        String name = sanitize(methodName);
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1) + "Tests";
+    }
+
+    /**
+     * 方法名转换为合法的 Java 标识符片段（构造器 &lt;init&gt; → init）
+     */
+    public static String sanitize(String methodName) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : methodName.toCharArray()) {
+            if (Character.isJavaIdentifierPart(c)) {
+                sb.append(c);
+            }
+        }
+        return sb.isEmpty() ? "method" : sb.toString();
+    }
+}
@@ -0,0 +1,129 @@
+package com.codelogickeep.agent.ut.framework.pipeline;
+
+import com.codelogickeep.agent.ut.tools.TestClasspath;
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 验证结果记忆 - 输入未变化时跳过整条验证管道
+ *
+ * 对每次验证记录三个输入指纹：规范化后的测试源码（去掉注释、统一空白）、
+ * 规范化后的被测类源码、测试 classpath（reactor 中所有 pom.xml 的哈希）。
+ * LLM 的"修复"没有实质改动（文件完全相同或只改了空白/注释）时直接返回上次的
+ * {@link VerificationResult}，避免无意义的 Maven 运行。
+ *
+ * 每个步骤只依赖部分输入：语法/LSP 检查只看测试源码，编译、测试和覆盖率还依赖
+ * 被测类源码和 classpath。因此语法检查失败的结果在被测类变化后仍然可以复用。
+ */
+public class VerificationMemo {
+    private static final Logger log = LoggerFactory.getLogger(VerificationMemo.class);
+
+    private final JavaParser parser = new JavaParser(new ParserConfiguration().setAttributeComments(false));
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 一次验证的输入指纹
+     */
+    public record Fingerprint(String testSource, String targetSource, String classpath) {
+    }
+
+    private record Entry(Fingerprint fingerprint, VerificationResult result) {
+    }
+
+    /**
+     * 计算当前输入的指纹
+     *
+     * @param testFilePath    测试文件路径（绝对路径或相对于 modulePath）
+     * @param targetClassName 被测类全限定名，在 modulePath/src/main/java 下查找源码
+     */
+    public Fingerprint fingerprint(String testFilePath, String targetClassName, String modulePath) {
+        Path root = Path.of(modulePath != null ? modulePath : ".");
+        Path testFile = testFilePath != null ? root.resolve(testFilePath) : null;
+        Path targetFile = null;
+        if (targetClassName != null) {
+            String outer = targetClassName.contains("$")
+                    ? targetClassName.substring(0, targetClassName.indexOf('$')) : targetClassName;
+            targetFile = root.resolve("src/main/java").resolve(outer.replace('.', '/') + ".java");
+        }
+        return new Fingerprint(hashSource(testFile), hashSource(targetFile), TestClasspath.fingerprint(root));
+    }
+
+    /**
+     * 查找可复用的结果；输入有变化或没有记录时返回 null
+     */
+    public VerificationResult lookup(String key, Fingerprint current) {
+        Entry entry = entries.get(key);
+        if (entry == null || current.testSource() == null) {
+            return null;
+        }
+        Fingerprint previous = entry.fingerprint();
+        if (!previous.testSource().equals(current.testSource())) {
+            return null;
+        }
+        VerificationResult result = entry.result();
+        boolean testSourceOnly = !result.isSuccess() && (result.getFailedStep() == VerificationStep.SYNTAX_CHECK
+                || result.getFailedStep() == VerificationStep.LSP_CHECK);
+        if (!testSourceOnly && (!Objects.equals(previous.targetSource(), current.targetSource())
+                || !Objects.equals(previous.classpath(), current.classpath()))) {
+            return null;
+        }
+        log.info("Verification inputs unchanged for {}, reusing previous result", key);
+        return result;
+    }
+
+    /**
+     * 记录本次验证结果；无法读取测试源码时不记录
+     */
+    public void remember(String key, Fingerprint fingerprint, VerificationResult result) {
+        if (fingerprint.testSource() != null) {
+            entries.put(key, new Entry(fingerprint, result));
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * 规范化源码后的哈希：能解析时用去掉注释的 AST 重新打印，否则使用原始内容
+     */
+    private String hashSource(Path file) {
+        if (file == null || !Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            String source = Files.readString(file, StandardCharsets.UTF_8);
+            ParseResult<CompilationUnit> parsed = parser.parse(source);
+            String normalized = parsed.isSuccessful() && parsed.getResult().isPresent()
+                    ? parsed.getResult().get().toString() : source;
+            return sha256(normalized);
+        } catch (IOException e) {
+            log.debug("Failed to read {} for fingerprint: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
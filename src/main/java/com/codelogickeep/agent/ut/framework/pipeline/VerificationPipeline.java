@@ -2,9 +2,12 @@ package com.codelogickeep.agent.ut.framework.pipeline;
 
 import com.codelogickeep.agent.ut.config.AppConfig;
 import com.codelogickeep.agent.ut.framework.tool.ToolRegistry;
+import com.codelogickeep.agent.ut.tools.BuildSlots;
+import com.codelogickeep.agent.ut.tools.CompileGuard;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.regex.Matcher;
@@ -15,6 +18,13 @@ import java.util.regex.Pattern;
  * 
  * 流程: checkSyntax → checkSyntaxWithLsp → compileProject → executeTest → getCoverage
  * 
+ * 编译步骤优先使用进程内增量编译（{@link IncrementalTestCompiler}），只编译当前测试文件；
+ * 不可用时回退到 compileProject（mvn test-compile）
+ * 
+ * 测试步骤优先在预热的子 JVM 中执行（{@link ForkedTestRunner}），不可用时回退到 executeTest（mvn test）
+ * 
+ * 测试源码、被测类源码和 classpath 的指纹都未变化时直接复用上次结果（{@link VerificationMemo}）
+ * 
  * 每个步骤失败时返回错误信息，由调用方决定是否调用 LLM 修复
  */
 public class VerificationPipeline {
@@ -23,11 +33,71 @@ public class VerificationPipeline {
     private final ToolRegistry toolRegistry;
     private final AppConfig config;
     private final boolean lspEnabled;
+    private final IncrementalTestCompiler incrementalCompiler;
+    private final ForkedTestRunner testRunner;
+    private final VerificationMemo memo;
+    // 并发批处理时关闭：Maven 构建会编译和执行其他任务尚未完成的测试文件
+    private boolean mavenFallback = true;
     
     public VerificationPipeline(ToolRegistry toolRegistry, AppConfig config) {
+        this(toolRegistry, config,
+                config.getWorkflow() != null && config.getWorkflow().isInProcessCompile()
+                        ? new IncrementalTestCompiler() : null,
+                config.getWorkflow() != null && config.getWorkflow().isForkedTestRunner()
+                        ? ForkedTestRunner.shared() : null,
+                config.getWorkflow() != null && config.getWorkflow().isVerificationMemo()
+                        ? new VerificationMemo() : null);
+    }
+    
+    /**
+     * @param incrementalCompiler 进程内编译器，为 null 时始终使用 Maven 编译
+     */
+    VerificationPipeline(ToolRegistry toolRegistry, AppConfig config, IncrementalTestCompiler incrementalCompiler) {
+        this(toolRegistry, config, incrementalCompiler, null);
+    }
+    
+    /**
+     * @param testRunner 子 JVM 测试执行器，为 null 时始终使用 Maven 执行测试
+     */
+    VerificationPipeline(ToolRegistry toolRegistry, AppConfig config, IncrementalTestCompiler incrementalCompiler,
+            ForkedTestRunner testRunner) {
+        this(toolRegistry, config, incrementalCompiler, testRunner, null);
+    }
+    
+    /**
+     * @param memo 验证结果记忆，为 null 时每次都完整执行管道
+     */
+    VerificationPipeline(ToolRegistry toolRegistry, AppConfig config, IncrementalTestCompiler incrementalCompiler,
+            ForkedTestRunner testRunner, VerificationMemo memo) {
         this.toolRegistry = toolRegistry;
         this.config = config;
         this.lspEnabled = config.getWorkflow() != null && config.getWorkflow().isUseLsp();
+        this.incrementalCompiler = incrementalCompiler;
+        this.testRunner = testRunner;
+        this.memo = memo;
+    }
+    
+    /**
+     * 进程内编译或子 JVM 测试不可用时是否回退到 Maven。
+     * 关闭后直接返回失败（附原因），只编译和执行当前测试文件。
+     */
+    public void setMavenFallback(boolean mavenFallback) {
+        this.mavenFallback = mavenFallback;
+    }
+    
+    /**
+     * 后台预热编译器（测试 classpath）和测试 JVM，供 LLM 仍在输出时提前调用
+     */
+    public void prewarm(String modulePath) {
+        if (modulePath == null) {
+            return;
+        }
+        if (testRunner != null) {
+            testRunner.prewarm(Path.of(modulePath));
+        }
+        if (incrementalCompiler != null) {
+            incrementalCompiler.prewarm(Path.of(modulePath));
+        }
     }
     
     /**
@@ -47,11 +117,53 @@ public class VerificationPipeline {
             String methodName,
             String modulePath) {
         
+        if (memo == null) {
+            return runPipeline(testFilePath, testClassName, targetClassName, methodName, modulePath);
+        }
+        String key = testClassName + "#" + methodName;
+        VerificationMemo.Fingerprint fingerprint = memo.fingerprint(testFilePath, targetClassName, modulePath);
+        VerificationResult cached = memo.lookup(key, fingerprint);
+        if (cached != null) {
+            System.out.println("\n♻️ 测试代码、被测类和 classpath 均未变化，复用上次验证结果"
+                    + (cached.isSuccess() ? "" : "（" + cached.getFailedStep().getDisplayName() + "失败）"));
+            return cached;
+        }
+        VerificationResult result = runPipeline(testFilePath, testClassName, targetClassName, methodName, modulePath);
+        memo.remember(key, fingerprint, result);
+        return result;
+    }
+    
+    /**
+     * 编译和测试写入共享的 target/ 目录，整条管道占用一个构建槽位
+     */
+    private VerificationResult runPipeline(
+            String testFilePath,
+            String testClassName,
+            String targetClassName,
+            String methodName,
+            String modulePath) {
+        try (BuildSlots.Slot slot = BuildSlots.acquire()) {
+            return runSteps(testFilePath, testClassName, targetClassName, methodName, modulePath);
+        }
+    }
+    
+    private VerificationResult runSteps(
+            String testFilePath,
+            String testClassName,
+            String targetClassName,
+            String methodName,
+            String modulePath) {
+        
         log.info("🔄 Starting verification pipeline for method: {}", methodName);
         System.out.println("\n" + "─".repeat(50));
         System.out.println("🔄 自动验证管道开始");
         System.out.println("─".repeat(50));
         
+        if (testRunner != null && modulePath != null) {
+            // 语法检查和编译期间在后台启动测试 JVM
+            testRunner.prewarm(Path.of(modulePath));
+        }
+        
         // Step 1: 语法检查
         System.out.println("\n📝 Step 1/5: 语法检查...");
         VerificationResult syntaxResult = runSyntaxCheck(testFilePath);
@@ -85,7 +197,7 @@ public class VerificationPipeline {
         
         // Step 3: 编译
         System.out.println("\n🔨 Step 3/5: 编译项目...");
-        VerificationResult compileResult = runCompile();
+        VerificationResult compileResult = runCompile(testFilePath, modulePath);
         if (!compileResult.isSuccess()) {
             log.warn("❌ Compilation failed: {}", compileResult.getErrorMessage());
             System.out.println("❌ 编译失败");
@@ -95,7 +207,7 @@ public class VerificationPipeline {
         
         // Step 4: 执行测试
         System.out.println("\n🧪 Step 4/5: 执行测试...");
-        VerificationResult testResult = runTest(testClassName);
+        VerificationResult testResult = runTest(testClassName, modulePath);
         if (!testResult.isSuccess()) {
             log.warn("❌ Test execution failed: {}", testResult.getErrorMessage());
             System.out.println("❌ 测试失败");
@@ -207,9 +319,47 @@ public class VerificationPipeline {
     }
     
     /**
-     * 执行编译
+     * 执行编译：优先进程内编译测试文件，不可用时回退到 Maven
+     */
+    private VerificationResult runCompile(String testFilePath, String modulePath) {
+        if (!mavenFallback && testFilePath != null) {
+            CompileGuard.CompileCheckResult guard = CompileGuard.getInstance().canCompile(testFilePath);
+            if (!guard.canCompile()) {
+                return VerificationResult.failure(VerificationStep.COMPILE, "编译被阻止（语法检查未通过）",
+                        guard.blockReason());
+            }
+        }
+        if (incrementalCompiler != null && testFilePath != null && modulePath != null
+                && CompileGuard.getInstance().canCompile(testFilePath).canCompile()) {
+            IncrementalTestCompiler.CompileOutcome outcome =
+                    incrementalCompiler.compile(Path.of(modulePath), Path.of(testFilePath));
+            if (outcome.available()) {
+                if (outcome.success()) {
+                    VerificationResult result = VerificationResult.success(0, false);
+                    result.setDetails("Compilation successful (in-process)");
+                    return result;
+                }
+                VerificationResult result = VerificationResult.failure(
+                        VerificationStep.COMPILE, "编译失败", outcome.format());
+                result.setCompileDiagnostics(outcome.diagnostics());
+                return result;
+            }
+            if (!mavenFallback) {
+                return VerificationResult.failure(VerificationStep.COMPILE, "进程内编译不可用", outcome.reason());
+            }
+            log.info("In-process compile unavailable ({}), falling back to Maven", outcome.reason());
+        }
+        if (!mavenFallback) {
+            return VerificationResult.failure(VerificationStep.COMPILE, "进程内编译未启用",
+                    "Maven fallback is disabled while other tasks share the project build");
+        }
+        return runMavenCompile();
+    }
+    
+    /**
+     * 执行 Maven 编译（compileProject）
      */
-    private VerificationResult runCompile() {
+    private VerificationResult runMavenCompile() {
         try {
             Map<String, Object> args = new HashMap<>();
             
@@ -250,9 +400,38 @@ public class VerificationPipeline {
     }
     
     /**
-     * 执行测试
+     * 执行测试：优先在预热的子 JVM 中运行，不可用时回退到 Maven
      */
-    private VerificationResult runTest(String testClassName) {
+    private VerificationResult runTest(String testClassName, String modulePath) {
+        if (testRunner != null && modulePath != null) {
+            ForkedTestRunner.TestRunOutcome outcome = testRunner.run(Path.of(modulePath), testClassName);
+            log.info("🧪 forked test run 输出: {}", truncateForLog(outcome.available() ? outcome.format() : outcome.reason()));
+            if (outcome.available()) {
+                if (outcome.success()) {
+                    VerificationResult result = VerificationResult.success(0, false);
+                    result.setDetails(outcome.format());
+                    return result;
+                }
+                long failed = outcome.testsFailed() + outcome.testsAborted();
+                return VerificationResult.failure(VerificationStep.TEST,
+                        failed > 0 ? String.format("%d 个测试失败", failed) : "测试失败", outcome.format());
+            }
+            if (!mavenFallback) {
+                return VerificationResult.failure(VerificationStep.TEST, "子 JVM 测试不可用", outcome.reason());
+            }
+            log.info("Forked test run unavailable ({}), falling back to Maven", outcome.reason());
+        }
+        if (!mavenFallback) {
+            return VerificationResult.failure(VerificationStep.TEST, "子 JVM 测试未启用",
+                    "Maven fallback is disabled while other tasks share the project build");
+        }
+        return runMavenTest(testClassName);
+    }
+    
+    /**
+     * 执行 Maven 测试（executeTest）
+     */
+    private VerificationResult runMavenTest(String testClassName) {
         try {
             Map<String, Object> args = new HashMap<>();
             args.put("testClassName", testClassName);
@@ -372,14 +551,28 @@ public class VerificationPipeline {
      * 单独执行编译（用于修复后重试）
      */
     public VerificationResult compileOnly() {
-        return runCompile();
+        return runMavenCompile();
+    }
+    
+    /**
+     * 单独编译指定测试文件（优先进程内编译）
+     */
+    public VerificationResult compileOnly(String testFilePath, String modulePath) {
+        return runCompile(testFilePath, modulePath);
     }
     
     /**
      * 单独执行测试（用于修复后重试）
      */
     public VerificationResult testOnly(String testClassName) {
-        return runTest(testClassName);
+        return runMavenTest(testClassName);
+    }
+    
+    /**
+     * 单独执行测试（优先在子 JVM 中运行）
+     */
+    public VerificationResult testOnly(String testClassName, String modulePath) {
+        return runTest(testClassName, modulePath);
     }
     
     /**
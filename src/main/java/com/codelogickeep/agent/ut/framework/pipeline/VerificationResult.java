@@ -1,5 +1,7 @@
 package com.codelogickeep.agent.ut.framework.pipeline;
 
+import java.util.List;
+
 /**
  * 验证管道执行结果
  */
@@ -12,6 +14,7 @@ public class VerificationResult {
     private double coverage;
     private boolean coverageThresholdMet;
     private int retryCount;
+    private List<IncrementalTestCompiler.CompileDiagnostic> compileDiagnostics;  // 进程内编译的结构化诊断
     
     public static VerificationResult success(double coverage, boolean thresholdMet) {
         VerificationResult result = new VerificationResult();
@@ -91,6 +94,14 @@ public class VerificationResult {
         this.coverageThresholdMet = coverageThresholdMet;
     }
     
+    public List<IncrementalTestCompiler.CompileDiagnostic> getCompileDiagnostics() {
+        return compileDiagnostics;
+    }
+    
+    public void setCompileDiagnostics(List<IncrementalTestCompiler.CompileDiagnostic> compileDiagnostics) {
+        this.compileDiagnostics = compileDiagnostics;
+    }
+    
     public int getRetryCount() {
         return retryCount;
     }
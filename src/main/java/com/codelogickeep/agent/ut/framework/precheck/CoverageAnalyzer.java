@@ -4,6 +4,8 @@ import com.codelogickeep.agent.ut.config.AppConfig;
 import com.codelogickeep.agent.ut.framework.tool.ToolRegistry;
 import com.codelogickeep.agent.ut.framework.util.ClassNameExtractor;
 import com.codelogickeep.agent.ut.model.MethodCoverageInfo;
+import com.codelogickeep.agent.ut.tools.CoverageIndex;
+import com.codelogickeep.agent.ut.tools.CoverageIndex.CounterType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -60,7 +62,11 @@ public class CoverageAnalyzer {
             if (!hasError) {
                 System.out.println("✅ Coverage analysis complete:");
                 printCoverageSummary(coverageInfo);
-                methodCoverages = parseMethodCoverage(coverageInfo, threshold);
+                // 优先直接查询共享的 CoverageIndex，报告不可用时再解析工具输出文本
+                methodCoverages = readMethodCoverageFromIndex(projectRoot, className, threshold);
+                if (methodCoverages == null) {
+                    methodCoverages = parseMethodCoverage(coverageInfo, threshold);
+                }
 
                 if (uncoveredMethods != null && !uncoveredMethods.toLowerCase().startsWith("error")) {
                     coverageInfo = coverageInfo + "\n\n" + uncoveredMethods;
@@ -87,6 +93,42 @@ public class CoverageAnalyzer {
         }
     }
 
+    /**
+     * 从 CoverageIndex 读取方法覆盖率；无报告或类不在报告中时返回 null
+     */
+    private List<MethodCoverageInfo> readMethodCoverageFromIndex(String projectRoot, String className, int threshold) {
+        try {
+            CoverageIndex index = CoverageIndex.forModule(projectRoot);
+            int classId = index != null ? index.classId(className) : -1;
+            if (classId < 0) {
+                return null;
+            }
+
+            List<MethodCoverageInfo> methods = new ArrayList<>();
+            for (int m = index.firstMethod(classId); m < index.methodEnd(classId); m++) {
+                String name = index.methodName(m);
+                // 跳过构造方法和静态初始化块
+                if ("<init>".equals(name) || "<clinit>".equals(name)) {
+                    continue;
+                }
+                double lineCoverage = index.methodCoverage(m, CounterType.LINE);
+                double branchCoverage = index.methodCoverage(m, CounterType.BRANCH);
+
+                MethodCoverageInfo info = new MethodCoverageInfo(
+                        CoverageIndex.displayName(name, index.methodDesc(m)),
+                        determinePriority(lineCoverage, branchCoverage, threshold),
+                        lineCoverage, branchCoverage);
+                info.setNeedsTest(lineCoverage < threshold);
+                methods.add(info);
+            }
+            log.info("Read {} methods from coverage index", methods.size());
+            return methods;
+        } catch (Exception e) {
+            log.debug("Coverage index not available: {}", e.getMessage());
+            return null;
+        }
+    }
+
     private List<MethodCoverageInfo> parseMethodCoverage(String coverageInfo, int threshold) {
         List<MethodCoverageInfo> methods = new ArrayList<>();
         if (coverageInfo == null || coverageInfo.isEmpty()) {
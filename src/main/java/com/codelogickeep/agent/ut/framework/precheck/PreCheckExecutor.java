@@ -21,6 +21,8 @@ public class PreCheckExecutor {
     private final AppConfig config;
     private final CoverageAnalyzer coverageAnalyzer;
     private final CoverageFeedbackEngine feedbackEngine;
+    // 工程已由调用方统一执行过 clean test（并发批处理），预检查不再执行编译和测试
+    private boolean projectPrepared;
 
     public PreCheckExecutor(ToolRegistry toolRegistry, AppConfig config, CoverageFeedbackEngine feedbackEngine) {
         this.toolRegistry = toolRegistry;
@@ -29,6 +31,15 @@ public class PreCheckExecutor {
         this.coverageAnalyzer = new CoverageAnalyzer(toolRegistry, config);
     }
 
+    /**
+     * 并发批处理时由调用方在调度前对整个工程执行一次 clean test。
+     * 各任务的预检查若再执行 clean 会删除其他任务已编译的测试类和 jacoco.exec，
+     * test-compile 也会编译其他任务尚未写完的测试文件，因此只分析已有的覆盖率数据。
+     */
+    public void setProjectPrepared(boolean projectPrepared) {
+        this.projectPrepared = projectPrepared;
+    }
+
     /**
      * 执行预检查
      */
@@ -49,7 +60,12 @@ public class PreCheckExecutor {
         boolean hasExistingTests = Files.exists(testFileAbsPath);
         boolean skipTestExecution = false;
 
-        if (hasExistingTests) {
+        if (projectPrepared) {
+            System.out.println(hasExistingTests
+                    ? "✅ Found existing test file: " + testFilePath
+                    : "ℹ️ No existing test file found. Will create new tests.");
+            skipTestExecution = true;
+        } else if (hasExistingTests) {
             System.out.println("✅ Found existing test file: " + testFilePath);
         } else {
             System.out.println("ℹ️ No existing test file found. Will compile and create new tests.");
@@ -63,6 +79,8 @@ public class PreCheckExecutor {
         if (!skipTestExecution) {
             System.out.println("\n🧪 Step 2: Running 'clean test' to generate fresh coverage data...");
             runTests();
+        } else if (projectPrepared) {
+            System.out.println("\n🧪 Step 2: Skipping test execution (project already built for this batch)");
         } else {
             System.out.println("\n🧪 Step 2: Skipping test execution (no existing tests)");
         }
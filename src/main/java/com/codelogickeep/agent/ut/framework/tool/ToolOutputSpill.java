@@ -0,0 +1,139 @@
+package com.codelogickeep.agent.ut.framework.tool;
+
+import com.codelogickeep.agent.ut.framework.annotation.P;
+import com.codelogickeep.agent.ut.framework.annotation.Tool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 工具输出落盘 - 大的工具结果写入内容寻址的 spill 目录，上下文中只保留开头、结尾和句柄
+ *
+ * 文件名为内容 SHA-256 的前 16 位，相同输出（例如重复的构建日志）只写一次。
+ * LLM 通过内置工具 readToolOutput 按偏移分页读取完整内容。
+ * 只用于写入上下文的工具结果，PreCheckExecutor、VerificationPipeline 等直接调用工具的代码仍拿到完整输出。
+ */
+public class ToolOutputSpill {
+    private static final Logger log = LoggerFactory.getLogger(ToolOutputSpill.class);
+
+    static final String SPILL_DIR = ".utagent/spill";
+    static final String READ_TOOL = "readToolOutput";
+
+    /** 摘要中保留的开头和结尾字符数（构建日志的错误通常在结尾，结尾多留一些） */
+    static final int HEAD_CHARS = 2000;
+    static final int TAIL_CHARS = 3000;
+
+    /** 单次分页读取的上限 */
+    static final int MAX_PAGE_CHARS = 20000;
+
+    private static final Pattern HANDLE = Pattern.compile("(?:spill:)?([0-9a-f]{16})");
+
+    private final Path dir;
+    private final int thresholdChars;
+
+    /**
+     * @param dir            spill 目录
+     * @param thresholdChars 超过该字符数的输出落盘
+     */
+    public ToolOutputSpill(Path dir, int thresholdChars) {
+        this.dir = dir;
+        this.thresholdChars = Math.max(HEAD_CHARS + TAIL_CHARS, thresholdChars);
+    }
+
+    /**
+     * 在项目的 .utagent/spill 下创建
+     */
+    public static ToolOutputSpill forProject(Path projectRoot, int thresholdChars) {
+        return new ToolOutputSpill(projectRoot.resolve(SPILL_DIR), thresholdChars);
+    }
+
+    public Path getDir() {
+        return dir;
+    }
+
+    /**
+     * 输出超过阈值时落盘并返回摘要，否则原样返回；写盘失败时也原样返回
+     */
+    public String spillIfLarge(String toolName, String output) {
+        if (output == null || output.length() <= thresholdChars || READ_TOOL.equals(toolName)) {
+            return output;
+        }
+        String hash = hash(output);
+        try {
+            Path file = dir.resolve(hash + ".txt");
+            if (!Files.exists(file)) {
+                Files.createDirectories(dir);
+                Path tmp = Files.createTempFile(dir, hash, ".tmp");
+                Files.writeString(tmp, output, StandardCharsets.UTF_8);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to spill {} output ({} chars): {}", toolName, output.length(), e.getMessage());
+            return output;
+        }
+        log.debug("Spilled {} output ({} chars) to spill:{}", toolName, output.length(), hash);
+        return summarize(toolName, output, "spill:" + hash);
+    }
+
+    @Tool("Read part of a large tool output that was saved to disk. Large results are shown in the conversation "
+            + "as a head/tail summary with a handle like spill:0123456789abcdef; use this to page through the "
+            + "omitted middle part.")
+    public String readToolOutput(
+            @P("Handle from the summarized tool result, e.g. spill:0123456789abcdef") String handle,
+            @P(value = "Character offset to start reading from (0-based, default 0)", required = false) int offset,
+            @P(value = "Number of characters to read (default and maximum 20000)", required = false) int length) {
+        Matcher matcher = HANDLE.matcher(handle != null ? handle.trim() : "");
+        if (!matcher.matches()) {
+            return "Error: Invalid handle: " + handle;
+        }
+        Path file = dir.resolve(matcher.group(1) + ".txt");
+        String content;
+        try {
+            content = Files.readString(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return "Error: Unknown or expired handle: " + handle;
+        }
+        int start = Math.max(0, Math.min(offset, content.length()));
+        int pageChars = length > 0 ? Math.min(length, MAX_PAGE_CHARS) : MAX_PAGE_CHARS;
+        int end = Math.min(content.length(), start + pageChars);
+        StringBuilder sb = new StringBuilder();
+        sb.append("[chars ").append(start).append('-').append(end).append(" of ").append(content.length())
+                .append("]\n");
+        sb.append(content, start, end);
+        if (end < content.length()) {
+            sb.append("\n[").append(content.length() - end).append(" more chars; continue with offset=")
+                    .append(end).append(']');
+        }
+        return sb.toString();
+    }
+
+    static String summarize(String toolName, String output, String handle) {
+        int lines = (int) output.chars().filter(c -> c == '\n').count() + 1;
+        int omittedEnd = output.length() - TAIL_CHARS;
+        return "[Large output from " + toolName + ": " + output.length() + " chars, " + lines
+                + " lines. Full text saved as " + handle + ".]\n"
+                + output.substring(0, HEAD_CHARS)
+                + "\n... [chars " + HEAD_CHARS + "-" + omittedEnd + " omitted; use readToolOutput(\"" + handle
+                + "\", offset, length) to read them] ...\n"
+                + output.substring(omittedEnd);
+    }
+
+    private static String hash(String output) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(output.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
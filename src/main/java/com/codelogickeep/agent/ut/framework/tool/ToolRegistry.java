@@ -24,6 +24,9 @@ public class ToolRegistry {
     
     private final Map<String, ToolExecutor> tools = new LinkedHashMap<>();
     private final List<ToolDefinition> definitions = new ArrayList<>();
+    private volatile List<ToolDefinition> definitionsSnapshot;
+    // 内置工具（例如 readToolOutput），切换阶段 clear() 后自动重新注册
+    private final Map<Class<?>, Object> builtIns = new LinkedHashMap<>();
     
     /**
      * 注册工具实例
@@ -53,6 +56,7 @@ public class ToolRegistry {
             // 注册
             tools.put(toolName, executor);
             definitions.add(definition);
+            definitionsSnapshot = null;
             
             log.debug("Registered tool: {} - {}", toolName, toolDescription);
         }
@@ -72,6 +76,26 @@ public class ToolRegistry {
         return count;
     }
     
+    /**
+     * 注册内置工具：clear() 后仍保留，同一类型只保留最后注册的实例
+     */
+    public void registerBuiltIn(Object toolInstance) {
+        Object previous = builtIns.put(toolInstance.getClass(), toolInstance);
+        if (previous != null) {
+            unregister(previous);
+        }
+        register(toolInstance);
+    }
+    
+    private void unregister(Object toolInstance) {
+        for (Method method : toolInstance.getClass().getDeclaredMethods()) {
+            if (getToolDescription(method) != null && tools.remove(method.getName()) != null) {
+                definitions.removeIf(definition -> definition.name().equals(method.getName()));
+                definitionsSnapshot = null;
+            }
+        }
+    }
+    
     /**
      * 注册多个工具实例
      */
@@ -123,7 +147,13 @@ public class ToolRegistry {
      * 获取所有工具定义
      */
     public List<ToolDefinition> getDefinitions() {
-        return Collections.unmodifiableList(definitions);
+        // 工具集不变时返回同一实例，JsonUtil 按实例缓存序列化后的工具定义
+        List<ToolDefinition> snapshot = definitionsSnapshot;
+        if (snapshot == null) {
+            snapshot = List.copyOf(definitions);
+            definitionsSnapshot = snapshot;
+        }
+        return snapshot;
     }
     
     /**
@@ -141,11 +171,13 @@ public class ToolRegistry {
     }
 
     /**
-     * 清空所有工具
+     * 清空所有工具（内置工具除外）
      */
     public void clear() {
         tools.clear();
         definitions.clear();
+        definitionsSnapshot = null;
+        builtIns.values().forEach(this::register);
         log.debug("Cleared all tools");
     }
 
@@ -1,14 +1,21 @@
 package com.codelogickeep.agent.ut.framework.util;
 
+import com.codelogickeep.agent.ut.framework.context.EncodedHistory;
 import com.codelogickeep.agent.ut.framework.model.*;
 import com.codelogickeep.agent.ut.framework.model.ToolDefinition.ParameterSchema;
 import com.codelogickeep.agent.ut.framework.model.ToolDefinition.PropertySchema;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 /**
@@ -16,7 +23,20 @@ import java.util.*;
  */
 public class JsonUtil {
 
-    private static final ObjectMapper mapper = new ObjectMapper();
+    // Map 按键排序：工具参数（Map.copyOf，迭代顺序每个 JVM 不同）序列化结果稳定，相同请求得到相同的缓存键
+    private static final ObjectMapper mapper = new ObjectMapper()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    // 工具定义片段缓存（按列表实例，阶段数很少，保留最近 16 个）
+    private static final Map<ToolsKey, String> toolsFragments = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ToolsKey, String> eldest) {
+            return size() > 16;
+        }
+    };
+
+    // 上一次请求体大小，用于预分配缓冲区
+    private static volatile int lastRequestSize = 4096;
 
     /**
      * 将消息列表转换为 OpenAI 格式的 JSON 数组
@@ -251,28 +271,174 @@ public class JsonUtil {
     public static String buildChatRequest(String model, List<Message> messages,
             List<ToolDefinition> tools,
             Double temperature, boolean stream) {
-        ObjectNode request = mapper.createObjectNode();
-        request.put("model", model);
-        request.set("messages", messagesToJson(messages));
+        return new String(buildChatRequestBytes(model, messages, tools, temperature, stream), StandardCharsets.UTF_8);
+    }
 
-        if (temperature != null) {
-            request.put("temperature", temperature);
-        }
+    /**
+     * 构建 OpenAI Chat Completion 请求体（UTF-8 字节）
+     *
+     * 用 JsonGenerator 直接写入字节缓冲，不构建整棵 JSON 树，也不经过中间 String；
+     * 工具定义按列表实例缓存为预序列化片段，同一阶段的工具集只序列化一次；
+     * 消息来自 ContextManager 时复用已编码的消息片段，每轮只编码新消息。
+     */
+    public static byte[] buildChatRequestBytes(String model, List<Message> messages,
+            List<ToolDefinition> tools,
+            Double temperature, boolean stream) {
+        return buildChatRequestBytes(model, messages, tools, temperature, stream, false);
+    }
 
-        if (tools != null && !tools.isEmpty()) {
-            request.set("tools", toolsToJson(tools));
-            request.put("tool_choice", "auto");
-        }
+    /**
+     * 构建 OpenAI Chat Completion 请求体（UTF-8 字节）
+     *
+     * @param streamUsage 流式请求附带 stream_options.include_usage，服务端在流末尾返回 Token 用量
+     */
+    public static byte[] buildChatRequestBytes(String model, List<Message> messages,
+            List<ToolDefinition> tools,
+            Double temperature, boolean stream, boolean streamUsage) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(4096, lastRequestSize));
+        try (JsonGenerator gen = mapper.getFactory().createGenerator(out)) {
+            gen.writeStartObject();
+            gen.writeStringField("model", model);
+            gen.writeArrayFieldStart("messages");
+            for (int i = 0; i < messages.size(); i++) {
+                gen.writeRawValue(EncodedHistory.fragment(messages, i, EncodedHistory.Format.OPENAI,
+                        JsonUtil::encodeMessage));
+            }
+            gen.writeEndArray();
+
+            if (temperature != null) {
+                gen.writeNumberField("temperature", temperature);
+            }
+
+            if (tools != null && !tools.isEmpty()) {
+                gen.writeFieldName("tools");
+                gen.writeRawValue(toolsFragment(tools));
+                gen.writeStringField("tool_choice", "auto");
+            }
 
-        if (stream) {
-            request.put("stream", true);
+            if (stream) {
+                gen.writeBooleanField("stream", true);
+                if (streamUsage) {
+                    gen.writeObjectFieldStart("stream_options");
+                    gen.writeBooleanField("include_usage", true);
+                    gen.writeEndObject();
+                }
+            }
+            gen.writeEndObject();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to build request JSON", e);
         }
+        // 下一次请求按本次大小预分配，对话变长时减少缓冲区扩容
+        lastRequestSize = out.size() + out.size() / 8;
+        return out.toByteArray();
+    }
 
+    /**
+     * 工具定义的预序列化 JSON 数组（按列表实例缓存，ToolRegistry 每个阶段返回同一实例）
+     */
+    static String toolsFragment(List<ToolDefinition> tools) {
+        ToolsKey key = new ToolsKey(tools);
+        synchronized (toolsFragments) {
+            String cached = toolsFragments.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        String fragment;
         try {
-            return mapper.writeValueAsString(request);
+            fragment = mapper.writeValueAsString(toolsToJson(tools));
         } catch (JsonProcessingException e) {
-            throw new RuntimeException("Failed to build request JSON", e);
+            throw new RuntimeException("Failed to serialize tools", e);
+        }
+        synchronized (toolsFragments) {
+            toolsFragments.put(key, fragment);
+        }
+        return fragment;
+    }
+
+    /**
+     * 按实例比较的工具列表键（List.equals 会逐个比较工具定义）
+     */
+    private record ToolsKey(List<ToolDefinition> tools) {
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ToolsKey key && key.tools == tools;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(tools);
+        }
+    }
+
+    /**
+     * 单个消息的 OpenAI 格式 JSON 片段
+     */
+    static String encodeMessage(Message message) {
+        StringWriter writer = new StringWriter(message.content() != null ? message.content().length() + 64 : 64);
+        try (JsonGenerator gen = mapper.getFactory().createGenerator(writer)) {
+            writeMessage(gen, message);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to serialize message", e);
         }
+        return writer.toString();
+    }
+
+    /**
+     * 流式写出单个消息，结构与 {@link #messageToJson(Message)} 一致
+     */
+    private static void writeMessage(JsonGenerator gen, Message message) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("role", message.role());
+
+        switch (message) {
+            case SystemMessage sys -> gen.writeStringField("content", sys.content());
+            case UserMessage user -> gen.writeStringField("content", user.content());
+            case AssistantMessage assistant -> {
+                gen.writeStringField("content", assistant.content() != null ? assistant.content() : "");
+
+                if (assistant.hasToolCalls()) {
+                    gen.writeArrayFieldStart("tool_calls");
+                    int index = 0;
+                    for (ToolCall tc : assistant.toolCalls()) {
+                        String toolCallId = tc.id();
+                        if (toolCallId == null || toolCallId.isEmpty()) {
+                            toolCallId = "call_" + System.currentTimeMillis() + "_" + index;
+                        }
+                        gen.writeStartObject();
+                        gen.writeStringField("id", toolCallId);
+                        gen.writeStringField("type", "function");
+                        gen.writeNumberField("index", index);
+                        gen.writeObjectFieldStart("function");
+                        gen.writeStringField("name", tc.name());
+                        String arguments;
+                        try {
+                            arguments = mapper.writeValueAsString(tc.arguments());
+                        } catch (JsonProcessingException e) {
+                            arguments = "{}";
+                        }
+                        gen.writeStringField("arguments", arguments);
+                        gen.writeEndObject();
+                        gen.writeEndObject();
+                        index++;
+                    }
+                    gen.writeEndArray();
+                }
+            }
+            case ToolMessage tool -> {
+                gen.writeStringField("tool_call_id", tool.toolCallId());
+                String toolContent = tool.content();
+                if (toolContent == null) {
+                    toolContent = "";
+                }
+                if (toolContent.length() > 50000) {
+                    toolContent = toolContent.substring(0, 50000) + "\n... (truncated)";
+                }
+                gen.writeStringField("content", toolContent);
+            }
+        }
+
+        gen.writeEndObject();
     }
 
     /**
@@ -1,7 +1,9 @@
 package com.codelogickeep.agent.ut.model;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.util.List;
 
@@ -10,6 +12,8 @@ import java.util.List;
  */
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class TestTask {
     /** Path to the source file */
     private String sourceFilePath;
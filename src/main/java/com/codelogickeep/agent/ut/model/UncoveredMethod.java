@@ -1,13 +1,17 @@
 package com.codelogickeep.agent.ut.model;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 /**
  * Represents an uncovered or partially covered method that needs tests.
  */
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class UncoveredMethod {
     /** Method name */
     private String methodName;
@@ -0,0 +1,153 @@
+package com.codelogickeep.agent.ut.tools;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded capture of Maven build output.
+ *
+ * Keeps only the last {@code tailLines} lines in a ring buffer plus a capped set of
+ * structured fragments ({@code [ERROR]} lines, compiler diagnostics, test summaries),
+ * so heap stays flat no matter how much a multi-module build prints.
+ * When the whole output fits into the ring buffer it is returned unchanged.
+ */
+public final class BuildOutputCapture {
+
+    /** Longer lines (e.g. huge stack trace lines or classpaths) are cut to this many chars. */
+    static final int MAX_LINE_LENGTH = 2000;
+    /** Per-category cap of extracted fragments. */
+    static final int MAX_FRAGMENTS = 100;
+
+    private static final Pattern DIAGNOSTIC = Pattern.compile("^\\[ERROR]\\s+\\S.*\\.java:\\[\\d+,\\d+].*");
+    private static final Pattern TEST_SUMMARY = Pattern.compile(".*Tests run:\\s*\\d+.*");
+
+    private final String[] ring;
+    private int next;
+    private long totalLines;
+
+    private final List<String> diagnostics = new ArrayList<>();
+    private final List<String> errors = new ArrayList<>();
+    private final List<String> testSummaries = new ArrayList<>();
+    private String buildStatus;
+
+    public BuildOutputCapture(int tailLines) {
+        this.ring = new String[Math.max(1, tailLines)];
+    }
+
+    /**
+     * Record one output line.
+     */
+    public synchronized void accept(String line) {
+        if (line.length() > MAX_LINE_LENGTH) {
+            line = line.substring(0, MAX_LINE_LENGTH) + "... (" + line.length() + " chars)";
+        }
+        ring[next] = line;
+        next = (next + 1) % ring.length;
+        totalLines++;
+        extract(line);
+    }
+
+    private void extract(String line) {
+        if (line.contains("BUILD SUCCESS") || line.contains("BUILD FAILURE")) {
+            buildStatus = line.trim();
+        } else if (DIAGNOSTIC.matcher(line).matches()) {
+            add(diagnostics, line);
+        } else if (TEST_SUMMARY.matcher(line).matches() || line.contains("<<< FAILURE!") || line.contains("<<< ERROR!")) {
+            add(testSummaries, line);
+        } else if (line.startsWith("[ERROR]") && !isNoise(line)) {
+            add(errors, line);
+        }
+    }
+
+    private static void add(List<String> target, String line) {
+        if (target.size() < MAX_FRAGMENTS) {
+            target.add(line);
+        }
+    }
+
+    /**
+     * Maven's generic help footer carries no information about the failure.
+     */
+    private static boolean isNoise(String line) {
+        String text = line.substring("[ERROR]".length()).trim();
+        return text.isEmpty() || text.startsWith("-> [Help") || text.startsWith("To see the full stack trace")
+                || text.startsWith("Re-run Maven") || text.startsWith("For more information about the errors")
+                || text.startsWith("[Help ") || text.startsWith("After correcting the problems");
+    }
+
+    public synchronized long totalLines() {
+        return totalLines;
+    }
+
+    /**
+     * Whether lines were dropped from the ring buffer.
+     */
+    public synchronized boolean truncated() {
+        return totalLines > ring.length;
+    }
+
+    public synchronized List<String> diagnostics() {
+        return Collections.unmodifiableList(new ArrayList<>(diagnostics));
+    }
+
+    public synchronized List<String> errors() {
+        return Collections.unmodifiableList(new ArrayList<>(errors));
+    }
+
+    public synchronized List<String> testSummaries() {
+        return Collections.unmodifiableList(new ArrayList<>(testSummaries));
+    }
+
+    /**
+     * Last lines still held by the ring buffer, oldest first.
+     */
+    public synchronized List<String> tail() {
+        int size = (int) Math.min(totalLines, ring.length);
+        List<String> lines = new ArrayList<>(size);
+        int start = truncated() ? next : 0;
+        for (int i = 0; i < size; i++) {
+            lines.add(ring[(start + i) % ring.length]);
+        }
+        return lines;
+    }
+
+    /**
+     * Output handed to callers: the complete output when nothing was dropped, otherwise the
+     * extracted fragments followed by the tail.
+     */
+    public synchronized String render() {
+        StringBuilder sb = new StringBuilder();
+        if (!truncated()) {
+            for (String line : tail()) {
+                sb.append(line).append('\n');
+            }
+            return sb.toString();
+        }
+        sb.append("[Output truncated: ").append(totalLines).append(" lines, showing extracted fragments and last ")
+                .append(ring.length).append(" lines]\n");
+        section(sb, "Compiler diagnostics", diagnostics);
+        section(sb, "Errors", errors);
+        section(sb, "Test results", testSummaries);
+        if (buildStatus != null) {
+            sb.append(buildStatus).append('\n');
+        }
+        sb.append("--- Last ").append(ring.length).append(" lines ---\n");
+        for (String line : tail()) {
+            sb.append(line).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static void section(StringBuilder sb, String title, List<String> lines) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        sb.append("--- ").append(title).append(" (").append(lines.size())
+                .append(lines.size() == MAX_FRAGMENTS ? "+" : "").append(") ---\n");
+        for (String line : lines) {
+            sb.append(line).append('\n');
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.codelogickeep.agent.ut.tools;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Process-wide build slots guarding the shared Maven/compile resources.
+ *
+ * Every Maven invocation and every in-process compile/test run of the verification
+ * pipeline holds a slot, so concurrent batch workers never run two builds in the same
+ * {@code target/} directory (e.g. a {@code clean} wiping classes another worker is
+ * testing). Slots are reentrant per thread: a pipeline step that already holds one can
+ * invoke Maven without deadlocking.
+ */
+public final class BuildSlots {
+    private static final Logger log = LoggerFactory.getLogger(BuildSlots.class);
+
+    private static volatile Semaphore slots = new Semaphore(1, true);
+    private static volatile int permits = 1;
+    private static final ThreadLocal<Slot> HELD = new ThreadLocal<>();
+
+    private BuildSlots() {
+    }
+
+    /**
+     * Set the number of builds allowed to run at the same time (at least 1).
+     * Call before workers start; slots held at that moment are released to the old semaphore.
+     */
+    public static synchronized void configure(int count) {
+        int value = Math.max(1, count);
+        if (value != permits) {
+            slots = new Semaphore(value, true);
+            permits = value;
+            log.info("Build slots: {}", value);
+        }
+    }
+
+    public static int permits() {
+        return permits;
+    }
+
+    /**
+     * Number of threads currently waiting for a slot.
+     */
+    public static int waiting() {
+        return slots.getQueueLength();
+    }
+
+    /**
+     * Slots currently taken.
+     */
+    public static int inUse() {
+        return permits - slots.availablePermits();
+    }
+
+    /**
+     * Block until a slot is free. Use with try-with-resources.
+     */
+    public static Slot acquire() {
+        Slot held = HELD.get();
+        if (held != null) {
+            held.depth++;
+            return held;
+        }
+        Semaphore semaphore = slots;
+        long start = System.currentTimeMillis();
+        semaphore.acquireUninterruptibly();
+        long waited = System.currentTimeMillis() - start;
+        if (waited > 1000) {
+            log.info("Waited {}ms for a build slot", waited);
+        }
+        Slot slot = new Slot(semaphore);
+        HELD.set(slot);
+        return slot;
+    }
+
+    /**
+     * A held build slot; closing the outermost acquisition releases it.
+     */
+    public static final class Slot implements AutoCloseable {
+        private final Semaphore semaphore;
+        private int depth = 1;
+
+        private Slot(Semaphore semaphore) {
+            this.semaphore = semaphore;
+        }
+
+        @Override
+        public void close() {
+            if (--depth == 0) {
+                HELD.remove();
+                semaphore.release();
+            }
+        }
+    }
+}
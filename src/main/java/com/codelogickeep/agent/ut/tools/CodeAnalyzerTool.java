@@ -1,6 +1,7 @@
 package com.codelogickeep.agent.ut.tools;
 
 import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.ConstructorDeclaration;
@@ -205,7 +206,10 @@ public class CodeAnalyzerTool implements AgentTool {
         return finalResult;
     }
 
-    private int calculateComplexity(MethodDeclaration method) {
+    /**
+     * Cyclomatic complexity of a method or constructor body (1 + decision points).
+     */
+    public static int calculateComplexity(Node method) {
         AtomicInteger complexity = new AtomicInteger(1); // Base complexity
 
         method.accept(new VoidVisitorAdapter<Void>() {
@@ -87,6 +87,18 @@ public class CompileGuard {
      * 返回 null 表示可以编译，否则返回阻止编译的原因
      */
     public CompileCheckResult canCompile() {
+        return check(null);
+    }
+    
+    /**
+     * 只检查单个文件是否可以编译（用于只编译该文件的进程内编译）
+     * 其他文件（例如并行生成中的其他临时测试类）的状态不影响结果
+     */
+    public CompileCheckResult canCompile(String filePath) {
+        return check(normalizePath(filePath));
+    }
+    
+    private CompileCheckResult check(String onlyPath) {
         if (!enabled) {
             return CompileCheckResult.ok();
         }
@@ -96,6 +108,9 @@ public class CompileGuard {
         int failedCount = 0;
         
         for (Map.Entry<String, FileStatus> entry : fileStatusMap.entrySet()) {
+            if (onlyPath != null && !onlyPath.equals(entry.getKey())) {
+                continue;
+            }
             FileStatus status = entry.getValue();
             if (!status.syntaxPassed) {
                 failedCount++;
@@ -0,0 +1,551 @@
+package com.codelogickeep.agent.ut.tools;
+
+import com.codelogickeep.agent.ut.tools.JacocoXmlReader.ClassCoverage;
+import com.codelogickeep.agent.ut.tools.JacocoXmlReader.Counter;
+import com.codelogickeep.agent.ut.tools.JacocoXmlReader.MethodCoverage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * In-memory coverage model shared by all coverage consumers.
+ *
+ * Classes and methods are interned to int ids; their counters are kept in flat
+ * primitive arrays ({@code missed}/{@code covered} per counter type), so looking up
+ * class or method coverage is a hash lookup plus an array read instead of a report scan.
+ *
+ * Instances are immutable. {@link #forReport(Path)} and {@link #forExec(Path, Path)} build
+ * one index per source file and reuse it until the file's mtime or size changes.
+ * {@link #forModule(String)} prefers the raw {@code jacoco.exec} when it is newer than
+ * the XML report, so {@code jacoco:report} does not have to run after every test.
+ */
+public final class CoverageIndex {
+    private static final Logger log = LoggerFactory.getLogger(CoverageIndex.class);
+
+    /**
+     * JaCoCo counter types, in report order.
+     */
+    public enum CounterType {
+        INSTRUCTION, BRANCH, LINE, COMPLEXITY, METHOD, CLASS;
+
+        static CounterType of(String name) {
+            for (CounterType type : values()) {
+                if (type.name().equals(name)) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Line-level hit bitmaps of one method, indexed by source line number.
+     * Only available when the index was built from execution data.
+     *
+     * @param lines             lines containing code
+     * @param coveredLines      lines with at least one executed instruction
+     * @param branchLines       lines containing branches
+     * @param missedBranchLines lines with at least one branch not taken
+     */
+    public record MethodLines(BitSet lines, BitSet coveredLines, BitSet branchLines, BitSet missedBranchLines) {
+        public BitSet missedLines() {
+            BitSet missed = (BitSet) lines.clone();
+            missed.andNot(coveredLines);
+            return missed;
+        }
+    }
+
+    private static final int TYPES = CounterType.values().length;
+    private static final int STRIDE = TYPES * 2;
+
+    private static final Map<Path, CachedIndex> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * @param inputStamp stamp of the other inputs the index was built from
+     *                   (the class files for exec-based indexes, 0 for reports)
+     */
+    private record CachedIndex(long lastModified, long size, long inputStamp, CoverageIndex index) {
+    }
+
+    private final Set<String> packages;
+    private final Map<String, Integer> classIds;
+    private final Map<String, Integer> methodIds;
+    private final List<Counter> reportCounters;
+
+    private final String[] classNames;
+    private final String[] classSourceFiles;
+    private final int[] classMethodStart;
+    private final int[] classMethodEnd;
+    private final long[] classCounters;
+
+    private final String[] methodNames;
+    private final String[] methodDescs;
+    private final int[] methodLines;
+    private final long[] methodCounters;
+    private final MethodLines[] methodLineData;
+
+    private CoverageIndex(Builder b) {
+        this.packages = b.packages;
+        this.classIds = b.classIds;
+        this.methodIds = b.methodIds;
+        this.reportCounters = Collections.unmodifiableList(b.reportCounters);
+        this.classNames = b.classNames.toArray(new String[0]);
+        this.classSourceFiles = b.classSourceFiles.toArray(new String[0]);
+        this.classMethodStart = Arrays.copyOf(b.classMethodStart, b.classCount);
+        this.classMethodEnd = Arrays.copyOf(b.classMethodEnd, b.classCount);
+        this.classCounters = Arrays.copyOf(b.classCounters, b.classCount * STRIDE);
+        this.methodNames = b.methodNames.toArray(new String[0]);
+        this.methodDescs = b.methodDescs.toArray(new String[0]);
+        this.methodLines = Arrays.copyOf(b.methodLines, b.methodCount);
+        this.methodCounters = Arrays.copyOf(b.methodCounters, b.methodCount * STRIDE);
+        this.methodLineData = Arrays.copyOf(b.methodLineData, b.methodCount);
+    }
+
+    // ==================== Loading ====================
+
+    /**
+     * Default JaCoCo XML report location for a module.
+     */
+    public static Path reportPath(String modulePath) {
+        return Paths.get(modulePath, "target", "site", "jacoco", "jacoco.xml");
+    }
+
+    /**
+     * Default JaCoCo execution data location for a module (jacoco-maven-plugin prepare-agent).
+     */
+    public static Path execPath(String modulePath) {
+        return Paths.get(modulePath, "target", "jacoco.exec");
+    }
+
+    /**
+     * Compiled main classes the execution data is analyzed against.
+     */
+    public static Path classesPath(String modulePath) {
+        return Paths.get(modulePath, "target", "classes");
+    }
+
+    /**
+     * Whether the module has either execution data or an XML report.
+     */
+    public static boolean hasCoverageData(String modulePath) {
+        return Files.isRegularFile(execPath(modulePath)) || Files.isRegularFile(reportPath(modulePath));
+    }
+
+    /**
+     * Index for the module's coverage data, or {@code null} if there is none.
+     * Uses {@code target/jacoco.exec} when it exists and is at least as new as the
+     * XML report (or there is no report); otherwise the XML report.
+     */
+    public static CoverageIndex forModule(String modulePath) throws IOException {
+        Path execPath = execPath(modulePath);
+        Path reportPath = reportPath(modulePath);
+        if (Files.isRegularFile(execPath)
+                && (!Files.isRegularFile(reportPath)
+                || Files.getLastModifiedTime(execPath).compareTo(Files.getLastModifiedTime(reportPath)) >= 0)) {
+            return forExec(execPath, classesPath(modulePath));
+        }
+        return forReport(reportPath);
+    }
+
+    /**
+     * Index for the given report, built on first use and reused until the file's
+     * mtime or size changes. Returns {@code null} if the report does not exist.
+     */
+    public static CoverageIndex forReport(Path reportPath) throws IOException {
+        return cached(reportPath, 0, key -> {
+            Builder builder = new Builder();
+            JacocoXmlReader.readAll(key, builder);
+            return builder.build();
+        });
+    }
+
+    /**
+     * Index for the given execution data analyzed in-process against {@code classesDir}.
+     * Cached like {@link #forReport(Path)}, keyed on the exec file; the cached index is also
+     * rebuilt when the class files change (the line and method maps come from them).
+     * Returns {@code null} if the exec file does not exist.
+     */
+    public static CoverageIndex forExec(Path execPath, Path classesDir) throws IOException {
+        return cached(execPath, classesStamp(classesDir), key -> JacocoExecAnalyzer.analyze(key, classesDir));
+    }
+
+    /**
+     * Stamp of the class files under {@code classesDir}: newest mtime, file count and total size.
+     */
+    static long classesStamp(Path classesDir) throws IOException {
+        if (classesDir == null || !Files.isDirectory(classesDir)) {
+            return 0;
+        }
+        long[] stamp = new long[3];
+        try (Stream<Path> files = Files.walk(classesDir)) {
+            files.filter(f -> f.getFileName().toString().endsWith(".class")).forEach(f -> {
+                try {
+                    BasicFileAttributes attrs = Files.readAttributes(f, BasicFileAttributes.class);
+                    stamp[0] = Math.max(stamp[0], attrs.lastModifiedTime().toMillis());
+                    stamp[1]++;
+                    stamp[2] += attrs.size();
+                } catch (IOException e) {
+                    stamp[1]--; // deleted while walking; still changes the stamp
+                }
+            });
+        }
+        return Arrays.hashCode(stamp);
+    }
+
+    @FunctionalInterface
+    private interface IndexLoader {
+        CoverageIndex load(Path path) throws IOException;
+    }
+
+    private static CoverageIndex cached(Path path, long inputStamp, IndexLoader loader) throws IOException {
+        Path key = path.toAbsolutePath().normalize();
+        if (!Files.isRegularFile(key)) {
+            CACHE.remove(key);
+            return null;
+        }
+
+        BasicFileAttributes attrs = Files.readAttributes(key, BasicFileAttributes.class);
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        long size = attrs.size();
+
+        CachedIndex cached = CACHE.get(key);
+        if (cached != null && cached.lastModified() == lastModified && cached.size() == size
+                && cached.inputStamp() == inputStamp) {
+            return cached.index();
+        }
+
+        long start = System.currentTimeMillis();
+        CoverageIndex index = loader.load(key);
+        CACHE.put(key, new CachedIndex(lastModified, size, inputStamp, index));
+        log.info("Coverage index built for {}: {} classes, {} methods in {}ms",
+                key, index.classCount(), index.methodCount(), System.currentTimeMillis() - start);
+        return index;
+    }
+
+    /**
+     * Drop all cached indexes (mainly for tests).
+     */
+    public static void clearCache() {
+        CACHE.clear();
+    }
+
+    // ==================== Queries ====================
+
+    public List<Counter> reportCounters() {
+        return reportCounters;
+    }
+
+    public int classCount() {
+        return classNames.length;
+    }
+
+    public int methodCount() {
+        return methodNames.length;
+    }
+
+    /**
+     * @param packageName dotted package name (e.g. com.example)
+     */
+    public boolean hasPackage(String packageName) {
+        return packages.contains(packageName);
+    }
+
+    /**
+     * @param className fully qualified class name (e.g. com.example.MyService)
+     * @return class id, or -1 if the class is not in the report
+     */
+    public int classId(String className) {
+        Integer id = classIds.get(className);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * JVM name of the class (e.g. com/example/MyService).
+     */
+    public String className(int classId) {
+        return classNames[classId];
+    }
+
+    public String classSourceFile(int classId) {
+        return classSourceFiles[classId];
+    }
+
+    public double classCoverage(int classId, CounterType type) {
+        return percentage(classCounters, classId * STRIDE + type.ordinal() * 2);
+    }
+
+    public long classMissed(int classId, CounterType type) {
+        return classCounters[classId * STRIDE + type.ordinal() * 2];
+    }
+
+    public long classCovered(int classId, CounterType type) {
+        return classCounters[classId * STRIDE + type.ordinal() * 2 + 1];
+    }
+
+    /**
+     * First method id of the class (inclusive). Methods of a class are contiguous.
+     */
+    public int firstMethod(int classId) {
+        return classMethodStart[classId];
+    }
+
+    /**
+     * End of the class's method id range (exclusive).
+     */
+    public int methodEnd(int classId) {
+        return classMethodEnd[classId];
+    }
+
+    /**
+     * Look up a method by name. Accepts "constructor" for {@code <init>} and
+     * display names with a parameter suffix such as "calculate(2 params)";
+     * the first overload with that name wins.
+     *
+     * @return method id, or -1 if not found
+     */
+    public int methodId(String className, String methodName) {
+        if (methodName == null) {
+            return -1;
+        }
+        String name = methodName.contains("(") ? methodName.substring(0, methodName.indexOf('(')) : methodName;
+        if ("constructor".equals(name)) {
+            name = "<init>";
+        }
+        Integer id = methodIds.get(className + '#' + name);
+        return id != null ? id : -1;
+    }
+
+    public String methodName(int methodId) {
+        return methodNames[methodId];
+    }
+
+    public String methodDesc(int methodId) {
+        return methodDescs[methodId];
+    }
+
+    public int methodLine(int methodId) {
+        return methodLines[methodId];
+    }
+
+    public double methodCoverage(int methodId, CounterType type) {
+        return percentage(methodCounters, methodId * STRIDE + type.ordinal() * 2);
+    }
+
+    public long methodMissed(int methodId, CounterType type) {
+        return methodCounters[methodId * STRIDE + type.ordinal() * 2];
+    }
+
+    public long methodCovered(int methodId, CounterType type) {
+        return methodCounters[methodId * STRIDE + type.ordinal() * 2 + 1];
+    }
+
+    /**
+     * Line-level hit bitmaps of the method, or {@code null} if the index was built
+     * from an XML report (which carries no per-method line data).
+     */
+    public MethodLines methodLines(int methodId) {
+        return methodLineData[methodId];
+    }
+
+    /**
+     * Display form of a method: "constructor" for {@code <init>} plus a compact
+     * parameter summary, e.g. "calculate(2 params)".
+     */
+    public static String displayName(String methodName, String desc) {
+        String displayName = "<init>".equals(methodName) ? "constructor" : methodName;
+        return displayName + describeParameters(desc);
+    }
+
+    /**
+     * Simplified descriptor parsing for display: "()" or "(N params)".
+     */
+    public static String describeParameters(String desc) {
+        if (desc == null || desc.isEmpty()) return "()";
+
+        int paramEnd = desc.indexOf(')');
+        if (paramEnd <= 1) return "()";
+
+        String params = desc.substring(1, paramEnd);
+        if (params.isEmpty()) return "()";
+
+        // Count parameters (simplified)
+        int count = 0;
+        int i = 0;
+        while (i < params.length()) {
+            char c = params.charAt(i);
+            if (c == 'L') {
+                i = params.indexOf(';', i) + 1;
+            } else if (c == '[') {
+                i++;
+                continue;
+            } else {
+                i++;
+            }
+            count++;
+        }
+        return count == 0 ? "()" : "(" + count + " params)";
+    }
+
+    /**
+     * A missing or empty counter means fully covered / not applicable (100%).
+     */
+    private static double percentage(long[] counters, int offset) {
+        long missed = counters[offset];
+        long covered = counters[offset + 1];
+        long total = missed + covered;
+        return total == 0 ? 100.0 : (double) covered / total * 100;
+    }
+
+    // ==================== Builder ====================
+
+    /**
+     * Incremental builder. Classes must be added one at a time, each followed by
+     * its methods. Also usable as a {@link JacocoXmlReader.ReportVisitor}.
+     */
+    public static final class Builder implements JacocoXmlReader.ReportVisitor {
+        private final Set<String> packages = new HashSet<>();
+        private final Map<String, Integer> classIds = new HashMap<>();
+        private final Map<String, Integer> methodIds = new HashMap<>();
+        private final List<Counter> reportCounters = new ArrayList<>();
+
+        private final List<String> classNames = new ArrayList<>();
+        private final List<String> classSourceFiles = new ArrayList<>();
+        private int[] classMethodStart = new int[64];
+        private int[] classMethodEnd = new int[64];
+        private long[] classCounters = new long[64 * STRIDE];
+        private int classCount;
+
+        private final List<String> methodNames = new ArrayList<>();
+        private final List<String> methodDescs = new ArrayList<>();
+        private int[] methodLines = new int[256];
+        private long[] methodCounters = new long[256 * STRIDE];
+        private MethodLines[] methodLineData = new MethodLines[256];
+        private int methodCount;
+
+        private String currentClassKey;
+
+        public Builder addPackage(String jvmPackageName) {
+            packages.add(jvmPackageName.replace('/', '.'));
+            return this;
+        }
+
+        public Builder addReportCounter(String type, long missed, long covered) {
+            reportCounters.add(new Counter(type, missed, covered));
+            return this;
+        }
+
+        /**
+         * Start a new class; subsequent {@link #addMethod} calls belong to it.
+         */
+        public int beginClass(String jvmClassName, String sourceFileName) {
+            int id = classCount++;
+            if (id == classMethodStart.length) {
+                int capacity = id * 2;
+                classMethodStart = Arrays.copyOf(classMethodStart, capacity);
+                classMethodEnd = Arrays.copyOf(classMethodEnd, capacity);
+                classCounters = Arrays.copyOf(classCounters, capacity * STRIDE);
+            }
+            currentClassKey = jvmClassName.replace('/', '.');
+            classNames.add(jvmClassName);
+            classSourceFiles.add(sourceFileName);
+            classIds.putIfAbsent(currentClassKey, id);
+            classMethodStart[id] = methodCount;
+            classMethodEnd[id] = methodCount;
+            int pkgEnd = jvmClassName.lastIndexOf('/');
+            packages.add(pkgEnd > 0 ? jvmClassName.substring(0, pkgEnd).replace('/', '.') : "");
+            return id;
+        }
+
+        public Builder classCounter(String type, long missed, long covered) {
+            CounterType counterType = CounterType.of(type);
+            if (counterType != null && classCount > 0) {
+                int offset = (classCount - 1) * STRIDE + counterType.ordinal() * 2;
+                classCounters[offset] = missed;
+                classCounters[offset + 1] = covered;
+            }
+            return this;
+        }
+
+        public int addMethod(String name, String desc, int line) {
+            int id = methodCount++;
+            if (id == methodLines.length) {
+                int capacity = id * 2;
+                methodLines = Arrays.copyOf(methodLines, capacity);
+                methodCounters = Arrays.copyOf(methodCounters, capacity * STRIDE);
+                methodLineData = Arrays.copyOf(methodLineData, capacity);
+            }
+            methodNames.add(name);
+            methodDescs.add(desc != null ? desc : "");
+            methodLines[id] = line;
+            methodIds.putIfAbsent(currentClassKey + '#' + name, id);
+            classMethodEnd[classCount - 1] = methodCount;
+            return id;
+        }
+
+        public Builder methodCounter(String type, long missed, long covered) {
+            CounterType counterType = CounterType.of(type);
+            if (counterType != null && methodCount > 0) {
+                int offset = (methodCount - 1) * STRIDE + counterType.ordinal() * 2;
+                methodCounters[offset] = missed;
+                methodCounters[offset + 1] = covered;
+            }
+            return this;
+        }
+
+        /**
+         * Attach line-level hit bitmaps to the current method.
+         */
+        public Builder methodLines(MethodLines lines) {
+            if (methodCount > 0) {
+                methodLineData[methodCount - 1] = lines;
+            }
+            return this;
+        }
+
+        @Override
+        public void visitReportCounter(Counter counter) {
+            reportCounters.add(counter);
+        }
+
+        @Override
+        public void visitPackage(String name) {
+            if (name != null) {
+                addPackage(name);
+            }
+        }
+
+        @Override
+        public void visitClass(ClassCoverage cls) {
+            beginClass(cls.name(), cls.sourceFileName());
+            for (Counter c : cls.counters()) {
+                classCounter(c.type(), c.missed(), c.covered());
+            }
+            for (MethodCoverage m : cls.methods()) {
+                addMethod(m.name(), m.desc(), m.line());
+                for (Counter c : m.counters()) {
+                    methodCounter(c.type(), c.missed(), c.covered());
+                }
+            }
+        }
+
+        public CoverageIndex build() {
+            return new CoverageIndex(this);
+        }
+    }
+}
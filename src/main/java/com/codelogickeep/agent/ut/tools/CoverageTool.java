@@ -1,20 +1,12 @@
 package com.codelogickeep.agent.ut.tools;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
 import com.codelogickeep.agent.ut.model.UncoveredMethod;
+import com.codelogickeep.agent.ut.tools.CoverageIndex.CounterType;
+import com.codelogickeep.agent.ut.tools.JacocoXmlReader.Counter;
 import com.codelogickeep.agent.ut.framework.annotation.P;
 import com.codelogickeep.agent.ut.framework.annotation.Tool;
 import org.slf4j.Logger;
@@ -23,22 +15,27 @@ import org.slf4j.LoggerFactory;
 public class CoverageTool implements AgentTool {
     private static final Logger log = LoggerFactory.getLogger(CoverageTool.class);
 
+    /** Coverage is read from target/jacoco.exec (or a jacoco.xml report), so only a JaCoCo-enabled test run is needed */
+    private static final String NO_COVERAGE_DATA = "ERROR: No coverage data found (neither target/jacoco.exec "
+            + "nor target/site/jacoco/jacoco.xml exists). Run the tests with the JaCoCo agent enabled "
+            + "(mvn test with jacoco-maven-plugin prepare-agent) first.";
+
     @Tool("Get the test coverage report summary (JaCoCo). Requires tests to be executed first.")
-    public String getCoverageReport(@P("Path to the module directory where target/site/jacoco/jacoco.xml is located") String modulePath) throws IOException {
+    public String getCoverageReport(@P("Path to the module directory containing target/jacoco.exec") String modulePath) throws IOException {
         log.info("Tool Input - getCoverageReport: modulePath={}", modulePath);
-        Path reportPath = Paths.get(modulePath, "target", "site", "jacoco", "jacoco.xml");
-        File xmlFile = reportPath.toFile();
 
-        if (!xmlFile.exists()) {
-            return "Coverage report not found at " + reportPath.toAbsolutePath() +
-                    ". Make sure tests have been executed with JaCoCo enabled (mvn test jacoco:report).";
+        if (!CoverageIndex.hasCoverageData(modulePath)) {
+            return "Coverage data not found: neither " + CoverageIndex.execPath(modulePath).toAbsolutePath()
+                    + " nor " + CoverageIndex.reportPath(modulePath).toAbsolutePath()
+                    + " exists. Make sure tests have been executed with JaCoCo enabled "
+                    + "(mvn test with jacoco-maven-plugin prepare-agent).";
         }
 
         try {
-            Document doc = parseXml(xmlFile);
+            CoverageIndex index = CoverageIndex.forModule(modulePath);
             StringBuilder sb = new StringBuilder();
             sb.append("Coverage Summary:\n");
-            appendCounters(doc.getDocumentElement(), sb, "  ");
+            appendCounters(index.reportCounters(), sb, "  ");
             String result = sb.toString();
             log.info("Tool Output - getCoverageReport: length={}", result.length());
             return result;
@@ -55,53 +52,28 @@ public class CoverageTool implements AgentTool {
             @P("Coverage threshold percentage (0-100)") int threshold) throws IOException {
 
         log.info("Tool Input - checkCoverageThreshold: modulePath={}, className={}, threshold={}", modulePath, className, threshold);
-        Path reportPath = Paths.get(modulePath, "target", "site", "jacoco", "jacoco.xml");
-        File xmlFile = reportPath.toFile();
-
-        if (!xmlFile.exists()) {
-            return "ERROR: Coverage report not found. Run 'mvn test jacoco:report' first.";
+        if (!CoverageIndex.hasCoverageData(modulePath)) {
+            return NO_COVERAGE_DATA;
         }
 
         try {
-            Document doc = parseXml(xmlFile);
+            CoverageIndex index = CoverageIndex.forModule(modulePath);
             String packageName = className.contains(".") ? className.substring(0, className.lastIndexOf('.')) : "";
             String simpleClassName = className.contains(".") ? className.substring(className.lastIndexOf('.') + 1) : className;
 
-            // Find the package
-            NodeList packages = doc.getElementsByTagName("package");
-            Element targetPackage = null;
-            for (int i = 0; i < packages.getLength(); i++) {
-                Element pkg = (Element) packages.item(i);
-                if (pkg.getAttribute("name").replace('/', '.').equals(packageName)) {
-                    targetPackage = pkg;
-                    break;
-                }
-            }
-
-            if (targetPackage == null) {
+            if (!index.hasPackage(packageName)) {
                 return "ERROR: Package '" + packageName + "' not found in coverage report.";
             }
 
-            // Find the class
-            NodeList classes = targetPackage.getElementsByTagName("class");
-            Element targetClass = null;
-            for (int i = 0; i < classes.getLength(); i++) {
-                Element cls = (Element) classes.item(i);
-                String clsName = cls.getAttribute("name");
-                if (clsName.endsWith("/" + simpleClassName) || clsName.equals(simpleClassName)) {
-                    targetClass = cls;
-                    break;
-                }
-            }
-
-            if (targetClass == null) {
+            int classId = index.classId(className);
+            if (classId < 0) {
                 return "ERROR: Class '" + simpleClassName + "' not found in package '" + packageName + "'.";
             }
 
             // Calculate class-level coverage
-            double lineCoverage = calculateCoverage(targetClass, "LINE");
-            double branchCoverage = calculateCoverage(targetClass, "BRANCH");
-            double methodCoverage = calculateCoverage(targetClass, "METHOD");
+            double lineCoverage = index.classCoverage(classId, CounterType.LINE);
+            double branchCoverage = index.classCoverage(classId, CounterType.BRANCH);
+            double methodCoverage = index.classCoverage(classId, CounterType.METHOD);
 
             StringBuilder result = new StringBuilder();
             result.append("Coverage Analysis for: ").append(className).append("\n");
@@ -118,7 +90,7 @@ public class CoverageTool implements AgentTool {
                 result.append("✗ FAILED: Coverage below threshold.\n\n");
                 result.append("Uncovered/Partially Covered Methods:\n");
 
-                List<String> uncoveredMethods = findUncoveredMethods(targetClass);
+                List<String> uncoveredMethods = findUncoveredMethods(index, classId);
                 if (uncoveredMethods.isEmpty()) {
                     result.append("  (No method-level details available)\n");
                 } else {
@@ -144,63 +116,43 @@ public class CoverageTool implements AgentTool {
             @P("Fully qualified class name (e.g., com.example.MyService)") String className) throws IOException {
 
         log.info("Tool Input - getMethodCoverageDetails: modulePath={}, className={}", modulePath, className);
-        Path reportPath = Paths.get(modulePath, "target", "site", "jacoco", "jacoco.xml");
-        File xmlFile = reportPath.toFile();
-
-        if (!xmlFile.exists()) {
-            return "ERROR: Coverage report not found. Run 'mvn test jacoco:report' first.";
+        if (!CoverageIndex.hasCoverageData(modulePath)) {
+            return NO_COVERAGE_DATA;
         }
 
         try {
-            Document doc = parseXml(xmlFile);
-            String packageName = className.contains(".") ? className.substring(0, className.lastIndexOf('.')) : "";
-            String simpleClassName = className.contains(".") ? className.substring(className.lastIndexOf('.') + 1) : className;
-
-            // Find package and class
-            NodeList packages = doc.getElementsByTagName("package");
-            for (int i = 0; i < packages.getLength(); i++) {
-                Element pkg = (Element) packages.item(i);
-                if (!pkg.getAttribute("name").replace('/', '.').equals(packageName)) continue;
-
-                NodeList classes = pkg.getElementsByTagName("class");
-                for (int j = 0; j < classes.getLength(); j++) {
-                    Element cls = (Element) classes.item(j);
-                    String clsName = cls.getAttribute("name");
-                    if (!clsName.endsWith("/" + simpleClassName) && !clsName.equals(simpleClassName)) continue;
-
-                    StringBuilder result = new StringBuilder();
-                    result.append("Method Coverage Details: ").append(className).append("\n");
-                    result.append("═".repeat(60)).append("\n");
+            CoverageIndex index = CoverageIndex.forModule(modulePath);
+            int classId = index.classId(className);
+            if (classId < 0) {
+                String errorMsg = "ERROR: Class '" + className + "' not found in coverage report.";
+                log.info("Tool Output - getMethodCoverageDetails: {}", errorMsg);
+                return errorMsg;
+            }
 
-                    NodeList methods = cls.getElementsByTagName("method");
-                    for (int k = 0; k < methods.getLength(); k++) {
-                        Element method = (Element) methods.item(k);
-                        String methodName = method.getAttribute("name");
-                        String desc = method.getAttribute("desc");
+            StringBuilder result = new StringBuilder();
+            result.append("Method Coverage Details: ").append(className).append("\n");
+            result.append("═".repeat(60)).append("\n");
 
-                        // Skip constructors and static initializers for cleaner output
-                        if ("<clinit>".equals(methodName)) continue;
+            for (int m = index.firstMethod(classId); m < index.methodEnd(classId); m++) {
+                String methodName = index.methodName(m);
 
-                        double lineCov = calculateCoverage(method, "LINE");
-                        double branchCov = calculateCoverage(method, "BRANCH");
+                // Skip constructors and static initializers for cleaner output
+                if ("<clinit>".equals(methodName)) continue;
 
-                        String status = lineCov >= 80 ? "✓" : (lineCov > 0 ? "◐" : "✗");
-                        String displayName = "<init>".equals(methodName) ? "constructor" : methodName;
+                double lineCov = index.methodCoverage(m, CounterType.LINE);
+                double branchCov = index.methodCoverage(m, CounterType.BRANCH);
 
-                        result.append(String.format("%s %-30s Line: %5.1f%%  Branch: %5.1f%%\n",
-                                status, displayName + parseDescriptor(desc), lineCov, branchCov));
-                    }
+                String status = lineCov >= 80 ? "✓" : (lineCov > 0 ? "◐" : "✗");
 
-                    result.append("═".repeat(60)).append("\n");
-                    result.append("Legend: ✓ = Good (≥80%)  ◐ = Partial  ✗ = No coverage\n");
-                    String finalResult = result.toString();
-                    log.info("Tool Output - getMethodCoverageDetails: length={}", finalResult.length());
-                    return finalResult;
-                }
+                result.append(String.format("%s %-30s Line: %5.1f%%  Branch: %5.1f%%\n",
+                        status, CoverageIndex.displayName(methodName, index.methodDesc(m)), lineCov, branchCov));
             }
-            String errorMsg = "ERROR: Class '" + className + "' not found in coverage report.";
-            log.info("Tool Output - getMethodCoverageDetails: {}", errorMsg);
-            return errorMsg;
+
+            result.append("═".repeat(60)).append("\n");
+            result.append("Legend: ✓ = Good (≥80%)  ◐ = Partial  ✗ = No coverage\n");
+            String finalResult = result.toString();
+            log.info("Tool Output - getMethodCoverageDetails: length={}", finalResult.length());
+            return finalResult;
         } catch (Exception e) {
             log.error("Failed to get method details", e);
             throw new IOException("Failed to get method details: " + e.getMessage(), e);
@@ -214,183 +166,94 @@ public class CoverageTool implements AgentTool {
             @P("Coverage threshold (default 80), methods below this need tests") int threshold) throws IOException {
 
         log.info("Tool Input - getUncoveredMethods: modulePath={}, className={}, threshold={}", modulePath, className, threshold);
-        Path reportPath = Paths.get(modulePath, "target", "site", "jacoco", "jacoco.xml");
-        File xmlFile = reportPath.toFile();
-
-        if (!xmlFile.exists()) {
-            return "ERROR: Coverage report not found. Run 'mvn test jacoco:report' first.";
+        if (!CoverageIndex.hasCoverageData(modulePath)) {
+            return NO_COVERAGE_DATA;
         }
 
         try {
-            Document doc = parseXml(xmlFile);
-            String packageName = className.contains(".") ? className.substring(0, className.lastIndexOf('.')) : "";
-            String simpleClassName = className.contains(".") ? className.substring(className.lastIndexOf('.') + 1) : className;
+            CoverageIndex index = CoverageIndex.forModule(modulePath);
+            int classId = index.classId(className);
+            if (classId < 0) {
+                return "ERROR: Class '" + className + "' not found in coverage report.";
+            }
 
-            NodeList packages = doc.getElementsByTagName("package");
-            for (int i = 0; i < packages.getLength(); i++) {
-                Element pkg = (Element) packages.item(i);
-                if (!pkg.getAttribute("name").replace('/', '.').equals(packageName)) continue;
-
-                NodeList classes = pkg.getElementsByTagName("class");
-                for (int j = 0; j < classes.getLength(); j++) {
-                    Element cls = (Element) classes.item(j);
-                    String clsName = cls.getAttribute("name");
-                    if (!clsName.endsWith("/" + simpleClassName) && !clsName.equals(simpleClassName)) continue;
-
-                    StringBuilder result = new StringBuilder();
-                    result.append("## Uncovered Methods Requiring Tests\n\n");
-                    result.append("Class: ").append(className).append("\n");
-                    result.append("Threshold: ").append(threshold).append("%\n\n");
-
-                    int totalMethods = 0;
-                    int uncoveredCount = 0;
-
-                    NodeList methods = cls.getElementsByTagName("method");
-                    for (int k = 0; k < methods.getLength(); k++) {
-                        Element method = (Element) methods.item(k);
-                        String methodName = method.getAttribute("name");
-                        String desc = method.getAttribute("desc");
-
-                        if ("<clinit>".equals(methodName)) continue;
-                        totalMethods++;
-
-                        double lineCov = calculateCoverage(method, "LINE");
-                        double branchCov = calculateCoverage(method, "BRANCH");
-
-                        if (lineCov < threshold) {
-                            uncoveredCount++;
-                            String displayName = "<init>".equals(methodName) ? "constructor" : methodName;
-                            String priority = lineCov == 0 ? "HIGH" : "MEDIUM";
-                            
-                            result.append("### ").append(uncoveredCount).append(". ");
-                            result.append(displayName).append(parseDescriptor(desc)).append("\n");
-                            result.append("- **Priority**: ").append(priority).append("\n");
-                            result.append("- **Line Coverage**: ").append(String.format("%.1f%%", lineCov)).append("\n");
-                            result.append("- **Branch Coverage**: ").append(String.format("%.1f%%", branchCov)).append("\n");
-                            result.append("- **Action**: ");
-                            if (lineCov == 0) {
-                                result.append("Create new test methods covering all code paths\n");
-                            } else {
-                                result.append("Add tests for uncovered branches and edge cases\n");
-                            }
-                            result.append("\n");
-                        }
-                    }
+            StringBuilder result = new StringBuilder();
+            result.append("## Uncovered Methods Requiring Tests\n\n");
+            result.append("Class: ").append(className).append("\n");
+            result.append("Threshold: ").append(threshold).append("%\n\n");
+
+            int totalMethods = 0;
+            int uncoveredCount = 0;
+
+            for (int m = index.firstMethod(classId); m < index.methodEnd(classId); m++) {
+                String methodName = index.methodName(m);
+
+                if ("<clinit>".equals(methodName)) continue;
+                totalMethods++;
+
+                double lineCov = index.methodCoverage(m, CounterType.LINE);
+                double branchCov = index.methodCoverage(m, CounterType.BRANCH);
 
-                    if (uncoveredCount == 0) {
-                        result.append("✅ All methods meet the coverage threshold (").append(threshold).append("%)!\n");
-                        result.append("No additional tests needed.\n");
+                if (lineCov < threshold) {
+                    uncoveredCount++;
+                    String priority = lineCov == 0 ? "HIGH" : "MEDIUM";
+
+                    result.append("### ").append(uncoveredCount).append(". ");
+                    result.append(CoverageIndex.displayName(methodName, index.methodDesc(m))).append("\n");
+                    result.append("- **Priority**: ").append(priority).append("\n");
+                    result.append("- **Line Coverage**: ").append(String.format("%.1f%%", lineCov)).append("\n");
+                    result.append("- **Branch Coverage**: ").append(String.format("%.1f%%", branchCov)).append("\n");
+                    result.append("- **Action**: ");
+                    if (lineCov == 0) {
+                        result.append("Create new test methods covering all code paths\n");
                     } else {
-                        result.append("---\n");
-                        result.append("**Summary**: ").append(uncoveredCount).append("/").append(totalMethods);
-                        result.append(" methods need additional test coverage.\n");
+                        result.append("Add tests for uncovered branches and edge cases\n");
                     }
-
-                    String finalResult = result.toString();
-                    log.info("Tool Output - getUncoveredMethods: {} methods need tests", uncoveredCount);
-                    return finalResult;
+                    result.append("\n");
                 }
             }
-            return "ERROR: Class '" + className + "' not found in coverage report.";
+
+            if (uncoveredCount == 0) {
+                result.append("✅ All methods meet the coverage threshold (").append(threshold).append("%)!\n");
+                result.append("No additional tests needed.\n");
+            } else {
+                result.append("---\n");
+                result.append("**Summary**: ").append(uncoveredCount).append("/").append(totalMethods);
+                result.append(" methods need additional test coverage.\n");
+            }
+
+            String finalResult = result.toString();
+            log.info("Tool Output - getUncoveredMethods: {} methods need tests", uncoveredCount);
+            return finalResult;
         } catch (Exception e) {
             log.error("Failed to get uncovered methods", e);
             throw new IOException("Failed to get uncovered methods: " + e.getMessage(), e);
         }
     }
 
-    private Document parseXml(File xmlFile) throws Exception {
-        DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-        // Allow DOCTYPE for JaCoCo XML reports
-        dbFactory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", false);
-        dbFactory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
-        dbFactory.setFeature("http://xml.org/sax/features/external-general-entities", false);
-        dbFactory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-        DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-        Document doc = dBuilder.parse(xmlFile);
-        doc.getDocumentElement().normalize();
-        return doc;
-    }
-
-    private void appendCounters(Element element, StringBuilder sb, String indent) {
-        NodeList children = element.getChildNodes();
-        for (int i = 0; i < children.getLength(); i++) {
-            Node node = children.item(i);
-            if (node.getNodeType() == Node.ELEMENT_NODE && "counter".equals(node.getNodeName())) {
-                Element counter = (Element) node;
-                String type = counter.getAttribute("type");
-                long missed = Long.parseLong(counter.getAttribute("missed"));
-                long covered = Long.parseLong(counter.getAttribute("covered"));
-                long total = missed + covered;
-                double percentage = total == 0 ? 0 : (double) covered / total * 100;
-                sb.append(String.format("%s- %s: %.1f%% (%d/%d)\n", indent, type, percentage, covered, total));
-            }
-        }
-    }
-
-    private double calculateCoverage(Element element, String counterType) {
-        NodeList counters = element.getElementsByTagName("counter");
-        for (int i = 0; i < counters.getLength(); i++) {
-            Element counter = (Element) counters.item(i);
-            if (counter.getParentNode() != element) continue; // Only direct children
-            if (counterType.equals(counter.getAttribute("type"))) {
-                long missed = Long.parseLong(counter.getAttribute("missed"));
-                long covered = Long.parseLong(counter.getAttribute("covered"));
-                long total = missed + covered;
-                return total == 0 ? 100.0 : (double) covered / total * 100;
-            }
+    private void appendCounters(List<Counter> counters, StringBuilder sb, String indent) {
+        for (Counter counter : counters) {
+            long total = counter.total();
+            double percentage = total == 0 ? 0 : (double) counter.covered() / total * 100;
+            sb.append(String.format("%s- %s: %.1f%% (%d/%d)\n", indent, counter.type(), percentage, counter.covered(), total));
         }
-        return 100.0; // No counter means fully covered or not applicable
     }
 
-    private List<String> findUncoveredMethods(Element classElement) {
+    private List<String> findUncoveredMethods(CoverageIndex index, int classId) {
         List<String> uncovered = new ArrayList<>();
-        NodeList methods = classElement.getElementsByTagName("method");
-
-        for (int i = 0; i < methods.getLength(); i++) {
-            Element method = (Element) methods.item(i);
-            if (method.getParentNode() != classElement) continue;
-
-            String methodName = method.getAttribute("name");
+        for (int m = index.firstMethod(classId); m < index.methodEnd(classId); m++) {
+            String methodName = index.methodName(m);
             if ("<clinit>".equals(methodName)) continue;
 
-            double lineCoverage = calculateCoverage(method, "LINE");
+            double lineCoverage = index.methodCoverage(m, CounterType.LINE);
             if (lineCoverage < 80) {
-                String displayName = "<init>".equals(methodName) ? "constructor" : methodName;
-                String desc = method.getAttribute("desc");
-                uncovered.add(String.format("%s%s (%.0f%% covered)", displayName, parseDescriptor(desc), lineCoverage));
+                uncovered.add(String.format("%s (%.0f%% covered)",
+                        CoverageIndex.displayName(methodName, index.methodDesc(m)), lineCoverage));
             }
         }
         return uncovered;
     }
 
-    private String parseDescriptor(String desc) {
-        // Simplified descriptor parsing for display
-        if (desc == null || desc.isEmpty()) return "()";
-
-        int paramEnd = desc.indexOf(')');
-        if (paramEnd <= 1) return "()";
-
-        String params = desc.substring(1, paramEnd);
-        if (params.isEmpty()) return "()";
-
-        // Count parameters (simplified)
-        int count = 0;
-        int i = 0;
-        while (i < params.length()) {
-            char c = params.charAt(i);
-            if (c == 'L') {
-                i = params.indexOf(';', i) + 1;
-            } else if (c == '[') {
-                i++;
-                continue;
-            } else {
-                i++;
-            }
-            count++;
-        }
-        return count == 0 ? "()" : "(" + count + " params)";
-    }
-
     @Tool("Get compact uncovered methods list for LLM test generation (minimal token usage)")
     public String getUncoveredMethodsCompact(
             @P("Path to the module directory") String modulePath,
@@ -398,24 +261,18 @@ public class CoverageTool implements AgentTool {
             @P("Coverage threshold percentage") int threshold) throws IOException {
 
         log.info("Tool Input - getUncoveredMethodsCompact: modulePath={}, className={}, threshold={}", modulePath, className, threshold);
-        Path reportPath = Paths.get(modulePath, "target", "site", "jacoco", "jacoco.xml");
-        File xmlFile = reportPath.toFile();
-
-        if (!xmlFile.exists()) {
+        if (!CoverageIndex.hasCoverageData(modulePath)) {
             return "ERROR: No coverage report. Run tests first.";
         }
 
         try {
-            Document doc = parseXml(xmlFile);
-            String packageName = className.contains(".") ? className.substring(0, className.lastIndexOf('.')) : "";
-            String simpleClassName = className.contains(".") ? className.substring(className.lastIndexOf('.') + 1) : className;
-
-            Element targetClass = findClass(doc, packageName, simpleClassName);
-            if (targetClass == null) {
+            CoverageIndex index = CoverageIndex.forModule(modulePath);
+            int classId = index.classId(className);
+            if (classId < 0) {
                 return "ERROR: Class not found: " + className;
             }
 
-            double lineCoverage = calculateCoverage(targetClass, "LINE");
+            double lineCoverage = index.classCoverage(classId, CounterType.LINE);
             if (lineCoverage >= threshold) {
                 return "PASS: " + className + " coverage " + String.format("%.0f%%", lineCoverage) + " >= " + threshold + "%";
             }
@@ -425,20 +282,14 @@ public class CoverageTool implements AgentTool {
             result.append("Coverage: ").append(String.format("%.0f%%", lineCoverage)).append(" (need ").append(threshold).append("%)\n");
             result.append("Uncovered:\n");
 
-            NodeList methods = targetClass.getElementsByTagName("method");
             int uncoveredCount = 0;
-            for (int i = 0; i < methods.getLength(); i++) {
-                Element method = (Element) methods.item(i);
-                if (method.getParentNode() != targetClass) continue;
-
-                String methodName = method.getAttribute("name");
+            for (int m = index.firstMethod(classId); m < index.methodEnd(classId); m++) {
+                String methodName = index.methodName(m);
                 if ("<clinit>".equals(methodName)) continue;
 
-                double methodCov = calculateCoverage(method, "LINE");
+                double methodCov = index.methodCoverage(m, CounterType.LINE);
                 if (methodCov < threshold) {
-                    String displayName = "<init>".equals(methodName) ? "constructor" : methodName;
-                    String desc = method.getAttribute("desc");
-                    result.append("- ").append(displayName).append(parseDescriptor(desc))
+                    result.append("- ").append(CoverageIndex.displayName(methodName, index.methodDesc(m)))
                           .append(" : ").append(String.format("%.0f%%", methodCov)).append("\n");
                     uncoveredCount++;
                 }
@@ -464,41 +315,30 @@ public class CoverageTool implements AgentTool {
      */
     public List<UncoveredMethod> getUncoveredMethodsList(String modulePath, String className, int threshold) throws IOException {
         List<UncoveredMethod> result = new ArrayList<>();
-        Path reportPath = Paths.get(modulePath, "target", "site", "jacoco", "jacoco.xml");
-        File xmlFile = reportPath.toFile();
-
-        if (!xmlFile.exists()) {
+        if (!CoverageIndex.hasCoverageData(modulePath)) {
             return result;
         }
 
         try {
-            Document doc = parseXml(xmlFile);
-            String packageName = className.contains(".") ? className.substring(0, className.lastIndexOf('.')) : "";
-            String simpleClassName = className.contains(".") ? className.substring(className.lastIndexOf('.') + 1) : className;
-
-            Element targetClass = findClass(doc, packageName, simpleClassName);
-            if (targetClass == null) {
+            CoverageIndex index = CoverageIndex.forModule(modulePath);
+            int classId = index.classId(className);
+            if (classId < 0) {
                 return result;
             }
 
-            NodeList methods = targetClass.getElementsByTagName("method");
-            for (int i = 0; i < methods.getLength(); i++) {
-                Element method = (Element) methods.item(i);
-                if (method.getParentNode() != targetClass) continue;
-
-                String methodName = method.getAttribute("name");
+            for (int m = index.firstMethod(classId); m < index.methodEnd(classId); m++) {
+                String methodName = index.methodName(m);
                 if ("<clinit>".equals(methodName)) continue;
 
-                double lineCov = calculateCoverage(method, "LINE");
-                double branchCov = calculateCoverage(method, "BRANCH");
+                double lineCov = index.methodCoverage(m, CounterType.LINE);
+                double branchCov = index.methodCoverage(m, CounterType.BRANCH);
 
                 if (lineCov < threshold) {
                     String displayName = "<init>".equals(methodName) ? "constructor" : methodName;
-                    String desc = method.getAttribute("desc");
 
                     result.add(UncoveredMethod.builder()
                             .methodName(displayName)
-                            .signature(displayName + parseDescriptor(desc))
+                            .signature(CoverageIndex.displayName(methodName, index.methodDesc(m)))
                             .lineCoverage(lineCov)
                             .branchCoverage(branchCov)
                             .build());
@@ -511,24 +351,6 @@ public class CoverageTool implements AgentTool {
         return result;
     }
 
-    private Element findClass(Document doc, String packageName, String simpleClassName) {
-        NodeList packages = doc.getElementsByTagName("package");
-        for (int i = 0; i < packages.getLength(); i++) {
-            Element pkg = (Element) packages.item(i);
-            if (!pkg.getAttribute("name").replace('/', '.').equals(packageName)) continue;
-
-            NodeList classes = pkg.getElementsByTagName("class");
-            for (int j = 0; j < classes.getLength(); j++) {
-                Element cls = (Element) classes.item(j);
-                String clsName = cls.getAttribute("name");
-                if (clsName.endsWith("/" + simpleClassName) || clsName.equals(simpleClassName)) {
-                    return cls;
-                }
-            }
-        }
-        return null;
-    }
-
     @Tool("Get coverage for a single method (fast check for iterative testing)")
     public String getSingleMethodCoverage(
             @P("Path to the module directory") String modulePath,
@@ -537,53 +359,34 @@ public class CoverageTool implements AgentTool {
 
         log.info("Tool Input - getSingleMethodCoverage: modulePath={}, className={}, methodName={}", 
                  modulePath, className, methodName);
-        Path reportPath = Paths.get(modulePath, "target", "site", "jacoco", "jacoco.xml");
-        File xmlFile = reportPath.toFile();
-
-        if (!xmlFile.exists()) {
-            return "ERROR: No coverage report. Run 'mvn test jacoco:report' first.";
+        if (!CoverageIndex.hasCoverageData(modulePath)) {
+            return NO_COVERAGE_DATA;
         }
 
         try {
-            Document doc = parseXml(xmlFile);
-            String packageName = className.contains(".") ? className.substring(0, className.lastIndexOf('.')) : "";
-            String simpleClassName = className.contains(".") ? className.substring(className.lastIndexOf('.') + 1) : className;
-
-            Element targetClass = findClass(doc, packageName, simpleClassName);
-            if (targetClass == null) {
+            CoverageIndex index = CoverageIndex.forModule(modulePath);
+            if (index.classId(className) < 0) {
                 return "ERROR: Class not found: " + className;
             }
 
-            // Convert method name for JaCoCo format
-            String jacocoMethodName = "constructor".equals(methodName) ? "<init>" : methodName;
-
-            NodeList methods = targetClass.getElementsByTagName("method");
-            for (int i = 0; i < methods.getLength(); i++) {
-                Element method = (Element) methods.item(i);
-                if (method.getParentNode() != targetClass) continue;
-
-                String name = method.getAttribute("name");
-                if (name.equals(jacocoMethodName) || 
-                    (methodName.contains("(") && name.equals(methodName.substring(0, methodName.indexOf("("))))) {
-                    
-                    double lineCov = calculateCoverage(method, "LINE");
-                    double branchCov = calculateCoverage(method, "BRANCH");
-                    String desc = method.getAttribute("desc");
-
-                    String displayName = "<init>".equals(name) ? "constructor" : name;
-                    String status = lineCov >= 80 ? "✓ PASS" : (lineCov > 0 ? "◐ PARTIAL" : "✗ NONE");
-
-                    String result = String.format(
-                            "Method: %s%s\nLine Coverage: %.1f%%\nBranch Coverage: %.1f%%\nStatus: %s",
-                            displayName, parseDescriptor(desc), lineCov, branchCov, status);
-                    log.info("Tool Output - getSingleMethodCoverage: {} line={}%", displayName, String.format("%.1f", lineCov));
-                    return result;
-                }
+            // Accepts 'constructor' and 'name(...)' forms
+            int m = index.methodId(className, methodName);
+            if (m < 0) {
+                String errorMsg = "ERROR: Method not found: " + methodName + " in class " + className;
+                log.info("Tool Output - getSingleMethodCoverage: {}", errorMsg);
+                return errorMsg;
             }
 
-            String errorMsg = "ERROR: Method not found: " + methodName + " in class " + className;
-            log.info("Tool Output - getSingleMethodCoverage: {}", errorMsg);
-            return errorMsg;
+            double lineCov = index.methodCoverage(m, CounterType.LINE);
+            double branchCov = index.methodCoverage(m, CounterType.BRANCH);
+            String displayName = CoverageIndex.displayName(index.methodName(m), index.methodDesc(m));
+            String status = lineCov >= 80 ? "✓ PASS" : (lineCov > 0 ? "◐ PARTIAL" : "✗ NONE");
+
+            String result = String.format(
+                    "Method: %s\nLine Coverage: %.1f%%\nBranch Coverage: %.1f%%\nStatus: %s",
+                    displayName, lineCov, branchCov, status);
+            log.info("Tool Output - getSingleMethodCoverage: {} line={}%", displayName, String.format("%.1f", lineCov));
+            return result;
         } catch (Exception e) {
             log.error("Failed to get single method coverage", e);
             throw new IOException("Failed: " + e.getMessage(), e);
@@ -594,36 +397,14 @@ public class CoverageTool implements AgentTool {
      * Get single method coverage as double (for programmatic use)
      */
     public double getSingleMethodCoverageValue(String modulePath, String className, String methodName) throws IOException {
-        Path reportPath = Paths.get(modulePath, "target", "site", "jacoco", "jacoco.xml");
-        File xmlFile = reportPath.toFile();
-
-        if (!xmlFile.exists()) {
-            return -1.0;
-        }
-
         try {
-            Document doc = parseXml(xmlFile);
-            String packageName = className.contains(".") ? className.substring(0, className.lastIndexOf('.')) : "";
-            String simpleClassName = className.contains(".") ? className.substring(className.lastIndexOf('.') + 1) : className;
-
-            Element targetClass = findClass(doc, packageName, simpleClassName);
-            if (targetClass == null) {
+            CoverageIndex index = CoverageIndex.forModule(modulePath);
+            if (index == null) {
                 return -1.0;
             }
 
-            String jacocoMethodName = "constructor".equals(methodName) ? "<init>" : methodName;
-
-            NodeList methods = targetClass.getElementsByTagName("method");
-            for (int i = 0; i < methods.getLength(); i++) {
-                Element method = (Element) methods.item(i);
-                if (method.getParentNode() != targetClass) continue;
-
-                String name = method.getAttribute("name");
-                if (name.equals(jacocoMethodName)) {
-                    return calculateCoverage(method, "LINE");
-                }
-            }
-            return -1.0;
+            int m = index.methodId(className, methodName);
+            return m >= 0 ? index.methodCoverage(m, CounterType.LINE) : -1.0;
         } catch (Exception e) {
             log.error("Failed to get single method coverage value", e);
             return -1.0;
@@ -0,0 +1,119 @@
+package com.codelogickeep.agent.ut.tools;
+
+import org.jacoco.core.analysis.Analyzer;
+import org.jacoco.core.analysis.CoverageBuilder;
+import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.ILine;
+import org.jacoco.core.analysis.IMethodCoverage;
+import org.jacoco.core.analysis.IPackageCoverage;
+import org.jacoco.core.analysis.ISourceNode;
+import org.jacoco.core.tools.ExecFileLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * In-process analysis of a raw {@code jacoco.exec} file.
+ *
+ * Reads the execution data with JaCoCo core and analyzes the compiled classes
+ * directly, so coverage is available right after {@code mvn test} without running
+ * {@code jacoco:report} and without writing or re-parsing the XML/HTML report.
+ * Counters are fed into a {@link CoverageIndex.Builder}, giving the same model
+ * as {@link JacocoXmlReader}.
+ */
+public final class JacocoExecAnalyzer {
+
+    private JacocoExecAnalyzer() {
+    }
+
+    /**
+     * Analyze {@code classesDir} against the execution data in {@code execPath}.
+     *
+     * @param execPath   path to jacoco.exec
+     * @param classesDir compiled classes the execution data was recorded for (target/classes)
+     */
+    public static CoverageIndex analyze(Path execPath, Path classesDir) throws IOException {
+        ExecFileLoader loader = new ExecFileLoader();
+        loader.load(execPath.toFile());
+
+        CoverageBuilder coverageBuilder = new CoverageBuilder();
+        if (Files.isDirectory(classesDir)) {
+            Analyzer analyzer = new Analyzer(loader.getExecutionDataStore(), coverageBuilder);
+            analyzer.analyzeAll(classesDir.toFile());
+        }
+        IBundleCoverage bundle = coverageBuilder.getBundle(classesDir.getFileName().toString());
+
+        CoverageIndex.Builder builder = new CoverageIndex.Builder();
+        for (ICoverageNode.CounterEntity entity : ICoverageNode.CounterEntity.values()) {
+            ICounter counter = bundle.getCounter(entity);
+            // Same as the XML report: empty counters are omitted
+            if (counter.getTotalCount() > 0) {
+                builder.addReportCounter(entity.name(), counter.getMissedCount(), counter.getCoveredCount());
+            }
+        }
+
+        List<IPackageCoverage> packages = new ArrayList<>(bundle.getPackages());
+        packages.sort(Comparator.comparing(IPackageCoverage::getName));
+        for (IPackageCoverage pkg : packages) {
+            builder.addPackage(pkg.getName());
+            List<IClassCoverage> classes = new ArrayList<>(pkg.getClasses());
+            classes.sort(Comparator.comparing(IClassCoverage::getName));
+            for (IClassCoverage cls : classes) {
+                addClass(builder, cls);
+            }
+        }
+        return builder.build();
+    }
+
+    private static void addClass(CoverageIndex.Builder builder, IClassCoverage cls) {
+        builder.beginClass(cls.getName(), cls.getSourceFileName());
+        for (ICoverageNode.CounterEntity entity : ICoverageNode.CounterEntity.values()) {
+            ICounter counter = cls.getCounter(entity);
+            builder.classCounter(entity.name(), counter.getMissedCount(), counter.getCoveredCount());
+        }
+        for (IMethodCoverage method : cls.getMethods()) {
+            int firstLine = method.getFirstLine();
+            builder.addMethod(method.getName(), method.getDesc(), firstLine == ISourceNode.UNKNOWN_LINE ? 0 : firstLine);
+            for (ICoverageNode.CounterEntity entity : ICoverageNode.CounterEntity.values()) {
+                ICounter counter = method.getCounter(entity);
+                builder.methodCounter(entity.name(), counter.getMissedCount(), counter.getCoveredCount());
+            }
+            builder.methodLines(lineBitmaps(method));
+        }
+    }
+
+    private static CoverageIndex.MethodLines lineBitmaps(IMethodCoverage method) {
+        BitSet lines = new BitSet();
+        BitSet coveredLines = new BitSet();
+        BitSet branchLines = new BitSet();
+        BitSet missedBranchLines = new BitSet();
+        if (method.getFirstLine() != ISourceNode.UNKNOWN_LINE) {
+            for (int nr = method.getFirstLine(); nr <= method.getLastLine(); nr++) {
+                ILine line = method.getLine(nr);
+                if (line.getInstructionCounter().getTotalCount() == 0) {
+                    continue;
+                }
+                lines.set(nr);
+                if (line.getInstructionCounter().getCoveredCount() > 0) {
+                    coveredLines.set(nr);
+                }
+                ICounter branches = line.getBranchCounter();
+                if (branches.getTotalCount() > 0) {
+                    branchLines.set(nr);
+                    if (branches.getMissedCount() > 0) {
+                        missedBranchLines.set(nr);
+                    }
+                }
+            }
+        }
+        return new CoverageIndex.MethodLines(lines, coveredLines, branchLines, missedBranchLines);
+    }
+}
@@ -0,0 +1,261 @@
+package com.codelogickeep.agent.ut.tools;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming (StAX) reader for JaCoCo XML reports.
+ *
+ * Unlike a DOM parse, the report is never materialized: package counters,
+ * session info and all {@code sourcefile} line data are skipped, and each class
+ * is handed to a visitor as soon as it has been read. Memory use is therefore
+ * bounded by the size of a single class entry, not the report.
+ *
+ * {@link #readAll(Path, ReportVisitor)} is used to build {@link CoverageIndex}.
+ */
+public final class JacocoXmlReader {
+
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private JacocoXmlReader() {
+    }
+
+    /**
+     * A single JaCoCo counter (INSTRUCTION, LINE, BRANCH, ...).
+     */
+    public record Counter(String type, long missed, long covered) {
+        public long total() {
+            return missed + covered;
+        }
+    }
+
+    /**
+     * Coverage of one method entry in the report.
+     */
+    public record MethodCoverage(String name, String desc, int line, List<Counter> counters) {
+        /**
+         * Coverage percentage for the given counter type.
+         * A missing or empty counter means fully covered / not applicable (100%).
+         */
+        public double coverage(String counterType) {
+            return JacocoXmlReader.coverage(counters, counterType);
+        }
+    }
+
+    /**
+     * Coverage of one class entry in the report (direct counters plus its methods).
+     */
+    public record ClassCoverage(String name, String sourceFileName, List<Counter> counters,
+                                List<MethodCoverage> methods) {
+        public double coverage(String counterType) {
+            return JacocoXmlReader.coverage(counters, counterType);
+        }
+    }
+
+    /**
+     * Callback for {@link #readAll(Path, ReportVisitor)}.
+     */
+    public interface ReportVisitor {
+        default void visitReportCounter(Counter counter) {
+        }
+
+        default void visitPackage(String name) {
+        }
+
+        /**
+         * Called once per class, after its methods and counters have been read.
+         */
+        default void visitClass(ClassCoverage classCoverage) {
+        }
+    }
+
+    /**
+     * Stream the whole report once. Package-level counters, session info and
+     * {@code sourcefile} line data are skipped.
+     */
+    public static void readAll(Path reportPath, ReportVisitor visitor) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(reportPath))) {
+            XMLStreamReader reader = FACTORY.createXMLStreamReader(in);
+            try {
+                if (!nextStartElement(reader)) {
+                    return;
+                }
+                readContainer(reader, visitor, true);
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to read JaCoCo report: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Read the children of {@code <report>} or {@code <group>}.
+     */
+    private static void readContainer(XMLStreamReader reader, ReportVisitor visitor, boolean root)
+            throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                return;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            String element = reader.getLocalName();
+            if ("group".equals(element)) {
+                readContainer(reader, visitor, false);
+            } else if ("package".equals(element)) {
+                visitor.visitPackage(reader.getAttributeValue(null, "name"));
+                readPackage(reader, visitor);
+            } else if (root && "counter".equals(element)) {
+                visitor.visitReportCounter(readCounter(reader));
+                skipElement(reader);
+            } else {
+                skipElement(reader);
+            }
+        }
+    }
+
+    private static void readPackage(XMLStreamReader reader, ReportVisitor visitor) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                return; // </package>
+            }
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            if ("class".equals(reader.getLocalName())) {
+                visitor.visitClass(readClass(reader, reader.getAttributeValue(null, "name")));
+            } else {
+                skipElement(reader);
+            }
+        }
+    }
+
+    private static ClassCoverage readClass(XMLStreamReader reader, String clsName) throws XMLStreamException {
+        String sourceFileName = reader.getAttributeValue(null, "sourcefilename");
+        List<Counter> counters = new ArrayList<>();
+        List<MethodCoverage> methods = new ArrayList<>();
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                break; // </class>
+            }
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            String element = reader.getLocalName();
+            if ("method".equals(element)) {
+                methods.add(readMethod(reader));
+            } else if ("counter".equals(element)) {
+                counters.add(readCounter(reader));
+                skipElement(reader);
+            } else {
+                skipElement(reader);
+            }
+        }
+        return new ClassCoverage(clsName, sourceFileName, counters, methods);
+    }
+
+    private static MethodCoverage readMethod(XMLStreamReader reader) throws XMLStreamException {
+        String name = reader.getAttributeValue(null, "name");
+        String desc = reader.getAttributeValue(null, "desc");
+        int line = parseInt(reader.getAttributeValue(null, "line"));
+        List<Counter> counters = new ArrayList<>();
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                break; // </method>
+            }
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if ("counter".equals(reader.getLocalName())) {
+                    counters.add(readCounter(reader));
+                }
+                skipElement(reader);
+            }
+        }
+        return new MethodCoverage(name, desc != null ? desc : "", line, counters);
+    }
+
+    private static Counter readCounter(XMLStreamReader reader) {
+        return new Counter(
+                reader.getAttributeValue(null, "type"),
+                parseLong(reader.getAttributeValue(null, "missed")),
+                parseLong(reader.getAttributeValue(null, "covered")));
+    }
+
+    /**
+     * Skip the current element (reader positioned on its START_ELEMENT) up to and
+     * including its END_ELEMENT.
+     */
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static boolean nextStartElement(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static double coverage(List<Counter> counters, String counterType) {
+        for (Counter counter : counters) {
+            if (counterType.equals(counter.type())) {
+                long total = counter.total();
+                return total == 0 ? 100.0 : (double) counter.covered() / total * 100;
+            }
+        }
+        return 100.0; // No counter means fully covered or not applicable
+    }
+
+    private static long parseLong(String value) {
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        return Long.parseLong(value);
+    }
+
+    private static int parseInt(String value) {
+        if (value == null || value.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        // JaCoCo reports declare a DOCTYPE (report.dtd) - never resolve it
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        return factory;
+    }
+}
@@ -9,12 +9,15 @@ import org.eclipse.lsp4j.launch.LSPLauncher;
 import org.eclipse.lsp4j.services.LanguageClient;
 import org.eclipse.lsp4j.services.LanguageServer;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * LSP 语法检查工具 - 使用 Eclipse JDT Language Server 进行完整语义检查
@@ -28,6 +31,7 @@ import java.util.stream.Collectors;
  * 使用方式：
  * - 需要 Eclipse JDT Language Server 安装在系统中
  * - 或者指定 jdt-language-server 路径
+ * - JDT LS 无法启动时回退到 javac + 缓存的测试 classpath
  */
 @Slf4j
 public class LspSyntaxCheckerTool implements AgentTool {
@@ -110,19 +114,21 @@ public class LspSyntaxCheckerTool implements AgentTool {
 
         log.info("Tool Input - checkSyntaxWithLsp: path={}", filePath);
 
+        Path path = resolvePath(filePath);
+
         if (!initialized) {
             // 尝试自动初始化
             if (projectRoot != null) {
                 String initResult = initializeLsp(projectRoot);
                 if (initResult.startsWith("ERROR")) {
-                    return initResult;
+                    String fallback = Files.exists(path) ? checkWithJavac(filePath, path, null) : null;
+                    return fallback != null ? fallback : initResult;
                 }
             } else {
                 return "ERROR: LSP not initialized. Call initializeLsp first or provide projectRoot.";
             }
         }
 
-        Path path = resolvePath(filePath);
         if (!Files.exists(path)) {
             return "ERROR: File not found: " + filePath;
         }
@@ -204,7 +210,8 @@ public class LspSyntaxCheckerTool implements AgentTool {
             if (projectRoot != null) {
                 String initResult = initializeLsp(projectRoot);
                 if (initResult.startsWith("ERROR")) {
-                    return initResult;
+                    String fallback = checkWithJavac(targetPath, resolvePath(targetPath), content);
+                    return fallback != null ? fallback : initResult;
                 }
             } else {
                 return "ERROR: LSP not initialized. Call initializeLsp first.";
@@ -431,6 +438,94 @@ public class LspSyntaxCheckerTool implements AgentTool {
                 diag.getMessage());
     }
 
+    /**
+     * JDT LS 不可用时的回退：用 javac 针对缓存的测试 classpath（见 {@link TestClasspath}）做语义检查，
+     * 诊断转换为 LSP 格式输出。classpath 无法解析或没有 JDK 编译器时返回 null。
+     *
+     * @param content 待检查的源码；null 表示检查文件本身
+     */
+    private String checkWithJavac(String displayPath, Path path, String content) {
+        javax.tools.JavaCompiler compiler = javax.tools.ToolProvider.getSystemJavaCompiler();
+        if (compiler == null || projectRoot == null) {
+            return null;
+        }
+        Path root = Paths.get(projectRoot).toAbsolutePath().normalize();
+        List<Path> dependencies = TestClasspath.dependencies(root);
+        if (dependencies == null) {
+            return null;
+        }
+
+        List<String> classpath = new ArrayList<>();
+        classpath.add(root.resolve("target/test-classes").toString());
+        classpath.add(root.resolve("target/classes").toString());
+        dependencies.forEach(d -> classpath.add(d.toString()));
+        String sourcepath = Stream.of("src/main/java", "src/test/java")
+                .map(root::resolve)
+                .filter(Files::isDirectory)
+                .map(Path::toString)
+                .collect(Collectors.joining(java.io.File.pathSeparator));
+
+        Path output = null;
+        javax.tools.DiagnosticCollector<javax.tools.JavaFileObject> collector = new javax.tools.DiagnosticCollector<>();
+        try (javax.tools.StandardJavaFileManager fileManager =
+                     compiler.getStandardFileManager(collector, Locale.ROOT, StandardCharsets.UTF_8)) {
+            output = Files.createTempDirectory("lsp-javac-");
+            List<String> options = new ArrayList<>(List.of("-proc:none", "-implicit:none", "-encoding", "UTF-8",
+                    "-d", output.toString(), "-classpath", String.join(java.io.File.pathSeparator, classpath)));
+            if (!sourcepath.isEmpty()) {
+                options.add("-sourcepath");
+                options.add(sourcepath);
+            }
+            javax.tools.JavaFileObject unit = content == null
+                    ? fileManager.getJavaFileObjects(path.toFile()).iterator().next()
+                    : new javax.tools.SimpleJavaFileObject(path.toUri(), javax.tools.JavaFileObject.Kind.SOURCE) {
+                        @Override
+                        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                            return content;
+                        }
+                    };
+            compiler.getTask(null, fileManager, collector, options, null, List.of(unit)).call();
+        } catch (IOException | RuntimeException e) {
+            log.warn("javac fallback check failed: {}", e.getMessage());
+            return null;
+        } finally {
+            deleteRecursively(output);
+        }
+
+        List<Diagnostic> diagnostics = new ArrayList<>();
+        for (javax.tools.Diagnostic<? extends javax.tools.JavaFileObject> d : collector.getDiagnostics()) {
+            if (d.getSource() == null || !d.getSource().toUri().equals(path.toUri())) {
+                continue; // 只报告被检查文件本身的问题
+            }
+            DiagnosticSeverity severity = switch (d.getKind()) {
+                case ERROR -> DiagnosticSeverity.Error;
+                case WARNING, MANDATORY_WARNING -> DiagnosticSeverity.Warning;
+                default -> null;
+            };
+            if (severity == null) {
+                continue;
+            }
+            Position start = new Position((int) Math.max(0, d.getLineNumber() - 1),
+                    (int) Math.max(0, d.getColumnNumber() - 1));
+            diagnostics.add(new Diagnostic(new Range(start, start), d.getMessage(Locale.ROOT), severity, "javac"));
+        }
+        log.info("JDT LS unavailable, checked {} with javac: {} diagnostics", displayPath, diagnostics.size());
+        return formatDiagnostics(displayPath, diagnostics);
+    }
+
+    private static void deleteRecursively(Path dir) {
+        if (dir == null) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        } catch (IOException e) {
+            log.debug("Failed to delete {}: {}", dir, e.getMessage());
+        }
+    }
+
     private Path resolvePath(String filePath) {
         Path path = Paths.get(filePath);
         if (!path.isAbsolute() && projectRoot != null) {
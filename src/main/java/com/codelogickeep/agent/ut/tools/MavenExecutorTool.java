@@ -19,7 +19,11 @@ import com.codelogickeep.agent.ut.framework.annotation.Tool;
 public class MavenExecutorTool implements AgentTool {
     private static final Logger log = LoggerFactory.getLogger(MavenExecutorTool.class);
     private static String cachedShell = null;
+    private static volatile Boolean mvndAvailable = null;
     private Path projectRoot = Paths.get(".").toAbsolutePath().normalize();
+    private String mavenDaemon = "auto";
+    private int outputTailLines = 200;
+    private volatile String guardedTestFile;
 
     /**
      * Set the project root directory where Maven commands will be executed.
@@ -35,6 +39,132 @@ public class MavenExecutorTool implements AgentTool {
         return projectRoot;
     }
 
+    /**
+     * Restrict the CompileGuard check to one test file (the class this tool set is working on).
+     * Concurrent batch workers each hold their own tool set; another worker's file that has not
+     * passed its syntax check yet must not block this worker's builds. {@code null} checks all files.
+     */
+    public void setGuardedTestFile(String testFilePath) {
+        this.guardedTestFile = testFilePath;
+    }
+
+    private CompileGuard.CompileCheckResult checkCompileGuard() {
+        String scope = guardedTestFile;
+        return scope != null
+                ? CompileGuard.getInstance().canCompile(scope)
+                : CompileGuard.getInstance().canCompile();
+    }
+
+    /**
+     * Warm build mode: "auto" uses the Maven daemon (mvnd) when it is on the PATH,
+     * "mvnd" always uses it, "off" always forks a cold mvn.
+     * mvnd keeps a build JVM with loaded plugins and cached project models alive
+     * between calls, so repeated test-compile/test runs skip JVM startup and model building.
+     */
+    public void setMavenDaemon(String mode) {
+        if (mode != null && !mode.isBlank()) {
+            this.mavenDaemon = mode.trim().toLowerCase();
+            log.info("MavenExecutorTool maven daemon mode: {} (executable: {})", mavenDaemon, mavenExecutable());
+        }
+    }
+
+    /**
+     * Number of trailing build output lines kept verbatim; older lines are dropped and
+     * only their [ERROR] lines, compiler diagnostics and test summaries are kept.
+     */
+    public void setOutputTailLines(int lines) {
+        if (lines > 0) {
+            this.outputTailLines = lines;
+        }
+    }
+
+    /**
+     * Maven executable used for all goals: "mvnd" or "mvn".
+     */
+    String mavenExecutable() {
+        return switch (mavenDaemon) {
+            case "mvnd", "on", "true" -> "mvnd";
+            case "off", "false", "none" -> "mvn";
+            default -> isMvndAvailable() ? "mvnd" : "mvn";
+        };
+    }
+
+    private static boolean isMvndAvailable() {
+        if (mvndAvailable == null) {
+            mvndAvailable = findOnPath("mvnd");
+            if (mvndAvailable) {
+                log.info("Maven daemon (mvnd) detected, builds will reuse a warm JVM.");
+            }
+        }
+        return mvndAvailable;
+    }
+
+    private static boolean findOnPath(String executable) {
+        String path = System.getenv("PATH");
+        if (path == null) {
+            return false;
+        }
+        String[] suffixes = isWindows() ? new String[] { ".cmd", ".exe", ".bat" } : new String[] { "" };
+        for (String dir : path.split(File.pathSeparator)) {
+            if (dir.isBlank()) {
+                continue;
+            }
+            for (String suffix : suffixes) {
+                File candidate = new File(dir, executable + suffix);
+                if (candidate.isFile() && candidate.canExecute()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isWindows() {
+        return System.getProperty("os.name").toLowerCase().contains("win");
+    }
+
+    /**
+     * Command prefix (shell wrapper on Windows plus the Maven executable).
+     */
+    private List<String> newMavenCommand() {
+        List<String> command = new ArrayList<>();
+        if (isWindows()) {
+            String shell = getShell();
+            command.add(shell);
+            command.add(shell.contains("powershell") || shell.contains("pwsh") ? "-Command" : "/c");
+        }
+        command.add(mavenExecutable());
+        return command;
+    }
+
+    /**
+     * 测试 classpath 缓存未命中（首次运行或 pom.xml 已变化）时，在本次构建中顺带执行
+     * dependency:build-classpath 填充缓存，避免额外的 Maven 调用。
+     * 必须在 clean 之后、会失败的阶段之前追加。
+     */
+    private boolean appendClasspathGoal(List<String> command) {
+        if (TestClasspath.isCached(projectRoot)) {
+            return false;
+        }
+        String shell = isWindows() ? getShell() : null;
+        boolean powershell = shell != null && (shell.contains("powershell") || shell.contains("pwsh"));
+        for (String arg : TestClasspath.resolveArguments()) {
+            command.add(powershell && arg.startsWith("-D") ? "\"" + arg + "\"" : arg);
+        }
+        return true;
+    }
+
+    private void collectClasspath(boolean filled, ExecutionResult result) {
+        if (!filled) {
+            return;
+        }
+        try {
+            TestClasspath.collect(projectRoot);
+        } catch (IOException e) {
+            log.warn("Failed to cache test classpath (exitCode={}): {}", result.exitCode(), e.getMessage());
+        }
+    }
+
     public record ExecutionResult(int exitCode, String stdOut, String stdErr) {
         // java.lang.ProcessBuilder
     }
@@ -44,8 +174,7 @@ public class MavenExecutorTool implements AgentTool {
             return cachedShell;
         }
 
-        boolean isWindows = System.getProperty("os.name").toLowerCase().contains("win");
-        if (!isWindows) {
+        if (!isWindows()) {
             cachedShell = "sh";
             return cachedShell;
         }
@@ -87,83 +216,63 @@ public class MavenExecutorTool implements AgentTool {
         log.info("Tool Input - compileProject");
 
         // 检查编译守卫
-        CompileGuard.CompileCheckResult checkResult = CompileGuard.getInstance().canCompile();
+        CompileGuard.CompileCheckResult checkResult = checkCompileGuard();
         if (!checkResult.canCompile()) {
             log.warn("Compile blocked by CompileGuard: {}", checkResult.blockReason());
             // 返回一个特殊的错误结果，而不是抛出异常
             return new ExecutionResult(-1, "", checkResult.blockReason());
         }
 
-        List<String> command = new ArrayList<>();
-        boolean isWindows = System.getProperty("os.name").toLowerCase().contains("win");
-        if (isWindows) {
-            String shell = getShell();
-            command.add(shell);
-            command.add(shell.contains("powershell") || shell.contains("pwsh") ? "-Command" : "/c");
-            command.add("mvn");
-        } else {
-            command.add("mvn");
-        }
+        List<String> command = newMavenCommand();
+        boolean fillClasspath = appendClasspathGoal(command);
 
         // Compile both src and test
         command.add("test-compile");
         command.add("-B");
 
         ExecutionResult result = executeCommand(command);
+        collectClasspath(fillClasspath, result);
         log.info("Tool Output - compileProject: exitCode={}", result.exitCode());
         return result;
     }
 
     private ExecutionResult executeCommand(List<String> command) throws IOException, InterruptedException {
-        ProcessBuilder pb = new ProcessBuilder(command);
-        pb.directory(projectRoot.toFile());
-        log.debug("Executing Maven in directory: {}", projectRoot);
-        Process process = pb.start();
-
-        // Use threads to read and print output in real-time
-        StringBuilder outBuilder = new StringBuilder();
-        StringBuilder errBuilder = new StringBuilder();
-
-        Thread outThread = new Thread(() -> {
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    System.out.println(line);
-                    outBuilder.append(line).append("\n");
+        // 同一项目的构建共享 target/ 目录，并发的批处理任务通过构建槽位串行执行
+        try (BuildSlots.Slot slot = BuildSlots.acquire()) {
+            ProcessBuilder pb = new ProcessBuilder(command);
+            pb.directory(projectRoot.toFile());
+            // Maven 在批处理模式下几乎所有输出都走 stdout，合并后只需一个读取线程
+            pb.redirectErrorStream(true);
+            log.debug("Executing Maven in directory: {}", projectRoot);
+            Process process = pb.start();
+
+            // 有界捕获：环形缓冲保留最后若干行，并提取 [ERROR]、编译诊断和测试汇总，堆占用与输出量无关
+            BuildOutputCapture capture = new BuildOutputCapture(outputTailLines);
+            Thread reader = Thread.ofVirtual().name("maven-output").start(() -> {
+                try (BufferedReader in = new BufferedReader(
+                        new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        System.out.println(line);
+                        capture.accept(line);
+                    }
+                } catch (IOException e) {
+                    log.error("Error reading Maven output", e);
                 }
-            } catch (IOException e) {
-                log.error("Error reading stdout", e);
-            }
-        });
-
-        Thread errThread = new Thread(() -> {
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    System.err.println(line);
-                    errBuilder.append(line).append("\n");
-                }
-            } catch (IOException e) {
-                log.error("Error reading stderr", e);
-            }
-        });
+            });
 
-        outThread.start();
-        errThread.start();
-
-        boolean finished = process.waitFor(5, TimeUnit.MINUTES);
-        outThread.join();
-        errThread.join();
+            boolean finished = process.waitFor(5, TimeUnit.MINUTES);
+            if (!finished) {
+                process.destroyForcibly();
+                reader.join();
+                throw new IOException("Maven execution timed out");
+            }
+            reader.join();
 
-        if (!finished) {
-            process.destroyForcibly();
-            throw new IOException("Maven execution timed out");
+            log.info("Tool Output - Command finished with exit code: {} ({} output lines{})", process.exitValue(),
+                    capture.totalLines(), capture.truncated() ? ", truncated" : "");
+            return new ExecutionResult(process.exitValue(), capture.render(), "");
         }
-
-        log.info("Tool Output - Command finished with exit code: {}", process.exitValue());
-        return new ExecutionResult(process.exitValue(), outBuilder.toString(), errBuilder.toString());
     }
 
     @Tool("Execute Maven tests for a specific class. Returns exit code and output.")
@@ -173,27 +282,18 @@ public class MavenExecutorTool implements AgentTool {
         log.info("Tool Input - executeTest: testClassName={}", testClassName);
 
         // 检查编译守卫 - Maven test 会先执行 test-compile
-        CompileGuard.CompileCheckResult checkResult = CompileGuard.getInstance().canCompile();
+        CompileGuard.CompileCheckResult checkResult = checkCompileGuard();
         if (!checkResult.canCompile()) {
             log.warn("Test blocked by CompileGuard: {}", checkResult.blockReason());
             return new ExecutionResult(-1, "", checkResult.blockReason());
         }
 
-        List<String> command = new ArrayList<>();
-        boolean isWindows = System.getProperty("os.name").toLowerCase().contains("win");
-        if (isWindows) {
-            String shell = getShell();
-            command.add(shell);
-            command.add(shell.contains("powershell") || shell.contains("pwsh") ? "-Command" : "/c");
-            command.add("mvn");
-        } else {
-            command.add("mvn");
-        }
+        List<String> command = newMavenCommand();
 
+        // 不再追加 jacoco:report：覆盖率直接从 target/jacoco.exec 在进程内分析（见 CoverageIndex.forModule）
         command.add("test");
-        command.add("jacoco:report"); // 生成覆盖率报告
         // Quote the test class name to prevent PowerShell from misinterpreting dots
-        String shell = isWindows ? getShell() : null;
+        String shell = isWindows() ? getShell() : null;
         if (shell != null && (shell.contains("powershell") || shell.contains("pwsh"))) {
             command.add("\"-Dtest=" + testClassName + "\"");
         } else {
@@ -211,30 +311,23 @@ public class MavenExecutorTool implements AgentTool {
         log.info("Tool Input - cleanAndTest");
 
         // 检查编译守卫 - Maven test 会先执行 test-compile
-        CompileGuard.CompileCheckResult checkResult = CompileGuard.getInstance().canCompile();
+        CompileGuard.CompileCheckResult checkResult = checkCompileGuard();
         if (!checkResult.canCompile()) {
             log.warn("Clean and test blocked by CompileGuard: {}", checkResult.blockReason());
             return new ExecutionResult(-1, "", checkResult.blockReason());
         }
 
-        List<String> command = new ArrayList<>();
-        boolean isWindows = System.getProperty("os.name").toLowerCase().contains("win");
-        if (isWindows) {
-            String shell = getShell();
-            command.add(shell);
-            command.add(shell.contains("powershell") || shell.contains("pwsh") ? "-Command" : "/c");
-            command.add("mvn");
-        } else {
-            command.add("mvn");
-        }
+        List<String> command = newMavenCommand();
 
         // Clean and test to generate fresh coverage data
         command.add("clean");
+        boolean fillClasspath = appendClasspathGoal(command);
         command.add("test");
         command.add("jacoco:report"); // 生成覆盖率报告
         command.add("-B"); 
 
         ExecutionResult result = executeCommand(command);
+        collectClasspath(fillClasspath, result);
         log.info("Tool Output - cleanAndTest: exitCode={}", result.exitCode());
         return result;
     }
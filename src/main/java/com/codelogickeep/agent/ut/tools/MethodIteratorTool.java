@@ -199,6 +199,10 @@ public class MethodIteratorTool implements AgentTool {
         result.append("FOCUS ON: ").append(current.getSignature()).append("\n");
         result.append("Priority: ").append(current.getPriority()).append("\n");
         result.append("Complexity: ").append(current.getComplexity()).append("\n");
+        double currentCoverage = lookupCurrentCoverage(current.getName());
+        if (currentCoverage >= 0) {
+            result.append("Current Line Coverage: ").append(String.format("%.1f%%", currentCoverage)).append("\n");
+        }
         result.append("─".repeat(50)).append("\n");
         result.append("⚠️ IGNORE previous method's test code. This is a NEW task.\n\n");
         result.append("Steps for THIS method ONLY:\n");
@@ -216,6 +220,20 @@ public class MethodIteratorTool implements AgentTool {
         return finalResult;
     }
 
+    /**
+     * Current line coverage of a method from the shared coverage index, or -1 if unknown
+     */
+    private double lookupCurrentCoverage(String methodName) {
+        if (coverageTool == null || targetModulePath == null || targetClassName == null) {
+            return -1.0;
+        }
+        try {
+            return coverageTool.getSingleMethodCoverageValue(targetModulePath, targetClassName, methodName);
+        } catch (IOException e) {
+            return -1.0;
+        }
+    }
+
     @Tool("Mark the current method as completed and record its status")
     public String completeCurrentMethod(
             @P("Status: PASS, FAIL, or SKIP") String status,
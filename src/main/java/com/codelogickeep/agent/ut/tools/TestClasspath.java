@@ -0,0 +1,342 @@
+package com.codelogickeep.agent.ut.tools;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Resolved test-scope dependency classpath of a Maven project.
+ *
+ * Resolved once for the whole reactor with a single {@code mvn dependency:build-classpath}
+ * and persisted under {@code <reactor>/.utagent/classpath/<pom-hash>/}, where the hash
+ * covers every pom.xml in the reactor. The cache is reused across sessions and by every
+ * tool that needs the classpath until any pom changes.
+ */
+public final class TestClasspath {
+    private static final Logger log = LoggerFactory.getLogger(TestClasspath.class);
+
+    private static final long RESOLVE_TIMEOUT_MINUTES = 5;
+    private static final String CACHE_DIR_NAME = ".utagent";
+    private static final String CLASSPATH_DIR_NAME = "classpath";
+    private static final String CLASSPATH_FILE_NAME = "test-classpath.txt";
+    /** Per-module output of dependency:build-classpath, relative to each module's basedir. */
+    static final String MODULE_OUTPUT = "target/ut-agent-classpath.txt";
+    private static final Set<String> SKIPPED_DIRS = Set.of("target", "node_modules", "build", "out");
+
+    private static final Map<Path, CachedClasspath> CACHE = new ConcurrentHashMap<>();
+    private static final Map<Path, PomSet> POMS = new ConcurrentHashMap<>();
+
+    private record CachedClasspath(String pomHash, List<Path> entries) {
+    }
+
+    /** pom.xml files of a reactor plus the mtime/size stamp the hash was computed from. */
+    private record PomSet(List<Path> poms, String stamp, String hash) {
+    }
+
+    private TestClasspath() {
+    }
+
+    /**
+     * Dependency jars/directories (test scope, excluding the project's own output
+     * directories), or {@code null} if the classpath could not be resolved.
+     */
+    public static List<Path> dependencies(Path projectRoot) {
+        Path root = projectRoot.toAbsolutePath().normalize();
+        if (!Files.isRegularFile(root.resolve("pom.xml"))) {
+            return null;
+        }
+        try {
+            Path reactor = reactorRoot(root);
+            String hash = pomHash(reactor);
+            CachedClasspath cached = CACHE.get(root);
+            if (cached != null && cached.pomHash().equals(hash)) {
+                return cached.entries();
+            }
+
+            Path file = cacheFile(reactor, hash, root);
+            if (!Files.isRegularFile(file)) {
+                if (!resolve(reactor)) {
+                    return null;
+                }
+                collect(reactor);
+                if (!Files.isRegularFile(file)) {
+                    log.warn("dependency:build-classpath produced no classpath for {}", root);
+                    return null;
+                }
+            }
+            List<Path> entries = parse(Files.readString(file, StandardCharsets.UTF_8));
+            CACHE.put(root, new CachedClasspath(hash, entries));
+            return entries;
+        } catch (IOException e) {
+            log.warn("Failed to resolve test classpath for {}: {}", root, e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * Whether the classpath of this module is cached for the current pom.xml contents.
+     */
+    public static boolean isCached(Path projectRoot) {
+        Path root = projectRoot.toAbsolutePath().normalize();
+        if (!Files.isRegularFile(root.resolve("pom.xml"))) {
+            return false;
+        }
+        try {
+            Path reactor = reactorRoot(root);
+            return Files.isRegularFile(cacheFile(reactor, pomHash(reactor), root));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Hash of all pom.xml files in the reactor containing {@code projectRoot}; changes exactly
+     * when the cached classpath becomes stale. {@code null} without a pom.xml.
+     */
+    public static String fingerprint(Path projectRoot) {
+        Path root = projectRoot.toAbsolutePath().normalize();
+        if (!Files.isRegularFile(root.resolve("pom.xml"))) {
+            return null;
+        }
+        try {
+            return pomHash(reactorRoot(root));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Maven arguments that make a build also write each module's test classpath, so callers
+     * already running Maven can fill the cache without a separate invocation
+     * (follow the build with {@link #collect(Path)}).
+     */
+    public static List<String> resolveArguments() {
+        return List.of("dependency:build-classpath",
+                "-Dmdep.outputFile=" + MODULE_OUTPUT,
+                "-Dmdep.includeScope=test");
+    }
+
+    /**
+     * Move the classpath files written by a build with {@link #resolveArguments()} into the
+     * cache of the reactor that contains {@code projectRoot}.
+     *
+     * @return number of modules stored
+     */
+    public static int collect(Path projectRoot) throws IOException {
+        Path root = projectRoot.toAbsolutePath().normalize();
+        Path reactor = reactorRoot(root);
+        String hash = pomHash(reactor);
+        Path hashDir = classpathDir(reactor).resolve(hash);
+        int stored = 0;
+        for (Path pom : pomSet(reactor).poms()) {
+            Path module = pom.getParent();
+            Path output = module.resolve(MODULE_OUTPUT);
+            if (!Files.isRegularFile(output)) {
+                continue;
+            }
+            Path target = cacheFile(reactor, hash, module);
+            Files.createDirectories(target.getParent());
+            Files.writeString(target, Files.readString(output, StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+            Files.deleteIfExists(output);
+            stored++;
+        }
+        if (stored > 0) {
+            pruneStale(reactor, hashDir);
+            log.info("Cached test classpath of {} module(s) under {}", stored, hashDir);
+        }
+        return stored;
+    }
+
+    /**
+     * Drop in-memory classpaths and pom hashes (mainly for tests). The on-disk cache is kept.
+     */
+    public static void clearCache() {
+        CACHE.clear();
+        POMS.clear();
+    }
+
+    static List<Path> parse(String classpath) {
+        List<Path> entries = new ArrayList<>();
+        for (String entry : classpath.trim().split(File.pathSeparator)) {
+            if (!entry.isBlank()) {
+                entries.add(Path.of(entry.trim()));
+            }
+        }
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Outermost directory above {@code root} that still has a pom.xml (the reactor root).
+     */
+    static Path reactorRoot(Path root) {
+        Path reactor = root;
+        Path parent = root.getParent();
+        while (parent != null && Files.isRegularFile(parent.resolve("pom.xml"))) {
+            reactor = parent;
+            parent = parent.getParent();
+        }
+        return reactor;
+    }
+
+    /**
+     * SHA-256 over the relative paths and contents of all pom.xml files in the reactor.
+     */
+    static String pomHash(Path reactor) throws IOException {
+        return pomSet(reactor).hash();
+    }
+
+    private static PomSet pomSet(Path reactor) throws IOException {
+        PomSet known = POMS.get(reactor);
+        if (known != null) {
+            String stamp = stamp(known.poms());
+            if (stamp != null && stamp.equals(known.stamp())) {
+                return known;
+            }
+        }
+        // 新增模块必然修改父 pom，所以只在已知 pom 变化时重新扫描
+        List<Path> poms = findPoms(reactor);
+        String stamp = stamp(poms);
+        PomSet current = new PomSet(poms, stamp, hash(reactor, poms));
+        POMS.put(reactor, current);
+        return current;
+    }
+
+    private static List<Path> findPoms(Path reactor) throws IOException {
+        List<Path> poms = new ArrayList<>();
+        Files.walkFileTree(reactor, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!dir.equals(reactor)) {
+                    String name = dir.getFileName().toString();
+                    if (name.startsWith(".") || SKIPPED_DIRS.contains(name)) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if ("pom.xml".equals(file.getFileName().toString())) {
+                    poms.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        poms.sort(Comparator.comparing(p -> reactor.relativize(p).toString().replace('\\', '/')));
+        return poms;
+    }
+
+    private static String stamp(List<Path> poms) {
+        StringBuilder sb = new StringBuilder();
+        for (Path pom : poms) {
+            try {
+                sb.append(Files.getLastModifiedTime(pom).toMillis()).append(':').append(Files.size(pom)).append(';');
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String hash(Path reactor, List<Path> poms) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Path pom : poms) {
+                digest.update(reactor.relativize(pom).toString().replace('\\', '/').getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(Files.readAllBytes(pom));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static Path classpathDir(Path reactor) {
+        return reactor.resolve(CACHE_DIR_NAME).resolve(CLASSPATH_DIR_NAME);
+    }
+
+    private static Path cacheFile(Path reactor, String hash, Path module) {
+        Path dir = classpathDir(reactor).resolve(hash);
+        Path relative = reactor.relativize(module);
+        if (!relative.toString().isEmpty()) {
+            dir = dir.resolve(relative);
+        }
+        return dir.resolve(CLASSPATH_FILE_NAME);
+    }
+
+    /**
+     * Remove classpaths cached for older pom contents.
+     */
+    private static void pruneStale(Path reactor, Path current) {
+        try (Stream<Path> dirs = Files.list(classpathDir(reactor))) {
+            for (Path dir : dirs.filter(d -> !d.equals(current)).toList()) {
+                try (Stream<Path> files = Files.walk(dir)) {
+                    for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                        Files.deleteIfExists(p);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Failed to prune stale classpath cache: {}", e.getMessage());
+        }
+    }
+
+    private static boolean resolve(Path reactor) throws IOException, InterruptedException {
+        long start = System.currentTimeMillis();
+        boolean isWindows = System.getProperty("os.name").toLowerCase().contains("win");
+        List<String> command = new ArrayList<>();
+        if (isWindows) {
+            command.add("cmd.exe");
+            command.add("/c");
+        }
+        command.add("mvn");
+        command.addAll(resolveArguments());
+        command.add("-q");
+        command.add("-B");
+
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.directory(reactor.toFile());
+        pb.redirectErrorStream(true);
+        pb.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        try (BuildSlots.Slot slot = BuildSlots.acquire()) {
+            Process process = pb.start();
+            if (!process.waitFor(RESOLVE_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+                process.destroyForcibly();
+                log.warn("Timed out resolving test classpath for {}", reactor);
+                return false;
+            }
+            if (process.exitValue() != 0) {
+                log.warn("dependency:build-classpath failed for {} (exit code {})", reactor, process.exitValue());
+                return false;
+            }
+        }
+        log.info("Resolved test classpath for reactor {} in {}ms", reactor, System.currentTimeMillis() - start);
+        return true;
+    }
+}
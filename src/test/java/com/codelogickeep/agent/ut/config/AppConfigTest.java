@@ -57,6 +57,21 @@ class AppConfigTest {
             assertEquals("https://api.openai.com", config.getLlm().getBaseUrl());
             assertEquals(0.7, config.getLlm().getTemperature());
             assertEquals(60L, config.getLlm().getTimeout());
+            assertTrue(config.getLlm().isHttp2());
+            assertEquals(16, config.getLlm().getMaxConnections());
+            assertEquals(300, config.getLlm().getKeepAliveSeconds());
+            assertEquals("virtual", config.getLlm().getHttpExecutor());
+            assertFalse(config.getLlm().isGzipRequests());
+            assertEquals("off", config.getLlm().getResponseCache());
+            assertNull(config.getLlm().getResponseCacheDir());
+            assertEquals(256, config.getLlm().getResponseCacheMaxMb());
+            assertEquals(20000, config.getLlm().getResponseCacheMaxEntries());
+            assertTrue(config.getLlm().isPromptCaching());
+            assertEquals(0, config.getLlm().getRequestsPerMinute());
+            assertEquals(0, config.getLlm().getTokensPerMinute());
+            assertEquals(5, config.getLlm().getRateLimitRetries());
+            assertEquals(0, config.getLlm().getMaxContextTokens());
+            assertTrue(config.getLlm().isStreamUsage());
         }
 
         @Test
@@ -117,6 +132,23 @@ class AppConfigTest {
             assertEquals("**/test/**", config.getBatch().getExcludePatterns());
             assertTrue(config.getBatch().isDryRun());
         }
+
+        @Test
+        @DisplayName("should parse budget config")
+        void shouldParseBudgetConfig() throws Exception {
+            String yaml = """
+                    budget:
+                      max-tokens: 2000000
+                      max-minutes: 180
+                      conserve-at: 0.9
+                    """;
+
+            AppConfig config = mapper.readValue(yaml, AppConfig.class);
+
+            assertEquals(2_000_000, config.getBudget().getMaxTokens());
+            assertEquals(180, config.getBudget().getMaxMinutes());
+            assertEquals(0.9, config.getBudget().getConserveAt());
+        }
     }
 
     @Nested
@@ -209,6 +241,15 @@ class AppConfigTest {
             assertFalse(workflow.isSkipLowPriority());
             assertEquals(3, workflow.getMaxStaleIterations());
             assertEquals(1, workflow.getMinCoverageGain());
+            assertEquals("auto", workflow.getMavenDaemon());
+            assertTrue(workflow.isInProcessCompile());
+            assertFalse(workflow.isForkedTestRunner());
+            assertTrue(workflow.isVerificationMemo());
+            assertFalse(workflow.isSpeculativeVerification());
+            assertEquals(200, workflow.getBuildOutputTailLines());
+            assertEquals(1, workflow.getParallelMethods());
+            assertEquals("gain", workflow.getWorkOrder());
+            assertEquals(16000, workflow.getToolOutputSpillChars());
         }
 
         @Test
@@ -229,6 +270,20 @@ class AppConfigTest {
 
             assertNull(batch.getExcludePatterns());
             assertFalse(batch.isDryRun());
+            assertEquals(1, batch.getConcurrency());
+            assertEquals(1, batch.getBuildSlots());
+        }
+
+        @Test
+        @DisplayName("BudgetConfig should have correct defaults")
+        void budgetConfigShouldHaveCorrectDefaults() {
+            AppConfig.BudgetConfig budget = new AppConfig.BudgetConfig();
+
+            assertEquals(0, budget.getMaxTokens());
+            assertEquals(0, budget.getMaxMinutes());
+            assertEquals(0, budget.getMaxTokensPerClass());
+            assertEquals(0, budget.getMaxTokensPerMethod());
+            assertEquals(0.8, budget.getConserveAt());
         }
     }
 
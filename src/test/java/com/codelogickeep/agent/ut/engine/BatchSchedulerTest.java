@@ -0,0 +1,73 @@
+package com.codelogickeep.agent.ut.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchSchedulerTest {
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    @Test
+    @DisplayName("Runs every task with at most the configured number in flight")
+    void testBoundedConcurrency() {
+        BatchScheduler scheduler = new BatchScheduler(3, new PrintStream(output));
+        scheduler.setProgressIntervalMs(0);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Set<Integer> done = ConcurrentHashMap.newKeySet();
+
+        BatchScheduler.Summary summary = scheduler.run(List.of(1, 2, 3, 4, 5, 6, 7, 8), String::valueOf, task -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            running.decrementAndGet();
+            done.add(task);
+        });
+
+        assertEquals(8, summary.completed());
+        assertEquals(0, summary.failed());
+        assertEquals(Set.of(1, 2, 3, 4, 5, 6, 7, 8), done);
+        assertTrue(maxRunning.get() <= 3);
+        assertTrue(maxRunning.get() > 1);
+    }
+
+    @Test
+    @DisplayName("A failing task is counted without stopping the others")
+    void testFailureIsIsolated() {
+        BatchScheduler scheduler = new BatchScheduler(2, new PrintStream(output));
+        scheduler.setProgressIntervalMs(0);
+
+        BatchScheduler.Summary summary = scheduler.run(List.of("a", "boom", "c"), s -> s, task -> {
+            if (task.equals("boom")) {
+                throw new IllegalStateException("LLM unavailable");
+            }
+        });
+
+        assertEquals(2, summary.completed());
+        assertEquals(1, summary.failed());
+        assertTrue(output.toString().contains("Error: LLM unavailable"));
+    }
+
+    @Test
+    @DisplayName("Progress line shows counts and what each worker is doing")
+    void testFormatProgress() {
+        BatchScheduler.Progress progress = new BatchScheduler.Progress(40, 11, 1, List.of(
+                new BatchScheduler.WorkerStatus(1, "src/main/java/com/example/FooService.java", 13,
+                        System.currentTimeMillis() - 65_000),
+                new BatchScheduler.WorkerStatus(2, null, 0, 0)));
+
+        String line = BatchScheduler.formatProgress(progress);
+
+        assertTrue(line.startsWith("[batch] 12/40 done (1 failed)"));
+        assertTrue(line.contains("w1: FooService 1m0"));
+        assertTrue(line.contains("w2: idle"));
+    }
+}
@@ -0,0 +1,125 @@
+package com.codelogickeep.agent.ut.engine;
+
+import com.codelogickeep.agent.ut.framework.model.IterationStats;
+import com.codelogickeep.agent.ut.model.TestTask;
+import com.codelogickeep.agent.ut.model.UncoveredMethod;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RunJournalTest {
+
+    @TempDir
+    Path projectRoot;
+
+    @Test
+    @DisplayName("Saved analysis is reused when the run is reopened")
+    void testTasksRoundTrip() throws IOException {
+        RunJournal journal = RunJournal.create(projectRoot.toString());
+        journal.saveTasks(List.of(TestTask.builder()
+                .sourceFilePath("src/main/java/com/example/Foo.java")
+                .className("com.example.Foo")
+                .currentCoverage(40)
+                .uncoveredMethods(List.of(UncoveredMethod.builder().methodName("add").signature("add(int, int)")
+                        .lineCoverage(10).build()))
+                .build()));
+
+        List<TestTask> tasks = RunJournal.open(projectRoot.toString(), journal.getId()).loadTasks();
+
+        assertEquals(1, tasks.size());
+        assertEquals("com.example.Foo", tasks.get(0).getClassName());
+        assertEquals("add(int, int)", tasks.get(0).getUncoveredMethods().get(0).getSignature());
+    }
+
+    @Test
+    @DisplayName("Completed classes and methods are restored from the journal")
+    void testReplayOutcomes() throws IOException {
+        RunJournal journal = RunJournal.create(projectRoot.toString());
+        journal.classStarted("Foo.java");
+        journal.methodFinished("Foo.java", method("add", "SUCCESS"));
+        journal.methodFinished("Foo.java", method("sub", "FAILED"));
+        journal.classStarted("Bar.java");
+        journal.classFinished("Bar.java", true, null);
+        journal.classStarted("Baz.java");
+        journal.classFinished("Baz.java", false, "boom");
+
+        RunJournal resumed = RunJournal.open(projectRoot.toString(), journal.getId());
+
+        assertTrue(resumed.isClassCompleted("Bar.java"));
+        assertFalse(resumed.isClassCompleted("Foo.java"));
+        assertFalse(resumed.isClassCompleted("Baz.java"));
+        assertEquals(Set.of("add"), resumed.completedMethods("Foo.java"));
+        assertNull(resumed.loadTasks());
+    }
+
+    @Test
+    @DisplayName("A class with budget-skipped methods is not completed and runs again on resume")
+    void testBudgetSkippedClassStaysResumable() throws IOException {
+        RunJournal journal = RunJournal.create(projectRoot.toString());
+        journal.classStarted("Foo.java");
+        journal.methodFinished("Foo.java", method("add", "SUCCESS"));
+        journal.methodFinished("Foo.java", method("sub", "BUDGET_SKIPPED"));
+        journal.classFinished("Foo.java", true, null);
+
+        assertFalse(journal.isClassCompleted("Foo.java"));
+        RunJournal resumed = RunJournal.open(projectRoot.toString(), journal.getId());
+        assertFalse(resumed.isClassCompleted("Foo.java"));
+        assertEquals(Set.of("add"), resumed.completedMethods("Foo.java"));
+
+        // The resumed attempt finishes the remaining method
+        resumed.classStarted("Foo.java");
+        resumed.methodFinished("Foo.java", method("sub", "SUCCESS"));
+        resumed.classFinished("Foo.java", true, null);
+        assertTrue(RunJournal.open(projectRoot.toString(), journal.getId()).isClassCompleted("Foo.java"));
+    }
+
+    @Test
+    @DisplayName("A class reported incomplete is not completed on resume")
+    void testIncompleteClass() throws IOException {
+        RunJournal journal = RunJournal.create(projectRoot.toString());
+        journal.classStarted("Foo.java");
+        journal.methodFinished("Foo.java", method("add", "PARTIAL"));
+        journal.classIncomplete("Foo.java", "Class budget exhausted");
+
+        RunJournal resumed = RunJournal.open(projectRoot.toString(), journal.getId());
+
+        assertFalse(resumed.isClassCompleted("Foo.java"));
+        assertTrue(Files.readString(journal.getDirectory().resolve(RunJournal.JOURNAL_FILE))
+                .contains("\"status\":\"INCOMPLETE\""));
+    }
+
+    @Test
+    @DisplayName("A torn last line from a crash is ignored")
+    void testTornLineIgnored() throws IOException {
+        RunJournal journal = RunJournal.create(projectRoot.toString());
+        journal.classFinished("Bar.java", true, null);
+        Files.writeString(journal.getDirectory().resolve(RunJournal.JOURNAL_FILE), "{\"type\":\"class-e",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        RunJournal resumed = RunJournal.open(projectRoot.toString(), journal.getId());
+
+        assertTrue(resumed.isClassCompleted("Bar.java"));
+    }
+
+    @Test
+    @DisplayName("Opening an unknown run fails")
+    void testUnknownRun() {
+        assertThrows(IOException.class, () -> RunJournal.open(projectRoot.toString(), "missing"));
+    }
+
+    private static IterationStats.MethodStats method(String name, String status) {
+        IterationStats.MethodStats stats = new IterationStats.MethodStats(name, "P0");
+        stats.complete(status, 50);
+        return stats;
+    }
+}
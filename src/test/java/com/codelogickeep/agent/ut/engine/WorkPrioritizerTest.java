@@ -0,0 +1,153 @@
+package com.codelogickeep.agent.ut.engine;
+
+import com.codelogickeep.agent.ut.config.AppConfig;
+import com.codelogickeep.agent.ut.framework.model.IterationStats;
+import com.codelogickeep.agent.ut.model.MethodCoverageInfo;
+import com.codelogickeep.agent.ut.model.TestTask;
+import com.codelogickeep.agent.ut.model.UncoveredMethod;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkPrioritizerTest {
+
+    private static final String SOURCE = """
+            package com.example;
+
+            public class Calc {
+                public int id() {
+                    return 1;
+                }
+
+                public int classify(int a, int b) {
+                    int result = 0;
+                    if (a > b) {
+                        result = a - b;
+                    } else if (a < b) {
+                        result = b - a;
+                    }
+                    for (int i = 0; i < a; i++) {
+                        result += i;
+                        result *= 2;
+                        result -= b;
+                    }
+                    while (result > 1000) {
+                        result /= 3;
+                    }
+                    return result;
+                }
+
+                public int classify(int a) {
+                    return a;
+                }
+            }
+            """;
+
+    @TempDir
+    Path projectRoot;
+
+    private String sourceFile;
+    private WorkPrioritizer prioritizer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path file = projectRoot.resolve("src/main/java/com/example/Calc.java");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, SOURCE);
+        sourceFile = file.toString();
+        prioritizer = new WorkPrioritizer(projectRoot.toString());
+    }
+
+    @Test
+    @DisplayName("Methods with more uncovered code per token come first")
+    void testOrderMethodsByGainPerToken() {
+        MethodCoverageInfo id = new MethodCoverageInfo("id()", "P0", 0, 0);
+        MethodCoverageInfo classify = new MethodCoverageInfo("classify(2 params)", "P1", 10, 0);
+
+        List<MethodCoverageInfo> ordered = prioritizer.orderMethods(sourceFile, "com.example.Calc",
+                List.of(id, classify));
+
+        assertSame(classify, ordered.get(0));
+        assertSame(id, ordered.get(1));
+    }
+
+    @Test
+    @DisplayName("Overloads are matched by parameter count")
+    void testFindSourceMatchesOverload() {
+        Map<String, List<WorkPrioritizer.MethodSource>> sources = prioritizer.parseSource(sourceFile);
+
+        assertEquals(2, WorkPrioritizer.findSource(sources, "classify(2 params)").params());
+        assertEquals(1, WorkPrioritizer.findSource(sources, "classify(int)").params());
+        assertTrue(WorkPrioritizer.findSource(sources, "classify(int, int)").complexity() > 4);
+        assertNull(WorkPrioritizer.findSource(sources, "missing()"));
+    }
+
+    @Test
+    @DisplayName("Cost model is refit from the tokens spent on finished methods")
+    void testRecordRefitsCostModel() {
+        prioritizer.orderMethods(sourceFile, "com.example.Calc", List.of(
+                new MethodCoverageInfo("id()", "P0", 0, 0),
+                new MethodCoverageInfo("classify(2 params)", "P0", 0, 0),
+                new MethodCoverageInfo("classify(1 params)", "P0", 0, 0)));
+        double before = prioritizer.predictTokens(100);
+
+        prioritizer.record(sourceFile, finished("id()", 1000));
+        prioritizer.record(sourceFile, finished("classify(2 params)", 4000));
+        prioritizer.record(sourceFile, finished("classify(1 params)", 1200));
+        IterationStats.MethodStats skipped = finished("id()", 50_000);
+        skipped.markSkipped("Coverage already met");
+        prioritizer.record(sourceFile, skipped);
+
+        double after = prioritizer.predictTokens(100);
+        assertNotEquals(before, after);
+        assertTrue(after < before, "observed costs are far below the defaults");
+        assertTrue(prioritizer.predictTokens(200) > after, "larger methods still cost more");
+    }
+
+    @Test
+    @DisplayName("Classes are ordered by expected gain per token")
+    void testOrderTasks() {
+        TestTask small = TestTask.builder().sourceFilePath(sourceFile).className("com.example.Calc")
+                .uncoveredMethods(List.of(UncoveredMethod.builder().methodName("id").signature("id()").build()))
+                .build();
+        TestTask large = TestTask.builder().sourceFilePath(sourceFile).className("com.example.Calc")
+                .uncoveredMethods(List.of(UncoveredMethod.builder().methodName("classify")
+                        .signature("classify(2 params)").build()))
+                .build();
+
+        List<TestTask> ordered = prioritizer.orderTasks(List.of(small, large));
+
+        assertSame(large, ordered.get(0));
+        assertTrue(prioritizer.estimateTask(large).score() > prioritizer.estimateTask(small).score());
+    }
+
+    private static IterationStats.MethodStats finished(String name, int tokens) {
+        IterationStats.MethodStats stats = new IterationStats.MethodStats(name, "P0");
+        stats.addPromptTokens(tokens);
+        stats.complete("SUCCESS", 90);
+        return stats;
+    }
+
+    @Test
+    @DisplayName("workOrder should default to gain without a workflow section or key")
+    void testWorkOrderDefaults() {
+        AppConfig config = new AppConfig();
+        assertEquals("gain", WorkPrioritizer.workOrder(config));
+
+        config.setWorkflow(new AppConfig.WorkflowConfig());
+        config.getWorkflow().setWorkOrder(null);
+        assertEquals("gain", WorkPrioritizer.workOrder(config));
+
+        config.getWorkflow().setWorkOrder("coverage");
+        assertEquals("coverage", WorkPrioritizer.workOrder(config));
+    }
+}
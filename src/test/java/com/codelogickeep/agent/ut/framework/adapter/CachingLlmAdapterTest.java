@@ -0,0 +1,179 @@
+package com.codelogickeep.agent.ut.framework.adapter;
+
+import com.codelogickeep.agent.ut.framework.executor.StreamingHandler;
+import com.codelogickeep.agent.ut.framework.model.AssistantMessage;
+import com.codelogickeep.agent.ut.framework.model.Message;
+import com.codelogickeep.agent.ut.framework.model.ToolCall;
+import com.codelogickeep.agent.ut.framework.model.ToolDefinition;
+import com.codelogickeep.agent.ut.framework.model.UserMessage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CachingLlmAdapter Tests")
+class CachingLlmAdapterTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * 记录调用次数的假适配器，返回带工具调用的响应
+     */
+    private static class CountingAdapter implements LlmAdapter {
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public AssistantMessage chat(List<Message> messages, List<ToolDefinition> tools) {
+            calls.incrementAndGet();
+            return AssistantMessage.withToolCalls("thinking",
+                    List.of(ToolCall.withId("call_1", "writeFile", Map.of("path", "A.java", "lines", 3))));
+        }
+
+        @Override
+        public void chatStream(List<Message> messages, List<ToolDefinition> tools, StreamingHandler handler) {
+            AssistantMessage response = chat(messages, tools);
+            handler.onToken("think");
+            handler.onToken("ing");
+            response.toolCalls().forEach(handler::onToolCall);
+            handler.onComplete(response.content(), response.toolCalls());
+        }
+
+        @Override
+        public String getName() {
+            return "counting";
+        }
+    }
+
+    private static class RecordingHandler implements StreamingHandler {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onToken(String token) {
+            events.add("token");
+        }
+
+        @Override
+        public void onToolCall(ToolCall toolCall) {
+            events.add("tool:" + toolCall.id() + ":" + toolCall.arguments());
+        }
+
+        @Override
+        public void onComplete(String fullContent, List<ToolCall> toolCalls) {
+            events.add("complete:" + fullContent + ":" + toolCalls.size());
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            events.add("error:" + error.getMessage());
+        }
+    }
+
+    @Test
+    @DisplayName("Identical requests should be served from cache, also after reopening")
+    void shouldReuseResponsesAcrossInstances() throws Exception {
+        CountingAdapter delegate = new CountingAdapter();
+        List<Message> messages = List.of(new UserMessage("write a test"));
+        ResponseCache cache = ResponseCache.open(tempDir.resolve("a"), 1 << 20, 100);
+        CachingLlmAdapter adapter = new CachingLlmAdapter(delegate, cache, "m", 0.0, false);
+
+        RecordingHandler live = new RecordingHandler();
+        adapter.chatStream(messages, List.of(), live);
+        RecordingHandler cached = new RecordingHandler();
+        adapter.chatStream(messages, List.of(), cached);
+        AssistantMessage sync = adapter.chat(messages, List.of());
+
+        assertEquals(1, delegate.calls.get());
+        assertEquals("complete:thinking:1", cached.events.get(cached.events.size() - 1));
+        assertTrue(cached.events.contains("tool:call_1:" + Map.of("path", "A.java", "lines", 3)));
+        assertEquals("thinking", sync.content());
+
+        assertSame(cache, ResponseCache.open(tempDir.resolve("a").resolve("."), 1 << 20, 100));
+
+        // 模拟下一次运行：从文件加载（末尾是崩溃时写了一半的行）
+        Files.writeString(tempDir.resolve("a").resolve(ResponseCache.CACHE_FILE), "{\"k\":\"torn",
+                StandardCharsets.UTF_8, java.nio.file.StandardOpenOption.APPEND);
+        Files.copy(tempDir.resolve("a").resolve(ResponseCache.CACHE_FILE),
+                Files.createDirectories(tempDir.resolve("b")).resolve(ResponseCache.CACHE_FILE));
+        CachingLlmAdapter replay = new CachingLlmAdapter(new CountingAdapter(),
+                ResponseCache.open(tempDir.resolve("b"), 1 << 20, 100), "m", 0.0, true);
+        assertEquals("thinking", replay.chat(messages, List.of()).content());
+    }
+
+    @Test
+    @DisplayName("A cancelled round should stop the delegate stream and not be cached")
+    void shouldPassCancellationToDelegate() {
+        AtomicBoolean delegateSawCancel = new AtomicBoolean();
+        LlmAdapter delegate = new CountingAdapter() {
+            @Override
+            public void chatStream(List<Message> messages, List<ToolDefinition> tools, StreamingHandler handler) {
+                handler.onToken("partial");
+                delegateSawCancel.set(handler.isCancelled());
+                // 适配器放弃读取后的残留回调不应写入缓存
+                handler.onComplete("partial", List.of());
+            }
+        };
+        ResponseCache cache = ResponseCache.open(tempDir.resolve("cancel"), 1 << 20, 100);
+        CachingLlmAdapter adapter = new CachingLlmAdapter(delegate, cache, "m", 0.0, false);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        RecordingHandler handler = new RecordingHandler() {
+            @Override
+            public void onToken(String token) {
+                super.onToken(token);
+                cancelled.set(true);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return cancelled.get();
+            }
+        };
+
+        adapter.chatStream(List.of(new UserMessage("write a test")), List.of(), handler);
+
+        assertTrue(delegateSawCancel.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("Replay mode should report misses without calling the API")
+    void shouldFailOnMissInReplayMode() {
+        CountingAdapter delegate = new CountingAdapter();
+        CachingLlmAdapter adapter = new CachingLlmAdapter(delegate,
+                ResponseCache.open(tempDir.resolve("replay"), 1 << 20, 100), "m", 0.0, true);
+
+        RecordingHandler handler = new RecordingHandler();
+        adapter.chatStream(List.of(new UserMessage("hi")), List.of(), handler);
+
+        assertEquals(0, delegate.calls.get());
+        assertEquals(1, handler.events.size());
+        assertTrue(handler.events.get(0).startsWith("error:Response cache miss"));
+        assertThrows(IllegalStateException.class, () -> adapter.chat(List.of(new UserMessage("hi")), List.of()));
+    }
+
+    @Test
+    @DisplayName("Least recently used entries should be evicted over the entry cap")
+    void shouldEvictLeastRecentlyUsed() {
+        ResponseCache cache = ResponseCache.open(tempDir.resolve("lru"), 1 << 20, 2);
+
+        cache.put("a", AssistantMessage.text("A"));
+        cache.put("b", AssistantMessage.text("B"));
+        assertNotNull(cache.get("a"));
+        cache.put("c", AssistantMessage.text("C"));
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+    }
+}
@@ -0,0 +1,77 @@
+package com.codelogickeep.agent.ut.framework.adapter;
+
+import com.codelogickeep.agent.ut.framework.model.AssistantMessage;
+import com.codelogickeep.agent.ut.framework.model.Message;
+import com.codelogickeep.agent.ut.framework.model.SystemMessage;
+import com.codelogickeep.agent.ut.framework.model.TokenUsage;
+import com.codelogickeep.agent.ut.framework.model.ToolCall;
+import com.codelogickeep.agent.ut.framework.model.ToolDefinition;
+import com.codelogickeep.agent.ut.framework.model.ToolMessage;
+import com.codelogickeep.agent.ut.framework.model.UserMessage;
+import com.codelogickeep.agent.ut.framework.util.JsonUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ClaudeAdapter Tests")
+class ClaudeAdapterTest {
+
+    private final List<Message> conversation = List.of(
+            new SystemMessage("You write JUnit tests."),
+            new UserMessage("Test Foo#bar"),
+            AssistantMessage.toolCallsOnly(List.of(ToolCall.withId("t1", "readFile", Map.of("path", "Foo.java")))),
+            ToolMessage.of("t1", "readFile", "class Foo {}"),
+            AssistantMessage.text("Done"),
+            new UserMessage("Now Foo#baz"));
+
+    private final List<ToolDefinition> tools = List.of(
+            ToolDefinition.of("readFile", "Read a file", ToolDefinition.ParameterSchema.empty()),
+            ToolDefinition.of("writeFile", "Write a file", ToolDefinition.ParameterSchema.empty()));
+
+    private static ClaudeAdapter adapter(boolean promptCaching) {
+        return ClaudeAdapter.builder().apiKey("key").promptCaching(promptCaching).build();
+    }
+
+    @Test
+    @DisplayName("Prompt caching should mark system, tools and the last two user turns")
+    void shouldSetCacheBreakpoints() throws Exception {
+        JsonNode request = JsonUtil.parse(adapter(true).buildClaudeRequest(conversation, tools, true));
+
+        assertEquals("ephemeral", request.at("/system/0/cache_control/type").asText());
+        assertTrue(request.at("/tools/0/cache_control").isMissingNode());
+        assertEquals("ephemeral", request.at("/tools/1/cache_control/type").asText());
+
+        JsonNode messages = request.get("messages");
+        assertTrue(messages.at("/0/content").isTextual(), "older user turns stay untouched");
+        assertEquals("ephemeral", messages.at("/2/content/0/cache_control/type").asText());
+        assertEquals("Now Foo#baz", messages.at("/4/content/0/text").asText());
+        assertEquals("ephemeral", messages.at("/4/content/0/cache_control/type").asText());
+        assertEquals(4, request.findValues("cache_control").size());
+    }
+
+    @Test
+    @DisplayName("Without prompt caching the request should have no cache_control")
+    void shouldNotMarkWhenDisabled() throws Exception {
+        JsonNode request = JsonUtil.parse(adapter(false).buildClaudeRequest(conversation, tools, false));
+
+        assertTrue(request.get("system").isTextual());
+        assertTrue(request.findValues("cache_control").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Usage should include cache read and write tokens")
+    void shouldParseUsage() throws Exception {
+        TokenUsage usage = ClaudeAdapter.parseUsage(JsonUtil.parse(
+                "{\"input_tokens\":50,\"output_tokens\":20,\"cache_read_input_tokens\":3000,"
+                        + "\"cache_creation_input_tokens\":400}"));
+
+        assertEquals(new TokenUsage(50, 20, 3000, 400), usage);
+        assertEquals(3450, usage.totalInputTokens());
+        assertEquals(TokenUsage.EMPTY, ClaudeAdapter.parseUsage(null));
+    }
+}
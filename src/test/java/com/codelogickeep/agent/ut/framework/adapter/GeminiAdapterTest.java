@@ -0,0 +1,23 @@
+package com.codelogickeep.agent.ut.framework.adapter;
+
+import com.codelogickeep.agent.ut.framework.model.TokenUsage;
+import com.codelogickeep.agent.ut.framework.util.JsonUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("GeminiAdapter Tests")
+class GeminiAdapterTest {
+
+    @Test
+    @DisplayName("Gemini usage should count thinking tokens as output")
+    void shouldParseUsage() throws Exception {
+        TokenUsage usage = GeminiAdapter.parseUsage(JsonUtil.parse(
+                "{\"promptTokenCount\":1200,\"candidatesTokenCount\":80,\"thoughtsTokenCount\":300,"
+                        + "\"cachedContentTokenCount\":1000}"));
+
+        assertEquals(new TokenUsage(200, 380, 1000, 0), usage);
+        assertEquals(1200, usage.totalInputTokens());
+    }
+}
@@ -0,0 +1,87 @@
+package com.codelogickeep.agent.ut.framework.adapter;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("LlmHttpClient Tests")
+class LlmHttpClientTest {
+
+    private HttpServer server;
+    private String endpoint;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        // 回显请求体（gzip 时先解压），并附带是否压缩
+        server.createContext("/echo", exchange -> {
+            boolean gzip = "gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"));
+            InputStream in = gzip ? new GZIPInputStream(exchange.getRequestBody()) : exchange.getRequestBody();
+            byte[] body = in.readAllBytes();
+            exchange.getResponseHeaders().add("X-Gzip", String.valueOf(gzip));
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        endpoint = "http://127.0.0.1:" + server.getAddress().getPort() + "/echo";
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("Same settings should share one client")
+    void shouldShareClientPerSettings() {
+        LlmHttpClient.Settings settings = new LlmHttpClient.Settings(true, 3, 60, true, false);
+
+        assertSame(LlmHttpClient.shared(settings), LlmHttpClient.shared(
+                new LlmHttpClient.Settings(true, 3, 60, true, false)));
+        assertNotSame(LlmHttpClient.shared(settings), LlmHttpClient.shared(
+                new LlmHttpClient.Settings(true, 3, 60, true, true)));
+    }
+
+    @Test
+    @DisplayName("Large request bodies should be gzipped when enabled")
+    void shouldGzipLargeBodies() throws Exception {
+        LlmHttpClient client = LlmHttpClient.shared(new LlmHttpClient.Settings(false, 2, 60, true, true));
+        String large = "{\"text\":\"" + "x".repeat(LlmHttpClient.GZIP_MIN_BYTES) + "\"}";
+
+        HttpResponse<String> big = client.send(client.newPost(endpoint, large).build(), null);
+        HttpResponse<String> small = client.send(client.newPost(endpoint, "{}").build(), null);
+
+        assertEquals(large, big.body());
+        assertEquals("true", big.headers().firstValue("X-Gzip").orElse(null));
+        assertEquals("{}", small.body());
+        assertEquals("false", small.headers().firstValue("X-Gzip").orElse(null));
+    }
+
+    @Test
+    @DisplayName("Streaming responses should release their permit on EOF or close")
+    void shouldReleasePermitForStreams() throws Exception {
+        LlmHttpClient client = LlmHttpClient.shared(new LlmHttpClient.Settings(false, 2, 60, false, false));
+
+        HttpResponse<InputStream> first = client.stream(client.newPost(endpoint, "first").build(), null);
+        HttpResponse<InputStream> second = client.stream(client.newPost(endpoint, "second").build(), null);
+        assertEquals(0, client.availablePermits());
+
+        assertEquals("first", new String(first.body().readAllBytes(), StandardCharsets.UTF_8));
+        assertEquals(1, client.availablePermits());
+
+        second.body().close();
+        first.body().close();
+        assertEquals(2, client.availablePermits());
+    }
+}
@@ -0,0 +1,94 @@
+package com.codelogickeep.agent.ut.framework.adapter;
+
+import com.codelogickeep.agent.ut.framework.executor.StreamingHandler;
+import com.codelogickeep.agent.ut.framework.model.TokenUsage;
+import com.codelogickeep.agent.ut.framework.model.ToolCall;
+import com.codelogickeep.agent.ut.framework.util.JsonUtil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("OpenAiAdapter Tests")
+class OpenAiAdapterTest {
+
+    @Test
+    @DisplayName("Usage should split cached prompt tokens from OpenAI and DeepSeek style fields")
+    void shouldParseUsage() throws Exception {
+        TokenUsage openAi = OpenAiAdapter.parseUsage(JsonUtil.parse(
+                "{\"prompt_tokens\":2000,\"completion_tokens\":150,\"total_tokens\":2150,"
+                        + "\"prompt_tokens_details\":{\"cached_tokens\":1536}}"));
+        TokenUsage deepSeek = OpenAiAdapter.parseUsage(JsonUtil.parse(
+                "{\"prompt_tokens\":800,\"completion_tokens\":40,\"prompt_cache_hit_tokens\":512}"));
+
+        assertEquals(new TokenUsage(464, 150, 1536, 0), openAi);
+        assertEquals(2000, openAi.totalInputTokens());
+        assertEquals(new TokenUsage(288, 40, 512, 0), deepSeek);
+        assertEquals(TokenUsage.EMPTY, OpenAiAdapter.parseUsage(null));
+    }
+
+    @Test
+    @DisplayName("A streamed tool call should be emitted as soon as the next tool index starts")
+    void shouldEmitToolCallBeforeStreamEnds() throws Exception {
+        OpenAiAdapter adapter = OpenAiAdapter.builder().apiKey("key").model("gpt-4o").streamUsage(false).build();
+        PipedOutputStream sse = new PipedOutputStream();
+        PipedInputStream in = new PipedInputStream(sse, 64 * 1024);
+        List<ToolCall> emitted = new CopyOnWriteArrayList<>();
+        CountDownLatch firstCall = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(1);
+        StreamingHandler handler = new StreamingHandler() {
+            @Override
+            public void onToken(String token) {
+            }
+
+            @Override
+            public void onToolCall(ToolCall toolCall) {
+                emitted.add(toolCall);
+                firstCall.countDown();
+            }
+
+            @Override
+            public void onComplete(String fullContent, List<ToolCall> toolCalls) {
+                completed.countDown();
+            }
+
+            @Override
+            public void onError(Throwable error) {
+            }
+        };
+        Thread parser = Thread.ofVirtual().start(() -> adapter.parseSSEStream(in, handler));
+
+        write(sse, "{\"choices\":[{\"delta\":{\"tool_calls\":[{\"index\":0,\"id\":\"c0\","
+                + "\"function\":{\"name\":\"writeFile\",\"arguments\":\"{\\\"path\\\":\\\"A.java\\\"}\"}}]}}]}");
+        write(sse, "{\"choices\":[{\"delta\":{\"tool_calls\":[{\"index\":1,\"id\":\"c1\","
+                + "\"function\":{\"name\":\"readFile\",\"arguments\":\"\"}}]}}]}");
+
+        // The stream is still open: the first call must already be out
+        assertTrue(firstCall.await(5, TimeUnit.SECONDS));
+        assertEquals(1, emitted.size());
+        assertEquals("A.java", emitted.get(0).getString("path"));
+        assertEquals(1, completed.getCount());
+
+        write(sse, "{\"choices\":[{\"delta\":{\"tool_calls\":[{\"index\":1,"
+                + "\"function\":{\"arguments\":\"{\\\"path\\\":\\\"B.java\\\"}\"}}]},\"finish_reason\":\"tool_calls\"}]}");
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        sse.close();
+        parser.join(5000);
+
+        assertEquals(List.of("c0", "c1"), emitted.stream().map(ToolCall::id).toList());
+    }
+
+    private static void write(PipedOutputStream sse, String json) throws IOException {
+        sse.write(("data: " + json + "\n\n").getBytes(StandardCharsets.UTF_8));
+        sse.flush();
+    }
+}
@@ -0,0 +1,93 @@
+package com.codelogickeep.agent.ut.framework.adapter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpHeaders;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RateGovernor Tests")
+class RateGovernorTest {
+
+    private static HttpHeaders headers(Map<String, String> values) {
+        Map<String, List<String>> map = new java.util.HashMap<>();
+        values.forEach((k, v) -> map.put(k, List.of(v)));
+        return HttpHeaders.of(map, (k, v) -> true);
+    }
+
+    private static RateGovernor.Lane newLane(RateGovernor.Limits limits) {
+        return new RateGovernor.Lane("test/" + System.nanoTime(), limits);
+    }
+
+    @Test
+    @DisplayName("Throttling should halve concurrency and pause for Retry-After; successes grow it back")
+    void shouldAdaptConcurrency() throws Exception {
+        RateGovernor.Lane lane = newLane(new RateGovernor.Limits(0, 0, 8, 3));
+
+        long wait = lane.onThrottled(headers(Map.of("retry-after", "2")), 0);
+        assertEquals(2000, wait);
+        assertEquals(4, lane.getConcurrencyLimit());
+        lane.onThrottled(headers(Map.of("retry-after-ms", "10")), 1);
+        assertEquals(2, lane.getConcurrencyLimit());
+        assertTrue(lane.describe().contains("paused"));
+
+        for (int i = 0; i < 40; i++) {
+            lane.onSuccess(headers(Map.of()));
+        }
+        assertEquals(8, lane.getConcurrencyLimit());
+        assertEquals(2, lane.getThrottledCount());
+    }
+
+    @Test
+    @DisplayName("Acquire should wait while concurrency is exhausted")
+    void shouldBlockOnConcurrency() throws Exception {
+        RateGovernor.Lane lane = newLane(new RateGovernor.Limits(0, 0, 1, 0));
+        lane.acquire(10);
+
+        Thread waiter = Thread.ofVirtual().start(() -> {
+            try {
+                lane.acquire(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.join(200);
+        assertTrue(waiter.isAlive());
+
+        lane.release();
+        waiter.join(2000);
+        assertFalse(waiter.isAlive());
+    }
+
+    @Test
+    @DisplayName("Request bucket should pace requests per minute")
+    void shouldPaceRequests() throws Exception {
+        // 600/min = 1 个请求每 100ms，桶满时可立即发 600 个
+        RateGovernor.Lane lane = newLane(new RateGovernor.Limits(600, 0, 1000, 0));
+        for (int i = 0; i < 600; i++) {
+            lane.acquire(1);
+        }
+        long start = System.currentTimeMillis();
+        lane.acquire(1);
+        assertTrue(System.currentTimeMillis() - start >= 50, "should wait for the bucket to refill");
+    }
+
+    @Test
+    @DisplayName("Should parse reset durations, timestamps and Retry-After dates")
+    void shouldParseResetHeaders() {
+        long now = System.currentTimeMillis();
+
+        assertEquals(Optional.of(360_000L), RateGovernor.parseReset("6m0s", now));
+        assertEquals(Optional.of(20L), RateGovernor.parseReset("20ms", now));
+        assertEquals(Optional.of(1500L), RateGovernor.parseReset("1.5s", now));
+        assertEquals(Optional.of(3000L), RateGovernor.parseReset(Instant.ofEpochMilli(now + 3000).toString(), now));
+        assertTrue(RateGovernor.parseReset("soon", now).isEmpty());
+        assertTrue(RateGovernor.retryAfterMillis(headers(Map.of("retry-after", "Wed, 21 Oct 2015 07:28:00 GMT")), now)
+                .isPresent());
+    }
+}
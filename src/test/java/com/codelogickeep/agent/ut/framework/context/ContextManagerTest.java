@@ -1,6 +1,7 @@
 package com.codelogickeep.agent.ut.framework.context;
 
 import com.codelogickeep.agent.ut.framework.model.*;
+import com.codelogickeep.agent.ut.framework.util.JsonUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
@@ -337,4 +338,112 @@ class ContextManagerTest {
             messages.add(new UserMessage("Should fail"));
         });
     }
+    
+    // ========== 编码片段缓存测试 ==========
+    
+    @Test
+    @DisplayName("每轮请求只编码新追加的消息")
+    void testFragmentsEncodedOncePerMessage() {
+        ContextManager cm = new ContextManager(50);
+        cm.setSystemMessage("System");
+        cm.addUserMessage("Task");
+        
+        for (int round = 0; round < 5; round++) {
+            JsonUtil.buildChatRequest("m", cm.getMessages(), null, null, false);
+            cm.addAssistantMessage("", List.of(ToolCall.withId("call_" + round, "readFile", java.util.Map.of())));
+            cm.addToolMessage("call_" + round, "readFile", "Result " + round);
+        }
+        JsonUtil.buildChatRequest("m", cm.getMessages(), null, null, false);
+        
+        // 2 条初始消息 + 每轮 2 条，各编码一次
+        assertEquals(12, cm.getEncodeCount());
+    }
+    
+    @Test
+    @DisplayName("裁剪和替换后的请求与完整编码一致")
+    void testFragmentsStayAlignedAfterTrimAndReplace() throws Exception {
+        ContextManager cm = new ContextManager(4);
+        cm.setSystemMessage("Old system");
+        cm.addUserMessage("Task");
+        for (int i = 0; i < 4; i++) {
+            JsonUtil.buildChatRequest("m", cm.getMessages(), null, null, false);
+            cm.addAssistantMessage("Answer " + i);
+            cm.addUserMessage("Next " + i);
+        }
+        cm.setSystemMessage("New system");
+        
+        String request = JsonUtil.buildChatRequest("m", cm.getMessages(), null, null, false);
+        assertEquals(JsonUtil.messagesToJson(List.copyOf(cm.getMessages())),
+                JsonUtil.parse(request).get("messages"));
+        assertTrue(request.contains("New system"));
+        assertFalse(request.contains("Answer 0"));
+    }
+    
+    // ========== Token 上限测试 ==========
+    
+    @Test
+    @DisplayName("超出Token上限时先截断最旧的工具输出，当前轮保持原文")
+    void testTokenBudgetTruncatesOldestToolOutputFirst() {
+        ContextManager cm = new ContextManager(5, 4000, TokenEstimator.forModel("gpt-4"));
+        cm.setSystemMessage("System");
+        cm.addUserMessage("Task");
+        String bigOutput = "line of build output 0123456789\n".repeat(300);
+        for (int i = 0; i < 3; i++) {
+            cm.addAssistantMessage("", List.of(ToolCall.withId("c" + i, "readFile", java.util.Map.of())));
+            cm.addToolMessage("c" + i, "readFile", bigOutput);
+        }
+        
+        assertTrue(cm.getEstimatedTokens() <= 4000);
+        // 消息数超过 maxMessages 也不裁剪
+        assertEquals(8, cm.size());
+        List<Message> messages = cm.getMessages();
+        assertTrue(messages.get(3).content().contains("characters omitted"));
+        assertEquals(bigOutput, messages.get(7).content());
+    }
+    
+    @Test
+    @DisplayName("截断不够时按轮次淘汰旧消息，不留下孤立的工具结果")
+    void testTokenBudgetEvictsWholeRounds() {
+        ContextManager cm = new ContextManager(5, 150, TokenEstimator.forModel("gpt-4"));
+        cm.setSystemMessage("System");
+        cm.addUserMessage("Task");
+        for (int i = 0; i < 10; i++) {
+            cm.addAssistantMessage("Step " + i, List.of(ToolCall.withId("c" + i, "run", java.util.Map.of())));
+            cm.addToolMessage("c" + i, "run", "result of step number " + i);
+        }
+        
+        assertTrue(cm.getEstimatedTokens() <= 150);
+        List<Message> messages = cm.getMessages();
+        assertInstanceOf(SystemMessage.class, messages.get(0));
+        assertInstanceOf(UserMessage.class, messages.get(1));
+        assertInstanceOf(AssistantMessage.class, messages.get(2));
+        for (int i = 2; i < messages.size(); i += 2) {
+            AssistantMessage assistant = (AssistantMessage) messages.get(i);
+            assertEquals(assistant.toolCalls().get(0).id(), ((ToolMessage) messages.get(i + 1)).toolCallId());
+        }
+        assertEquals("Step 9", messages.get(messages.size() - 2).content());
+    }
+    
+    @Test
+    @DisplayName("按服务端真实用量校准后，估算偏低时会提前裁剪")
+    void testCalibrationTightensBudget() {
+        ContextManager cm = new ContextManager(5, 150, TokenEstimator.forModel("gpt-4"));
+        cm.setSystemMessage("System");
+        cm.addUserMessage("Task");
+        int estimated = cm.getEstimatedTokens();
+        
+        // 单次偏差被限制在 [0.5, 2] 并平滑
+        cm.calibrate(estimated, estimated * 10);
+        assertEquals(1.3, cm.getCalibration(), 1e-9);
+        cm.calibrate(0, 100);
+        assertEquals(1.3, cm.getCalibration(), 1e-9);
+        
+        for (int i = 0; i < 10; i++) {
+            cm.addAssistantMessage("Step " + i, List.of(ToolCall.withId("c" + i, "run", java.util.Map.of())));
+            cm.addToolMessage("c" + i, "run", "result of step number " + i);
+        }
+        assertTrue(cm.getCalibratedTokens() <= 150);
+        assertTrue(cm.getEstimatedTokens() <= 150 / 1.3 + 1);
+        assertEquals(1.3, cm.snapshot().getCalibration(), 1e-9);
+    }
 }
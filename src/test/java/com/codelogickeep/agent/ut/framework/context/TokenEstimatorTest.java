@@ -0,0 +1,83 @@
+package com.codelogickeep.agent.ut.framework.context;
+
+import com.codelogickeep.agent.ut.framework.model.AssistantMessage;
+import com.codelogickeep.agent.ut.framework.model.ToolCall;
+import com.codelogickeep.agent.ut.framework.model.ToolDefinition;
+import com.codelogickeep.agent.ut.framework.model.UserMessage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TokenEstimator Tests")
+class TokenEstimatorTest {
+
+    @Test
+    @DisplayName("按模型名选择估算家族")
+    void testFamilyByModel() {
+        assertEquals("claude", TokenEstimator.forModel("claude-3-5-sonnet-20241022").getFamily());
+        assertEquals("gemini", TokenEstimator.forModel("gemini-1.5-flash").getFamily());
+        assertEquals("cjk", TokenEstimator.forModel("qwen-max").getFamily());
+        assertEquals("o200k", TokenEstimator.forModel("gpt-4o-mini").getFamily());
+        assertEquals("o200k", TokenEstimator.forModel("o3-mini").getFamily());
+        assertEquals("cl100k", TokenEstimator.forModel("gpt-4-turbo").getFamily());
+        assertEquals("cl100k", TokenEstimator.forModel(null).getFamily());
+    }
+
+    @Test
+    @DisplayName("中文和代码的估算明显高于 length/4")
+    void testCjkAndCodeEstimates() {
+        TokenEstimator estimator = TokenEstimator.forModel("gpt-4");
+        assertEquals(0, estimator.estimate((String) null));
+        assertEquals(2, estimator.estimate("hello world"));
+
+        String chinese = "为被测方法生成单元测试，覆盖所有分支";
+        assertTrue(estimator.estimate(chinese) >= chinese.length() - 2);
+
+        String code = "if (a != null && b.get(0) > 1) { return x[i]; }";
+        assertTrue(estimator.estimate(code) > code.length() / 4);
+    }
+
+    @Test
+    @DisplayName("消息估算包含格式开销和工具调用参数")
+    void testMessageEstimate() {
+        TokenEstimator estimator = TokenEstimator.forModel("gpt-4");
+        int user = estimator.estimate(new UserMessage("hello world"));
+        assertEquals(2 + TokenEstimator.MESSAGE_OVERHEAD, user);
+
+        AssistantMessage call = AssistantMessage.withToolCalls("",
+                List.of(ToolCall.withId("c1", "readFile", Map.of("path", "src/main/java/Foo.java"))));
+        assertTrue(estimator.estimate(call) > 2 * TokenEstimator.MESSAGE_OVERHEAD + 5);
+    }
+
+    @Test
+    @DisplayName("按 BPE 预切分规则处理驼峰标识符和数字")
+    void testIdentifiersAndDigits() {
+        TokenEstimator estimator = TokenEstimator.forModel("gpt-4");
+        // get / User / By / Id
+        assertEquals(4, estimator.estimate("getUserById"));
+        // 长单词按平均字符数折算
+        assertEquals(5, estimator.estimate("internationalization"));
+        // cl100k 三位一组，Gemini 逐位切分
+        assertEquals(3, estimator.estimate("1234567"));
+        assertEquals(7, TokenEstimator.forModel("gemini-1.5-pro").estimate("1234567"));
+    }
+
+    @Test
+    @DisplayName("工具定义估算包含名称、描述和参数")
+    void testToolDefinitionEstimate() {
+        TokenEstimator estimator = TokenEstimator.forModel("gpt-4");
+        ToolDefinition tool = new ToolDefinition("readFile", "Read a file from the project",
+                new ToolDefinition.ParameterSchema("object",
+                        Map.of("path", ToolDefinition.PropertySchema.string("Relative file path")),
+                        List.of("path")));
+
+        int tokens = estimator.estimate(List.of(tool));
+        assertTrue(tokens > 2 * TokenEstimator.MESSAGE_OVERHEAD + 8);
+        assertEquals(2 * tokens, estimator.estimate(List.of(tool, tool)));
+        assertEquals(0, estimator.estimate((List<ToolDefinition>) null));
+    }
+}
@@ -0,0 +1,226 @@
+package com.codelogickeep.agent.ut.framework.executor;
+
+import com.codelogickeep.agent.ut.framework.adapter.CachingLlmAdapter;
+import com.codelogickeep.agent.ut.framework.adapter.LlmAdapter;
+import com.codelogickeep.agent.ut.framework.adapter.ResponseCache;
+import com.codelogickeep.agent.ut.framework.annotation.P;
+import com.codelogickeep.agent.ut.framework.annotation.Tool;
+import com.codelogickeep.agent.ut.framework.model.AssistantMessage;
+import com.codelogickeep.agent.ut.framework.model.Message;
+import com.codelogickeep.agent.ut.framework.model.ToolCall;
+import com.codelogickeep.agent.ut.framework.model.ToolDefinition;
+import com.codelogickeep.agent.ut.framework.model.ToolMessage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("AgentExecutor Tests")
+class AgentExecutorTest {
+
+    public static class WriteTool {
+        final AtomicInteger writes = new AtomicInteger();
+
+        @Tool("Write a file")
+        public String writeFile(@P("Path") String path, @P("Content") String content) {
+            writes.incrementAndGet();
+            return "written " + path;
+        }
+    }
+
+    /**
+     * Emits one complete tool call, then keeps the stream open until the caller abandons it.
+     */
+    private static final class HangingStreamAdapter implements LlmAdapter {
+        final AtomicInteger rounds = new AtomicInteger();
+        final AtomicBoolean sawCancelled = new AtomicBoolean();
+        final CountDownLatch streamEnded = new CountDownLatch(1);
+
+        @Override
+        public AssistantMessage chat(List<Message> messages, List<ToolDefinition> tools) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void chatStream(List<Message> messages, List<ToolDefinition> tools, StreamingHandler handler) {
+            rounds.incrementAndGet();
+            handler.onToken("Writing the test");
+            handler.onToolCall(ToolCall.withId("c1", "writeFile",
+                    Map.of("path", "FooTest.java", "content", "class FooTest {")));
+            try {
+                long deadline = System.currentTimeMillis() + 30_000;
+                while (!handler.isCancelled() && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(10);
+                }
+                sawCancelled.set(handler.isCancelled());
+            } catch (InterruptedException e) {
+                sawCancelled.set(handler.isCancelled());
+            } finally {
+                streamEnded.countDown();
+            }
+        }
+
+        @Override
+        public String getName() {
+            return "hanging";
+        }
+    }
+
+    @Test
+    @DisplayName("Cancellation should abandon a stream in progress and run only the tool calls already received")
+    void runStream_shouldCancelMidStream() throws InterruptedException {
+        HangingStreamAdapter adapter = new HangingStreamAdapter();
+        WriteTool tool = new WriteTool();
+        AgentExecutor executor = AgentExecutor.builder()
+                .llmAdapter(adapter)
+                .tools(tool)
+                .systemMessage("System")
+                .timeoutMs(60_000)
+                .build();
+        AtomicBoolean toolCallSeen = new AtomicBoolean();
+        executor.setCancellation(toolCallSeen::get);
+
+        AtomicReference<String> completed = new AtomicReference<>();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        long start = System.currentTimeMillis();
+        executor.runStream("Write FooTest", new StreamingHandler() {
+            @Override
+            public void onToken(String token) {
+            }
+
+            @Override
+            public void onToolCall(ToolCall toolCall) {
+                toolCallSeen.set(true);
+            }
+
+            @Override
+            public void onComplete(String fullContent, List<ToolCall> toolCalls) {
+                completed.set(fullContent);
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                error.set(e);
+            }
+        });
+
+        assertTrue(System.currentTimeMillis() - start < 10_000);
+        assertNull(error.get());
+        assertEquals("Writing the test", completed.get());
+        assertTrue(adapter.streamEnded.await(5, TimeUnit.SECONDS));
+        assertTrue(adapter.sawCancelled.get());
+        assertEquals(1, adapter.rounds.get());
+        assertEquals(1, tool.writes.get());
+
+        List<Message> messages = executor.getContextManager().getMessages();
+        AssistantMessage assistant = assertInstanceOf(AssistantMessage.class, messages.get(messages.size() - 2));
+        assertEquals("c1", assistant.toolCalls().get(0).id());
+        assertEquals("c1", assertInstanceOf(ToolMessage.class, messages.get(messages.size() - 1)).toolCallId());
+    }
+
+    @Test
+    @DisplayName("The next round should wait for the settled cancellation decision after tools ran")
+    void runStream_shouldAwaitCancellationBeforeNextRound() {
+        AtomicInteger rounds = new AtomicInteger();
+        LlmAdapter adapter = new LlmAdapter() {
+            @Override
+            public AssistantMessage chat(List<Message> messages, List<ToolDefinition> tools) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void chatStream(List<Message> messages, List<ToolDefinition> tools, StreamingHandler handler) {
+                rounds.incrementAndGet();
+                ToolCall call = ToolCall.withId("c" + rounds.get(), "writeFile",
+                        Map.of("path", "FooTest.java", "content", "class FooTest {"));
+                handler.onToolCall(call);
+                handler.onComplete("", List.of(call));
+            }
+
+            @Override
+            public String getName() {
+                return "complete";
+            }
+        };
+        AgentExecutor executor = AgentExecutor.builder()
+                .llmAdapter(adapter)
+                .tools(new WriteTool())
+                .maxIterations(5)
+                .build();
+        // The background check has not finished while streaming, only the settled decision cancels
+        executor.setCancellation(new AgentExecutor.Cancellation() {
+            @Override
+            public boolean isCancelled() {
+                return false;
+            }
+
+            @Override
+            public boolean awaitCancelled() {
+                return true;
+            }
+        });
+
+        executor.runStream("Write FooTest", StreamingHandler.silent());
+
+        assertEquals(1, rounds.get());
+    }
+
+    @Test
+    @DisplayName("A response served from the response cache should not be charged to the budget")
+    void runStream_cacheHitShouldNotChargeBudget(@TempDir Path cacheDir) {
+        AtomicInteger apiCalls = new AtomicInteger();
+        LlmAdapter api = new LlmAdapter() {
+            @Override
+            public AssistantMessage chat(List<Message> messages, List<ToolDefinition> tools) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void chatStream(List<Message> messages, List<ToolDefinition> tools, StreamingHandler handler) {
+                apiCalls.incrementAndGet();
+                handler.onToken("class FooTest {}");
+                handler.onComplete("class FooTest {}", null);
+            }
+
+            @Override
+            public String getName() {
+                return "api";
+            }
+        };
+        CachingLlmAdapter adapter = new CachingLlmAdapter(api,
+                ResponseCache.open(cacheDir, 1 << 20, 100), "m", 0.0, false);
+        BudgetGovernor budget = BudgetGovernor.unlimited();
+        BudgetGovernor.Scope scope = new BudgetGovernor.Scope("com.example.Foo", "add", "generation");
+
+        AgentExecutor liveRun = AgentExecutor.builder()
+                .llmAdapter(adapter)
+                .systemMessage("System")
+                .build();
+        liveRun.setBudget(budget, scope);
+        liveRun.runStream("Write FooTest", StreamingHandler.silent());
+
+        long charged = budget.getTotalTokens();
+        assertEquals(1, apiCalls.get());
+        assertTrue(charged > 0);
+
+        AgentExecutor cachedRun = AgentExecutor.builder()
+                .llmAdapter(adapter)
+                .systemMessage("System")
+                .build();
+        cachedRun.setBudget(budget, scope);
+        cachedRun.runStream("Write FooTest", StreamingHandler.silent());
+
+        assertEquals(1, apiCalls.get());
+        assertEquals(charged, budget.getTotalTokens());
+    }
+}
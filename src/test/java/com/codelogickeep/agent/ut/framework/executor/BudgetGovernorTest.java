@@ -0,0 +1,93 @@
+package com.codelogickeep.agent.ut.framework.executor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BudgetGovernorTest {
+
+    private static final BudgetGovernor.Scope ADD = new BudgetGovernor.Scope("com.example.Calc", "add", "generation");
+
+    @Test
+    @DisplayName("Unlimited governor only tracks usage")
+    void testUnlimited() {
+        BudgetGovernor budget = BudgetGovernor.unlimited();
+        budget.charge(ADD, 500_000, 500_000, 10);
+
+        assertFalse(budget.isLimited());
+        assertEquals(BudgetGovernor.Level.NORMAL, budget.level());
+        assertTrue(budget.allowLlmCall(ADD));
+        assertEquals(5, budget.adjustRetries(5));
+        assertEquals(1_000_000, budget.getTotalTokens());
+    }
+
+    @Test
+    @DisplayName("Approaching the token limit halves retries and skips P2, reaching it refuses calls")
+    void testDegradesNearLimit() {
+        BudgetGovernor budget = new BudgetGovernor(1000, 0, 0, 0, 0.8);
+
+        budget.charge(ADD, 700, 100, 10);
+        assertEquals(BudgetGovernor.Level.CONSERVE, budget.level());
+        assertEquals(2, budget.adjustRetries(5));
+        assertEquals(1, budget.adjustRetries(1));
+        assertTrue(budget.shouldSkip("P2"));
+        assertFalse(budget.shouldSkip("P0"));
+        assertTrue(budget.allowLlmCall(ADD));
+
+        budget.charge(ADD, 200, 0, 10);
+        assertEquals(BudgetGovernor.Level.EXHAUSTED, budget.level());
+        assertEquals(0, budget.adjustRetries(5));
+        assertTrue(budget.shouldSkip("P0"));
+        assertFalse(budget.allowLlmCall(ADD));
+        assertFalse(budget.allowNewWork());
+    }
+
+    @Test
+    @DisplayName("Class and method caps refuse calls only for their scope")
+    void testClassAndMethodCaps() {
+        BudgetGovernor budget = new BudgetGovernor(0, 0, 1000, 300, 0.8);
+        BudgetGovernor.Scope sub = new BudgetGovernor.Scope("com.example.Calc", "sub", "generation");
+        BudgetGovernor.Scope other = new BudgetGovernor.Scope("com.example.Other", "run", "generation");
+
+        budget.charge(ADD, 300, 0, 10);
+        assertFalse(budget.allowLlmCall(ADD));
+        assertTrue(budget.allowLlmCall(sub));
+
+        budget.charge(sub, 700, 0, 10);
+        assertFalse(budget.allowLlmCall(new BudgetGovernor.Scope("com.example.Calc", null, null)));
+        assertTrue(budget.allowLlmCall(other));
+        assertEquals(1000, budget.getClassTokens("com.example.Calc"));
+        assertEquals(300, budget.getMethodTokens("com.example.Calc", "add"));
+    }
+
+    @Test
+    @DisplayName("Report lists usage per phase")
+    void testReportPerPhase() {
+        BudgetGovernor budget = new BudgetGovernor(10_000, 0, 0, 0, 0.8);
+        budget.charge(ADD, 3000, 1000, 2000);
+        budget.charge(ADD.withPhase("repair"), 800, 200, 1000);
+        budget.recordTime("verification", 65_000);
+
+        String report = budget.report();
+
+        assertTrue(report.contains("tokens 5,000/10,000 (50%)"), report);
+        assertTrue(report.contains("generation"));
+        assertTrue(report.contains("4,000 tokens"));
+        assertTrue(report.contains("repair"));
+        assertTrue(report.contains("verification"));
+        assertTrue(report.contains("1m 5s"));
+    }
+
+    @Test
+    @DisplayName("Calls whose expected prompt would overrun a cap are refused up front")
+    void testPreflightExpectedTokens() {
+        BudgetGovernor budget = new BudgetGovernor(10_000, 0, 0, 1000, 0.8);
+        budget.charge(ADD, 600, 0, 10);
+
+        assertTrue(budget.allowLlmCall(ADD, 400));
+        assertFalse(budget.allowLlmCall(ADD, 401));
+        assertFalse(budget.allowLlmCall(null, 9_500));
+        assertTrue(budget.allowLlmCall(ADD));
+    }
+}
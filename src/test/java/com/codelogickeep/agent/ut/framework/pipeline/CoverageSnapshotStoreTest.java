@@ -0,0 +1,77 @@
+package com.codelogickeep.agent.ut.framework.pipeline;
+
+import com.codelogickeep.agent.ut.tools.CoverageIndex;
+import com.codelogickeep.agent.ut.tools.CoverageIndex.MethodLines;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CoverageSnapshotStore.
+ */
+class CoverageSnapshotStoreTest {
+
+    private static final String CLASS_NAME = "com.example.Calculator";
+
+    private static BitSet lines(int... numbers) {
+        BitSet bits = new BitSet();
+        for (int n : numbers) {
+            bits.set(n);
+        }
+        return bits;
+    }
+
+    private static CoverageIndex index(BitSet covered, BitSet missedBranches, long lineMissed, long lineCovered) {
+        CoverageIndex.Builder builder = new CoverageIndex.Builder();
+        builder.beginClass("com/example/Calculator", "Calculator.java");
+        builder.addMethod("divide", "(II)I", 10);
+        builder.methodCounter("LINE", lineMissed, lineCovered);
+        builder.methodLines(new MethodLines(lines(10, 11, 12, 13, 14), covered, lines(11), missedBranches));
+        return builder.build();
+    }
+
+    @Test
+    @DisplayName("latestDelta should report newly covered and still missed lines")
+    void latestDelta_shouldReportNewlyCoveredAndMissedLines() {
+        CoverageSnapshotStore store = new CoverageSnapshotStore();
+        store.record(index(lines(10), lines(11), 4, 1), CLASS_NAME, "divide(2 params)");
+        store.record(index(lines(10, 11, 12), lines(11), 2, 3), CLASS_NAME, "divide(2 params)");
+
+        CoverageSnapshotStore.CoverageDelta delta = store.latestDelta(CLASS_NAME, "divide(2 params)");
+
+        assertTrue(delta.hasLineData());
+        assertEquals(0, delta.previous().pass());
+        assertEquals(1, delta.current().pass());
+        assertEquals(60.0, delta.current().lineCoverage(), 0.001);
+        assertEquals("11-12", CoverageSnapshotStore.CoverageDelta.formatLines(delta.newlyCoveredLines()));
+        assertEquals("13-14", CoverageSnapshotStore.CoverageDelta.formatLines(delta.stillMissedLines()));
+        assertEquals("11", CoverageSnapshotStore.CoverageDelta.formatLines(delta.missedBranchLines()));
+    }
+
+    @Test
+    @DisplayName("record should ignore unknown methods and latestDelta should be null without snapshots")
+    void record_shouldIgnoreUnknownMethods() {
+        CoverageSnapshotStore store = new CoverageSnapshotStore();
+
+        assertNull(store.record(index(lines(10), lines(), 4, 1), CLASS_NAME, "missing"));
+        assertNull(store.latestDelta(CLASS_NAME, "missing"));
+        assertTrue(store.history(CLASS_NAME, "missing").isEmpty());
+    }
+
+    @Test
+    @DisplayName("first snapshot should have no newly covered lines")
+    void latestDelta_firstSnapshotHasNoNewlyCoveredLines() {
+        CoverageSnapshotStore store = new CoverageSnapshotStore();
+        store.record(index(lines(10, 11), lines(), 3, 2), CLASS_NAME, "divide");
+
+        CoverageSnapshotStore.CoverageDelta delta = store.latestDelta(CLASS_NAME, "divide");
+
+        assertNull(delta.previous());
+        assertTrue(delta.newlyCoveredLines().isEmpty());
+        assertEquals("12-14", CoverageSnapshotStore.CoverageDelta.formatLines(delta.stillMissedLines()));
+        assertEquals("无", CoverageSnapshotStore.CoverageDelta.formatLines(delta.missedBranchLines()));
+    }
+}
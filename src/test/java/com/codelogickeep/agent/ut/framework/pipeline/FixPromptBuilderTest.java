@@ -1,6 +1,11 @@
 package com.codelogickeep.agent.ut.framework.pipeline;
 
+import com.codelogickeep.agent.ut.tools.CoverageIndex;
 import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class FixPromptBuilderTest {
@@ -92,6 +97,47 @@ class FixPromptBuilderTest {
         assertTrue(prompt.contains("20.0%")); // 差距
         assertTrue(prompt.contains("覆盖率不足"));
         assertTrue(prompt.contains("边界条件"));
+        assertFalse(prompt.contains("仍未覆盖的行"));
+    }
+    
+    @Test
+    void testBuildMoreTestsPromptWithLineDelta() {
+        BitSet covered = BitSet.valueOf(new long[]{0b0110L});
+        BitSet missed = new BitSet();
+        missed.set(10, 13);
+        missed.set(20);
+        BitSet branches = new BitSet();
+        branches.set(8);
+        CoverageSnapshotStore.CoverageDelta delta = new CoverageSnapshotStore.CoverageDelta(
+                null,
+                new CoverageSnapshotStore.MethodSnapshot(1, 60.0, 50.0,
+                        new CoverageIndex.MethodLines(new BitSet(), covered, branches, branches)),
+                covered, missed, branches);
+
+        String prompt = FixPromptBuilder.buildMoreTestsPrompt(
+                "src/main/java/com/example/Calculator.java",
+                "divide",
+                "src/test/java/com/example/CalculatorTest.java",
+                60.0,
+                80,
+                delta);
+        
+        assertTrue(prompt.contains("**本轮新覆盖的行**: 1-2"));
+        assertTrue(prompt.contains("**仍未覆盖的行**: 10-12, 20"));
+        assertTrue(prompt.contains("**存在未覆盖分支的行**: 8"));
+        assertTrue(prompt.contains("只针对上面列出的未覆盖行"));
+    }
+    
+    @Test
+    void testBuildCompileFixPromptWithDiagnostics() {
+        String prompt = FixPromptBuilder.buildCompileFixPrompt(
+                "src/test/java/com/example/CalculatorTest.java",
+                List.of(new IncrementalTestCompiler.CompileDiagnostic("ERROR", "CalculatorTest.java", 12, 5, "cannot find symbol"),
+                        new IncrementalTestCompiler.CompileDiagnostic("WARNING", "CalculatorTest.java", 3, 1, "unchecked")));
+        
+        assertTrue(prompt.contains("第 12 行, 第 5 列: cannot find symbol"));
+        assertFalse(prompt.contains("unchecked"));
+        assertTrue(prompt.contains("修复编译错误"));
     }
     
     @Test
@@ -0,0 +1,220 @@
+package com.codelogickeep.agent.ut.framework.pipeline;
+
+import com.codelogickeep.agent.ut.tools.CoverageIndex;
+import com.codelogickeep.agent.ut.tools.CoverageIndex.CounterType;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.tools.ExecFileLoader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Unit tests for ForkedTestRunner (forks a real JVM with the JaCoCo agent).
+ */
+class ForkedTestRunnerTest {
+
+    @TempDir
+    Path projectRoot;
+
+    private List<Path> dependencies;
+    private ForkedTestRunner runner;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        CoverageIndex.clearCache();
+        dependencies = new ArrayList<>();
+        for (String className : List.of("org.junit.jupiter.api.Test", "org.junit.jupiter.engine.JupiterTestEngine",
+                "org.junit.platform.engine.TestEngine", "org.junit.platform.commons.util.ReflectionUtils",
+                "org.junit.platform.launcher.Launcher", "org.opentest4j.AssertionFailedError",
+                "org.apiguardian.api.API")) {
+            dependencies.add(jarOf(className));
+        }
+        runner = new ForkedTestRunner(root -> dependencies, ForkedTestRunner::locateJacocoAgent);
+    }
+
+    @AfterEach
+    void tearDown() {
+        runner.shutdown();
+    }
+
+    private static Path jarOf(String className) throws ClassNotFoundException, URISyntaxException {
+        return Path.of(Class.forName(className).getProtectionDomain().getCodeSource().getLocation().toURI());
+    }
+
+    private void compile(String dir, String relativePath, String source) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Path file = projectRoot.resolve("src").resolve(dir).resolve(relativePath);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, source);
+        Path output = projectRoot.resolve("target").resolve("test".equals(dir) ? "test-classes" : "classes");
+        Files.createDirectories(output);
+        List<String> classpath = new ArrayList<>();
+        classpath.add(projectRoot.resolve("target/classes").toString());
+        dependencies.forEach(d -> classpath.add(d.toString()));
+        int exit = compiler.run(null, null, null, "-g", "-d", output.toString(),
+                "-cp", String.join(File.pathSeparator, classpath), file.toString());
+        assertEquals(0, exit);
+    }
+
+    private void writeProject(String assertion) throws IOException {
+        compile("main", "com/example/Calc.java", """
+                package com.example;
+
+                public class Calc {
+                    public int abs(int value) {
+                        if (value < 0) {
+                            return -value;
+                        }
+                        return value;
+                    }
+                }
+                """);
+        compile("test", "com/example/CalcTest.java", """
+                package com.example;
+
+                import org.junit.jupiter.api.Test;
+                import static org.junit.jupiter.api.Assertions.assertEquals;
+
+                class CalcTest {
+                    @Test
+                    void abs() {
+                        %s
+                    }
+                }
+                """.formatted(assertion));
+    }
+
+    @Test
+    @DisplayName("run should execute the test class and merge coverage into target/jacoco.exec")
+    void run_shouldExecuteTestAndMergeCoverage() throws IOException {
+        assumeTrue(ForkedTestRunner.locateJacocoAgent() != null, "JaCoCo agent not in local repository");
+        writeProject("assertEquals(3, new Calc().abs(-3));");
+
+        ForkedTestRunner.TestRunOutcome outcome = runner.run(projectRoot, "com.example.CalcTest");
+
+        assertTrue(outcome.available(), outcome.reason());
+        assertTrue(outcome.success(), outcome.format());
+        assertEquals(1, outcome.testsFound());
+        assertTrue(outcome.format().startsWith("Tests run: 1, Failures: 0, Errors: 0"));
+
+        CoverageIndex index = CoverageIndex.forModule(projectRoot.toString());
+        int abs = index.methodId("com.example.Calc", "abs");
+        assertTrue(abs >= 0);
+        assertEquals(50.0, index.methodCoverage(abs, CounterType.BRANCH), 0.001);
+    }
+
+    @Test
+    @DisplayName("run should report failures and reuse the warm JVM")
+    void run_shouldReportFailures() throws IOException {
+        assumeTrue(ForkedTestRunner.locateJacocoAgent() != null, "JaCoCo agent not in local repository");
+        writeProject("assertEquals(4, new Calc().abs(-3));");
+
+        ForkedTestRunner.TestRunOutcome failed = runner.run(projectRoot, "com.example.CalcTest");
+        ForkedTestRunner.TestRunOutcome missing = runner.run(projectRoot, "com.example.MissingTest");
+
+        assertTrue(failed.available());
+        assertFalse(failed.success());
+        assertEquals(1, failed.testsFailed());
+        assertTrue(failed.format().contains("expected: <4> but was: <3>"));
+        assertTrue(missing.available());
+        assertFalse(missing.success());
+        assertTrue(missing.failures().get(0).contains("ClassNotFoundException"));
+    }
+
+    @Test
+    @DisplayName("run should be unavailable when the launcher cannot be found")
+    void run_shouldBeUnavailableWithoutLauncher() throws IOException {
+        Files.createDirectories(projectRoot.resolve("target/test-classes"));
+        ForkedTestRunner noLauncher = new ForkedTestRunner(root -> List.of(), () -> Path.of("agent.jar"));
+
+        ForkedTestRunner.TestRunOutcome outcome = noLauncher.run(projectRoot, "com.example.CalcTest");
+
+        assertFalse(outcome.available());
+        assertTrue(outcome.reason().contains("junit-platform-launcher"));
+    }
+
+    @Test
+    @DisplayName("unavailableReason should name the missing launcher or agent but not require test classes")
+    void unavailableReason_shouldProbeEnvironment() {
+        ForkedTestRunner noLauncher = new ForkedTestRunner(root -> List.of(), () -> Path.of("agent.jar"));
+        ForkedTestRunner noAgent = new ForkedTestRunner(root -> dependencies, () -> null);
+        ForkedTestRunner noClasspath = new ForkedTestRunner(root -> null, () -> Path.of("agent.jar"));
+        ForkedTestRunner ready = new ForkedTestRunner(root -> dependencies, () -> Path.of("agent.jar"));
+
+        assertTrue(noLauncher.unavailableReason(projectRoot).contains("junit-platform-launcher"));
+        assertTrue(noAgent.unavailableReason(projectRoot).contains("JaCoCo agent"));
+        assertTrue(noClasspath.unavailableReason(projectRoot).contains("classpath"));
+        assertNull(ready.unavailableReason(projectRoot));
+    }
+
+    @Test
+    @DisplayName("concurrent merges into target/jacoco.exec should keep every run's execution data")
+    void mergeExecutionData_shouldNotLoseConcurrentRuns() throws Exception {
+        int runs = 8;
+        List<Path> execFiles = new ArrayList<>();
+        for (int i = 0; i < runs; i++) {
+            ExecFileLoader loader = new ExecFileLoader();
+            loader.getExecutionDataStore().put(new ExecutionData(i + 1, "com/example/C" + i, new boolean[] { true }));
+            Path file = projectRoot.resolve("run" + i + ".exec");
+            loader.save(file.toFile(), false);
+            execFiles.add(file);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(runs);
+        try {
+            List<Future<?>> merges = new ArrayList<>();
+            for (Path file : execFiles) {
+                merges.add(pool.submit(() -> {
+                    ForkedTestRunner.mergeExecutionData(projectRoot, file);
+                    return null;
+                }));
+            }
+            for (Future<?> merge : merges) {
+                merge.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        ExecFileLoader merged = new ExecFileLoader();
+        merged.load(CoverageIndex.execPath(projectRoot.toString()).toFile());
+        assertEquals(runs, merged.getExecutionDataStore().getContents().size());
+        try (var files = Files.list(projectRoot.resolve("target"))) {
+            assertTrue(files.noneMatch(f -> f.getFileName().toString().endsWith(".tmp")));
+        }
+    }
+
+    @Test
+    @DisplayName("findLauncher should derive the launcher from the engine version in the local repository")
+    void findLauncher_shouldDeriveFromEngineVersion() throws IOException {
+        Path repo = projectRoot.resolve("repo/org/junit/platform");
+        Path engine = repo.resolve("junit-platform-engine/1.9.2/junit-platform-engine-1.9.2.jar");
+        Path launcher = repo.resolve("junit-platform-launcher/1.9.2/junit-platform-launcher-1.9.2.jar");
+        Files.createDirectories(engine.getParent());
+        Files.createDirectories(launcher.getParent());
+        Files.createFile(engine);
+
+        assertNull(ForkedTestRunner.findLauncher(List.of(engine)));
+
+        Files.createFile(launcher);
+        assertEquals(launcher, ForkedTestRunner.findLauncher(List.of(engine)));
+    }
+}
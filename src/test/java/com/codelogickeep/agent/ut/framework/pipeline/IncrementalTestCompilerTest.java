@@ -0,0 +1,160 @@
+package com.codelogickeep.agent.ut.framework.pipeline;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for IncrementalTestCompiler.
+ */
+class IncrementalTestCompilerTest {
+
+    @TempDir
+    Path projectRoot;
+
+    private final IncrementalTestCompiler compiler = new IncrementalTestCompiler(root -> List.of());
+
+    private Path writeTest(String className, String body) throws IOException {
+        Files.createDirectories(projectRoot.resolve("target/classes"));
+        Path source = projectRoot.resolve("src/test/java/com/example/" + className + ".java");
+        Files.createDirectories(source.getParent());
+        Files.writeString(source, body);
+        return source;
+    }
+
+    @Test
+    @DisplayName("compile should write the test class into target/test-classes")
+    void compile_shouldWriteTestClass() throws IOException {
+        writeTest("HelperTest", """
+                package com.example;
+
+                class HelperTest {
+                    int answer() {
+                        return 42;
+                    }
+                }
+                """);
+
+        IncrementalTestCompiler.CompileOutcome outcome =
+                compiler.compile(projectRoot, Path.of("src/test/java/com/example/HelperTest.java"));
+
+        assertTrue(outcome.available());
+        assertTrue(outcome.success());
+        assertTrue(Files.exists(projectRoot.resolve("target/test-classes/com/example/HelperTest.class")));
+    }
+
+    @Test
+    @DisplayName("compile should return structured diagnostics for errors")
+    void compile_shouldReturnStructuredDiagnostics() throws IOException {
+        Path source = writeTest("BrokenTest", """
+                package com.example;
+
+                class BrokenTest {
+                    void run() {
+                        String s = 1;
+                    }
+                }
+                """);
+
+        IncrementalTestCompiler.CompileOutcome outcome = compiler.compile(projectRoot, source);
+
+        assertTrue(outcome.available());
+        assertFalse(outcome.success());
+        assertEquals(1, outcome.errors().size());
+        IncrementalTestCompiler.CompileDiagnostic error = outcome.errors().get(0);
+        assertEquals(5, error.line());
+        assertTrue(error.file().endsWith("BrokenTest.java"));
+        assertTrue(outcome.format().startsWith("COMPILATION ERROR: 1 error(s)"));
+    }
+
+    @Test
+    @DisplayName("compile should be unavailable without main classes or classpath")
+    void compile_shouldBeUnavailableWithoutPrerequisites() throws IOException {
+        Path source = projectRoot.resolve("src/test/java/FooTest.java");
+        Files.createDirectories(source.getParent());
+        Files.writeString(source, "class FooTest {}");
+
+        assertFalse(compiler.compile(projectRoot, source).available());
+
+        Files.createDirectories(projectRoot.resolve("target/classes"));
+        IncrementalTestCompiler noClasspath = new IncrementalTestCompiler(root -> null);
+        IncrementalTestCompiler.CompileOutcome outcome = noClasspath.compile(projectRoot, source);
+        assertFalse(outcome.available());
+        assertNotNull(outcome.reason());
+    }
+
+    @Test
+    @DisplayName("unavailableReason should report missing main classes or classpath")
+    void unavailableReason_shouldProbePrerequisites() throws IOException {
+        assertTrue(compiler.unavailableReason(projectRoot).contains("target/classes"));
+
+        Files.createDirectories(projectRoot.resolve("target/classes"));
+        assertNull(compiler.unavailableReason(projectRoot));
+        assertNotNull(new IncrementalTestCompiler(root -> null).unavailableReason(projectRoot));
+    }
+
+    @Test
+    @DisplayName("compile should target the project's Java release taken from target/classes")
+    void compile_shouldUseProjectRelease() throws IOException {
+        Path mainSource = projectRoot.resolve("src/main/java/com/example/Calc.java");
+        Files.createDirectories(mainSource.getParent());
+        Files.writeString(mainSource, "package com.example; public class Calc {}");
+        Files.createDirectories(projectRoot.resolve("target/classes"));
+        assertEquals(0, javax.tools.ToolProvider.getSystemJavaCompiler().run(null, null, null,
+                "--release", "11", "-Xlint:-options", "-d", projectRoot.resolve("target/classes").toString(),
+                mainSource.toString()));
+        writeTest("ModernTest", """
+                package com.example;
+
+                import java.util.List;
+
+                class ModernTest {
+                    List<Integer> values() {
+                        return List.of(1, 2).stream().toList();
+                    }
+                }
+                """);
+
+        IncrementalTestCompiler.CompileOutcome outcome =
+                compiler.compile(projectRoot, Path.of("src/test/java/com/example/ModernTest.java"));
+
+        assertEquals(11, IncrementalTestCompiler.targetRelease(projectRoot));
+        assertTrue(outcome.available());
+        // Stream.toList() is Java 16+, so it must not compile for a Java 11 project
+        assertFalse(outcome.success());
+        assertTrue(outcome.format().contains("toList"));
+    }
+
+    @Test
+    @DisplayName("targetRelease should fall back to the pom's compiler settings")
+    void targetRelease_shouldReadPom() throws IOException {
+        Path pom = projectRoot.resolve("pom.xml");
+        assertNull(IncrementalTestCompiler.targetRelease(projectRoot));
+
+        Files.writeString(pom, """
+                <project>
+                  <properties>
+                    <java.version>17</java.version>
+                    <maven.compiler.release>${java.version}</maven.compiler.release>
+                  </properties>
+                </project>
+                """);
+        assertEquals(17, IncrementalTestCompiler.targetRelease(projectRoot));
+
+        Files.writeString(pom, """
+                <project>
+                  <properties>
+                    <maven.compiler.source>1.8</maven.compiler.source>
+                  </properties>
+                </project>
+                """);
+        assertEquals(8, IncrementalTestCompiler.targetRelease(projectRoot));
+    }
+}
@@ -0,0 +1,108 @@
+package com.codelogickeep.agent.ut.framework.pipeline;
+
+import com.codelogickeep.agent.ut.framework.model.ToolCall;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SpeculativeVerifier.
+ */
+class SpeculativeVerifierTest {
+
+    private static final String RELATIVE = "src/test/java/com/example/CalcTest.java";
+    private static final String VALID = "class CalcTest { void a() { int x = 1; } }";
+
+    @TempDir
+    Path module;
+
+    private Path testFile;
+    private CountDownLatch warmed;
+    private SpeculativeVerifier verifier;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        testFile = module.resolve(RELATIVE);
+        Files.createDirectories(testFile.getParent());
+        Files.writeString(testFile, VALID);
+        warmed = new CountDownLatch(1);
+        verifier = new SpeculativeVerifier(testFile.toString(), warmed::countDown);
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    @DisplayName("a broken writeFile on the test file should request cancellation and warm up once")
+    void writeFile_withSyntaxError_shouldCancel() throws InterruptedException {
+        verifier.onToolCall(ToolCall.of("writeFile", Map.of("path", RELATIVE, "content", "class CalcTest {")));
+
+        awaitCondition(verifier::shouldCancel);
+        assertTrue(verifier.shouldCancel());
+        assertNotNull(verifier.failureDetails());
+        assertTrue(warmed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("awaitShouldCancel should wait for the check of the latest write")
+    void awaitShouldCancel_shouldWaitForLatestCheck() throws InterruptedException {
+        verifier.onToolCall(ToolCall.of("writeFile", Map.of("path", RELATIVE, "content", "class CalcTest {")));
+
+        assertTrue(verifier.awaitShouldCancel(5000));
+
+        verifier.onToolCall(ToolCall.of("writeFile", Map.of("path", RELATIVE, "content", "class CalcTest { }")));
+
+        assertFalse(verifier.awaitShouldCancel(5000));
+    }
+
+    @Test
+    @DisplayName("a later fixing write should supersede the failed check")
+    void laterWrite_shouldSupersedeFailure() throws InterruptedException {
+        verifier.onToolCall(ToolCall.of("writeFile", Map.of("path", RELATIVE, "content", "class CalcTest {")));
+        awaitCondition(verifier::shouldCancel);
+
+        verifier.onToolCall(ToolCall.of("searchReplace",
+                Map.of("path", RELATIVE, "oldString", "class CalcTest {", "newString", "class CalcTest { }")));
+
+        assertFalse(verifier.shouldCancel());
+        Thread.sleep(200);
+        assertFalse(verifier.shouldCancel());
+        assertNull(verifier.failureDetails());
+    }
+
+    @Test
+    @DisplayName("searchReplace should be projected onto the current file content")
+    void searchReplace_shouldProjectOntoFile() throws InterruptedException {
+        verifier.onToolCall(ToolCall.of("searchReplace",
+                Map.of("path", testFile.toString(), "oldString", "int x = 1;", "newString", "int x = ;")));
+
+        awaitCondition(verifier::shouldCancel);
+        assertTrue(verifier.shouldCancel());
+    }
+
+    @Test
+    @DisplayName("writes to other files and read-only tools should be ignored")
+    void otherFilesAndTools_shouldBeIgnored() throws InterruptedException {
+        verifier.onToolCall(ToolCall.of("writeFile", Map.of("path", "src/test/java/Other.java", "content", "{")));
+        verifier.onToolCall(ToolCall.of("readFile", Map.of("path", RELATIVE)));
+
+        Thread.sleep(200);
+        assertFalse(verifier.shouldCancel());
+        assertEquals(1, warmed.getCount());
+    }
+}
@@ -0,0 +1,158 @@
+package com.codelogickeep.agent.ut.framework.pipeline;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestClassMergerTest {
+
+    private static final String BASE = """
+            package com.example;
+
+            import org.junit.jupiter.api.BeforeEach;
+            import org.junit.jupiter.api.Test;
+
+            class FooTest {
+                private Foo foo;
+
+                @BeforeEach
+                void setUp() {
+                    foo = new Foo();
+                }
+
+                @Test
+                void shouldWork() {
+                    foo.run();
+                }
+            }
+            """;
+
+    private final TestClassMerger merger = new TestClassMerger();
+
+    @Test
+    @DisplayName("Scratch class with identical setup is folded into the base class")
+    void testFoldsCompatibleScratch() {
+        String scratch = """
+                package com.example;
+
+                import org.junit.jupiter.api.BeforeEach;
+                import org.junit.jupiter.api.Test;
+                import static org.junit.jupiter.api.Assertions.assertEquals;
+
+                class FooTest_add {
+                    private Foo foo;
+
+                    @BeforeEach
+                    void setUp() {
+                        foo = new Foo();
+                    }
+
+                    @Test
+                    void addReturnsSum() {
+                        assertEquals(3, foo.add(1, 2));
+                    }
+                }
+                """;
+
+        TestClassMerger.MergeResult result = merger.merge(BASE, "FooTest",
+                List.of(new TestClassMerger.Scratch("FooTest_add", "add", scratch)));
+
+        assertEquals(List.of("FooTest_add"), result.folded());
+        assertTrue(result.nested().isEmpty());
+        assertTrue(result.source().contains("void addReturnsSum()"));
+        assertTrue(result.source().contains("import static org.junit.jupiter.api.Assertions.assertEquals;"));
+        assertFalse(result.source().contains("FooTest_add"));
+        assertEquals(1, count(result.source(), "void setUp()"));
+    }
+
+    @Test
+    @DisplayName("Clashing test method names get the method suffix")
+    void testRenamesClashingTestMethods() {
+        String scratch = """
+                package com.example;
+
+                import org.junit.jupiter.api.Test;
+
+                class FooTest_run {
+                    @Test
+                    void shouldWork() {
+                    }
+                }
+                """;
+
+        TestClassMerger.MergeResult result = merger.merge(BASE, "FooTest",
+                List.of(new TestClassMerger.Scratch("FooTest_run", "run", scratch)));
+
+        assertTrue(result.source().contains("void shouldWork()"));
+        assertTrue(result.source().contains("void shouldWork_run()"));
+    }
+
+    @Test
+    @DisplayName("Scratch class with different setup becomes a @Nested class")
+    void testNestsConflictingScratch() {
+        String scratch = """
+                package com.example;
+
+                import org.junit.jupiter.api.BeforeEach;
+                import org.junit.jupiter.api.Test;
+
+                class FooTest_reset {
+                    private Foo foo;
+
+                    @BeforeEach
+                    void setUp() {
+                        foo = new Foo(42);
+                    }
+
+                    @Test
+                    void resetClearsState() {
+                        foo.reset();
+                    }
+                }
+                """;
+
+        TestClassMerger.MergeResult result = merger.merge(BASE, "FooTest",
+                List.of(new TestClassMerger.Scratch("FooTest_reset", "reset", scratch)));
+
+        assertEquals(List.of("FooTest_reset"), result.nested());
+        assertTrue(result.source().contains("@Nested"));
+        assertTrue(result.source().contains("class ResetTests"));
+        assertTrue(result.source().contains("import org.junit.jupiter.api.Nested;"));
+        assertTrue(result.source().contains("new Foo(42)"));
+    }
+
+    @Test
+    @DisplayName("Without a base class the first scratch class is renamed to the test class")
+    void testCreatesBaseFromFirstScratch() {
+        String scratch = """
+                package com.example;
+
+                import org.junit.jupiter.api.Test;
+
+                class FooTest_add {
+                    @Test
+                    void addWorks() {
+                    }
+                }
+                """;
+
+        TestClassMerger.MergeResult result = merger.merge(null, "FooTest",
+                List.of(new TestClassMerger.Scratch("FooTest_add", "add", scratch),
+                        new TestClassMerger.Scratch("FooTest_bad", "bad", "class {")));
+
+        assertTrue(result.source().contains("class FooTest "));
+        assertTrue(result.source().contains("void addWorks()"));
+        assertEquals(List.of("FooTest_bad"), result.skipped());
+    }
+
+    private static int count(String text, String token) {
+        int count = 0;
+        for (int i = text.indexOf(token); i >= 0; i = text.indexOf(token, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
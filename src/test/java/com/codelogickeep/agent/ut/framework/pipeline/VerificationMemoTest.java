@@ -0,0 +1,94 @@
+package com.codelogickeep.agent.ut.framework.pipeline;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for VerificationMemo.
+ */
+class VerificationMemoTest {
+
+    private static final String TEST_FILE = "src/test/java/com/example/CalcTest.java";
+    private static final String KEY = "com.example.CalcTest#abs";
+
+    @TempDir
+    Path module;
+
+    private VerificationMemo memo;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        memo = new VerificationMemo();
+        write(TEST_FILE, "class CalcTest { void abs() { assert 1 == 1; } }");
+        write("src/main/java/com/example/Calc.java", "class Calc { int abs(int v) { return v; } }");
+        write("pom.xml", "<project/>");
+    }
+
+    private void write(String relative, String content) throws IOException {
+        Path file = module.resolve(relative);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+
+    private VerificationMemo.Fingerprint fingerprint() {
+        return memo.fingerprint(TEST_FILE, "com.example.Calc", module.toString());
+    }
+
+    @Test
+    @DisplayName("fingerprint should ignore comments and whitespace in the test source")
+    void fingerprint_shouldIgnoreCommentsAndWhitespace() throws IOException {
+        VerificationMemo.Fingerprint before = fingerprint();
+
+        write(TEST_FILE, "/** doc */\nclass CalcTest {\n    // check\n    void abs() {\n        assert 1 == 1;\n    }\n}\n");
+        assertEquals(before, fingerprint());
+
+        write(TEST_FILE, "class CalcTest { void abs() { assert 1 == 2; } }");
+        assertNotEquals(before.testSource(), fingerprint().testSource());
+    }
+
+    @Test
+    @DisplayName("lookup should reuse a result only while every input is unchanged")
+    void lookup_shouldRequireUnchangedInputs() throws IOException {
+        VerificationResult result = VerificationResult.success(90, true);
+        memo.remember(KEY, fingerprint(), result);
+
+        assertSame(result, memo.lookup(KEY, fingerprint()));
+        assertNull(memo.lookup("other#key", fingerprint()));
+
+        write("src/main/java/com/example/Calc.java", "class Calc { int abs(int v) { return v < 0 ? -v : v; } }");
+        assertNull(memo.lookup(KEY, fingerprint()));
+
+        write("src/main/java/com/example/Calc.java", "class Calc { int abs(int v) { return v; } }");
+        write("pom.xml", "<project><version>2</version></project>");
+        assertNull(memo.lookup(KEY, fingerprint()));
+    }
+
+    @Test
+    @DisplayName("syntax failures should be reused even when the target class changed")
+    void lookup_shouldReuseSyntaxFailureAcrossTargetChanges() throws IOException {
+        VerificationResult syntax = VerificationResult.failure(VerificationStep.SYNTAX_CHECK, "语法错误");
+        memo.remember(KEY, fingerprint(), syntax);
+
+        write("src/main/java/com/example/Calc.java", "class Calc { int abs(int v) { return -v; } }");
+
+        assertSame(syntax, memo.lookup(KEY, fingerprint()));
+    }
+
+    @Test
+    @DisplayName("nothing should be remembered when the test source is missing")
+    void remember_shouldSkipMissingTestSource() {
+        VerificationMemo.Fingerprint missing = memo.fingerprint("src/test/java/Missing.java", "com.example.Calc",
+                module.toString());
+        memo.remember(KEY, missing, VerificationResult.success(0, false));
+
+        assertNull(memo.lookup(KEY, missing));
+    }
+}
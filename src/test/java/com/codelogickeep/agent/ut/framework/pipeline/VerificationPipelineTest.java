@@ -2,11 +2,16 @@ package com.codelogickeep.agent.ut.framework.pipeline;
 
 import com.codelogickeep.agent.ut.config.AppConfig;
 import com.codelogickeep.agent.ut.framework.tool.ToolRegistry;
+import com.codelogickeep.agent.ut.tools.CompileGuard;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -205,6 +210,68 @@ class VerificationPipelineTest {
         verify(toolRegistry).invoke(eq("compileProject"), any());
     }
     
+    @Test
+    void testCompileUsesInProcessCompilerAndReturnsDiagnostics() throws Exception {
+        CompileGuard.getInstance().clearAllStatus();
+        IncrementalTestCompiler compiler = mock(IncrementalTestCompiler.class);
+        IncrementalTestCompiler.CompileDiagnostic error = new IncrementalTestCompiler.CompileDiagnostic(
+                "ERROR", "CalculatorTest.java", 12, 5, "cannot find symbol");
+        when(compiler.compile(any(), any())).thenReturn(
+                new IncrementalTestCompiler.CompileOutcome(true, false, List.of(error), null));
+        pipeline = new VerificationPipeline(toolRegistry, config, compiler);
+        
+        VerificationResult result = pipeline.compileOnly("src/test/java/CalculatorTest.java", ".");
+        
+        assertFalse(result.isSuccess());
+        assertEquals(VerificationStep.COMPILE, result.getFailedStep());
+        assertEquals(List.of(error), result.getCompileDiagnostics());
+        assertTrue(result.getErrorDetails().contains("cannot find symbol"));
+        verify(toolRegistry, never()).invoke(eq("compileProject"), any());
+    }
+    
+    @Test
+    void testCompileFallsBackToMavenWhenInProcessUnavailable() throws Exception {
+        CompileGuard.getInstance().clearAllStatus();
+        IncrementalTestCompiler compiler = mock(IncrementalTestCompiler.class);
+        when(compiler.compile(any(), any())).thenReturn(
+                IncrementalTestCompiler.CompileOutcome.unavailable("no classpath"));
+        when(toolRegistry.invoke(eq("compileProject"), any())).thenReturn("BUILD SUCCESS");
+        pipeline = new VerificationPipeline(toolRegistry, config, compiler);
+        
+        VerificationResult result = pipeline.compileOnly("src/test/java/CalculatorTest.java", ".");
+        
+        assertTrue(result.isSuccess());
+        verify(toolRegistry).invoke(eq("compileProject"), any());
+    }
+    
+    @Test
+    void testCompileWithoutMavenFallbackFailsWhenInProcessUnavailable() throws Exception {
+        CompileGuard.getInstance().clearAllStatus();
+        IncrementalTestCompiler compiler = mock(IncrementalTestCompiler.class);
+        when(compiler.compile(any(), any())).thenReturn(
+                IncrementalTestCompiler.CompileOutcome.unavailable("no classpath"));
+        pipeline = new VerificationPipeline(toolRegistry, config, compiler);
+        pipeline.setMavenFallback(false);
+        
+        VerificationResult result = pipeline.compileOnly("src/test/java/CalculatorTest.java", ".");
+        
+        assertFalse(result.isSuccess());
+        assertEquals(VerificationStep.COMPILE, result.getFailedStep());
+        assertTrue(result.getErrorDetails().contains("no classpath"));
+        verify(toolRegistry, never()).invoke(eq("compileProject"), any());
+    }
+    
+    @Test
+    void testTestWithoutMavenFallbackFailsWithoutForkedRunner() throws Exception {
+        pipeline.setMavenFallback(false);
+        
+        VerificationResult result = pipeline.testOnly("com.example.Test", ".");
+        
+        assertFalse(result.isSuccess());
+        assertEquals(VerificationStep.TEST, result.getFailedStep());
+        verify(toolRegistry, never()).invoke(eq("executeTest"), any());
+    }
+    
     @Test
     void testTestOnly() throws Exception {
         when(toolRegistry.invoke(eq("executeTest"), any())).thenReturn("Failures: 0, Errors: 0");
@@ -284,4 +351,31 @@ class VerificationPipelineTest {
         
         assertTrue(result.isSuccess());
     }
+    
+    @Test
+    void testUnchangedInputsReuseMemoizedResult(@TempDir Path module) throws Exception {
+        Path testFile = module.resolve("src/test/java/com/example/CalcTest.java");
+        Files.createDirectories(testFile.getParent());
+        Files.writeString(testFile, "class CalcTest { void a() { int x = 1; } }");
+        pipeline = new VerificationPipeline(toolRegistry, config, null, null, new VerificationMemo());
+        
+        when(toolRegistry.invoke(eq("checkSyntax"), any())).thenReturn("VALID");
+        when(toolRegistry.invoke(eq("compileProject"), any())).thenReturn("BUILD FAILURE");
+        
+        VerificationResult first = pipeline.execute("src/test/java/com/example/CalcTest.java",
+                "com.example.CalcTest", "com.example.Calc", "abs", module.toString());
+        // 只改了注释和空白：不再调用任何工具
+        Files.writeString(testFile, "// fixed?\nclass CalcTest {\n  void a() { int x = 1; }\n}");
+        VerificationResult second = pipeline.execute("src/test/java/com/example/CalcTest.java",
+                "com.example.CalcTest", "com.example.Calc", "abs", module.toString());
+        
+        assertSame(first, second);
+        assertEquals(VerificationStep.COMPILE, second.getFailedStep());
+        verify(toolRegistry, times(1)).invoke(eq("compileProject"), any());
+        
+        Files.writeString(testFile, "class CalcTest { void a() { int x = 2; } }");
+        pipeline.execute("src/test/java/com/example/CalcTest.java",
+                "com.example.CalcTest", "com.example.Calc", "abs", module.toString());
+        verify(toolRegistry, times(2)).invoke(eq("compileProject"), any());
+    }
 }
@@ -6,9 +6,11 @@ import com.codelogickeep.agent.ut.framework.tool.ToolRegistry;
 import com.codelogickeep.agent.ut.model.PreCheckResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.nio.file.Path;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -47,6 +49,16 @@ class PreCheckExecutorTest {
         assertTrue(result.getErrorMessage().contains("Cannot determine project root"));
     }
 
+    @Test
+    void testExecuteWithPreparedProjectSkipsBuild(@TempDir Path projectRoot) throws Exception {
+        executor.setProjectPrepared(true);
+
+        executor.execute(projectRoot.toString(), "src/main/java/com/example/Foo.java");
+
+        verify(toolRegistry, never()).invoke(eq("cleanAndTest"), anyMap());
+        verify(toolRegistry, never()).invoke(eq("compileProject"), anyMap());
+    }
+
     @Test
     void testConstructorInitialization() {
         assertNotNull(executor);
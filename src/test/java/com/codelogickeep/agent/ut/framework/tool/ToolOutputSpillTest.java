@@ -0,0 +1,80 @@
+package com.codelogickeep.agent.ut.framework.tool;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ToolOutputSpill Tests")
+class ToolOutputSpillTest {
+
+    @TempDir
+    Path projectRoot;
+
+    @Test
+    @DisplayName("小于阈值的输出原样返回")
+    void testSmallOutputPassesThrough() {
+        ToolOutputSpill spill = ToolOutputSpill.forProject(projectRoot, 10000);
+
+        assertEquals("short", spill.spillIfLarge("readFile", "short"));
+        assertNull(spill.spillIfLarge("readFile", null));
+        assertFalse(Files.exists(projectRoot.resolve(ToolOutputSpill.SPILL_DIR)));
+    }
+
+    @Test
+    @DisplayName("大输出落盘，摘要保留开头结尾，readToolOutput 分页读取")
+    void testSpillAndPage() throws Exception {
+        ToolOutputSpill spill = ToolOutputSpill.forProject(projectRoot, 10000);
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; log.length() < 50000; i++) {
+            log.append("[INFO] line ").append(i).append('\n');
+        }
+        log.append("[ERROR] BUILD FAILURE\n");
+        String output = log.toString();
+
+        String summary = spill.spillIfLarge("executeTest", output);
+
+        assertTrue(summary.length() < 6000);
+        assertTrue(summary.startsWith("[Large output from executeTest: " + output.length() + " chars"));
+        assertTrue(summary.contains("[INFO] line 0\n"));
+        assertTrue(summary.endsWith("[ERROR] BUILD FAILURE\n"));
+        Matcher matcher = Pattern.compile("spill:[0-9a-f]{16}").matcher(summary);
+        assertTrue(matcher.find());
+        String handle = matcher.group();
+
+        String page = spill.readToolOutput(handle, 20000, 100);
+        assertTrue(page.startsWith("[chars 20000-20100 of " + output.length() + "]\n"));
+        assertTrue(page.contains(output.substring(20000, 20100)));
+        assertTrue(page.endsWith("continue with offset=20100]"));
+
+        ToolRegistry registry = new ToolRegistry();
+        registry.registerBuiltIn(spill);
+        String last = registry.invoke("readToolOutput", Map.of("handle", handle, "offset", output.length() - 10));
+        assertTrue(last.endsWith("FAILURE\n"));
+        // 分页结果不再落盘
+        assertEquals(last, spill.spillIfLarge("readToolOutput", last));
+    }
+
+    @Test
+    @DisplayName("相同内容只写一次，无效句柄返回错误")
+    void testContentAddressedAndInvalidHandles() throws Exception {
+        ToolOutputSpill spill = ToolOutputSpill.forProject(projectRoot, 5000);
+        String output = "x".repeat(8000);
+
+        assertEquals(spill.spillIfLarge("readFile", output), spill.spillIfLarge("coverage", output)
+                .replace("coverage", "readFile"));
+        try (var files = Files.list(spill.getDir())) {
+            assertEquals(1, files.count());
+        }
+
+        assertTrue(spill.readToolOutput("../../etc/passwd", 0, 10).startsWith("Error: Invalid handle"));
+        assertTrue(spill.readToolOutput("spill:0000000000000000", 0, 10).startsWith("Error: Unknown"));
+    }
+}
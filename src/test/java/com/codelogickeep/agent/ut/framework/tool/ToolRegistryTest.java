@@ -150,6 +150,19 @@ class ToolRegistryTest {
         assertTrue(hasEcho);
     }
     
+    @Test
+    @DisplayName("工具集不变时返回同一定义列表实例")
+    void testDefinitionsSnapshotStableUntilChanged() {
+        registry.register(new SimpleTool());
+        List<ToolDefinition> first = registry.getDefinitions();
+        
+        assertSame(first, registry.getDefinitions());
+        
+        registry.register(new TypedTool());
+        assertNotSame(first, registry.getDefinitions());
+        assertTrue(registry.getDefinitions().size() > first.size());
+    }
+    
     @Test
     @DisplayName("工具定义应包含参数schema")
     void testDefinitionHasParameterSchema() {
@@ -328,4 +341,18 @@ class ToolRegistryTest {
         // null title 应该被处理
         assertEquals("Hello, Alice", result);
     }
+    
+    @Test
+    @DisplayName("内置工具在clear后保留，重复注册替换旧实例")
+    void testBuiltInToolsSurviveClear() {
+        registry.register(new SimpleTool());
+        registry.registerBuiltIn(new ToolOutputSpill(java.nio.file.Path.of("a"), 0));
+        registry.registerBuiltIn(new ToolOutputSpill(java.nio.file.Path.of("b"), 0));
+        assertEquals(4, registry.size());
+        
+        registry.clear();
+        
+        assertEquals(List.of("readToolOutput"), registry.getToolNames());
+        assertEquals(1, registry.getDefinitions().size());
+    }
 }
@@ -10,6 +10,7 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.LinkedHashMap;
@@ -377,6 +378,20 @@ class JsonUtilTest {
         assertTrue(node.get("stream").asBoolean());
     }
     
+    @Test
+    @DisplayName("构建聊天请求 - 流式请求附带用量")
+    void testBuildChatRequestStreamUsage() throws JsonProcessingException {
+        List<Message> messages = List.of(new UserMessage("Hello"));
+        
+        JsonNode withUsage = JsonUtil.parse(new String(
+                JsonUtil.buildChatRequestBytes("gpt-4", messages, null, null, true, true), StandardCharsets.UTF_8));
+        JsonNode without = JsonUtil.parse(new String(
+                JsonUtil.buildChatRequestBytes("gpt-4", messages, null, null, true), StandardCharsets.UTF_8));
+        
+        assertTrue(withUsage.path("stream_options").path("include_usage").asBoolean());
+        assertFalse(without.has("stream_options"));
+    }
+    
     @Test
     @DisplayName("构建聊天请求 - 无温度参数")
     void testBuildChatRequestNoTemperature() throws JsonProcessingException {
@@ -388,6 +403,39 @@ class JsonUtilTest {
         assertFalse(node.has("temperature"));
     }
     
+    @Test
+    @DisplayName("构建聊天请求 - 流式写出与 JSON 树结构一致")
+    void testBuildChatRequestMatchesTree() throws JsonProcessingException {
+        List<Message> messages = List.of(
+            new SystemMessage("You are a test writer"),
+            new UserMessage("Write \"tests\" for Foo"),
+            AssistantMessage.withToolCalls("", List.of(ToolCall.withId("call_1", "readFile", Map.of("path", "Foo.java")))),
+            new ToolMessage("call_1", "readFile", "x".repeat(50_010))
+        );
+        List<ToolDefinition> tools = List.of(
+            new ToolDefinition("readFile", "Read a file",
+                new ParameterSchema("object", Map.of("path", PropertySchema.string("File path")), List.of("path")))
+        );
+        
+        JsonNode node = JsonUtil.parse(JsonUtil.buildChatRequest("gpt-4", messages, tools, 0.2, true));
+        
+        assertEquals(JsonUtil.messagesToJson(messages), node.get("messages"));
+        assertEquals(JsonUtil.toolsToJson(tools), node.get("tools"));
+        assertEquals(0.2, node.get("temperature").asDouble());
+        assertTrue(node.get("stream").asBoolean());
+    }
+    
+    @Test
+    @DisplayName("同一工具列表实例只序列化一次")
+    void testToolsFragmentCachedPerList() {
+        List<ToolDefinition> tools = List.of(
+            new ToolDefinition("readFile", "Read a file", ParameterSchema.empty())
+        );
+        
+        assertSame(JsonUtil.toolsFragment(tools), JsonUtil.toolsFragment(tools));
+        assertEquals(JsonUtil.toolsFragment(tools), JsonUtil.toolsFragment(List.copyOf(new java.util.ArrayList<>(tools))));
+    }
+    
     // ========== 工具方法测试 ==========
     
     @Test
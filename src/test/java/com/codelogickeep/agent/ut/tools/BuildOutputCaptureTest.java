@@ -0,0 +1,79 @@
+package com.codelogickeep.agent.ut.tools;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BuildOutputCapture.
+ */
+class BuildOutputCaptureTest {
+
+    @Test
+    @DisplayName("render should return the complete output when it fits into the ring buffer")
+    void render_shouldReturnCompleteOutputWhenSmall() {
+        BuildOutputCapture capture = new BuildOutputCapture(10);
+        capture.accept("[INFO] Building demo");
+        capture.accept("[INFO] BUILD SUCCESS");
+
+        assertFalse(capture.truncated());
+        assertEquals("[INFO] Building demo\n[INFO] BUILD SUCCESS\n", capture.render());
+    }
+
+    @Test
+    @DisplayName("ring buffer should keep only the last lines")
+    void tail_shouldKeepLastLines() {
+        BuildOutputCapture capture = new BuildOutputCapture(3);
+        for (int i = 1; i <= 10; i++) {
+            capture.accept("line " + i);
+        }
+
+        assertTrue(capture.truncated());
+        assertEquals(10, capture.totalLines());
+        assertEquals(List.of("line 8", "line 9", "line 10"), capture.tail());
+    }
+
+    @Test
+    @DisplayName("extractor should keep diagnostics, errors and test summaries that left the ring buffer")
+    void render_shouldKeepExtractedFragments() {
+        BuildOutputCapture capture = new BuildOutputCapture(2);
+        capture.accept("[ERROR] /src/test/java/FooTest.java:[12,5] cannot find symbol");
+        capture.accept("[ERROR] Tests run: 3, Failures: 1, Errors: 0, Skipped: 0, Time elapsed: 0.1 s <<< FAILURE!");
+        capture.accept("[ERROR]   FooTest.bar:20 expected: <1> but was: <2>");
+        capture.accept("[ERROR] -> [Help 1]");
+        capture.accept("[INFO] BUILD FAILURE");
+        for (int i = 0; i < 5; i++) {
+            capture.accept("[INFO] noise " + i);
+        }
+
+        assertEquals(List.of("[ERROR] /src/test/java/FooTest.java:[12,5] cannot find symbol"), capture.diagnostics());
+        assertEquals(List.of("[ERROR]   FooTest.bar:20 expected: <1> but was: <2>"), capture.errors());
+        assertEquals(1, capture.testSummaries().size());
+
+        String rendered = capture.render();
+        assertTrue(rendered.startsWith("[Output truncated: 10 lines"));
+        assertTrue(rendered.contains("cannot find symbol"));
+        assertTrue(rendered.contains("Tests run: 3, Failures: 1"));
+        assertTrue(rendered.contains("BUILD FAILURE"));
+        assertTrue(rendered.endsWith("[INFO] noise 3\n[INFO] noise 4\n"));
+        assertFalse(rendered.contains("[Help 1]"));
+    }
+
+    @Test
+    @DisplayName("overlong lines and fragment counts should be capped")
+    void accept_shouldCapLinesAndFragments() {
+        BuildOutputCapture capture = new BuildOutputCapture(1);
+        capture.accept("x".repeat(BuildOutputCapture.MAX_LINE_LENGTH * 2));
+        for (int i = 0; i < BuildOutputCapture.MAX_FRAGMENTS * 2; i++) {
+            capture.accept("[ERROR] failure " + i);
+        }
+
+        assertEquals(BuildOutputCapture.MAX_FRAGMENTS, capture.errors().size());
+        capture = new BuildOutputCapture(1);
+        capture.accept("x".repeat(BuildOutputCapture.MAX_LINE_LENGTH * 2));
+        assertTrue(capture.tail().get(0).length() < BuildOutputCapture.MAX_LINE_LENGTH + 30);
+    }
+}
@@ -0,0 +1,73 @@
+package com.codelogickeep.agent.ut.tools;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BuildSlotsTest {
+
+    @AfterEach
+    void tearDown() {
+        BuildSlots.configure(1);
+    }
+
+    @Test
+    @DisplayName("Nested acquisition on the same thread reuses the held slot")
+    void testReentrant() {
+        try (BuildSlots.Slot outer = BuildSlots.acquire()) {
+            try (BuildSlots.Slot inner = BuildSlots.acquire()) {
+                assertSame(outer, inner);
+                assertEquals(1, BuildSlots.inUse());
+            }
+            assertEquals(1, BuildSlots.inUse());
+        }
+        assertEquals(0, BuildSlots.inUse());
+    }
+
+    @Test
+    @DisplayName("A second thread waits until the slot is released")
+    void testExclusive() throws Exception {
+        CountDownLatch acquired = new CountDownLatch(1);
+        AtomicBoolean overlapped = new AtomicBoolean();
+        AtomicBoolean holding = new AtomicBoolean();
+
+        Thread other;
+        try (BuildSlots.Slot slot = BuildSlots.acquire()) {
+            holding.set(true);
+            other = Thread.ofVirtual().start(() -> {
+                try (BuildSlots.Slot mine = BuildSlots.acquire()) {
+                    overlapped.set(holding.get());
+                    acquired.countDown();
+                }
+            });
+            assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+            holding.set(false);
+        }
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        other.join();
+        assertFalse(overlapped.get());
+    }
+
+    @Test
+    @DisplayName("configure raises the number of concurrent builds")
+    void testConfigure() throws Exception {
+        BuildSlots.configure(2);
+        CountDownLatch acquired = new CountDownLatch(1);
+        try (BuildSlots.Slot slot = BuildSlots.acquire()) {
+            Thread other = Thread.ofVirtual().start(() -> {
+                try (BuildSlots.Slot mine = BuildSlots.acquire()) {
+                    acquired.countDown();
+                }
+            });
+            assertTrue(acquired.await(5, TimeUnit.SECONDS));
+            other.join();
+        }
+        assertEquals(2, BuildSlots.permits());
+    }
+}
@@ -103,6 +103,18 @@ class CompileGuardTest {
             assertNull(result.blockReason());
         }
 
+        @Test
+        @DisplayName("canCompile(file) should only consider the given file")
+        void canCompileFile_shouldIgnoreOtherFiles() {
+            guard.markFileModified("/path/to/FooTest_add.java");
+            guard.markFileModified("/path/to/FooTest_sub.java");
+            guard.markSyntaxPassed("/path/to/FooTest_add.java");
+
+            assertTrue(guard.canCompile("/path/to/FooTest_add.java").canCompile());
+            assertFalse(guard.canCompile("/path/to/FooTest_sub.java").canCompile());
+            assertFalse(guard.canCompile().canCompile());
+        }
+
         @Test
         @DisplayName("markSyntaxFailed should block compilation with error message")
         void markSyntaxFailed_shouldBlockWithErrorMessage() {
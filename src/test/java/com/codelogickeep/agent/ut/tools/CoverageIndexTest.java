@@ -0,0 +1,124 @@
+package com.codelogickeep.agent.ut.tools;
+
+import com.codelogickeep.agent.ut.tools.CoverageIndex.CounterType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CoverageIndex.
+ */
+class CoverageIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final String REPORT = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <!DOCTYPE report PUBLIC "-//JACOCO//DTD Report 1.1//EN" "report.dtd">
+            <report name="test-report">
+                <package name="com/example">
+                    <class name="com/example/MyService" sourcefilename="MyService.java">
+                        <method name="&lt;init&gt;" desc="()V" line="5">
+                            <counter type="LINE" missed="0" covered="1"/>
+                        </method>
+                        <method name="process" desc="(II)I" line="10">
+                            <counter type="LINE" missed="3" covered="1"/>
+                            <counter type="BRANCH" missed="1" covered="3"/>
+                        </method>
+                        <method name="process" desc="(I)I" line="20">
+                            <counter type="LINE" missed="0" covered="4"/>
+                        </method>
+                        <counter type="LINE" missed="3" covered="6"/>
+                    </class>
+                    <class name="com/example/Other" sourcefilename="Other.java">
+                        <method name="run" desc="()V" line="3">
+                            <counter type="LINE" missed="2" covered="0"/>
+                        </method>
+                    </class>
+                </package>
+                <counter type="LINE" missed="5" covered="6"/>
+            </report>
+            """;
+
+    @BeforeEach
+    void setUp() {
+        CoverageIndex.clearCache();
+    }
+
+    private Path writeReport(String content) throws IOException {
+        Path jacocoDir = tempDir.resolve("target/site/jacoco");
+        Files.createDirectories(jacocoDir);
+        Path report = jacocoDir.resolve("jacoco.xml");
+        Files.writeString(report, content);
+        return report;
+    }
+
+    @Test
+    @DisplayName("forModule should return null when no report exists")
+    void forModule_shouldReturnNullWithoutReport() throws IOException {
+        assertNull(CoverageIndex.forModule(tempDir.toString()));
+    }
+
+    @Test
+    @DisplayName("index should answer class and method lookups")
+    void index_shouldAnswerLookups() throws IOException {
+        writeReport(REPORT);
+
+        CoverageIndex index = CoverageIndex.forModule(tempDir.toString());
+
+        assertEquals(2, index.classCount());
+        assertEquals(4, index.methodCount());
+        assertTrue(index.hasPackage("com.example"));
+        assertFalse(index.hasPackage("com.other"));
+
+        int classId = index.classId("com.example.MyService");
+        assertTrue(classId >= 0);
+        assertEquals(-1, index.classId("com.example.Missing"));
+        assertEquals(3, index.methodEnd(classId) - index.firstMethod(classId));
+        assertEquals(66.67, index.classCoverage(classId, CounterType.LINE), 0.01);
+        // No BRANCH counter means not applicable
+        assertEquals(100.0, index.classCoverage(classId, CounterType.BRANCH), 0.001);
+
+        int process = index.methodId("com.example.MyService", "process");
+        assertEquals("(II)I", index.methodDesc(process)); // first overload wins
+        assertEquals(25.0, index.methodCoverage(process, CounterType.LINE), 0.001);
+        assertEquals(75.0, index.methodCoverage(process, CounterType.BRANCH), 0.001);
+        assertEquals(process, index.methodId("com.example.MyService", "process(2 params)"));
+        assertEquals("<init>", index.methodName(index.methodId("com.example.MyService", "constructor")));
+
+        assertEquals(1, index.reportCounters().size());
+    }
+
+    @Test
+    @DisplayName("forReport should reuse the index until the report changes")
+    void forReport_shouldReuseUntilReportChanges() throws IOException {
+        Path report = writeReport(REPORT);
+
+        CoverageIndex first = CoverageIndex.forReport(report);
+        assertSame(first, CoverageIndex.forReport(report));
+
+        Files.writeString(report, REPORT.replace("com/example/Other", "com/example/Another"));
+        Files.setLastModifiedTime(report, FileTime.fromMillis(System.currentTimeMillis() + 5_000));
+
+        CoverageIndex second = CoverageIndex.forReport(report);
+        assertNotSame(first, second);
+        assertTrue(second.classId("com.example.Another") >= 0);
+    }
+
+    @Test
+    @DisplayName("displayName should render constructors and parameter counts")
+    void displayName_shouldRenderConstructorsAndParams() {
+        assertEquals("constructor()", CoverageIndex.displayName("<init>", "()V"));
+        assertEquals("calc(2 params)", CoverageIndex.displayName("calc", "(ILjava/lang/String;)V"));
+        assertEquals("arr(1 params)", CoverageIndex.displayName("arr", "([[I)V"));
+    }
+}
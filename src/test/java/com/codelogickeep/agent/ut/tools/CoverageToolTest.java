@@ -64,7 +64,9 @@ class CoverageToolTest {
     void getCoverageReport_shouldReturnErrorWhenReportNotFound() throws IOException {
         String result = tool.getCoverageReport(tempDir.toString());
 
-        assertTrue(result.contains("not found") || result.contains("Coverage report not found"));
+        assertTrue(result.contains("not found"));
+        assertTrue(result.contains("jacoco.exec"));
+        assertFalse(result.contains("jacoco:report"));
     }
 
     // ==================== checkCoverageThreshold Tests ====================
@@ -0,0 +1,198 @@
+package com.codelogickeep.agent.ut.tools;
+
+import com.codelogickeep.agent.ut.tools.CoverageIndex.CounterType;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.SessionInfoStore;
+import org.jacoco.core.instr.Instrumenter;
+import org.jacoco.core.runtime.IRuntime;
+import org.jacoco.core.runtime.LoggerRuntime;
+import org.jacoco.core.runtime.RuntimeData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.function.IntUnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for JacocoExecAnalyzer (in-process jacoco.exec analysis).
+ */
+class JacocoExecAnalyzerTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Class under coverage: only the positive branch is exercised.
+     */
+    public static class Target implements IntUnaryOperator {
+        @Override
+        public int applyAsInt(int value) {
+            if (value > 0) {
+                return value * 2;
+            }
+            return -value;
+        }
+
+        public int unused() {
+            return 42;
+        }
+    }
+
+    private static final String TARGET_NAME = Target.class.getName();
+    private static final String TARGET_RESOURCE = TARGET_NAME.replace('.', '/') + ".class";
+
+    @BeforeEach
+    void setUp() {
+        CoverageIndex.clearCache();
+    }
+
+    @Test
+    @DisplayName("analyze should compute class and method counters from execution data")
+    void analyze_shouldComputeCountersFromExecData() throws Exception {
+        writeModule();
+
+        CoverageIndex index = JacocoExecAnalyzer.analyze(
+                CoverageIndex.execPath(tempDir.toString()), CoverageIndex.classesPath(tempDir.toString()));
+
+        int classId = index.classId(TARGET_NAME);
+        assertTrue(classId >= 0);
+        assertEquals("JacocoExecAnalyzerTest.java", index.classSourceFile(classId));
+        assertEquals(1, index.classMissed(classId, CounterType.BRANCH));
+        assertEquals(1, index.classCovered(classId, CounterType.BRANCH));
+
+        int apply = index.methodId(TARGET_NAME, "applyAsInt");
+        assertTrue(index.methodLine(apply) > 0);
+        assertEquals(50.0, index.methodCoverage(apply, CounterType.BRANCH), 0.001);
+        assertTrue(index.methodMissed(apply, CounterType.LINE) > 0);
+
+        int unused = index.methodId(TARGET_NAME, "unused");
+        assertEquals(0.0, index.methodCoverage(unused, CounterType.LINE), 0.001);
+        assertTrue(index.methodLines(unused).coveredLines().isEmpty());
+        assertFalse(index.methodLines(unused).missedLines().isEmpty());
+        CoverageIndex.MethodLines applyLines = index.methodLines(apply);
+        assertEquals(1, applyLines.missedBranchLines().cardinality());
+        assertTrue(applyLines.missedBranchLines().intersects(applyLines.branchLines()));
+        assertFalse(index.reportCounters().isEmpty());
+    }
+
+    @Test
+    @DisplayName("forModule should prefer execution data newer than the XML report")
+    void forModule_shouldPreferNewerExecData() throws Exception {
+        writeModule();
+        Path report = CoverageIndex.reportPath(tempDir.toString());
+        Files.createDirectories(report.getParent());
+        Files.writeString(report, """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <report name="stale"><package name="com/stale"/></report>
+                """);
+
+        Path exec = CoverageIndex.execPath(tempDir.toString());
+        Files.setLastModifiedTime(report, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+        Files.setLastModifiedTime(exec, FileTime.fromMillis(System.currentTimeMillis()));
+        CoverageIndex fromExec = CoverageIndex.forModule(tempDir.toString());
+        assertTrue(fromExec.classId(TARGET_NAME) >= 0);
+        assertSame(fromExec, CoverageIndex.forModule(tempDir.toString()));
+
+        Files.setLastModifiedTime(report, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+        CoverageIndex fromReport = CoverageIndex.forModule(tempDir.toString());
+        assertTrue(fromReport.hasPackage("com.stale"));
+        assertEquals(-1, fromReport.classId(TARGET_NAME));
+    }
+
+    @Test
+    @DisplayName("forExec should rebuild the cached index when the classes are recompiled")
+    void forExec_shouldRebuildWhenClassesChange() throws Exception {
+        writeModule();
+        Path exec = CoverageIndex.execPath(tempDir.toString());
+        Path classes = CoverageIndex.classesPath(tempDir.toString());
+
+        CoverageIndex first = CoverageIndex.forExec(exec, classes);
+        assertSame(first, CoverageIndex.forExec(exec, classes));
+
+        // Recompile: same jacoco.exec, but a class file was rewritten and another one added
+        Path classFile = classes.resolve(TARGET_RESOURCE);
+        Files.write(classFile, Files.readAllBytes(classFile));
+        Files.setLastModifiedTime(classFile, FileTime.fromMillis(System.currentTimeMillis() + 5_000));
+        String added = AddedLater.class.getName().replace('.', '/') + ".class";
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(added)) {
+            Files.write(classes.resolve(added), in.readAllBytes());
+        }
+
+        CoverageIndex rebuilt = CoverageIndex.forExec(exec, classes);
+        assertNotSame(first, rebuilt);
+        assertTrue(rebuilt.classId(AddedLater.class.getName()) >= 0);
+        assertSame(rebuilt, CoverageIndex.forExec(exec, classes));
+    }
+
+    /**
+     * Extra class dropped into target/classes to simulate a recompile.
+     */
+    public static class AddedLater {
+        public int value() {
+            return 1;
+        }
+    }
+
+    /**
+     * Copy the original class to target/classes and record target/jacoco.exec by
+     * running an instrumented copy of it.
+     */
+    private void writeModule() throws Exception {
+        byte[] original;
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(TARGET_RESOURCE)) {
+            original = in.readAllBytes();
+        }
+        Path classFile = CoverageIndex.classesPath(tempDir.toString()).resolve(TARGET_RESOURCE);
+        Files.createDirectories(classFile.getParent());
+        Files.write(classFile, original);
+
+        IRuntime runtime = new LoggerRuntime();
+        byte[] instrumented = new Instrumenter(runtime).instrument(original, TARGET_NAME);
+        RuntimeData data = new RuntimeData();
+        runtime.startup(data);
+        try {
+            Class<?> cls = new SingleClassLoader(TARGET_NAME, instrumented).loadClass(TARGET_NAME);
+            IntUnaryOperator op = (IntUnaryOperator) cls.getDeclaredConstructor().newInstance();
+            assertEquals(4, op.applyAsInt(2));
+        } finally {
+            ExecutionDataStore executionData = new ExecutionDataStore();
+            data.collect(executionData, new SessionInfoStore(), false);
+            runtime.shutdown();
+            Path exec = CoverageIndex.execPath(tempDir.toString());
+            try (OutputStream out = Files.newOutputStream(exec)) {
+                executionData.accept(new ExecutionDataWriter(out));
+            }
+        }
+    }
+
+    private static final class SingleClassLoader extends ClassLoader {
+        private final String name;
+        private final byte[] bytes;
+
+        SingleClassLoader(String name, byte[] bytes) {
+            super(JacocoExecAnalyzerTest.class.getClassLoader());
+            this.name = name;
+            this.bytes = bytes;
+        }
+
+        @Override
+        protected Class<?> loadClass(String className, boolean resolve) throws ClassNotFoundException {
+            if (name.equals(className)) {
+                synchronized (getClassLoadingLock(className)) {
+                    Class<?> loaded = findLoadedClass(className);
+                    return loaded != null ? loaded : defineClass(className, bytes, 0, bytes.length);
+                }
+            }
+            return super.loadClass(className, resolve);
+        }
+    }
+}
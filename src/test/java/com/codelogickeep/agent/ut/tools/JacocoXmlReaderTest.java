@@ -0,0 +1,160 @@
+package com.codelogickeep.agent.ut.tools;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for JacocoXmlReader (streaming JaCoCo report parsing).
+ */
+class JacocoXmlReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final String REPORT = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <!DOCTYPE report PUBLIC "-//JACOCO//DTD Report 1.1//EN" "report.dtd">
+            <report name="test-report">
+                <sessioninfo id="s1" start="1" dump="2"/>
+                <package name="com/other">
+                    <class name="com/other/MyService" sourcefilename="MyService.java">
+                        <method name="other" desc="()V" line="3">
+                            <counter type="LINE" missed="1" covered="0"/>
+                        </method>
+                    </class>
+                </package>
+                <package name="com/example">
+                    <class name="com/example/Helper" sourcefilename="Helper.java">
+                        <counter type="LINE" missed="0" covered="1"/>
+                    </class>
+                    <class name="com/example/MyService" sourcefilename="MyService.java">
+                        <method name="&lt;init&gt;" desc="()V" line="5">
+                            <counter type="LINE" missed="0" covered="1"/>
+                        </method>
+                        <method name="process" desc="(ILjava/lang/String;)V" line="10">
+                            <counter type="LINE" missed="3" covered="1"/>
+                            <counter type="BRANCH" missed="1" covered="1"/>
+                        </method>
+                        <counter type="LINE" missed="3" covered="2"/>
+                    </class>
+                    <sourcefile name="MyService.java">
+                        <line nr="10" mi="0" ci="3" mb="0" cb="0"/>
+                        <counter type="LINE" missed="3" covered="2"/>
+                    </sourcefile>
+                    <counter type="LINE" missed="3" covered="3"/>
+                </package>
+                <counter type="LINE" missed="4" covered="3"/>
+                <counter type="METHOD" missed="1" covered="2"/>
+            </report>
+            """;
+
+    private Path writeReport(String content) throws IOException {
+        Path report = tempDir.resolve("jacoco.xml");
+        Files.writeString(report, content);
+        return report;
+    }
+
+    /**
+     * Read the whole report, collecting classes by name and the report-level counters.
+     */
+    private static final class Collector implements JacocoXmlReader.ReportVisitor {
+        final Map<String, JacocoXmlReader.ClassCoverage> classes = new LinkedHashMap<>();
+        final List<String> packages = new ArrayList<>();
+        final List<JacocoXmlReader.Counter> reportCounters = new ArrayList<>();
+
+        @Override
+        public void visitReportCounter(JacocoXmlReader.Counter counter) {
+            reportCounters.add(counter);
+        }
+
+        @Override
+        public void visitPackage(String name) {
+            packages.add(name);
+        }
+
+        @Override
+        public void visitClass(JacocoXmlReader.ClassCoverage classCoverage) {
+            classes.put(classCoverage.name(), classCoverage);
+        }
+    }
+
+    private Collector readAll(String content) throws IOException {
+        Collector collector = new Collector();
+        JacocoXmlReader.readAll(writeReport(content), collector);
+        return collector;
+    }
+
+    @Test
+    @DisplayName("readAll should read classes with their methods and counters")
+    void readAll_shouldReadClasses() throws IOException {
+        Collector report = readAll(REPORT);
+
+        assertEquals(List.of("com/other", "com/example"), report.packages);
+        assertEquals(3, report.classes.size());
+        JacocoXmlReader.ClassCoverage cls = report.classes.get("com/example/MyService");
+        assertEquals("MyService.java", cls.sourceFileName());
+        assertEquals(2, cls.methods().size());
+        assertEquals(40.0, cls.coverage("LINE"), 0.001);
+
+        JacocoXmlReader.MethodCoverage process = cls.methods().get(1);
+        assertEquals("process", process.name());
+        assertEquals("(ILjava/lang/String;)V", process.desc());
+        assertEquals(10, process.line());
+        assertEquals(25.0, process.coverage("LINE"), 0.001);
+        assertEquals(50.0, process.coverage("BRANCH"), 0.001);
+    }
+
+    @Test
+    @DisplayName("readAll should treat a missing counter as fully covered")
+    void readAll_missingCounterMeansFullyCovered() throws IOException {
+        JacocoXmlReader.MethodCoverage ctor = readAll(REPORT).classes.get("com/example/MyService")
+                .methods().get(0);
+
+        assertEquals("<init>", ctor.name());
+        assertEquals(100.0, ctor.coverage("BRANCH"), 0.001);
+    }
+
+    @Test
+    @DisplayName("readAll should descend into report groups")
+    void readAll_shouldDescendIntoGroups() throws IOException {
+        Collector report = readAll("""
+                <?xml version="1.0" encoding="UTF-8"?>
+                <report name="aggregate">
+                    <group name="module-a">
+                        <package name="com/example">
+                            <class name="com/example/Grouped" sourcefilename="Grouped.java">
+                                <method name="run" desc="()V" line="1">
+                                    <counter type="LINE" missed="0" covered="2"/>
+                                </method>
+                            </class>
+                        </package>
+                    </group>
+                </report>
+                """);
+
+        assertEquals(1, report.classes.get("com/example/Grouped").methods().size());
+    }
+
+    @Test
+    @DisplayName("readAll should report only report-level counters")
+    void readAll_shouldReportOnlyTopLevelCounters() throws IOException {
+        List<JacocoXmlReader.Counter> counters = readAll(REPORT).reportCounters;
+
+        assertEquals(2, counters.size());
+        assertEquals("LINE", counters.get(0).type());
+        assertEquals(4, counters.get(0).missed());
+        assertEquals(3, counters.get(0).covered());
+        assertEquals("METHOD", counters.get(1).type());
+    }
+}
@@ -46,6 +46,70 @@ class MavenExecutorToolTest {
         }
     }
 
+    @Nested
+    @DisplayName("Compile Guard Scope")
+    class CompileGuardScope {
+
+        @AfterEach
+        void tearDown() {
+            CompileGuard.getInstance().clearAllStatus();
+        }
+
+        @Test
+        @DisplayName("guarded test file should ignore other workers' unchecked files")
+        void guardedTestFile_shouldOnlyCheckOwnFile() throws Exception {
+            CompileGuard.getInstance().markFileModified("src/test/java/com/example/FooTest.java");
+            CompileGuard.getInstance().markFileModified("src/test/java/com/example/BarTest.java");
+            executor.setGuardedTestFile("src/test/java/com/example/FooTest.java");
+
+            MavenExecutorTool.ExecutionResult result = executor.compileProject();
+
+            assertEquals(-1, result.exitCode());
+            assertTrue(result.stdErr().contains("FooTest.java"));
+            assertFalse(result.stdErr().contains("BarTest.java"));
+        }
+
+        @Test
+        @DisplayName("without a guarded file every unchecked file should block")
+        void noGuardedTestFile_shouldCheckAllFiles() throws Exception {
+            CompileGuard.getInstance().markFileModified("src/test/java/com/example/BarTest.java");
+
+            MavenExecutorTool.ExecutionResult result = executor.executeTest("com.example.FooTest");
+
+            assertEquals(-1, result.exitCode());
+            assertTrue(result.stdErr().contains("BarTest.java"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Maven Daemon Mode")
+    class MavenDaemonMode {
+
+        @Test
+        @DisplayName("off should always use cold mvn")
+        void off_shouldUseMvn() {
+            executor.setMavenDaemon("off");
+
+            assertEquals("mvn", executor.mavenExecutable());
+        }
+
+        @Test
+        @DisplayName("mvnd should force the Maven daemon client")
+        void mvnd_shouldUseDaemonClient() {
+            executor.setMavenDaemon("MVND");
+
+            assertEquals("mvnd", executor.mavenExecutable());
+        }
+
+        @Test
+        @DisplayName("blank mode should keep auto detection")
+        void blank_shouldKeepAutoDetection() {
+            executor.setMavenDaemon(" ");
+
+            assertTrue(executor.mavenExecutable().startsWith("mvn"));
+        }
+    }
+
     @Nested
     @DisplayName("ExecutionResult Record")
     class ExecutionResultTest {
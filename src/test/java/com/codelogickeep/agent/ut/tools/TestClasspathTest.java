@@ -0,0 +1,100 @@
+package com.codelogickeep.agent.ut.tools;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TestClasspath (pom-hash keyed on-disk cache).
+ */
+class TestClasspathTest {
+
+    @TempDir
+    Path reactor;
+
+    private Path module;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        TestClasspath.clearCache();
+        Files.writeString(reactor.resolve("pom.xml"), "<project><modules><module>core</module></modules></project>");
+        module = reactor.resolve("core");
+        Files.createDirectories(module);
+        Files.writeString(module.resolve("pom.xml"), "<project><artifactId>core</artifactId></project>");
+    }
+
+    private void writeModuleOutput(Path dir, String... entries) throws IOException {
+        Path output = dir.resolve(TestClasspath.MODULE_OUTPUT);
+        Files.createDirectories(output.getParent());
+        Files.writeString(output, String.join(File.pathSeparator, entries));
+    }
+
+    @Test
+    @DisplayName("reactorRoot should walk up to the outermost directory with a pom.xml")
+    void reactorRoot_shouldFindOutermostPom() {
+        assertEquals(reactor, TestClasspath.reactorRoot(module));
+        assertEquals(reactor, TestClasspath.reactorRoot(reactor));
+    }
+
+    @Test
+    @DisplayName("pomHash should change only when a pom in the reactor changes")
+    void pomHash_shouldTrackPomContents() throws IOException {
+        String initial = TestClasspath.pomHash(reactor);
+        assertEquals(initial, TestClasspath.pomHash(reactor));
+
+        Files.writeString(module.resolve("pom.xml"), "<project><artifactId>core</artifactId><version>2</version></project>");
+        assertNotEquals(initial, TestClasspath.pomHash(reactor));
+    }
+
+    @Test
+    @DisplayName("collect should cache every module's classpath and dependencies should reuse it without Maven")
+    void collect_shouldFillCacheForAllModules() throws IOException {
+        writeModuleOutput(reactor, "/repo/a.jar");
+        writeModuleOutput(module, "/repo/a.jar", "/repo/b.jar");
+        assertFalse(TestClasspath.isCached(module));
+
+        assertEquals(2, TestClasspath.collect(module));
+
+        assertFalse(Files.exists(module.resolve(TestClasspath.MODULE_OUTPUT)));
+        assertTrue(TestClasspath.isCached(module));
+        assertTrue(Files.isDirectory(reactor.resolve(".utagent/classpath")));
+        assertEquals(List.of(Path.of("/repo/a.jar"), Path.of("/repo/b.jar")), TestClasspath.dependencies(module));
+
+        // 重启后（内存缓存清空）直接从磁盘读取
+        TestClasspath.clearCache();
+        assertEquals(List.of(Path.of("/repo/a.jar")), TestClasspath.dependencies(reactor));
+    }
+
+    @Test
+    @DisplayName("a pom change should invalidate the cache and prune the stale entry on the next collect")
+    void pomChange_shouldInvalidateCache() throws IOException {
+        writeModuleOutput(module, "/repo/a.jar");
+        TestClasspath.collect(module);
+        String oldHash = TestClasspath.pomHash(reactor);
+
+        Files.writeString(reactor.resolve("pom.xml"), "<project><modules><module>core</module></modules><v/></project>");
+        assertFalse(TestClasspath.isCached(module));
+
+        writeModuleOutput(module, "/repo/c.jar");
+        TestClasspath.collect(module);
+        assertTrue(TestClasspath.isCached(module));
+        assertFalse(Files.exists(reactor.resolve(".utagent/classpath").resolve(oldHash)));
+        assertEquals(List.of(Path.of("/repo/c.jar")), TestClasspath.dependencies(module));
+    }
+
+    @Test
+    @DisplayName("dependencies should return null when there is no pom.xml")
+    void dependencies_shouldReturnNullWithoutPom(@TempDir Path empty) {
+        assertNull(TestClasspath.dependencies(empty));
+        assertFalse(TestClasspath.isCached(empty));
+    }
+}